@@ -0,0 +1,189 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.authfilter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks failed logins so that clients retrying bad credentials are answered
+ * locally instead of reaching iRODS.
+ * <p/>
+ * Recently failed credentials (user name and salted password hash) are held
+ * in a bounded negative cache for a back-off window. Failures are also counted
+ * per user from each client address, and per client address, over a fixed
+ * window, and once a count passes its configured limit further logins for that
+ * user from that address, or from the address, are refused until the window
+ * ends. The user count is kept per address so that failures from one client
+ * cannot lock a user out everywhere.
+ *
+ */
+public class AuthFailureThrottle {
+
+	private WebDavConfig webDavConfig;
+	private ExpiringCache<String, Boolean> failedCredentials;
+	private ExpiringCache<String, AtomicInteger> userFailures;
+	private ExpiringCache<String, AtomicInteger> addressFailures;
+
+	private static final Logger log = LoggerFactory.getLogger(AuthFailureThrottle.class);
+
+	/**
+	 *
+	 */
+	public AuthFailureThrottle() {
+	}
+
+	/**
+	 * Wired into the spring config as the init method, builds the caches from
+	 * the injected configuration
+	 */
+	public void init() {
+		log.info("init()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+
+		failedCredentials = new ExpiringCache<String, Boolean>(
+				webDavConfig.getAuthFailureCacheTimeToLiveInSeconds() * 1000L,
+				webDavConfig.getAuthFailureCacheMaxEntries());
+		userFailures = new ExpiringCache<String, AtomicInteger>(webDavConfig.getAuthFailureWindowInSeconds() * 1000L,
+				webDavConfig.getAuthFailureCacheMaxEntries());
+		addressFailures = new ExpiringCache<String, AtomicInteger>(
+				webDavConfig.getAuthFailureWindowInSeconds() * 1000L, webDavConfig.getAuthFailureCacheMaxEntries());
+	}
+
+	/**
+	 * Check whether the given credentials failed recently
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 * @return <code>boolean</code> that is <code>true</code> if the
+	 *         credentials are known to be bad
+	 */
+	public boolean isKnownBadCredential(final String credentialKey) {
+		if (credentialKey == null || credentialKey.isEmpty()) {
+			throw new IllegalArgumentException("null or empty credentialKey");
+		}
+		return failedCredentials.get(credentialKey) != null;
+	}
+
+	/**
+	 * Check whether the user has passed the failure limit from the client
+	 * address in the current window
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param address
+	 *            <code>String</code> with the remote address of the client
+	 * @return <code>boolean</code> that is <code>true</code> if logins for
+	 *         the user from the address should be refused
+	 */
+	public boolean isUserThrottled(final String userName, final String address) {
+		return isOverLimit(userFailures, buildUserKey(userName, address), webDavConfig.getMaxAuthFailuresPerUser());
+	}
+
+	/**
+	 * Check whether the client address has passed the failure limit in the
+	 * current window
+	 *
+	 * @param address
+	 *            <code>String</code> with the remote address of the client
+	 * @return <code>boolean</code> that is <code>true</code> if logins from
+	 *         the address should be refused
+	 */
+	public boolean isAddressThrottled(final String address) {
+		return isOverLimit(addressFailures, address, webDavConfig.getMaxAuthFailuresPerAddress());
+	}
+
+	/**
+	 * Record a failed login
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param address
+	 *            <code>String</code> with the remote address of the client
+	 */
+	public void recordFailure(final String credentialKey, final String userName, final String address) {
+		log.info("recording failed login for user:{} from:{}", userName, address);
+		if (credentialKey != null && !credentialKey.isEmpty()) {
+			failedCredentials.put(credentialKey, Boolean.TRUE);
+		}
+		increment(userFailures, buildUserKey(userName, address));
+		increment(addressFailures, address);
+	}
+
+	/**
+	 * Record a successful login, which clears the failure count for the user
+	 * from the client address
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param address
+	 *            <code>String</code> with the remote address of the client
+	 */
+	public void recordSuccess(final String userName, final String address) {
+		String userKey = buildUserKey(userName, address);
+		if (userKey != null) {
+			userFailures.remove(userKey);
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the seconds a throttled client should wait
+	 *         before retrying
+	 */
+	public int getRetryAfterSeconds() {
+		return webDavConfig.getAuthFailureWindowInSeconds();
+	}
+
+	/**
+	 * @return <code>String</code> keying the user's failures from the address,
+	 *         or <code>null</code> without a user name. Addresses hold no
+	 *         spaces, so the key cannot be confused with another pair
+	 */
+	private String buildUserKey(final String userName, final String address) {
+		if (userName == null || userName.isEmpty()) {
+			return null;
+		}
+		return (address == null ? "" : address) + " " + userName;
+	}
+
+	private boolean isOverLimit(final ExpiringCache<String, AtomicInteger> counters, final String key,
+			final int limit) {
+		if (limit <= 0 || key == null || key.isEmpty()) {
+			return false;
+		}
+		AtomicInteger count = counters.get(key);
+		return count != null && count.get() >= limit;
+	}
+
+	private void increment(final ExpiringCache<String, AtomicInteger> counters, final String key) {
+		if (key == null || key.isEmpty()) {
+			return;
+		}
+		counters.putIfAbsent(key, new AtomicInteger()).incrementAndGet();
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+}
@@ -11,10 +11,12 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.webdav.config.WebDavConfig;
@@ -23,6 +25,19 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Servlet filter implements basic auth
+ * <p/>
+ * When an {@link AuthFailureThrottle} is configured, credentials that failed
+ * recently are answered with a 401 without another iRODS login, and a user
+ * from a client address, or a client address, with too many recent failures is
+ * refused with a 429 until the failure window ends. Credentials already in the
+ * login cache are never throttled, so a user is not locked out by someone else
+ * guessing their password.
+ * <p/>
+ * When a {@link SessionTokenService} is configured and session tokens are
+ * enabled, a successful basic login is answered with a signed session token
+ * (cookie and header). A later request presenting a valid token in the cookie
+ * or as a bearer token is authenticated locally, without decoding basic auth
+ * or logging in to iRODS again.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
@@ -33,6 +48,20 @@ public class BasicAuthFilter implements Filter {
 	private WebDavConfig webDavConfig;
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
 	private IrodsAuthService irodsAuthService;
+	private AuthFailureThrottle authFailureThrottle;
+	private SessionTokenService sessionTokenService;
+
+	/**
+	 * Too Many Requests, not defined in the servlet api
+	 */
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	/**
+	 * Response header carrying a newly issued session token
+	 */
+	public static final String SESSION_TOKEN_HEADER = "X-Session-Token";
 
 	/**
 	 *
@@ -67,31 +96,99 @@ public class BasicAuthFilter implements Filter {
 
 		String auth = httpRequest.getHeader("Authorization");
 
-		if (auth == null || auth.isEmpty()) {
-			log.error("auth null or empty");
-			sendAuthError(httpResponse);
-			return;
-		}
-
 		AuthResponse authResponse = null;
 		try {
 
+			if (isSessionTokensEnabled()) {
+				String token = findSessionToken(httpRequest, auth);
+				if (token != null) {
+					SessionToken sessionToken = sessionTokenService.verifyToken(token);
+					if (sessionToken != null) {
+						authResponse = irodsAuthService.authenticateWithSessionToken(sessionToken);
+					}
+
+					if (authResponse != null) {
+						log.debug("authenticated with session token:{}", sessionToken.getTokenId());
+						chain.doFilter(httpRequest, httpResponse);
+						return;
+					}
+					log.debug("session token not usable, basic auth required");
+				}
+			}
+
+			if (auth == null || auth.isEmpty() || auth.startsWith(BEARER_PREFIX)) {
+				log.error("auth null or empty, or session token not valid");
+				sendAuthError(httpResponse);
+				return;
+			}
+
 			UserAndPassword userAndPassword = WebDavAuthUtils.getAccountFromBasicAuthValues(auth, webDavConfig);
 
-			authResponse = irodsAuthService.authenticate(userAndPassword.getUserId(), userAndPassword.getPassword());
+			String credentialKey = null;
+			if (!userAndPassword.getUserId().isEmpty() && !userAndPassword.getPassword().isEmpty()) {
+				credentialKey = irodsAuthService.buildCredentialKey(userAndPassword.getUserId(),
+						userAndPassword.getPassword());
+			}
+
+			if (authFailureThrottle != null && credentialKey != null
+					&& !irodsAuthService.isCachedLogin(credentialKey)) {
+				if (authFailureThrottle.isAddressThrottled(httpRequest.getRemoteAddr())
+						|| authFailureThrottle.isUserThrottled(userAndPassword.getUserId(),
+								httpRequest.getRemoteAddr())) {
+					log.warn("too many failed logins for user:{} or address:{}", userAndPassword.getUserId(),
+							httpRequest.getRemoteAddr());
+					sendThrottledError(httpResponse);
+					return;
+				}
+
+				if (authFailureThrottle.isKnownBadCredential(credentialKey)) {
+					log.warn("credentials failed recently, not retrying login for:{}", userAndPassword.getUserId());
+					sendAuthError(httpResponse);
+					return;
+				}
+			}
+
+			try {
+				authResponse = irodsAuthService.authenticate(userAndPassword.getUserId(),
+						userAndPassword.getPassword());
+			} catch (AuthenticationException e) {
+				if (authFailureThrottle != null) {
+					authFailureThrottle.recordFailure(credentialKey, userAndPassword.getUserId(),
+							httpRequest.getRemoteAddr());
+				}
+				throw e;
+			}
+
+			if (authFailureThrottle != null) {
+				authFailureThrottle.recordSuccess(userAndPassword.getUserId(), httpRequest.getRemoteAddr());
+			}
+
+			if (isSessionTokensEnabled()) {
+				SessionToken sessionToken = sessionTokenService.issueToken(credentialKey,
+						userAndPassword.getUserId());
+				irodsAuthService.registerSessionToken(sessionToken, credentialKey, authResponse);
+				addSessionToken(httpRequest, httpResponse, sessionToken);
+			}
 
 			log.debug("authResponse:{}", authResponse);
 			log.debug("success!");
 
 			chain.doFilter(httpRequest, httpResponse);
-			log.info(">>>>> closing conn!");
-			this.getIrodsAccessObjectFactory().closeSessionAndEatExceptions();
 			return;
 
 		} catch (JargonException e) {
 			log.warn("auth exception", e);
 			sendAuthError(httpResponse);
 			return;
+		} finally {
+			/*
+			 * releases the connections held by this thread, when the connection
+			 * pool is configured this returns them to the pool rather than
+			 * disconnecting
+			 */
+			log.debug("releasing iRODS connections for request");
+			IrodsRequestContext.clear();
+			this.getIrodsAccessObjectFactory().closeSessionAndEatExceptions();
 		}
 
 	}
@@ -101,6 +198,59 @@ public class BasicAuthFilter implements Filter {
 		httpResponse.sendError(HttpServletResponse.SC_UNAUTHORIZED);
 	}
 
+	private boolean isSessionTokensEnabled() {
+		return sessionTokenService != null && webDavConfig.isUseSessionTokens();
+	}
+
+	/**
+	 * Find a session token in a bearer authorization header or in the session
+	 * cookie
+	 *
+	 * @return <code>String</code> with the token, or <code>null</code> if
+	 *         none was presented
+	 */
+	private String findSessionToken(final HttpServletRequest httpRequest, final String auth) {
+		if (auth != null && auth.startsWith(BEARER_PREFIX)) {
+			return auth.substring(BEARER_PREFIX.length()).trim();
+		}
+
+		Cookie[] cookies = httpRequest.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (webDavConfig.getSessionTokenCookieName().equals(cookie.getName())) {
+					return cookie.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Hand the session token to the client as a cookie, and as a header for
+	 * clients that will send it as a bearer token. The cookie is written as a
+	 * header so that it can be marked HttpOnly under older servlet containers
+	 */
+	private void addSessionToken(final HttpServletRequest httpRequest, final HttpServletResponse httpResponse,
+			final SessionToken sessionToken) {
+		long maxAge = Math.max(0, (sessionToken.getExpiresAt() - System.currentTimeMillis()) / 1000);
+		String path = httpRequest.getContextPath();
+		StringBuilder cookie = new StringBuilder();
+		cookie.append(webDavConfig.getSessionTokenCookieName()).append('=').append(sessionToken.getValue());
+		cookie.append("; Path=").append(path == null || path.isEmpty() ? "/" : path);
+		cookie.append("; Max-Age=").append(maxAge);
+		cookie.append("; HttpOnly");
+		if (httpRequest.isSecure()) {
+			cookie.append("; Secure");
+		}
+		httpResponse.addHeader("Set-Cookie", cookie.toString());
+		httpResponse.setHeader(SESSION_TOKEN_HEADER, sessionToken.getValue());
+	}
+
+	private void sendThrottledError(final HttpServletResponse httpResponse) throws IOException {
+		httpResponse.setHeader("Retry-After", String.valueOf(authFailureThrottle.getRetryAfterSeconds()));
+		httpResponse.sendError(SC_TOO_MANY_REQUESTS);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -156,4 +306,34 @@ public class BasicAuthFilter implements Filter {
 		this.irodsAuthService = irodsAuthService;
 	}
 
+	/**
+	 * @return the authFailureThrottle
+	 */
+	public AuthFailureThrottle getAuthFailureThrottle() {
+		return authFailureThrottle;
+	}
+
+	/**
+	 * @param authFailureThrottle
+	 *            the authFailureThrottle to set
+	 */
+	public void setAuthFailureThrottle(final AuthFailureThrottle authFailureThrottle) {
+		this.authFailureThrottle = authFailureThrottle;
+	}
+
+	/**
+	 * @return the sessionTokenService
+	 */
+	public SessionTokenService getSessionTokenService() {
+		return sessionTokenService;
+	}
+
+	/**
+	 * @param sessionTokenService
+	 *            the sessionTokenService to set
+	 */
+	public void setSessionTokenService(final SessionTokenService sessionTokenService) {
+		this.sessionTokenService = sessionTokenService;
+	}
+
 }
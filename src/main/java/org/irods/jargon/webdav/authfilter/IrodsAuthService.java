@@ -3,6 +3,12 @@
  */
 package org.irods.jargon.webdav.authfilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import org.apache.commons.codec.binary.Hex;
 import org.irods.jargon.core.connection.AuthScheme;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.auth.AuthResponse;
@@ -13,13 +19,33 @@ import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
 import org.irods.jargon.webdav.exception.WebDavException;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.utils.ExpiringCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Service to handle iRODS authentication, and conversion of auth tokens to
  * iRODS accounts
- *
+ * <p/>
+ * Successful logins are held in a process-wide cache keyed by the user name
+ * and a salted hash of the password, so that a client that keeps presenting
+ * the same credentials is not logged in to iRODS again until the configured
+ * time to live passes. The clear text password is never used as a key.
+ * <p/>
+ * When configured to use a proxy user, the user's own login only verifies the
+ * credentials. The account handed back for operations is a proxy account for
+ * the configured rodsadmin with the client user set, so no user password is
+ * needed to connect while iRODS still enforces the client user's permissions.
+ * iRODS fixes the client user when a connection starts, so pooled connections
+ * stay keyed per client user, and it is the pool's total cap that bounds the
+ * connections to the catalog.
+ * <p/>
+ * With PAM auth, the temporary password iRODS issues after a PAM login is held
+ * encrypted, and later logins with the same credentials use it with standard
+ * auth until it nears the end of its lifetime, avoiding repeated PAM
+ * exchanges. The password is only held in the {@link PamPasswordCache}, the
+ * login and session caches keep just the user name for such a login and the
+ * account is rebuilt from the held password when it is used.
  *
  * @author Mike Conway - DICE
  *
@@ -29,10 +55,35 @@ public class IrodsAuthService {
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
 	private WebDavConfig webDavConfig;
 
-	private static final ThreadLocal<AuthResponse> authResponseCache = new ThreadLocal<AuthResponse>();
-
 	private static final Logger log = LoggerFactory.getLogger(IrodsAuthService.class);
 
+	/**
+	 * Marks the thread local credential key of a request authenticated with a
+	 * session token rather than a password
+	 */
+	private static final String SESSION_TOKEN_KEY_PREFIX = "session-token:";
+
+	/**
+	 * Per-process salt for hashing passwords into cache keys
+	 */
+	private final byte[] credentialSalt = new byte[16];
+
+	/**
+	 * Shared cache of successful logins, lazily built from the config
+	 */
+	private volatile ExpiringCache<String, CachedLogin> authCache;
+
+	/**
+	 * Logins behind issued session tokens by token id, lazily built from the
+	 * config
+	 */
+	private volatile ExpiringCache<String, CachedLogin> sessionCache;
+
+	/**
+	 * Temporary passwords from PAM logins, lazily built from the config
+	 */
+	private volatile PamPasswordCache pamPasswordCache;
+
 	/**
 	 * Get the response that was cached via the basic auth process
 	 * 
@@ -42,14 +93,31 @@ public class IrodsAuthService {
 	 */
 	public AuthResponse getCached(String userName, String password) {
 
-		AuthResponse cached = authResponseCache.get();
+		String credentialKey = buildCredentialKey(userName, password);
+		AuthResponse cached = restoreLogin(getAuthCache().get(credentialKey), credentialKey, password);
+		if (cached != null) {
+			log.debug("found in shared auth cache");
+			return cached;
+		}
+
+		IrodsRequestContext context = IrodsRequestContext.current();
 
-		if (cached == null) {
+		if (context == null) {
 			return null;
 		}
+		cached = context.getAuthResponse();
 
-		if (cached.getAuthenticatingIRODSAccount().getUserName().equals(userName)
-				&& cached.getAuthenticatingIRODSAccount().getPassword().equals(password)) {
+		/*
+		 * compare credential keys rather than the account password, as a proxy
+		 * account carries the proxy user's password. A request that already
+		 * presented a valid session token for the user is trusted on the token
+		 */
+		String contextCredentialKey = context.getCredentialKey();
+		if (!cached.getAuthenticatingIRODSAccount().getUserName().equals(userName) || contextCredentialKey == null) {
+			throw new WebDavRuntimeException("auth cache invalidation error");
+		} else if (contextCredentialKey.startsWith(SESSION_TOKEN_KEY_PREFIX)) {
+			log.info("verified by session token");
+		} else if (credentialKey.equals(contextCredentialKey)) {
 			log.info("verified cache");
 		} else {
 			throw new WebDavRuntimeException("auth cache invalidation error");
@@ -81,18 +149,16 @@ public class IrodsAuthService {
 			throw new IllegalArgumentException("null or empty password");
 		}
 
-		/*
-		 * log.debug("look in cache for cached login"); AuthResponse cached =
-		 * authResponseCache.get();
-		 * 
-		 * if (cached != null) { log.debug("in thread local cache"); if
-		 * (!cached.getAuthenticatingIRODSAccount().getUserName()
-		 * .equals(userName)) { log.warn("cache is not same as user name"); }
-		 * else { return cached; } }
-		 */
+		String credentialKey = buildCredentialKey(userName, password);
+		AuthResponse cached = restoreLogin(getAuthCache().get(credentialKey), credentialKey, password);
+		if (cached != null) {
+			log.debug("found in shared auth cache, no login needed");
+			IrodsRequestContext.bind(new IrodsRequestContext(irodsAccessObjectFactory, cached, credentialKey));
+			return cached;
+		}
 
 		/*
-		 * Did not hit the thread local cache
+		 * Did not hit the shared cache
 		 */
 		log.debug("login to irods and cache");
 
@@ -110,15 +176,35 @@ public class IrodsAuthService {
 
 		log.debug("authenticating:{}", irodsAccount);
 		try {
-			AuthResponse response = irodsAccessObjectFactory
-					.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(irodsAccount);
-			if (response.getAuthenticatingIRODSAccount().getPassword().equals(irodsAccount.getPassword())) {
-				log.info("verified, can use cache");
-			} else {
-				log.error("authentication exception invalid auth");
-				throw new AuthenticationException("invalid cached password");
+			boolean pam = irodsAccount.getAuthenticationScheme() == AuthScheme.PAM;
+			AuthResponse response = null;
+			if (pam) {
+				response = authenticateWithHeldPamPassword(credentialKey, userName, password);
+			}
+
+			if (response == null) {
+				response = irodsAccessObjectFactory
+						.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(irodsAccount);
+				if (response.getAuthenticatingIRODSAccount().getPassword().equals(irodsAccount.getPassword())) {
+					log.info("verified, can use cache");
+				} else {
+					log.error("authentication exception invalid auth");
+					throw new AuthenticationException("invalid cached password");
+				}
+
+				if (pam) {
+					response = holdPamPassword(credentialKey, userName, password, response);
+				}
 			}
-			authResponseCache.set(response);
+
+			if (webDavConfig.isUseProxyUser()) {
+				log.debug("credentials verified, operations will use proxy account");
+				irodsAccessObjectFactory.closeSessionAndEatExceptions(irodsAccount);
+				response = buildProxyAuthResponse(userName);
+			}
+
+			IrodsRequestContext.bind(new IrodsRequestContext(irodsAccessObjectFactory, response, credentialKey));
+			getAuthCache().put(credentialKey, toCachedLogin(response));
 			return response;
 		} catch (AuthenticationException e) {
 			log.error("auth exception", e);
@@ -130,6 +216,378 @@ public class IrodsAuthService {
 
 	}
 
+	/**
+	 * Log in with standard auth using a temporary password held from an
+	 * earlier PAM login with the same credentials
+	 *
+	 * @return {@link AuthResponse} for the temporary password, or
+	 *         <code>null</code> if none is held or iRODS no longer accepts it
+	 * @throws JargonException
+	 */
+	private AuthResponse authenticateWithHeldPamPassword(final String credentialKey, final String userName,
+			final String password) throws JargonException {
+		PamPasswordCache cache = getPamPasswordCache();
+		String temporaryPassword = cache.get(credentialKey, userName, password);
+		if (temporaryPassword == null) {
+			return null;
+		}
+
+		IRODSAccount temporaryAccount = buildTemporaryPamAccount(userName, temporaryPassword);
+		try {
+			log.debug("login with held PAM password");
+			return irodsAccessObjectFactory
+					.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(temporaryAccount);
+		} catch (AuthenticationException e) {
+			log.info("held PAM password refused, repeating PAM login");
+			cache.remove(credentialKey);
+			return null;
+		}
+	}
+
+	/**
+	 * Hold the temporary password from a PAM login, and answer a response
+	 * that uses it with standard auth, so that later connections for this
+	 * login do not repeat the PAM exchange
+	 *
+	 * @return {@link AuthResponse} to use for the login
+	 */
+	private AuthResponse holdPamPassword(final String credentialKey, final String userName, final String password,
+			final AuthResponse pamResponse) {
+		PamPasswordCache cache = getPamPasswordCache();
+		IRODSAccount temporaryAccount = pamResponse.getAuthenticatedIRODSAccount();
+		if (!cache.isEnabled() || temporaryAccount == null || temporaryAccount.getPassword() == null
+				|| temporaryAccount.getPassword().isEmpty()
+				|| temporaryAccount.getAuthenticationScheme() != AuthScheme.STANDARD) {
+			return pamResponse;
+		}
+
+		log.debug("holding temporary PAM password");
+		cache.put(credentialKey, userName, password, temporaryAccount.getPassword());
+
+		AuthResponse response = new AuthResponse();
+		response.setAuthenticatingIRODSAccount(temporaryAccount);
+		response.setAuthenticatedIRODSAccount(temporaryAccount);
+		response.setSuccessful(true);
+		return response;
+	}
+
+	/**
+	 * Build the standard auth account that connects with a temporary PAM
+	 * password
+	 *
+	 * @return {@link IRODSAccount} for the temporary password
+	 * @throws JargonException
+	 */
+	private IRODSAccount buildTemporaryPamAccount(final String userName, final String temporaryPassword)
+			throws JargonException {
+		return IRODSAccount.instance(webDavConfig.getHost(), webDavConfig.getPort(), userName, temporaryPassword, "",
+				webDavConfig.getZone(), webDavConfig.getDefaultStorageResource(), AuthScheme.STANDARD);
+	}
+
+	/**
+	 * Check whether a login connects with a temporary password held in the
+	 * {@link PamPasswordCache}, such a login is cached without its account
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> for a login with
+	 *         a held PAM password
+	 */
+	private boolean isHeldPamLogin(final AuthResponse authResponse) {
+		IRODSAccount account = authResponse.getAuthenticatingIRODSAccount();
+		return !webDavConfig.isUseProxyUser() && AuthScheme.PAM.toString().equals(webDavConfig.getAuthScheme())
+				&& account != null && account.getAuthenticationScheme() == AuthScheme.STANDARD;
+	}
+
+	/**
+	 * @return {@link CachedLogin} to hold for the login, without the account
+	 *         if it uses a held PAM password
+	 */
+	private CachedLogin toCachedLogin(final AuthResponse authResponse) {
+		if (isHeldPamLogin(authResponse)) {
+			return new CachedLogin(null, authResponse.getAuthenticatingIRODSAccount().getUserName());
+		}
+		return new CachedLogin(authResponse, null);
+	}
+
+	/**
+	 * Turn a cached login back into a response, rebuilding the account of a
+	 * login that uses a held PAM password
+	 *
+	 * @param cachedLogin
+	 *            {@link CachedLogin} from a cache, may be <code>null</code>
+	 * @param pamKey
+	 *            <code>String</code> the PAM password is held under
+	 * @param secret
+	 *            <code>String</code> the client presented, which opens the
+	 *            held password
+	 * @return {@link AuthResponse}, or <code>null</code> if nothing was cached
+	 *         or the held PAM password is gone
+	 */
+	private AuthResponse restoreLogin(final CachedLogin cachedLogin, final String pamKey, final String secret) {
+		if (cachedLogin == null) {
+			return null;
+		}
+
+		if (cachedLogin.authResponse != null) {
+			return cachedLogin.authResponse;
+		}
+
+		String temporaryPassword = getPamPasswordCache().get(pamKey, cachedLogin.userName, secret);
+		if (temporaryPassword == null) {
+			log.debug("held PAM password no longer available");
+			return null;
+		}
+
+		try {
+			IRODSAccount temporaryAccount = buildTemporaryPamAccount(cachedLogin.userName, temporaryPassword);
+			AuthResponse response = new AuthResponse();
+			response.setAuthenticatingIRODSAccount(temporaryAccount);
+			response.setAuthenticatedIRODSAccount(temporaryAccount);
+			response.setSuccessful(true);
+			return response;
+		} catch (JargonException e) {
+			log.error("unable to rebuild account from held PAM password", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Authenticate a request that presented a verified session token, without
+	 * contacting iRODS. The login made when the token was issued is reused,
+	 * and in proxy user mode a proxy account is built for the token's user if
+	 * this server did not issue the token or no longer holds the login.
+	 *
+	 * @param sessionToken
+	 *            {@link SessionToken} that has passed signature, expiry and
+	 *            revocation checks
+	 * @return {@link AuthResponse} for the token's user, or <code>null</code>
+	 *         if the login behind the token is not available and the client
+	 *         must authenticate again
+	 * @throws WebDavException
+	 */
+	public AuthResponse authenticateWithSessionToken(final SessionToken sessionToken) throws WebDavException {
+		log.debug("authenticateWithSessionToken()");
+
+		if (sessionToken == null) {
+			throw new IllegalArgumentException("null sessionToken");
+		}
+
+		AuthResponse response = restoreLogin(getSessionCache().get(sessionToken.getTokenId()),
+				SESSION_TOKEN_KEY_PREFIX + sessionToken.getTokenId(), sessionToken.getValue());
+		if (response == null) {
+			if (!webDavConfig.isUseProxyUser()) {
+				log.debug("no login held for session token:{}", sessionToken.getTokenId());
+				return null;
+			}
+
+			try {
+				response = buildProxyAuthResponse(sessionToken.getUserName());
+			} catch (JargonException e) {
+				log.error("jargon exception building proxy account", e);
+				throw new WebDavException("exception in auth", e);
+			}
+			registerSessionToken(sessionToken, null, response);
+		}
+
+		IrodsRequestContext.bind(new IrodsRequestContext(irodsAccessObjectFactory, response,
+				SESSION_TOKEN_KEY_PREFIX + sessionToken.getTokenId()));
+		return response;
+	}
+
+	/**
+	 * Hold the login behind a newly issued session token until the token
+	 * expires. A login that uses a held PAM password is held no longer than
+	 * that password, whose copy for the session can only be opened with the
+	 * token
+	 *
+	 * @param sessionToken
+	 *            {@link SessionToken} handed to the client
+	 * @param credentialKey
+	 *            <code>String</code> with the credential key of the login that
+	 *            issued the token, may be <code>null</code> if there was none
+	 * @param authResponse
+	 *            {@link AuthResponse} from the login that issued the token
+	 */
+	public void registerSessionToken(final SessionToken sessionToken, final String credentialKey,
+			final AuthResponse authResponse) {
+		if (sessionToken == null) {
+			throw new IllegalArgumentException("null sessionToken");
+		}
+
+		if (authResponse == null) {
+			throw new IllegalArgumentException("null authResponse");
+		}
+
+		long timeToLive = sessionToken.getExpiresAt() - System.currentTimeMillis();
+		if (!isHeldPamLogin(authResponse)) {
+			getSessionCache().put(sessionToken.getTokenId(), new CachedLogin(authResponse, null), timeToLive);
+			return;
+		}
+
+		PamPasswordCache cache = getPamPasswordCache();
+		if (credentialKey != null) {
+			timeToLive = Math.min(timeToLive, cache.getTimeToLive(credentialKey));
+		} else {
+			timeToLive = 0;
+		}
+
+		if (timeToLive <= 0) {
+			log.debug("no held PAM password for session token:{}", sessionToken.getTokenId());
+			return;
+		}
+
+		IRODSAccount temporaryAccount = authResponse.getAuthenticatingIRODSAccount();
+		cache.put(SESSION_TOKEN_KEY_PREFIX + sessionToken.getTokenId(), temporaryAccount.getUserName(),
+				sessionToken.getValue(), temporaryAccount.getPassword(), timeToLive);
+		getSessionCache().put(sessionToken.getTokenId(), toCachedLogin(authResponse), timeToLive);
+	}
+
+	/**
+	 * Build an <code>AuthResponse</code> whose account connects as the
+	 * configured proxy user on behalf of the given client user
+	 *
+	 * @param userName
+	 *            <code>String</code> with the client user name, already
+	 *            verified
+	 * @return {@link AuthResponse} with the proxy account as the account to
+	 *         use for operations
+	 * @throws JargonException
+	 */
+	AuthResponse buildProxyAuthResponse(final String userName) throws JargonException {
+		if (webDavConfig.getProxyUser() == null || webDavConfig.getProxyUser().isEmpty()) {
+			throw new ConfigurationRuntimeException("proxy user mode requires a proxy user");
+		}
+
+		String proxyZone = webDavConfig.getProxyZone();
+		if (proxyZone == null || proxyZone.isEmpty()) {
+			proxyZone = webDavConfig.getZone();
+		}
+
+		IRODSAccount proxyAccount = IRODSAccount.instanceWithProxy(webDavConfig.getHost(), webDavConfig.getPort(),
+				userName, webDavConfig.getProxyPassword(), "", webDavConfig.getZone(),
+				webDavConfig.getDefaultStorageResource(), webDavConfig.getProxyUser(), proxyZone);
+
+		AuthResponse proxyResponse = new AuthResponse();
+		proxyResponse.setAuthenticatingIRODSAccount(proxyAccount);
+		proxyResponse.setAuthenticatedIRODSAccount(proxyAccount);
+		proxyResponse.setSuccessful(true);
+		return proxyResponse;
+	}
+
+	/**
+	 * Build the key used to cache information about a login, this is the user
+	 * name and a salted hash of the password, so that the password itself is
+	 * not retained as a key
+	 *
+	 * @param userName
+	 *            <code>String</code> user name
+	 * @param password
+	 *            <code>String</code> password
+	 * @return <code>String</code> with the cache key
+	 */
+	String buildCredentialKey(final String userName, final String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(credentialSalt);
+			digest.update(password.getBytes(StandardCharsets.UTF_8));
+			return userName + ":" + Hex.encodeHexString(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			log.error("no SHA-256 digest available", e);
+			throw new WebDavRuntimeException("unable to hash credential", e);
+		}
+	}
+
+	/**
+	 * Check whether a login for the given credential key is held in the shared
+	 * cache
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> from {@link #buildCredentialKey}
+	 * @return <code>boolean</code> that is <code>true</code> if the login is
+	 *         cached
+	 */
+	boolean isCachedLogin(final String credentialKey) {
+		return getAuthCache().get(credentialKey) != null;
+	}
+
+	/**
+	 * Get the shared cache of successful logins, creating it from the config
+	 * on first use
+	 *
+	 * @return {@link ExpiringCache} of {@link CachedLogin} by credential key
+	 */
+	private ExpiringCache<String, CachedLogin> getAuthCache() {
+		ExpiringCache<String, CachedLogin> cache = authCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = authCache;
+				if (cache == null) {
+					if (webDavConfig == null) {
+						throw new ConfigurationRuntimeException("webDavConfig not available");
+					}
+					log.info("creating auth cache with ttl of {} seconds",
+							webDavConfig.getAuthCacheTimeToLiveInSeconds());
+					cache = new ExpiringCache<String, CachedLogin>(
+							webDavConfig.getAuthCacheTimeToLiveInSeconds() * 1000L,
+							webDavConfig.getAuthCacheMaxEntries());
+					authCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Get the cache of logins behind session tokens, creating it from the
+	 * config on first use
+	 *
+	 * @return {@link ExpiringCache} of {@link CachedLogin} by token id
+	 */
+	private ExpiringCache<String, CachedLogin> getSessionCache() {
+		ExpiringCache<String, CachedLogin> cache = sessionCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = sessionCache;
+				if (cache == null) {
+					if (webDavConfig == null) {
+						throw new ConfigurationRuntimeException("webDavConfig not available");
+					}
+					cache = new ExpiringCache<String, CachedLogin>(
+							webDavConfig.getSessionTokenTimeToLiveInSeconds() * 1000L,
+							webDavConfig.getSessionTokenMaxEntries());
+					sessionCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Get the cache of temporary PAM passwords, creating it from the config on
+	 * first use. Passwords are held until the renewal margin before their
+	 * assumed lifetime ends
+	 *
+	 * @return {@link PamPasswordCache}
+	 */
+	private PamPasswordCache getPamPasswordCache() {
+		PamPasswordCache cache = pamPasswordCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = pamPasswordCache;
+				if (cache == null) {
+					if (webDavConfig == null) {
+						throw new ConfigurationRuntimeException("webDavConfig not available");
+					}
+					long holdSeconds = webDavConfig.getPamPasswordLifetimeInSeconds()
+							- webDavConfig.getPamPasswordRenewalMarginInSeconds();
+					log.info("holding temporary PAM passwords for {} seconds", Math.max(0, holdSeconds));
+					cache = new PamPasswordCache(holdSeconds * 1000L, webDavConfig.getPamPasswordCacheMaxEntries());
+					pamPasswordCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
 	/**
 	 * Given a user name and password, interpolate with the configuration to
 	 * derive iRODS accounts
@@ -195,25 +653,27 @@ public class IrodsAuthService {
 	}
 
 	/**
-	 * Access the cache that holds the current authentication (in a thread
-	 * local) and return an irodsAccount suitable for connecting to the grid.
+	 * Access the request context bound to the current thread and return an
+	 * irodsAccount suitable for connecting to the grid. Code that has an
+	 * {@link IrodsRequestContext} should use it directly.
 	 *
 	 * @return {@link IRODSAccount} with the appropriate authentication
 	 *         credential
 	 */
 	public static IRODSAccount retrieveCurrentIrodsAccount() {
 		log.debug("retrieveCurrentIrodsAccount()");
-		AuthResponse authResponse = authResponseCache.get();
-		if (authResponse == null) {
-			throw new WebDavRuntimeException("no authResponseCache value");
+		IrodsRequestContext context = IrodsRequestContext.current();
+		if (context == null) {
+			throw new WebDavRuntimeException("no request context bound");
 		}
-		return retrieveIrodsAccountFromAuthResponse(authResponse);
+		return context.getIrodsAccount();
 	}
 
 	/**
 	 *
 	 */
 	public IrodsAuthService() {
+		new SecureRandom().nextBytes(credentialSalt);
 	}
 
 	/**
@@ -246,4 +706,19 @@ public class IrodsAuthService {
 		this.webDavConfig = webDavConfig;
 	}
 
+	/**
+	 * A login held in the auth or session cache. A login that uses a held PAM
+	 * password keeps only the user name, and its account is rebuilt from the
+	 * {@link PamPasswordCache} when used
+	 */
+	private static final class CachedLogin {
+		private final AuthResponse authResponse;
+		private final String userName;
+
+		CachedLogin(final AuthResponse authResponse, final String userName) {
+			this.authResponse = authResponse;
+			this.userName = userName;
+		}
+	}
+
 }
@@ -0,0 +1,259 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.authfilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionAO;
+import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
+import org.irods.jargon.core.pub.DataObjectAO;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-request iRODS context, carrying the authenticated account along with
+ * the file factory and access objects for it, so that they are looked up once
+ * per request rather than on every resource call.
+ * <p/>
+ * The context is created when the request is authenticated, and bound to the
+ * thread running the filter chain through {@link #bind(IrodsRequestContext)}.
+ * The resource factory reads it once per request and hands it to the
+ * resources it builds, so resources keep working with the right account if
+ * later calls run on another thread (async servlets, virtual threads). The
+ * filter calls {@link #clear()} when the request ends, closing anything
+ * registered with the context and leaving nothing behind on a pooled thread.
+ * <p/>
+ * A context belongs to a single request and is not meant to be shared between
+ * concurrent requests. Access objects fetch their connection from the iRODS
+ * session on each call, and the session keeps connections per thread, so a
+ * worker thread calling them for the request (listing prefetch, tree walk,
+ * parallel transfer) opens a connection of its own. Such a task must call
+ * <code>closeSessionAndEatExceptions</code> for the account in a
+ * <code>finally</code> block, or the connection is left open on the worker.
+ *
+ */
+public class IrodsRequestContext {
+
+	private static final ThreadLocal<IrodsRequestContext> currentContext = new ThreadLocal<IrodsRequestContext>();
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final AuthResponse authResponse;
+	private final IRODSAccount irodsAccount;
+	private final String credentialKey;
+
+	private IRODSFileFactory irodsFileFactory;
+	private CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO;
+	private CollectionAO collectionAO;
+	private DataObjectAO dataObjectAO;
+	private DataTransferOperations dataTransferOperations;
+	private IRODSGenQueryExecutor irodsGenQueryExecutor;
+	private final List<Closeable> closeables = new ArrayList<Closeable>();
+
+	private static final Logger log = LoggerFactory.getLogger(IrodsRequestContext.class);
+
+	/**
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} for the request
+	 * @param authResponse
+	 *            {@link AuthResponse} from authenticating the request
+	 * @param credentialKey
+	 *            <code>String</code> identifying the credentials the request
+	 *            was authenticated with, may be <code>null</code>
+	 */
+	public IrodsRequestContext(final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final AuthResponse authResponse, final String credentialKey) {
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (authResponse == null) {
+			throw new IllegalArgumentException("null authResponse");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.authResponse = authResponse;
+		irodsAccount = IrodsAuthService.retrieveIrodsAccountFromAuthResponse(authResponse);
+		this.credentialKey = credentialKey;
+	}
+
+	/**
+	 * @return {@link IrodsRequestContext} bound to the current thread, or
+	 *         <code>null</code> if none is bound
+	 */
+	public static IrodsRequestContext current() {
+		return currentContext.get();
+	}
+
+	/**
+	 * Bind a context to the current thread, a context already bound is closed
+	 *
+	 * @param context
+	 *            {@link IrodsRequestContext} to bind
+	 */
+	public static void bind(final IrodsRequestContext context) {
+		if (context == null) {
+			throw new IllegalArgumentException("null context");
+		}
+
+		IrodsRequestContext previous = currentContext.get();
+		if (previous != null && previous != context) {
+			previous.close();
+		}
+		currentContext.set(context);
+	}
+
+	/**
+	 * Close and unbind any context bound to the current thread
+	 */
+	public static void clear() {
+		IrodsRequestContext context = currentContext.get();
+		if (context != null) {
+			context.close();
+			currentContext.remove();
+		}
+	}
+
+	/**
+	 * @return {@link IRODSAccount} to use for operations in this request
+	 */
+	public IRODSAccount getIrodsAccount() {
+		return irodsAccount;
+	}
+
+	/**
+	 * @return {@link AuthResponse} from authenticating this request
+	 */
+	public AuthResponse getAuthResponse() {
+		return authResponse;
+	}
+
+	/**
+	 * @return the irodsAccessObjectFactory
+	 */
+	public IRODSAccessObjectFactory getIrodsAccessObjectFactory() {
+		return irodsAccessObjectFactory;
+	}
+
+	/**
+	 * @return <code>String</code> with the credential key, or a session token
+	 *         marker
+	 */
+	String getCredentialKey() {
+		return credentialKey;
+	}
+
+	/**
+	 * @return {@link IRODSFileFactory} for the request account
+	 * @throws JargonException
+	 */
+	public IRODSFileFactory getIrodsFileFactory() throws JargonException {
+		if (irodsFileFactory == null) {
+			irodsFileFactory = irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount);
+		}
+		return irodsFileFactory;
+	}
+
+	/**
+	 * @return {@link CollectionAndDataObjectListAndSearchAO} for the request
+	 *         account
+	 * @throws JargonException
+	 */
+	public CollectionAndDataObjectListAndSearchAO getCollectionAndDataObjectListAndSearchAO()
+			throws JargonException {
+		if (collectionAndDataObjectListAndSearchAO == null) {
+			collectionAndDataObjectListAndSearchAO = irodsAccessObjectFactory
+					.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		}
+		return collectionAndDataObjectListAndSearchAO;
+	}
+
+	/**
+	 * @return {@link CollectionAO} for the request account
+	 * @throws JargonException
+	 */
+	public CollectionAO getCollectionAO() throws JargonException {
+		if (collectionAO == null) {
+			collectionAO = irodsAccessObjectFactory.getCollectionAO(irodsAccount);
+		}
+		return collectionAO;
+	}
+
+	/**
+	 * @return {@link DataObjectAO} for the request account
+	 * @throws JargonException
+	 */
+	public DataObjectAO getDataObjectAO() throws JargonException {
+		if (dataObjectAO == null) {
+			dataObjectAO = irodsAccessObjectFactory.getDataObjectAO(irodsAccount);
+		}
+		return dataObjectAO;
+	}
+
+	/**
+	 * @return {@link DataTransferOperations} for the request account
+	 * @throws JargonException
+	 */
+	public DataTransferOperations getDataTransferOperations() throws JargonException {
+		if (dataTransferOperations == null) {
+			dataTransferOperations = irodsAccessObjectFactory.getDataTransferOperations(irodsAccount);
+		}
+		return dataTransferOperations;
+	}
+
+	/**
+	 * @return {@link IRODSGenQueryExecutor} for the request account
+	 * @throws JargonException
+	 */
+	public IRODSGenQueryExecutor getIrodsGenQueryExecutor() throws JargonException {
+		if (irodsGenQueryExecutor == null) {
+			irodsGenQueryExecutor = irodsAccessObjectFactory.getIRODSGenQueryExecutor(irodsAccount);
+		}
+		return irodsGenQueryExecutor;
+	}
+
+	/**
+	 * Register something to be closed when the request ends
+	 *
+	 * @param closeable
+	 *            {@link Closeable}
+	 */
+	public void registerCloseable(final Closeable closeable) {
+		if (closeable == null) {
+			throw new IllegalArgumentException("null closeable");
+		}
+		synchronized (closeables) {
+			closeables.add(closeable);
+		}
+	}
+
+	/**
+	 * Close anything registered with this context
+	 */
+	public void close() {
+		List<Closeable> toClose;
+		synchronized (closeables) {
+			toClose = new ArrayList<Closeable>(closeables);
+			closeables.clear();
+		}
+
+		for (Closeable closeable : toClose) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				log.warn("error closing request resource, ignored", e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.authfilter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the temporary passwords iRODS issues after a PAM login, so that a
+ * later login with the same HTTP credentials can use standard auth with the
+ * temporary password instead of another PAM exchange.
+ * <p/>
+ * Temporary passwords are only held encrypted (AES-GCM). The key for each
+ * entry is derived from a per-process secret and the user's own HTTP
+ * password, and the credential key is bound in as associated data, so an entry
+ * can only be decrypted by a request presenting the same credentials.
+ *
+ */
+public class PamPasswordCache {
+
+	private static final String CIPHER = "AES/GCM/NoPadding";
+	private static final int IV_LENGTH = 12;
+	private static final int TAG_LENGTH_BITS = 128;
+	private static final int KEY_LENGTH = 16;
+
+	private final ExpiringCache<String, byte[]> entries;
+	private final SecretKeySpec processSecret;
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	private static final Logger log = LoggerFactory.getLogger(PamPasswordCache.class);
+
+	/**
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with how long a temporary password is held,
+	 *            zero or less disables the cache
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of passwords held
+	 */
+	public PamPasswordCache(final long timeToLiveMillis, final int maxEntries) {
+		entries = new ExpiringCache<String, byte[]>(timeToLiveMillis, maxEntries);
+		byte[] secret = new byte[32];
+		secureRandom.nextBytes(secret);
+		processSecret = new SecretKeySpec(secret, "HmacSHA256");
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if passwords will
+	 *         be held
+	 */
+	public boolean isEnabled() {
+		return entries.isEnabled();
+	}
+
+	/**
+	 * Get the temporary password held for the given credentials
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param password
+	 *            <code>String</code> with the password the client presented
+	 * @return <code>String</code> with the temporary password, or
+	 *         <code>null</code> if none is held
+	 */
+	public String get(final String credentialKey, final String userName, final String password) {
+		byte[] sealed = entries.get(credentialKey);
+		if (sealed == null) {
+			return null;
+		}
+
+		try {
+			Cipher cipher = Cipher.getInstance(CIPHER);
+			cipher.init(Cipher.DECRYPT_MODE, deriveKey(userName, password),
+					new GCMParameterSpec(TAG_LENGTH_BITS, sealed, 0, IV_LENGTH));
+			cipher.updateAAD(credentialKey.getBytes(StandardCharsets.UTF_8));
+			return new String(cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH), StandardCharsets.UTF_8);
+		} catch (GeneralSecurityException e) {
+			log.warn("unable to decrypt held PAM password, dropping it");
+			entries.remove(credentialKey);
+			return null;
+		}
+	}
+
+	/**
+	 * Hold the temporary password from a PAM login
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param password
+	 *            <code>String</code> with the password the client presented
+	 * @param temporaryPassword
+	 *            <code>String</code> with the temporary password from iRODS
+	 */
+	public void put(final String credentialKey, final String userName, final String password,
+			final String temporaryPassword) {
+		put(credentialKey, userName, password, temporaryPassword, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Hold a temporary password for no longer than the given time, which is
+	 * capped at the time passwords are held for
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the key the password is held under
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param password
+	 *            <code>String</code> with the secret the client presents
+	 * @param temporaryPassword
+	 *            <code>String</code> with the temporary password from iRODS
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with how long to hold the password
+	 */
+	public void put(final String credentialKey, final String userName, final String password,
+			final String temporaryPassword, final long timeToLiveMillis) {
+		if (!isEnabled() || timeToLiveMillis <= 0) {
+			return;
+		}
+
+		try {
+			byte[] iv = new byte[IV_LENGTH];
+			secureRandom.nextBytes(iv);
+			Cipher cipher = Cipher.getInstance(CIPHER);
+			cipher.init(Cipher.ENCRYPT_MODE, deriveKey(userName, password), new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+			cipher.updateAAD(credentialKey.getBytes(StandardCharsets.UTF_8));
+			byte[] encrypted = cipher.doFinal(temporaryPassword.getBytes(StandardCharsets.UTF_8));
+
+			byte[] sealed = Arrays.copyOf(iv, IV_LENGTH + encrypted.length);
+			System.arraycopy(encrypted, 0, sealed, IV_LENGTH, encrypted.length);
+			entries.put(credentialKey, sealed, timeToLiveMillis);
+		} catch (GeneralSecurityException e) {
+			throw new WebDavRuntimeException("unable to encrypt PAM password", e);
+		}
+	}
+
+	/**
+	 * @param credentialKey
+	 *            <code>String</code> with the key the password is held under
+	 * @return <code>long</code> with the milliseconds the password will still
+	 *         be held, zero if none is held
+	 */
+	public long getTimeToLive(final String credentialKey) {
+		return entries.getTimeToLive(credentialKey);
+	}
+
+	/**
+	 * Drop the temporary password held for the given credentials
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 */
+	public void remove(final String credentialKey) {
+		entries.remove(credentialKey);
+	}
+
+	private SecretKeySpec deriveKey(final String userName, final String password) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(processSecret);
+		mac.update(userName.getBytes(StandardCharsets.UTF_8));
+		mac.update((byte) 0);
+		byte[] derived = mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+		return new SecretKeySpec(derived, 0, KEY_LENGTH, "AES");
+	}
+
+}
@@ -0,0 +1,84 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.authfilter;
+
+/**
+ * Verified (or newly issued) session token, immutable
+ *
+ */
+public class SessionToken {
+
+	private final String tokenId;
+	private final String userName;
+	private final long expiresAt;
+	private final String keyId;
+	private final String value;
+
+	/**
+	 * @param tokenId
+	 *            <code>String</code> with the unique id of the token
+	 * @param userName
+	 *            <code>String</code> with the iRODS user the token was issued
+	 *            to
+	 * @param expiresAt
+	 *            <code>long</code> with the expiry time in milliseconds
+	 * @param keyId
+	 *            <code>String</code> with the id of the signing key
+	 * @param value
+	 *            <code>String</code> with the encoded, signed token as sent to
+	 *            the client
+	 */
+	public SessionToken(final String tokenId, final String userName, final long expiresAt, final String keyId,
+			final String value) {
+		this.tokenId = tokenId;
+		this.userName = userName;
+		this.expiresAt = expiresAt;
+		this.keyId = keyId;
+		this.value = value;
+	}
+
+	/**
+	 * @return the tokenId
+	 */
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	/**
+	 * @return the userName
+	 */
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @return the expiresAt
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * @return the keyId
+	 */
+	public String getKeyId() {
+		return keyId;
+	}
+
+	/**
+	 * @return the value
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SessionToken [tokenId=").append(tokenId).append(", userName=").append(userName)
+				.append(", expiresAt=").append(expiresAt).append(", keyId=").append(keyId).append("]");
+		return builder.toString();
+	}
+
+}
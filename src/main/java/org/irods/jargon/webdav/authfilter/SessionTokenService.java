@@ -0,0 +1,278 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.authfilter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed session tokens, so that a client that
+ * has logged in once with basic auth can be recognized on later requests with
+ * a local signature check.
+ * <p/>
+ * A token is <code>base64url(payload).base64url(signature)</code>, where the
+ * payload carries a format version, the signing key id, a random token id,
+ * the expiry time and the user name. Signing keys are configured as
+ * <code>keyId:secret</code> pairs, the first key signs and all listed keys
+ * verify, which allows keys to be rotated without dropping live sessions.
+ * Tokens can be revoked by token id or by user name.
+ *
+ */
+public class SessionTokenService {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final String TOKEN_VERSION = "v1";
+	private static final String GENERATED_KEY_ID = "local";
+
+	private WebDavConfig webDavConfig;
+
+	/**
+	 * Signing keys by key id, in configured order so the first is the signing
+	 * key
+	 */
+	private Map<String, SecretKeySpec> keys = Collections.emptyMap();
+	private String signingKeyId;
+	private final Set<String> revocations = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/**
+	 * Tokens already issued for a credential key, so that a client sending
+	 * basic auth on every request is not handed a new token each time
+	 */
+	private ExpiringCache<String, SessionToken> issuedTokens;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+	/**
+	 *
+	 */
+	public SessionTokenService() {
+	}
+
+	/**
+	 * Wired into the spring config as the init method, parses the signing keys
+	 * and revocations from the injected configuration
+	 */
+	public void init() {
+		log.info("init()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+
+		Map<String, SecretKeySpec> parsedKeys = new LinkedHashMap<String, SecretKeySpec>();
+		String configuredKeys = webDavConfig.getSessionTokenKeys();
+		if (configuredKeys != null) {
+			for (String keyEntry : configuredKeys.split(",")) {
+				String trimmed = keyEntry.trim();
+				if (trimmed.isEmpty()) {
+					continue;
+				}
+				int index = trimmed.indexOf(':');
+				if (index <= 0 || index == trimmed.length() - 1) {
+					throw new ConfigurationRuntimeException("session token keys must be keyId:secret pairs");
+				}
+				parsedKeys.put(trimmed.substring(0, index),
+						new SecretKeySpec(trimmed.substring(index + 1).getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+			}
+		}
+
+		if (parsedKeys.isEmpty()) {
+			log.warn("no session token keys configured, generating a key, tokens will not survive a restart");
+			byte[] secret = new byte[32];
+			secureRandom.nextBytes(secret);
+			parsedKeys.put(GENERATED_KEY_ID, new SecretKeySpec(secret, HMAC_ALGORITHM));
+		}
+
+		keys = parsedKeys;
+		signingKeyId = parsedKeys.keySet().iterator().next();
+		log.info("session tokens signed with key:{}", signingKeyId);
+
+		String configuredRevocations = webDavConfig.getSessionTokenRevocations();
+		if (configuredRevocations != null) {
+			for (String revocation : configuredRevocations.split(",")) {
+				if (!revocation.trim().isEmpty()) {
+					revocations.add(revocation.trim());
+				}
+			}
+		}
+
+		long ttlMillis = webDavConfig.getSessionTokenTimeToLiveInSeconds() * 1000L;
+		issuedTokens = new ExpiringCache<String, SessionToken>(ttlMillis / 2,
+				webDavConfig.getSessionTokenMaxEntries());
+	}
+
+	/**
+	 * Issue a token for a user who has just logged in, reusing a token issued
+	 * for the same credentials while it has at least half its lifetime left
+	 *
+	 * @param credentialKey
+	 *            <code>String</code> with the user name and password hash
+	 * @param userName
+	 *            <code>String</code> with the iRODS user name
+	 * @return {@link SessionToken} to hand to the client
+	 */
+	public SessionToken issueToken(final String credentialKey, final String userName) {
+		if (credentialKey == null || credentialKey.isEmpty()) {
+			throw new IllegalArgumentException("null or empty credentialKey");
+		}
+
+		SessionToken token = issuedTokens.get(credentialKey);
+		if (token != null && !isRevoked(token)) {
+			return token;
+		}
+
+		token = issueToken(userName,
+				System.currentTimeMillis() + webDavConfig.getSessionTokenTimeToLiveInSeconds() * 1000L);
+		issuedTokens.put(credentialKey, token);
+		return token;
+	}
+
+	/**
+	 * Build and sign a token with the given expiry
+	 */
+	SessionToken issueToken(final String userName, final long expiresAt) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+
+		byte[] id = new byte[16];
+		secureRandom.nextBytes(id);
+		String tokenId = Hex.encodeHexString(id);
+
+		StringBuilder payload = new StringBuilder();
+		payload.append(TOKEN_VERSION).append('|').append(signingKeyId).append('|').append(tokenId).append('|')
+				.append(expiresAt).append('|').append(userName);
+
+		String encodedPayload = Base64.encodeBase64URLSafeString(payload.toString().getBytes(StandardCharsets.UTF_8));
+		String value = encodedPayload + "."
+				+ Base64.encodeBase64URLSafeString(sign(keys.get(signingKeyId), encodedPayload));
+
+		log.debug("issued session token:{} for user:{}", tokenId, userName);
+		return new SessionToken(tokenId, userName, expiresAt, signingKeyId, value);
+	}
+
+	/**
+	 * Verify a token presented by a client
+	 *
+	 * @param value
+	 *            <code>String</code> with the encoded token
+	 * @return {@link SessionToken} if the signature is good and the token is
+	 *         neither expired nor revoked, otherwise <code>null</code>
+	 */
+	public SessionToken verifyToken(final String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+
+		int index = value.indexOf('.');
+		if (index <= 0 || index == value.length() - 1) {
+			log.debug("malformed session token");
+			return null;
+		}
+
+		String encodedPayload = value.substring(0, index);
+		String[] parts = new String(Base64.decodeBase64(encodedPayload), StandardCharsets.UTF_8).split("\\|", 5);
+		if (parts.length != 5 || !TOKEN_VERSION.equals(parts[0]) || parts[4].isEmpty()) {
+			log.debug("malformed session token payload");
+			return null;
+		}
+
+		SecretKeySpec key = keys.get(parts[1]);
+		if (key == null) {
+			log.debug("session token signed with unknown key:{}", parts[1]);
+			return null;
+		}
+
+		byte[] signature = Base64.decodeBase64(value.substring(index + 1));
+		if (!MessageDigest.isEqual(sign(key, encodedPayload), signature)) {
+			log.warn("session token signature mismatch for user:{}", parts[4]);
+			return null;
+		}
+
+		long expiresAt;
+		try {
+			expiresAt = Long.parseLong(parts[3]);
+		} catch (NumberFormatException e) {
+			log.debug("malformed session token expiry");
+			return null;
+		}
+
+		if (System.currentTimeMillis() >= expiresAt) {
+			log.debug("session token expired");
+			return null;
+		}
+
+		SessionToken token = new SessionToken(parts[2], parts[4], expiresAt, parts[1], value);
+		if (isRevoked(token)) {
+			log.info("session token:{} for user:{} is revoked", token.getTokenId(), token.getUserName());
+			return null;
+		}
+
+		return token;
+	}
+
+	/**
+	 * Revoke all tokens with the given token id or user name until restart,
+	 * in addition to those revoked in the configuration
+	 *
+	 * @param tokenIdOrUserName
+	 *            <code>String</code> with a token id or user name
+	 */
+	public void revoke(final String tokenIdOrUserName) {
+		if (tokenIdOrUserName == null || tokenIdOrUserName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty tokenIdOrUserName");
+		}
+		revocations.add(tokenIdOrUserName);
+	}
+
+	private boolean isRevoked(final SessionToken token) {
+		return revocations.contains(token.getTokenId()) || revocations.contains(token.getUserName());
+	}
+
+	private byte[] sign(final SecretKeySpec key, final String encodedPayload) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(key);
+			return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+		} catch (GeneralSecurityException e) {
+			throw new WebDavRuntimeException("unable to sign session token", e);
+		}
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+}
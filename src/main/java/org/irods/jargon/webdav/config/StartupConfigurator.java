@@ -3,11 +3,33 @@
  */
 package org.irods.jargon.webdav.config;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.irods.jargon.core.connection.ClientServerNegotiationPolicy;
 import org.irods.jargon.core.connection.ClientServerNegotiationPolicy.SslNegotiationPolicy;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSProtocolManager;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
 import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.pool.conncache.CachedIrodsProtocolManager;
+import org.irods.jargon.pool.conncache.JargonConnectionCache;
+import org.irods.jargon.pool.conncache.JargonKeyedPoolConfig;
+import org.irods.jargon.pool.conncache.JargonPooledObjectFactory;
+import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
+import org.irods.jargon.webdav.tls.SharedSslContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +44,11 @@ public class StartupConfigurator {
 	private WebDavConfig webDavConfig;
 	private IRODSSession irodsSession;
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private JargonConnectionCache jargonConnectionCache;
+	private CachedIrodsProtocolManager cachedIrodsProtocolManager;
+	private volatile boolean ready = false;
+	private SharedSslContext sharedSslContext;
+
 
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
@@ -93,9 +120,253 @@ public class StartupConfigurator {
 		props.setNegotiationPolicy(policyToSet);
 		log.info("negotiation policy set to:{}", props.getNegotiationPolicy());
 
+		if (policyToSet == SslNegotiationPolicy.CS_NEG_REQUIRE && !webDavConfig.isUseConnectionPool()) {
+			log.warn("TLS is required but connections are not pooled, every request will make a new TLS connection");
+		}
+
+		if (webDavConfig.isTlsSharedContextEnabled()) {
+			configureSharedSslContext();
+		}
+
 		getIrodsSession().setJargonProperties(props);
 		log.info("config of jargon props complete");
 
+		if (webDavConfig.isUseConnectionPool()) {
+			configureConnectionPool();
+		}
+
+		if (webDavConfig.isWarmUpEnabled()) {
+			startWarmUp();
+		} else {
+			ready = true;
+		}
+
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> once startup,
+	 *         including any warm-up, is complete
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Warm up in the background so deployment is not held up, the server
+	 * reports not ready through {@link #isReady()} until this finishes
+	 */
+	private void startWarmUp() {
+		final IRODSAccount warmUpAccount;
+		try {
+			warmUpAccount = buildWarmUpAccount();
+		} catch (JargonException e) {
+			log.error("unable to build warm-up account", e);
+			throw new ConfigurationRuntimeException("unable to build warm-up account", e);
+		}
+
+		if (warmUpAccount == null) {
+			log.warn("warm-up enabled but no warm-up user or proxy user configured, skipping");
+			ready = true;
+			return;
+		}
+
+		Thread warmUpThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					warmUp(warmUpAccount);
+				} finally {
+					ready = true;
+					log.info("startup complete, ready");
+				}
+			}
+		}, "irods-webdav-warmup");
+		warmUpThread.setDaemon(true);
+		warmUpThread.start();
+	}
+
+	/**
+	 * Open the configured number of connections in parallel and run an objStat
+	 * and a listing on each, priming the connection setup, negotiation and
+	 * query code paths. Connections are returned to the pool, if there is one,
+	 * when each worker closes its session.
+	 */
+	private void warmUp(final IRODSAccount warmUpAccount) {
+		final int connections = Math.max(1, webDavConfig.getWarmUpConnections());
+		log.info("warming up {} connections as:{}", connections, warmUpAccount.getUserName());
+		long start = System.currentTimeMillis();
+
+		final String warmUpPath;
+		if (webDavConfig.getWarmUpPath().isEmpty()) {
+			warmUpPath = MiscIRODSUtils.buildIRODSUserHomeForAccountUsingDefaultScheme(warmUpAccount);
+		} else {
+			warmUpPath = webDavConfig.getWarmUpPath();
+		}
+
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(connections, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "irods-webdav-warmup-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < connections; i++) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						CollectionAndDataObjectListAndSearchAO listAO = irodsAccessObjectFactory
+								.getCollectionAndDataObjectListAndSearchAO(warmUpAccount);
+						listAO.retrieveObjectStatForPath(warmUpPath);
+						listAO.listDataObjectsAndCollectionsUnderPath(warmUpPath);
+						return null;
+					} finally {
+						irodsAccessObjectFactory.closeSessionAndEatExceptions();
+					}
+				}
+			});
+		}
+
+		int failures = 0;
+		try {
+			List<Future<Void>> results = executor.invokeAll(tasks, webDavConfig.getWarmUpTimeoutInSeconds(),
+					TimeUnit.SECONDS);
+			for (Future<Void> result : results) {
+				try {
+					result.get();
+				} catch (Exception e) {
+					failures++;
+					log.warn("warm-up connection failed", e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("warm-up interrupted");
+		} finally {
+			executor.shutdownNow();
+		}
+
+		log.info("warm-up of {} connections finished in {} ms with {} failures", connections,
+				System.currentTimeMillis() - start, failures);
+	}
+
+	/**
+	 * @return {@link IRODSAccount} to warm up with, the configured warm-up
+	 *         user, or the proxy user in proxy mode, <code>null</code> if
+	 *         neither is set
+	 * @throws JargonException
+	 */
+	private IRODSAccount buildWarmUpAccount() throws JargonException {
+		if (!webDavConfig.getWarmUpUser().isEmpty()) {
+			return IRODSAccount.instance(webDavConfig.getHost(), webDavConfig.getPort(), webDavConfig.getWarmUpUser(),
+					webDavConfig.getWarmUpPassword(), "", webDavConfig.getZone(),
+					webDavConfig.getDefaultStorageResource());
+		}
+
+		if (webDavConfig.isUseProxyUser()) {
+			String proxyZone = webDavConfig.getProxyZone();
+			if (proxyZone == null || proxyZone.isEmpty()) {
+				proxyZone = webDavConfig.getZone();
+			}
+			return IRODSAccount.instance(webDavConfig.getHost(), webDavConfig.getPort(), webDavConfig.getProxyUser(),
+					webDavConfig.getProxyPassword(), "", proxyZone, webDavConfig.getDefaultStorageResource());
+		}
+
+		return null;
+	}
+
+	/**
+	 * Wired into the spring config as the destroy method, shuts down the
+	 * connection pool if one was configured
+	 */
+	public void destroy() {
+		log.info("destroy()");
+		if (sharedSslContext != null) {
+			SharedSslContext.releaseDefault();
+			sharedSslContext = null;
+		}
+		if (cachedIrodsProtocolManager != null) {
+			try {
+				cachedIrodsProtocolManager.destroy();
+			} catch (JargonException e) {
+				log.warn("error shutting down pooled protocol manager", e);
+			}
+		}
+		if (jargonConnectionCache != null) {
+			log.info("closing connection pool");
+			jargonConnectionCache.close();
+		}
+	}
+
+	/**
+	 * Install one shared <code>SSLContext</code> for iRODS connections so TLS
+	 * sessions are cached and resumed, and publish its handshake metrics over
+	 * JMX. This changes the JVM default <code>SSLContext</code>, see
+	 * {@link SharedSslContext}
+	 */
+	private void configureSharedSslContext() {
+		log.info("configureSharedSslContext()");
+		sharedSslContext = SharedSslContext.installAsDefault(webDavConfig.getTlsProtocol(),
+				webDavConfig.getTlsSessionCacheSize(), webDavConfig.getTlsSessionTimeoutInSeconds());
+	}
+
+	/**
+	 * @return {@link SharedSslContext} in use, or <code>null</code> if not
+	 *         configured
+	 */
+	public SharedSslContext getSharedSslContext() {
+		return sharedSslContext;
+	}
+
+	/**
+	 * Replace the simple protocol manager in the session with a pooled one,
+	 * keyed by <code>IRODSAccount</code>. The simple protocol manager is kept
+	 * as the source of new connections for the pool. With the pool in place,
+	 * closing the session at the end of a request returns connections to the
+	 * pool rather than disconnecting them.
+	 */
+	private void configureConnectionPool() {
+		log.info("configureConnectionPool()");
+
+		IRODSProtocolManager baseProtocolManager = irodsSession.getIrodsProtocolManager();
+		if (!(baseProtocolManager instanceof IRODSSimpleProtocolManager)) {
+			log.error("cannot pool connections from protocol manager:{}", baseProtocolManager);
+			throw new ConfigurationRuntimeException(
+					"connection pool requires the session to be configured with an IRODSSimpleProtocolManager");
+		}
+
+		JargonKeyedPoolConfig poolConfig = new JargonKeyedPoolConfig();
+		poolConfig.setMinIdlePerKey(webDavConfig.getPoolMinIdlePerUser());
+		poolConfig.setMaxIdlePerKey(webDavConfig.getPoolMaxIdlePerUser());
+		poolConfig.setMaxTotalPerKey(webDavConfig.getPoolMaxTotalPerUser());
+		poolConfig.setMaxTotal(webDavConfig.getPoolMaxTotal());
+		poolConfig.setMaxWaitMillis(webDavConfig.getPoolMaxWaitInSeconds() * 1000L);
+		poolConfig.setTestOnBorrow(webDavConfig.isPoolTestOnBorrow());
+		poolConfig.setTimeBetweenEvictionRunsMillis(webDavConfig.getPoolEvictionIntervalInSeconds() * 1000L);
+		poolConfig.setMinEvictableIdleTimeMillis(webDavConfig.getPoolMinEvictableIdleTimeInSeconds() * 1000L);
+		log.info("pool config:{}", poolConfig);
+
+		JargonPooledObjectFactory pooledObjectFactory = new JargonPooledObjectFactory();
+		pooledObjectFactory.setIrodsSession(irodsSession);
+		pooledObjectFactory.setIrodsSimpleProtocolManager((IRODSSimpleProtocolManager) baseProtocolManager);
+
+		jargonConnectionCache = new JargonConnectionCache(pooledObjectFactory, poolConfig);
+		cachedIrodsProtocolManager = new CachedIrodsProtocolManager();
+		cachedIrodsProtocolManager.setJargonConnectionCache(jargonConnectionCache);
+
+		try {
+			cachedIrodsProtocolManager.initialize();
+		} catch (JargonException e) {
+			log.error("unable to initialize pooled protocol manager", e);
+			throw new ConfigurationRuntimeException("unable to initialize connection pool", e);
+		}
+
+		irodsSession.setIrodsProtocolManager(cachedIrodsProtocolManager);
+		log.info("iRODS connections will be pooled");
 	}
 
 	/**
@@ -65,6 +65,429 @@ public class WebDavConfig {
 	 */
 	private boolean usePackingStreams = false;
 
+	/**
+	 * Time in seconds that a successful login is remembered (keyed by user and
+	 * a salted hash of the password) before the user is re-authenticated
+	 * against iRODS, zero turns off the shared authentication cache
+	 */
+	private int authCacheTimeToLiveInSeconds = 300;
+
+	/**
+	 * Maximum number of logins held in the shared authentication cache
+	 */
+	private int authCacheMaxEntries = 1000;
+
+	/**
+	 * Keep iRODS connections in a pool keyed by <code>IRODSAccount</code>
+	 * instead of opening and closing a connection for each request
+	 */
+	private boolean useConnectionPool = false;
+
+	/**
+	 * Minimum number of idle pooled connections kept for each user
+	 */
+	private int poolMinIdlePerUser = 0;
+
+	/**
+	 * Maximum number of idle pooled connections kept for each user
+	 */
+	private int poolMaxIdlePerUser = 4;
+
+	/**
+	 * Maximum number of pooled connections (idle and in use) for each user
+	 */
+	private int poolMaxTotalPerUser = 8;
+
+	/**
+	 * Maximum number of pooled connections across all users
+	 */
+	private int poolMaxTotal = 100;
+
+	/**
+	 * Seconds to wait for a pooled connection when the pool is exhausted
+	 */
+	private int poolMaxWaitInSeconds = 30;
+
+	/**
+	 * Seconds between runs of the idle connection evictor
+	 */
+	private int poolEvictionIntervalInSeconds = 60;
+
+	/**
+	 * Seconds a connection may sit idle in the pool before it is eligible for
+	 * eviction
+	 */
+	private int poolMinEvictableIdleTimeInSeconds = 300;
+
+	/**
+	 * Validate a pooled connection before it is handed out
+	 */
+	private boolean poolTestOnBorrow = true;
+
+	/**
+	 * Verify each user's credentials with their own login, then run their
+	 * operations over connections made as the configured rodsadmin proxy user
+	 * with the client user set, so that iRODS still applies the client user's
+	 * permissions. Connections remain per client user, the pool's total cap is
+	 * what bounds them
+	 */
+	private boolean useProxyUser = false;
+
+	/**
+	 * rodsadmin user name used for proxy connections
+	 */
+	private String proxyUser = "";
+
+	/**
+	 * password of the rodsadmin proxy user
+	 */
+	private String proxyPassword = "";
+
+	/**
+	 * zone of the rodsadmin proxy user, defaults to the configured zone when
+	 * blank
+	 */
+	private String proxyZone = "";
+
+	/**
+	 * Seconds that a failed user and password pair is answered with a 401
+	 * locally, without another iRODS login attempt, zero turns off the
+	 * negative cache
+	 */
+	private int authFailureCacheTimeToLiveInSeconds = 60;
+
+	/**
+	 * Maximum number of failed credentials and failure counters held
+	 */
+	private int authFailureCacheMaxEntries = 10000;
+
+	/**
+	 * Length in seconds of the window over which login failures are counted for
+	 * a user or client address
+	 */
+	private int authFailureWindowInSeconds = 300;
+
+	/**
+	 * Login failures for a user from one client address within the failure
+	 * window after which further logins for that user from that address are
+	 * refused without contacting iRODS, zero for no limit
+	 */
+	private int maxAuthFailuresPerUser = 20;
+
+	/**
+	 * Login failures from a client address within the failure window after
+	 * which further logins from that address are refused without contacting
+	 * iRODS, zero for no limit
+	 */
+	private int maxAuthFailuresPerAddress = 100;
+
+	/**
+	 * Issue a signed session token (cookie and response header) after a
+	 * successful basic login, and accept it on later requests in place of basic
+	 * auth
+	 */
+	private boolean useSessionTokens = false;
+
+	/**
+	 * Lifetime of an issued session token in seconds
+	 */
+	private int sessionTokenTimeToLiveInSeconds = 3600;
+
+	/**
+	 * Maximum number of live session tokens held on this server
+	 */
+	private int sessionTokenMaxEntries = 10000;
+
+	/**
+	 * Comma separated list of <code>keyId:secret</code> signing keys. The first
+	 * key signs new tokens, the others are still accepted so keys can be rotated.
+	 * If empty a random key is generated at startup, and tokens do not survive a
+	 * restart
+	 */
+	private String sessionTokenKeys = "";
+
+	/**
+	 * Comma separated list of token ids or user names whose session tokens are
+	 * refused
+	 */
+	private String sessionTokenRevocations = "";
+
+	/**
+	 * Name of the cookie that carries the session token
+	 */
+	private String sessionTokenCookieName = "irods-webdav-session";
+
+	/**
+	 * Lifetime in seconds assumed for the temporary password iRODS issues after
+	 * a PAM login, set no higher than the server's PAM password lifetime. The
+	 * temporary password is held (encrypted) and reused with standard auth in
+	 * place of another PAM exchange, 0 turns this off
+	 */
+	private int pamPasswordLifetimeInSeconds = 3600;
+
+	/**
+	 * Seconds before the assumed lifetime ends that a held temporary PAM
+	 * password is dropped, so the next login renews it with a PAM exchange
+	 */
+	private int pamPasswordRenewalMarginInSeconds = 300;
+
+	/**
+	 * Maximum number of temporary PAM passwords held
+	 */
+	private int pamPasswordCacheMaxEntries = 1000;
+
+	/**
+	 * Run each request on a virtual thread (Java 24 and later), handing the
+	 * request off with servlet async support so a container thread is not held
+	 * while iRODS calls block. Jargon does its socket I/O inside
+	 * <code>synchronized</code> methods, which before Java 24 pins the carrier
+	 * thread, so concurrent iRODS calls would be held to the number of
+	 * carriers. Ignored, with a warning, on older runtimes
+	 */
+	private boolean useVirtualThreads = false;
+
+	/**
+	 * Maximum number of requests doing iRODS work at once, further requests
+	 * wait for a slot. 0 for no limit
+	 */
+	private int maxConcurrentIrodsRequests = 0;
+
+	/**
+	 * Seconds a request waits for an iRODS slot before it is answered with a
+	 * 503
+	 */
+	private int irodsGateWaitInSeconds = 30;
+
+	/**
+	 * Open and exercise iRODS connections at startup, before reporting ready
+	 */
+	private boolean warmUpEnabled = false;
+
+	/**
+	 * Number of connections opened in parallel during warm-up
+	 */
+	private int warmUpConnections = 2;
+
+	/**
+	 * User for warm-up connections, blank to use the proxy user when in proxy
+	 * mode
+	 */
+	private String warmUpUser = "";
+
+	/**
+	 * Password for the warm-up user
+	 */
+	private String warmUpPassword = "";
+
+	/**
+	 * Collection stat'ed and listed during warm-up, blank for the warm-up
+	 * user's home
+	 */
+	private String warmUpPath = "";
+
+	/**
+	 * Longest time warm-up may take before the server reports ready anyway
+	 */
+	private int warmUpTimeoutInSeconds = 60;
+
+	/**
+	 * Path answering readiness probes, 200 once startup is complete and 503
+	 * before
+	 */
+	private String readinessPath = "/_ready";
+
+	/**
+	 * Install a shared, instrumented SSLContext as the JVM default so TLS
+	 * connections to iRODS resume cached sessions. The default is JVM wide, so
+	 * every other TLS client in the JVM uses this context too
+	 */
+	private boolean tlsSharedContextEnabled = false;
+
+	/**
+	 * Protocol for the shared SSLContext
+	 */
+	private String tlsProtocol = "TLS";
+
+	/**
+	 * Most TLS client sessions held for resumption, 0 for no limit
+	 */
+	private int tlsSessionCacheSize = 1000;
+
+	/**
+	 * How long a cached TLS session may be resumed
+	 */
+	private int tlsSessionTimeoutInSeconds = 86400;
+
+	/**
+	 * How long a path's iRODS stat is reused when resolving resources, zero
+	 * turns off the cache. Changes made through this server invalidate entries
+	 * at once
+	 */
+	private int objStatCacheTimeToLiveInSeconds = 5;
+
+	/**
+	 * Maximum number of paths with stats held, each holding the stats of every
+	 * user that resolved it
+	 */
+	private int objStatCacheMaxEntries = 10000;
+
+	/**
+	 * How long a path found not to exist is answered as missing without asking
+	 * iRODS again, zero turns this off. Creating something at the path through
+	 * this server invalidates it at once
+	 */
+	private int absentPathCacheTimeToLiveInSeconds = 10;
+
+	/**
+	 * Maximum number of missing paths held, each for every user that probed it
+	 */
+	private int absentPathCacheMaxEntries = 10000;
+
+	/**
+	 * Comma separated glob patterns (* and ?) of names that are always
+	 * reported missing without asking iRODS and left out of listings, e.g.
+	 * ._*,.DS_Store,desktop.ini
+	 */
+	private String alwaysAbsentNames = "";
+
+	/**
+	 * Rows fetched per GenQuery page when listing a collection
+	 */
+	private int listingPageSize = 5000;
+
+	/**
+	 * Answer depth 1 PROPFIND on collections by streaming the listing as it is read,
+	 * rather than through Milton
+	 */
+	private boolean streamingPropFindEnabled = false;
+
+	/**
+	 * Longest a collection listing is held, it is served while the collection modify
+	 * time is unchanged. 0 turns the listing cache off
+	 */
+	private int listingCacheTimeToLiveInSeconds = 30;
+
+	/**
+	 * Maximum number of collections listings are held for, each holding the
+	 * listings of every user
+	 */
+	private int listingCacheMaxEntries = 1000;
+
+	/**
+	 * Listings with more children than this are not held
+	 */
+	private int listingCacheMaxChildren = 10000;
+
+	/**
+	 * Answer depth infinity PROPFIND on collections with a bounded parallel tree
+	 * walk streamed as it goes, rather than through Milton
+	 */
+	private boolean propFindInfinityEnabled = false;
+
+	/**
+	 * Threads shared by all depth infinity walks
+	 */
+	private int propFindInfinityThreads = 16;
+
+	/**
+	 * Most collections one depth infinity walk lists at once
+	 */
+	private int propFindInfinityParallelism = 4;
+
+	/**
+	 * Most entries one depth infinity walk writes before it is cut short, 0 for no
+	 * limit
+	 */
+	private long propFindInfinityMaxEntries = 100000;
+
+	/**
+	 * Longest one depth infinity walk runs before it is cut short, 0 for no limit
+	 */
+	private int propFindInfinityMaxSeconds = 120;
+
+	/**
+	 * Number of listing pages fetched ahead of the page being rendered, on a
+	 * shared prefetch thread, zero lists on the request thread
+	 */
+	private int listingPrefetchDepth = 0;
+
+	/**
+	 * Number of shared threads listings are prefetched on
+	 */
+	private int listingPrefetchThreads = 16;
+
+	/**
+	 * Page collection listings with a query per page for the names after the last
+	 * one seen, rather than continuing one open query
+	 */
+	private boolean listingKeysetPaginationEnabled = false;
+
+	/**
+	 * Download data objects of at least this size as chunks read on several
+	 * threads at once, 0 to always download with a single stream
+	 */
+	private int parallelDownloadThresholdInMb = 0;
+
+	/**
+	 * Most threads reading one parallel download
+	 */
+	private int parallelDownloadStreams = 4;
+
+	/**
+	 * Threads shared by all parallel downloads
+	 */
+	private int parallelDownloadThreads = 32;
+
+	/**
+	 * Bytes each parallel download thread reads at a time
+	 */
+	private int parallelDownloadChunkSizeInMb = 8;
+
+	/**
+	 * Most memory one parallel download holds in chunks waiting to be sent
+	 */
+	private int parallelDownloadBufferInMb = 64;
+
+	/**
+	 * Upload request bodies of at least this size as chunks written on several
+	 * threads at once, 0 to always upload with a single stream. Only bodies with a
+	 * known length qualify
+	 */
+	private int parallelUploadThresholdInMb = 0;
+
+	/**
+	 * Most threads writing one parallel upload
+	 */
+	private int parallelUploadStreams = 4;
+
+	/**
+	 * Threads shared by all parallel uploads
+	 */
+	private int parallelUploadThreads = 32;
+
+	/**
+	 * Bytes each parallel upload thread writes at a time
+	 */
+	private int parallelUploadChunkSizeInMb = 8;
+
+	/**
+	 * Most memory one parallel upload holds in chunks waiting to be written
+	 */
+	private int parallelUploadBufferInMb = 64;
+
+	/**
+	 * Digest computed over a parallel upload as it is received and compared
+	 * with the iRODS checksum of the stored data object, blank to only compare
+	 * the size
+	 */
+	private String parallelUploadChecksumAlgorithm = "SHA-256";
+
+	/**
+	 * Most memory kept in released transfer buffers for reuse by later
+	 * downloads and uploads, 0 to allocate buffers for every transfer
+	 */
+	private int bufferPoolMaxInMb = 128;
+
 	/**
 	 *
 	 */
@@ -183,7 +606,74 @@ public class WebDavConfig {
 		if (providedDefaultStartingLocation != null) {
 			builder.append("providedDefaultStartingLocation=").append(providedDefaultStartingLocation).append(", ");
 		}
-		builder.append("usePackingStreams=").append(usePackingStreams).append("]");
+		builder.append("usePackingStreams=").append(usePackingStreams).append(", authCacheTimeToLiveInSeconds=")
+				.append(authCacheTimeToLiveInSeconds).append(", authCacheMaxEntries=").append(authCacheMaxEntries)
+				.append(", useConnectionPool=").append(useConnectionPool).append(", poolMinIdlePerUser=")
+				.append(poolMinIdlePerUser).append(", poolMaxIdlePerUser=").append(poolMaxIdlePerUser)
+				.append(", poolMaxTotalPerUser=").append(poolMaxTotalPerUser).append(", poolMaxTotal=")
+				.append(poolMaxTotal).append(", poolMaxWaitInSeconds=").append(poolMaxWaitInSeconds)
+				.append(", poolEvictionIntervalInSeconds=").append(poolEvictionIntervalInSeconds)
+				.append(", poolMinEvictableIdleTimeInSeconds=").append(poolMinEvictableIdleTimeInSeconds)
+				.append(", poolTestOnBorrow=").append(poolTestOnBorrow)
+				.append(", useProxyUser=").append(useProxyUser)
+				.append(", proxyUser=").append(proxyUser)
+				.append(", proxyZone=").append(proxyZone)
+				.append(", authFailureCacheTimeToLiveInSeconds=").append(authFailureCacheTimeToLiveInSeconds)
+				.append(", authFailureCacheMaxEntries=").append(authFailureCacheMaxEntries)
+				.append(", authFailureWindowInSeconds=").append(authFailureWindowInSeconds)
+				.append(", maxAuthFailuresPerUser=").append(maxAuthFailuresPerUser)
+				.append(", maxAuthFailuresPerAddress=").append(maxAuthFailuresPerAddress)
+				.append(", useSessionTokens=").append(useSessionTokens)
+				.append(", sessionTokenTimeToLiveInSeconds=").append(sessionTokenTimeToLiveInSeconds)
+				.append(", sessionTokenMaxEntries=").append(sessionTokenMaxEntries)
+				.append(", sessionTokenRevocations=").append(sessionTokenRevocations)
+				.append(", sessionTokenCookieName=").append(sessionTokenCookieName)
+				.append(", pamPasswordLifetimeInSeconds=").append(pamPasswordLifetimeInSeconds)
+				.append(", pamPasswordRenewalMarginInSeconds=").append(pamPasswordRenewalMarginInSeconds)
+				.append(", pamPasswordCacheMaxEntries=").append(pamPasswordCacheMaxEntries)
+				.append(", useVirtualThreads=").append(useVirtualThreads)
+				.append(", maxConcurrentIrodsRequests=").append(maxConcurrentIrodsRequests)
+				.append(", irodsGateWaitInSeconds=").append(irodsGateWaitInSeconds)
+				.append(", warmUpEnabled=").append(warmUpEnabled)
+				.append(", warmUpConnections=").append(warmUpConnections)
+				.append(", warmUpUser=").append(warmUpUser)
+				.append(", warmUpPath=").append(warmUpPath)
+				.append(", warmUpTimeoutInSeconds=").append(warmUpTimeoutInSeconds)
+				.append(", readinessPath=").append(readinessPath)
+				.append(", tlsSharedContextEnabled=").append(tlsSharedContextEnabled)
+				.append(", tlsProtocol=").append(tlsProtocol)
+				.append(", tlsSessionCacheSize=").append(tlsSessionCacheSize)
+				.append(", tlsSessionTimeoutInSeconds=").append(tlsSessionTimeoutInSeconds)
+				.append(", objStatCacheTimeToLiveInSeconds=").append(objStatCacheTimeToLiveInSeconds)
+				.append(", objStatCacheMaxEntries=").append(objStatCacheMaxEntries)
+				.append(", absentPathCacheTimeToLiveInSeconds=").append(absentPathCacheTimeToLiveInSeconds)
+				.append(", absentPathCacheMaxEntries=").append(absentPathCacheMaxEntries)
+				.append(", alwaysAbsentNames=").append(alwaysAbsentNames)
+				.append(", listingPageSize=").append(listingPageSize)
+				.append(", streamingPropFindEnabled=").append(streamingPropFindEnabled)
+				.append(", listingCacheTimeToLiveInSeconds=").append(listingCacheTimeToLiveInSeconds)
+				.append(", listingCacheMaxEntries=").append(listingCacheMaxEntries)
+				.append(", listingCacheMaxChildren=").append(listingCacheMaxChildren)
+				.append(", propFindInfinityEnabled=").append(propFindInfinityEnabled)
+				.append(", propFindInfinityThreads=").append(propFindInfinityThreads)
+				.append(", propFindInfinityParallelism=").append(propFindInfinityParallelism)
+				.append(", propFindInfinityMaxEntries=").append(propFindInfinityMaxEntries)
+				.append(", propFindInfinityMaxSeconds=").append(propFindInfinityMaxSeconds)
+				.append(", listingPrefetchDepth=").append(listingPrefetchDepth)
+				.append(", listingPrefetchThreads=").append(listingPrefetchThreads)
+				.append(", listingKeysetPaginationEnabled=").append(listingKeysetPaginationEnabled)
+				.append(", parallelDownloadThresholdInMb=").append(parallelDownloadThresholdInMb)
+				.append(", parallelDownloadStreams=").append(parallelDownloadStreams)
+				.append(", parallelDownloadThreads=").append(parallelDownloadThreads)
+				.append(", parallelDownloadChunkSizeInMb=").append(parallelDownloadChunkSizeInMb)
+				.append(", parallelDownloadBufferInMb=").append(parallelDownloadBufferInMb)
+				.append(", parallelUploadThresholdInMb=").append(parallelUploadThresholdInMb)
+				.append(", parallelUploadStreams=").append(parallelUploadStreams)
+				.append(", parallelUploadThreads=").append(parallelUploadThreads)
+				.append(", parallelUploadChunkSizeInMb=").append(parallelUploadChunkSizeInMb)
+				.append(", parallelUploadBufferInMb=").append(parallelUploadBufferInMb)
+				.append(", parallelUploadChecksumAlgorithm=").append(parallelUploadChecksumAlgorithm)
+				.append(", bufferPoolMaxInMb=").append(bufferPoolMaxInMb).append("]");
 		return builder.toString();
 	}
 
@@ -322,4 +812,1099 @@ public class WebDavConfig {
 		this.computeChecksum = computeChecksum;
 	}
 
+	/**
+	 * @return the authCacheTimeToLiveInSeconds
+	 */
+	public int getAuthCacheTimeToLiveInSeconds() {
+		return authCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param authCacheTimeToLiveInSeconds
+	 *            the authCacheTimeToLiveInSeconds to set
+	 */
+	public void setAuthCacheTimeToLiveInSeconds(final int authCacheTimeToLiveInSeconds) {
+		this.authCacheTimeToLiveInSeconds = authCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the authCacheMaxEntries
+	 */
+	public int getAuthCacheMaxEntries() {
+		return authCacheMaxEntries;
+	}
+
+	/**
+	 * @param authCacheMaxEntries
+	 *            the authCacheMaxEntries to set
+	 */
+	public void setAuthCacheMaxEntries(final int authCacheMaxEntries) {
+		this.authCacheMaxEntries = authCacheMaxEntries;
+	}
+
+	/**
+	 * @return the useConnectionPool
+	 */
+	public boolean isUseConnectionPool() {
+		return useConnectionPool;
+	}
+
+	/**
+	 * @param useConnectionPool
+	 *            the useConnectionPool to set
+	 */
+	public void setUseConnectionPool(final boolean useConnectionPool) {
+		this.useConnectionPool = useConnectionPool;
+	}
+
+	/**
+	 * @return the poolMinIdlePerUser
+	 */
+	public int getPoolMinIdlePerUser() {
+		return poolMinIdlePerUser;
+	}
+
+	/**
+	 * @param poolMinIdlePerUser
+	 *            the poolMinIdlePerUser to set
+	 */
+	public void setPoolMinIdlePerUser(final int poolMinIdlePerUser) {
+		this.poolMinIdlePerUser = poolMinIdlePerUser;
+	}
+
+	/**
+	 * @return the poolMaxIdlePerUser
+	 */
+	public int getPoolMaxIdlePerUser() {
+		return poolMaxIdlePerUser;
+	}
+
+	/**
+	 * @param poolMaxIdlePerUser
+	 *            the poolMaxIdlePerUser to set
+	 */
+	public void setPoolMaxIdlePerUser(final int poolMaxIdlePerUser) {
+		this.poolMaxIdlePerUser = poolMaxIdlePerUser;
+	}
+
+	/**
+	 * @return the poolMaxTotalPerUser
+	 */
+	public int getPoolMaxTotalPerUser() {
+		return poolMaxTotalPerUser;
+	}
+
+	/**
+	 * @param poolMaxTotalPerUser
+	 *            the poolMaxTotalPerUser to set
+	 */
+	public void setPoolMaxTotalPerUser(final int poolMaxTotalPerUser) {
+		this.poolMaxTotalPerUser = poolMaxTotalPerUser;
+	}
+
+	/**
+	 * @return the poolMaxTotal
+	 */
+	public int getPoolMaxTotal() {
+		return poolMaxTotal;
+	}
+
+	/**
+	 * @param poolMaxTotal
+	 *            the poolMaxTotal to set
+	 */
+	public void setPoolMaxTotal(final int poolMaxTotal) {
+		this.poolMaxTotal = poolMaxTotal;
+	}
+
+	/**
+	 * @return the poolMaxWaitInSeconds
+	 */
+	public int getPoolMaxWaitInSeconds() {
+		return poolMaxWaitInSeconds;
+	}
+
+	/**
+	 * @param poolMaxWaitInSeconds
+	 *            the poolMaxWaitInSeconds to set
+	 */
+	public void setPoolMaxWaitInSeconds(final int poolMaxWaitInSeconds) {
+		this.poolMaxWaitInSeconds = poolMaxWaitInSeconds;
+	}
+
+	/**
+	 * @return the poolEvictionIntervalInSeconds
+	 */
+	public int getPoolEvictionIntervalInSeconds() {
+		return poolEvictionIntervalInSeconds;
+	}
+
+	/**
+	 * @param poolEvictionIntervalInSeconds
+	 *            the poolEvictionIntervalInSeconds to set
+	 */
+	public void setPoolEvictionIntervalInSeconds(final int poolEvictionIntervalInSeconds) {
+		this.poolEvictionIntervalInSeconds = poolEvictionIntervalInSeconds;
+	}
+
+	/**
+	 * @return the poolMinEvictableIdleTimeInSeconds
+	 */
+	public int getPoolMinEvictableIdleTimeInSeconds() {
+		return poolMinEvictableIdleTimeInSeconds;
+	}
+
+	/**
+	 * @param poolMinEvictableIdleTimeInSeconds
+	 *            the poolMinEvictableIdleTimeInSeconds to set
+	 */
+	public void setPoolMinEvictableIdleTimeInSeconds(final int poolMinEvictableIdleTimeInSeconds) {
+		this.poolMinEvictableIdleTimeInSeconds = poolMinEvictableIdleTimeInSeconds;
+	}
+
+	/**
+	 * @return the poolTestOnBorrow
+	 */
+	public boolean isPoolTestOnBorrow() {
+		return poolTestOnBorrow;
+	}
+
+	/**
+	 * @param poolTestOnBorrow
+	 *            the poolTestOnBorrow to set
+	 */
+	public void setPoolTestOnBorrow(final boolean poolTestOnBorrow) {
+		this.poolTestOnBorrow = poolTestOnBorrow;
+	}
+
+	/**
+	 * @return the useProxyUser
+	 */
+	public boolean isUseProxyUser() {
+		return useProxyUser;
+	}
+
+	/**
+	 * @param useProxyUser
+	 *            the useProxyUser to set
+	 */
+	public void setUseProxyUser(final boolean useProxyUser) {
+		this.useProxyUser = useProxyUser;
+	}
+
+	/**
+	 * @return the proxyUser
+	 */
+	public String getProxyUser() {
+		return proxyUser;
+	}
+
+	/**
+	 * @param proxyUser
+	 *            the proxyUser to set
+	 */
+	public void setProxyUser(final String proxyUser) {
+		this.proxyUser = proxyUser;
+	}
+
+	/**
+	 * @return the proxyPassword
+	 */
+	public String getProxyPassword() {
+		return proxyPassword;
+	}
+
+	/**
+	 * @param proxyPassword
+	 *            the proxyPassword to set
+	 */
+	public void setProxyPassword(final String proxyPassword) {
+		this.proxyPassword = proxyPassword;
+	}
+
+	/**
+	 * @return the proxyZone
+	 */
+	public String getProxyZone() {
+		return proxyZone;
+	}
+
+	/**
+	 * @param proxyZone
+	 *            the proxyZone to set
+	 */
+	public void setProxyZone(final String proxyZone) {
+		this.proxyZone = proxyZone;
+	}
+
+	/**
+	 * @return the authFailureCacheTimeToLiveInSeconds
+	 */
+	public int getAuthFailureCacheTimeToLiveInSeconds() {
+		return authFailureCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param authFailureCacheTimeToLiveInSeconds
+	 *            the authFailureCacheTimeToLiveInSeconds to set
+	 */
+	public void setAuthFailureCacheTimeToLiveInSeconds(final int authFailureCacheTimeToLiveInSeconds) {
+		this.authFailureCacheTimeToLiveInSeconds = authFailureCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the authFailureCacheMaxEntries
+	 */
+	public int getAuthFailureCacheMaxEntries() {
+		return authFailureCacheMaxEntries;
+	}
+
+	/**
+	 * @param authFailureCacheMaxEntries
+	 *            the authFailureCacheMaxEntries to set
+	 */
+	public void setAuthFailureCacheMaxEntries(final int authFailureCacheMaxEntries) {
+		this.authFailureCacheMaxEntries = authFailureCacheMaxEntries;
+	}
+
+	/**
+	 * @return the authFailureWindowInSeconds
+	 */
+	public int getAuthFailureWindowInSeconds() {
+		return authFailureWindowInSeconds;
+	}
+
+	/**
+	 * @param authFailureWindowInSeconds
+	 *            the authFailureWindowInSeconds to set
+	 */
+	public void setAuthFailureWindowInSeconds(final int authFailureWindowInSeconds) {
+		this.authFailureWindowInSeconds = authFailureWindowInSeconds;
+	}
+
+	/**
+	 * @return the maxAuthFailuresPerUser
+	 */
+	public int getMaxAuthFailuresPerUser() {
+		return maxAuthFailuresPerUser;
+	}
+
+	/**
+	 * @param maxAuthFailuresPerUser
+	 *            the maxAuthFailuresPerUser to set
+	 */
+	public void setMaxAuthFailuresPerUser(final int maxAuthFailuresPerUser) {
+		this.maxAuthFailuresPerUser = maxAuthFailuresPerUser;
+	}
+
+	/**
+	 * @return the maxAuthFailuresPerAddress
+	 */
+	public int getMaxAuthFailuresPerAddress() {
+		return maxAuthFailuresPerAddress;
+	}
+
+	/**
+	 * @param maxAuthFailuresPerAddress
+	 *            the maxAuthFailuresPerAddress to set
+	 */
+	public void setMaxAuthFailuresPerAddress(final int maxAuthFailuresPerAddress) {
+		this.maxAuthFailuresPerAddress = maxAuthFailuresPerAddress;
+	}
+
+	/**
+	 * @return the useSessionTokens
+	 */
+	public boolean isUseSessionTokens() {
+		return useSessionTokens;
+	}
+
+	/**
+	 * @param useSessionTokens
+	 *            the useSessionTokens to set
+	 */
+	public void setUseSessionTokens(final boolean useSessionTokens) {
+		this.useSessionTokens = useSessionTokens;
+	}
+
+	/**
+	 * @return the sessionTokenTimeToLiveInSeconds
+	 */
+	public int getSessionTokenTimeToLiveInSeconds() {
+		return sessionTokenTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param sessionTokenTimeToLiveInSeconds
+	 *            the sessionTokenTimeToLiveInSeconds to set
+	 */
+	public void setSessionTokenTimeToLiveInSeconds(final int sessionTokenTimeToLiveInSeconds) {
+		this.sessionTokenTimeToLiveInSeconds = sessionTokenTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the sessionTokenMaxEntries
+	 */
+	public int getSessionTokenMaxEntries() {
+		return sessionTokenMaxEntries;
+	}
+
+	/**
+	 * @param sessionTokenMaxEntries
+	 *            the sessionTokenMaxEntries to set
+	 */
+	public void setSessionTokenMaxEntries(final int sessionTokenMaxEntries) {
+		this.sessionTokenMaxEntries = sessionTokenMaxEntries;
+	}
+
+	/**
+	 * @return the sessionTokenKeys
+	 */
+	public String getSessionTokenKeys() {
+		return sessionTokenKeys;
+	}
+
+	/**
+	 * @param sessionTokenKeys
+	 *            the sessionTokenKeys to set
+	 */
+	public void setSessionTokenKeys(final String sessionTokenKeys) {
+		this.sessionTokenKeys = sessionTokenKeys;
+	}
+
+	/**
+	 * @return the sessionTokenRevocations
+	 */
+	public String getSessionTokenRevocations() {
+		return sessionTokenRevocations;
+	}
+
+	/**
+	 * @param sessionTokenRevocations
+	 *            the sessionTokenRevocations to set
+	 */
+	public void setSessionTokenRevocations(final String sessionTokenRevocations) {
+		this.sessionTokenRevocations = sessionTokenRevocations;
+	}
+
+	/**
+	 * @return the sessionTokenCookieName
+	 */
+	public String getSessionTokenCookieName() {
+		return sessionTokenCookieName;
+	}
+
+	/**
+	 * @param sessionTokenCookieName
+	 *            the sessionTokenCookieName to set
+	 */
+	public void setSessionTokenCookieName(final String sessionTokenCookieName) {
+		this.sessionTokenCookieName = sessionTokenCookieName;
+	}
+
+	/**
+	 * @return the pamPasswordLifetimeInSeconds
+	 */
+	public int getPamPasswordLifetimeInSeconds() {
+		return pamPasswordLifetimeInSeconds;
+	}
+
+	/**
+	 * @param pamPasswordLifetimeInSeconds
+	 *            the pamPasswordLifetimeInSeconds to set
+	 */
+	public void setPamPasswordLifetimeInSeconds(final int pamPasswordLifetimeInSeconds) {
+		this.pamPasswordLifetimeInSeconds = pamPasswordLifetimeInSeconds;
+	}
+
+	/**
+	 * @return the pamPasswordRenewalMarginInSeconds
+	 */
+	public int getPamPasswordRenewalMarginInSeconds() {
+		return pamPasswordRenewalMarginInSeconds;
+	}
+
+	/**
+	 * @param pamPasswordRenewalMarginInSeconds
+	 *            the pamPasswordRenewalMarginInSeconds to set
+	 */
+	public void setPamPasswordRenewalMarginInSeconds(final int pamPasswordRenewalMarginInSeconds) {
+		this.pamPasswordRenewalMarginInSeconds = pamPasswordRenewalMarginInSeconds;
+	}
+
+	/**
+	 * @return the pamPasswordCacheMaxEntries
+	 */
+	public int getPamPasswordCacheMaxEntries() {
+		return pamPasswordCacheMaxEntries;
+	}
+
+	/**
+	 * @param pamPasswordCacheMaxEntries
+	 *            the pamPasswordCacheMaxEntries to set
+	 */
+	public void setPamPasswordCacheMaxEntries(final int pamPasswordCacheMaxEntries) {
+		this.pamPasswordCacheMaxEntries = pamPasswordCacheMaxEntries;
+	}
+
+	/**
+	 * @return the useVirtualThreads
+	 */
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * @param useVirtualThreads
+	 *            the useVirtualThreads to set
+	 */
+	public void setUseVirtualThreads(final boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
+	/**
+	 * @return the maxConcurrentIrodsRequests
+	 */
+	public int getMaxConcurrentIrodsRequests() {
+		return maxConcurrentIrodsRequests;
+	}
+
+	/**
+	 * @param maxConcurrentIrodsRequests
+	 *            the maxConcurrentIrodsRequests to set
+	 */
+	public void setMaxConcurrentIrodsRequests(final int maxConcurrentIrodsRequests) {
+		this.maxConcurrentIrodsRequests = maxConcurrentIrodsRequests;
+	}
+
+	/**
+	 * @return the irodsGateWaitInSeconds
+	 */
+	public int getIrodsGateWaitInSeconds() {
+		return irodsGateWaitInSeconds;
+	}
+
+	/**
+	 * @param irodsGateWaitInSeconds
+	 *            the irodsGateWaitInSeconds to set
+	 */
+	public void setIrodsGateWaitInSeconds(final int irodsGateWaitInSeconds) {
+		this.irodsGateWaitInSeconds = irodsGateWaitInSeconds;
+	}
+
+	/**
+	 * @return the warmUpEnabled
+	 */
+	public boolean isWarmUpEnabled() {
+		return warmUpEnabled;
+	}
+
+	/**
+	 * @param warmUpEnabled
+	 *            the warmUpEnabled to set
+	 */
+	public void setWarmUpEnabled(final boolean warmUpEnabled) {
+		this.warmUpEnabled = warmUpEnabled;
+	}
+
+	/**
+	 * @return the warmUpConnections
+	 */
+	public int getWarmUpConnections() {
+		return warmUpConnections;
+	}
+
+	/**
+	 * @param warmUpConnections
+	 *            the warmUpConnections to set
+	 */
+	public void setWarmUpConnections(final int warmUpConnections) {
+		this.warmUpConnections = warmUpConnections;
+	}
+
+	/**
+	 * @return the warmUpUser
+	 */
+	public String getWarmUpUser() {
+		return warmUpUser;
+	}
+
+	/**
+	 * @param warmUpUser
+	 *            the warmUpUser to set
+	 */
+	public void setWarmUpUser(final String warmUpUser) {
+		this.warmUpUser = warmUpUser;
+	}
+
+	/**
+	 * @return the warmUpPassword
+	 */
+	public String getWarmUpPassword() {
+		return warmUpPassword;
+	}
+
+	/**
+	 * @param warmUpPassword
+	 *            the warmUpPassword to set
+	 */
+	public void setWarmUpPassword(final String warmUpPassword) {
+		this.warmUpPassword = warmUpPassword;
+	}
+
+	/**
+	 * @return the warmUpPath
+	 */
+	public String getWarmUpPath() {
+		return warmUpPath;
+	}
+
+	/**
+	 * @param warmUpPath
+	 *            the warmUpPath to set
+	 */
+	public void setWarmUpPath(final String warmUpPath) {
+		this.warmUpPath = warmUpPath;
+	}
+
+	/**
+	 * @return the warmUpTimeoutInSeconds
+	 */
+	public int getWarmUpTimeoutInSeconds() {
+		return warmUpTimeoutInSeconds;
+	}
+
+	/**
+	 * @param warmUpTimeoutInSeconds
+	 *            the warmUpTimeoutInSeconds to set
+	 */
+	public void setWarmUpTimeoutInSeconds(final int warmUpTimeoutInSeconds) {
+		this.warmUpTimeoutInSeconds = warmUpTimeoutInSeconds;
+	}
+
+	/**
+	 * @return the readinessPath
+	 */
+	public String getReadinessPath() {
+		return readinessPath;
+	}
+
+	/**
+	 * @param readinessPath
+	 *            the readinessPath to set
+	 */
+	public void setReadinessPath(final String readinessPath) {
+		this.readinessPath = readinessPath;
+	}
+
+	/**
+	 * @return the tlsSharedContextEnabled
+	 */
+	public boolean isTlsSharedContextEnabled() {
+		return tlsSharedContextEnabled;
+	}
+
+	/**
+	 * @param tlsSharedContextEnabled
+	 *            the tlsSharedContextEnabled to set
+	 */
+	public void setTlsSharedContextEnabled(final boolean tlsSharedContextEnabled) {
+		this.tlsSharedContextEnabled = tlsSharedContextEnabled;
+	}
+
+	/**
+	 * @return the tlsProtocol
+	 */
+	public String getTlsProtocol() {
+		return tlsProtocol;
+	}
+
+	/**
+	 * @param tlsProtocol
+	 *            the tlsProtocol to set
+	 */
+	public void setTlsProtocol(final String tlsProtocol) {
+		this.tlsProtocol = tlsProtocol;
+	}
+
+	/**
+	 * @return the tlsSessionCacheSize
+	 */
+	public int getTlsSessionCacheSize() {
+		return tlsSessionCacheSize;
+	}
+
+	/**
+	 * @param tlsSessionCacheSize
+	 *            the tlsSessionCacheSize to set
+	 */
+	public void setTlsSessionCacheSize(final int tlsSessionCacheSize) {
+		this.tlsSessionCacheSize = tlsSessionCacheSize;
+	}
+
+	/**
+	 * @return the tlsSessionTimeoutInSeconds
+	 */
+	public int getTlsSessionTimeoutInSeconds() {
+		return tlsSessionTimeoutInSeconds;
+	}
+
+	/**
+	 * @param tlsSessionTimeoutInSeconds
+	 *            the tlsSessionTimeoutInSeconds to set
+	 */
+	public void setTlsSessionTimeoutInSeconds(final int tlsSessionTimeoutInSeconds) {
+		this.tlsSessionTimeoutInSeconds = tlsSessionTimeoutInSeconds;
+	}
+
+	/**
+	 * @return the objStatCacheTimeToLiveInSeconds
+	 */
+	public int getObjStatCacheTimeToLiveInSeconds() {
+		return objStatCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param objStatCacheTimeToLiveInSeconds
+	 *            the objStatCacheTimeToLiveInSeconds to set
+	 */
+	public void setObjStatCacheTimeToLiveInSeconds(final int objStatCacheTimeToLiveInSeconds) {
+		this.objStatCacheTimeToLiveInSeconds = objStatCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the objStatCacheMaxEntries
+	 */
+	public int getObjStatCacheMaxEntries() {
+		return objStatCacheMaxEntries;
+	}
+
+	/**
+	 * @param objStatCacheMaxEntries
+	 *            the objStatCacheMaxEntries to set
+	 */
+	public void setObjStatCacheMaxEntries(final int objStatCacheMaxEntries) {
+		this.objStatCacheMaxEntries = objStatCacheMaxEntries;
+	}
+
+	/**
+	 * @return the absentPathCacheTimeToLiveInSeconds
+	 */
+	public int getAbsentPathCacheTimeToLiveInSeconds() {
+		return absentPathCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param absentPathCacheTimeToLiveInSeconds
+	 *            the absentPathCacheTimeToLiveInSeconds to set
+	 */
+	public void setAbsentPathCacheTimeToLiveInSeconds(final int absentPathCacheTimeToLiveInSeconds) {
+		this.absentPathCacheTimeToLiveInSeconds = absentPathCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the absentPathCacheMaxEntries
+	 */
+	public int getAbsentPathCacheMaxEntries() {
+		return absentPathCacheMaxEntries;
+	}
+
+	/**
+	 * @param absentPathCacheMaxEntries
+	 *            the absentPathCacheMaxEntries to set
+	 */
+	public void setAbsentPathCacheMaxEntries(final int absentPathCacheMaxEntries) {
+		this.absentPathCacheMaxEntries = absentPathCacheMaxEntries;
+	}
+
+	/**
+	 * @return the alwaysAbsentNames
+	 */
+	public String getAlwaysAbsentNames() {
+		return alwaysAbsentNames;
+	}
+
+	/**
+	 * @param alwaysAbsentNames
+	 *            the alwaysAbsentNames to set
+	 */
+	public void setAlwaysAbsentNames(final String alwaysAbsentNames) {
+		this.alwaysAbsentNames = alwaysAbsentNames;
+	}
+
+	/**
+	 * @return the listingPageSize
+	 */
+	public int getListingPageSize() {
+		return listingPageSize;
+	}
+
+	/**
+	 * @param listingPageSize
+	 *            the listingPageSize to set
+	 */
+	public void setListingPageSize(final int listingPageSize) {
+		this.listingPageSize = listingPageSize;
+	}
+
+	/**
+	 * @return the streamingPropFindEnabled
+	 */
+	public boolean isStreamingPropFindEnabled() {
+		return streamingPropFindEnabled;
+	}
+
+	/**
+	 * @param streamingPropFindEnabled
+	 *            the streamingPropFindEnabled to set
+	 */
+	public void setStreamingPropFindEnabled(final boolean streamingPropFindEnabled) {
+		this.streamingPropFindEnabled = streamingPropFindEnabled;
+	}
+
+	/**
+	 * @return the listingCacheTimeToLiveInSeconds
+	 */
+	public int getListingCacheTimeToLiveInSeconds() {
+		return listingCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @param listingCacheTimeToLiveInSeconds
+	 *            the listingCacheTimeToLiveInSeconds to set
+	 */
+	public void setListingCacheTimeToLiveInSeconds(final int listingCacheTimeToLiveInSeconds) {
+		this.listingCacheTimeToLiveInSeconds = listingCacheTimeToLiveInSeconds;
+	}
+
+	/**
+	 * @return the listingCacheMaxEntries
+	 */
+	public int getListingCacheMaxEntries() {
+		return listingCacheMaxEntries;
+	}
+
+	/**
+	 * @param listingCacheMaxEntries
+	 *            the listingCacheMaxEntries to set
+	 */
+	public void setListingCacheMaxEntries(final int listingCacheMaxEntries) {
+		this.listingCacheMaxEntries = listingCacheMaxEntries;
+	}
+
+	/**
+	 * @return the listingCacheMaxChildren
+	 */
+	public int getListingCacheMaxChildren() {
+		return listingCacheMaxChildren;
+	}
+
+	/**
+	 * @param listingCacheMaxChildren
+	 *            the listingCacheMaxChildren to set
+	 */
+	public void setListingCacheMaxChildren(final int listingCacheMaxChildren) {
+		this.listingCacheMaxChildren = listingCacheMaxChildren;
+	}
+
+	/**
+	 * @return the propFindInfinityEnabled
+	 */
+	public boolean isPropFindInfinityEnabled() {
+		return propFindInfinityEnabled;
+	}
+
+	/**
+	 * @param propFindInfinityEnabled
+	 *            the propFindInfinityEnabled to set
+	 */
+	public void setPropFindInfinityEnabled(final boolean propFindInfinityEnabled) {
+		this.propFindInfinityEnabled = propFindInfinityEnabled;
+	}
+
+	/**
+	 * @return the propFindInfinityThreads
+	 */
+	public int getPropFindInfinityThreads() {
+		return propFindInfinityThreads;
+	}
+
+	/**
+	 * @param propFindInfinityThreads
+	 *            the propFindInfinityThreads to set
+	 */
+	public void setPropFindInfinityThreads(final int propFindInfinityThreads) {
+		this.propFindInfinityThreads = propFindInfinityThreads;
+	}
+
+	/**
+	 * @return the propFindInfinityParallelism
+	 */
+	public int getPropFindInfinityParallelism() {
+		return propFindInfinityParallelism;
+	}
+
+	/**
+	 * @param propFindInfinityParallelism
+	 *            the propFindInfinityParallelism to set
+	 */
+	public void setPropFindInfinityParallelism(final int propFindInfinityParallelism) {
+		this.propFindInfinityParallelism = propFindInfinityParallelism;
+	}
+
+	/**
+	 * @return the propFindInfinityMaxEntries
+	 */
+	public long getPropFindInfinityMaxEntries() {
+		return propFindInfinityMaxEntries;
+	}
+
+	/**
+	 * @param propFindInfinityMaxEntries
+	 *            the propFindInfinityMaxEntries to set
+	 */
+	public void setPropFindInfinityMaxEntries(final long propFindInfinityMaxEntries) {
+		this.propFindInfinityMaxEntries = propFindInfinityMaxEntries;
+	}
+
+	/**
+	 * @return the propFindInfinityMaxSeconds
+	 */
+	public int getPropFindInfinityMaxSeconds() {
+		return propFindInfinityMaxSeconds;
+	}
+
+	/**
+	 * @param propFindInfinityMaxSeconds
+	 *            the propFindInfinityMaxSeconds to set
+	 */
+	public void setPropFindInfinityMaxSeconds(final int propFindInfinityMaxSeconds) {
+		this.propFindInfinityMaxSeconds = propFindInfinityMaxSeconds;
+	}
+
+	/**
+	 * @return the listingPrefetchDepth
+	 */
+	public int getListingPrefetchDepth() {
+		return listingPrefetchDepth;
+	}
+
+	/**
+	 * @param listingPrefetchDepth
+	 *            the listingPrefetchDepth to set
+	 */
+	public void setListingPrefetchDepth(final int listingPrefetchDepth) {
+		this.listingPrefetchDepth = listingPrefetchDepth;
+	}
+
+	/**
+	 * @return the listingPrefetchThreads
+	 */
+	public int getListingPrefetchThreads() {
+		return listingPrefetchThreads;
+	}
+
+	/**
+	 * @param listingPrefetchThreads
+	 *            the listingPrefetchThreads to set
+	 */
+	public void setListingPrefetchThreads(final int listingPrefetchThreads) {
+		this.listingPrefetchThreads = listingPrefetchThreads;
+	}
+
+	/**
+	 * @return the listingKeysetPaginationEnabled
+	 */
+	public boolean isListingKeysetPaginationEnabled() {
+		return listingKeysetPaginationEnabled;
+	}
+
+	/**
+	 * @param listingKeysetPaginationEnabled
+	 *            the listingKeysetPaginationEnabled to set
+	 */
+	public void setListingKeysetPaginationEnabled(final boolean listingKeysetPaginationEnabled) {
+		this.listingKeysetPaginationEnabled = listingKeysetPaginationEnabled;
+	}
+
+	/**
+	 * @return the parallelDownloadThresholdInMb
+	 */
+	public int getParallelDownloadThresholdInMb() {
+		return parallelDownloadThresholdInMb;
+	}
+
+	/**
+	 * @param parallelDownloadThresholdInMb
+	 *            the parallelDownloadThresholdInMb to set
+	 */
+	public void setParallelDownloadThresholdInMb(final int parallelDownloadThresholdInMb) {
+		this.parallelDownloadThresholdInMb = parallelDownloadThresholdInMb;
+	}
+
+	/**
+	 * @return the parallelDownloadStreams
+	 */
+	public int getParallelDownloadStreams() {
+		return parallelDownloadStreams;
+	}
+
+	/**
+	 * @param parallelDownloadStreams
+	 *            the parallelDownloadStreams to set
+	 */
+	public void setParallelDownloadStreams(final int parallelDownloadStreams) {
+		this.parallelDownloadStreams = parallelDownloadStreams;
+	}
+
+	/**
+	 * @return the parallelDownloadThreads
+	 */
+	public int getParallelDownloadThreads() {
+		return parallelDownloadThreads;
+	}
+
+	/**
+	 * @param parallelDownloadThreads
+	 *            the parallelDownloadThreads to set
+	 */
+	public void setParallelDownloadThreads(final int parallelDownloadThreads) {
+		this.parallelDownloadThreads = parallelDownloadThreads;
+	}
+
+	/**
+	 * @return the parallelDownloadChunkSizeInMb
+	 */
+	public int getParallelDownloadChunkSizeInMb() {
+		return parallelDownloadChunkSizeInMb;
+	}
+
+	/**
+	 * @param parallelDownloadChunkSizeInMb
+	 *            the parallelDownloadChunkSizeInMb to set
+	 */
+	public void setParallelDownloadChunkSizeInMb(final int parallelDownloadChunkSizeInMb) {
+		this.parallelDownloadChunkSizeInMb = parallelDownloadChunkSizeInMb;
+	}
+
+	/**
+	 * @return the parallelDownloadBufferInMb
+	 */
+	public int getParallelDownloadBufferInMb() {
+		return parallelDownloadBufferInMb;
+	}
+
+	/**
+	 * @param parallelDownloadBufferInMb
+	 *            the parallelDownloadBufferInMb to set
+	 */
+	public void setParallelDownloadBufferInMb(final int parallelDownloadBufferInMb) {
+		this.parallelDownloadBufferInMb = parallelDownloadBufferInMb;
+	}
+
+	/**
+	 * @return the parallelUploadThresholdInMb
+	 */
+	public int getParallelUploadThresholdInMb() {
+		return parallelUploadThresholdInMb;
+	}
+
+	/**
+	 * @param parallelUploadThresholdInMb
+	 *            the parallelUploadThresholdInMb to set
+	 */
+	public void setParallelUploadThresholdInMb(final int parallelUploadThresholdInMb) {
+		this.parallelUploadThresholdInMb = parallelUploadThresholdInMb;
+	}
+
+	/**
+	 * @return the parallelUploadStreams
+	 */
+	public int getParallelUploadStreams() {
+		return parallelUploadStreams;
+	}
+
+	/**
+	 * @param parallelUploadStreams
+	 *            the parallelUploadStreams to set
+	 */
+	public void setParallelUploadStreams(final int parallelUploadStreams) {
+		this.parallelUploadStreams = parallelUploadStreams;
+	}
+
+	/**
+	 * @return the parallelUploadThreads
+	 */
+	public int getParallelUploadThreads() {
+		return parallelUploadThreads;
+	}
+
+	/**
+	 * @param parallelUploadThreads
+	 *            the parallelUploadThreads to set
+	 */
+	public void setParallelUploadThreads(final int parallelUploadThreads) {
+		this.parallelUploadThreads = parallelUploadThreads;
+	}
+
+	/**
+	 * @return the parallelUploadChunkSizeInMb
+	 */
+	public int getParallelUploadChunkSizeInMb() {
+		return parallelUploadChunkSizeInMb;
+	}
+
+	/**
+	 * @param parallelUploadChunkSizeInMb
+	 *            the parallelUploadChunkSizeInMb to set
+	 */
+	public void setParallelUploadChunkSizeInMb(final int parallelUploadChunkSizeInMb) {
+		this.parallelUploadChunkSizeInMb = parallelUploadChunkSizeInMb;
+	}
+
+	/**
+	 * @return the parallelUploadBufferInMb
+	 */
+	public int getParallelUploadBufferInMb() {
+		return parallelUploadBufferInMb;
+	}
+
+	/**
+	 * @param parallelUploadBufferInMb
+	 *            the parallelUploadBufferInMb to set
+	 */
+	public void setParallelUploadBufferInMb(final int parallelUploadBufferInMb) {
+		this.parallelUploadBufferInMb = parallelUploadBufferInMb;
+	}
+
+	/**
+	 * @return the parallelUploadChecksumAlgorithm
+	 */
+	public String getParallelUploadChecksumAlgorithm() {
+		return parallelUploadChecksumAlgorithm;
+	}
+
+	/**
+	 * @param parallelUploadChecksumAlgorithm
+	 *            the parallelUploadChecksumAlgorithm to set
+	 */
+	public void setParallelUploadChecksumAlgorithm(final String parallelUploadChecksumAlgorithm) {
+		this.parallelUploadChecksumAlgorithm = parallelUploadChecksumAlgorithm;
+	}
+
+	/**
+	 * @return the bufferPoolMaxInMb
+	 */
+	public int getBufferPoolMaxInMb() {
+		return bufferPoolMaxInMb;
+	}
+
+	/**
+	 * @param bufferPoolMaxInMb
+	 *            the bufferPoolMaxInMb to set
+	 */
+	public void setBufferPoolMaxInMb(final int bufferPoolMaxInMb) {
+		this.bufferPoolMaxInMb = bufferPoolMaxInMb;
+	}
+
 }
@@ -0,0 +1,123 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.filter;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.irods.jargon.webdav.config.StartupConfigurator;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers readiness probes on the configured path, 200 once the
+ * {@link StartupConfigurator} reports startup (including any connection
+ * warm-up) complete, 503 before. The probe needs no credentials and never
+ * touches iRODS, other requests pass through untouched.
+ *
+ */
+public class ReadinessFilter implements Filter {
+
+	private WebDavConfig webDavConfig;
+	private StartupConfigurator startupConfigurator;
+
+	private static final Logger log = LoggerFactory.getLogger(ReadinessFilter.class);
+
+	/**
+	 *
+	 */
+	public ReadinessFilter() {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException {
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
+	 * javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+			throws IOException, ServletException {
+
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		String readinessPath = webDavConfig.getReadinessPath();
+		if (readinessPath == null || readinessPath.isEmpty()
+				|| !httpRequest.getRequestURI().equals(httpRequest.getContextPath() + readinessPath)) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		httpResponse.setHeader("Cache-Control", "no-cache");
+		httpResponse.setContentType("text/plain");
+		if (startupConfigurator.isReady()) {
+			httpResponse.setStatus(HttpServletResponse.SC_OK);
+			httpResponse.getWriter().write("ready");
+		} else {
+			log.debug("readiness probe while starting up");
+			httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			httpResponse.getWriter().write("starting");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+	/**
+	 * @return the startupConfigurator
+	 */
+	public StartupConfigurator getStartupConfigurator() {
+		return startupConfigurator;
+	}
+
+	/**
+	 * @param startupConfigurator
+	 *            the startupConfigurator to set
+	 */
+	public void setStartupConfigurator(final StartupConfigurator startupConfigurator) {
+		this.startupConfigurator = startupConfigurator;
+	}
+
+}
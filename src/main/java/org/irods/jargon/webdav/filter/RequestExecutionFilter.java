@@ -0,0 +1,301 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.filter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.utils.IrodsAccessGate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * First filter in the WebDAV chain, decides where the rest of the chain runs
+ * and bounds how many requests do iRODS work at once.
+ * <p/>
+ * When virtual threads are enabled and the runtime provides them, the request
+ * is put into async mode and the rest of the chain (auth, Milton) runs on a
+ * new virtual thread, so the container thread is returned at once and a
+ * request blocked on iRODS costs only memory. Otherwise the chain runs on the
+ * container thread as before.
+ * <p/>
+ * Jargon does its blocking socket I/O inside <code>synchronized</code>
+ * protocol methods. Before Java 24 a virtual thread blocking while it holds a
+ * monitor pins its carrier thread, so concurrent iRODS calls would be held to
+ * the number of carriers, fewer than the container threads this replaces.
+ * Virtual threads are therefore only used on Java 24 and later.
+ * <p/>
+ * Either way the chain runs inside an {@link IrodsAccessGate}, requests past
+ * the configured limit wait for a slot and are answered with a 503 if none
+ * frees up in time.
+ *
+ */
+public class RequestExecutionFilter implements Filter {
+
+	private static final int RETRY_AFTER_SECONDS = 5;
+
+	/**
+	 * First Java feature release where a virtual thread blocking inside a
+	 * <code>synchronized</code> method no longer pins its carrier
+	 */
+	static final int MIN_VIRTUAL_THREAD_JAVA_VERSION = 24;
+
+	private WebDavConfig webDavConfig;
+	private IrodsAccessGate irodsAccessGate;
+	private ExecutorService executorService;
+
+	private static final Logger log = LoggerFactory.getLogger(RequestExecutionFilter.class);
+
+	/**
+	 *
+	 */
+	public RequestExecutionFilter() {
+	}
+
+	/**
+	 * Wired into the spring config as the init method, sets up the gate and,
+	 * if configured and available, the virtual thread executor
+	 */
+	public void initialize() {
+		log.info("initialize()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+
+		if (irodsAccessGate == null) {
+			irodsAccessGate = new IrodsAccessGate(webDavConfig.getMaxConcurrentIrodsRequests());
+		}
+		log.info("concurrent iRODS request limit:{}", irodsAccessGate.getLimit());
+
+		if (webDavConfig.isUseVirtualThreads() && executorService == null) {
+			executorService = createVirtualThreadExecutor(javaFeatureVersion());
+		}
+	}
+
+	/**
+	 * Get a virtual thread per task executor if the runtime has one that does
+	 * not pin carriers on Jargon's monitors. Looked up reflectively as the
+	 * build targets an older runtime
+	 *
+	 * @param javaVersion
+	 *            <code>int</code> with the feature version of the runtime
+	 * @return {@link ExecutorService} or <code>null</code> if virtual threads
+	 *         are not available or would pin their carriers
+	 */
+	static ExecutorService createVirtualThreadExecutor(final int javaVersion) {
+		if (javaVersion < MIN_VIRTUAL_THREAD_JAVA_VERSION) {
+			log.warn("virtual threads pin their carrier while iRODS I/O holds a monitor on Java {}, needs {} or later,"
+					+ " requests run on container threads", javaVersion, MIN_VIRTUAL_THREAD_JAVA_VERSION);
+			return null;
+		}
+
+		try {
+			Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			ExecutorService executor = (ExecutorService) factoryMethod.invoke(null);
+			log.info("requests will run on virtual threads");
+			return executor;
+		} catch (NoSuchMethodException e) {
+			log.warn("virtual threads are not available on this runtime, requests run on container threads");
+			return null;
+		} catch (Exception e) {
+			log.warn("unable to create virtual thread executor, requests run on container threads", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the feature version of the running Java,
+	 *         8 for <code>1.8</code>
+	 */
+	static int javaFeatureVersion() {
+		String version = System.getProperty("java.specification.version", "");
+		if (version.startsWith("1.")) {
+			version = version.substring(2);
+		}
+		int dot = version.indexOf('.');
+		if (dot >= 0) {
+			version = version.substring(0, dot);
+		}
+		try {
+			return Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			log.warn("unable to parse java version:{}", version);
+			return 0;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException {
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
+	 * javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+			throws IOException, ServletException {
+
+		if (executorService == null || !request.isAsyncSupported() || request.isAsyncStarted()) {
+			runGated(request, response, chain);
+			return;
+		}
+
+		final AsyncContext asyncContext = request.startAsync(request, response);
+		/*
+		 * downloads and uploads can run long, the gate and iRODS socket timeouts
+		 * bound a stuck request instead
+		 */
+		asyncContext.setTimeout(0);
+
+		try {
+			executorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						runGated(asyncContext.getRequest(), asyncContext.getResponse(), chain);
+					} catch (Throwable t) {
+						log.error("error processing request on virtual thread", t);
+						sendErrorIfPossible(asyncContext.getResponse(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+					} finally {
+						asyncContext.complete();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.error("virtual thread executor rejected request", e);
+			sendErrorIfPossible(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			asyncContext.complete();
+		}
+	}
+
+	/**
+	 * Run the rest of the chain holding a slot in the iRODS gate
+	 */
+	private void runGated(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+			throws IOException, ServletException {
+		boolean acquired;
+		try {
+			acquired = irodsAccessGate.acquire(webDavConfig.getIrodsGateWaitInSeconds() * 1000L);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+
+		if (!acquired) {
+			log.warn("no iRODS slot available, active:{} waiting:{}", irodsAccessGate.getActive(),
+					irodsAccessGate.getWaiting());
+			((HttpServletResponse) response).setHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+			sendErrorIfPossible(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			irodsAccessGate.release();
+		}
+	}
+
+	private void sendErrorIfPossible(final ServletResponse response, final int status) {
+		if (response.isCommitted()) {
+			return;
+		}
+		try {
+			((HttpServletResponse) response).sendError(status);
+		} catch (IOException e) {
+			log.warn("unable to send error response", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+		if (executorService != null) {
+			log.info("shutting down virtual thread executor");
+			executorService.shutdown();
+			try {
+				executorService.awaitTermination(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executorService = null;
+		}
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+	/**
+	 * @return the irodsAccessGate
+	 */
+	public IrodsAccessGate getIrodsAccessGate() {
+		return irodsAccessGate;
+	}
+
+	/**
+	 * @param irodsAccessGate
+	 *            the irodsAccessGate to set, if not set one is built from the
+	 *            config
+	 */
+	public void setIrodsAccessGate(final IrodsAccessGate irodsAccessGate) {
+		this.irodsAccessGate = irodsAccessGate;
+	}
+
+	/**
+	 * @return the executorService requests are handed off to, or
+	 *         <code>null</code> if they run on the container thread
+	 */
+	public ExecutorService getExecutorService() {
+		return executorService;
+	}
+
+	/**
+	 * @param executorService
+	 *            the executorService to hand requests off to, if not set a
+	 *            virtual thread executor is created when enabled and supported
+	 */
+	public void setExecutorService(final ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+}
@@ -0,0 +1,402 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.filter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.CollectionListingService;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.listing.ListingPageHandler;
+import org.irods.jargon.webdav.listing.MultistatusWriter;
+import org.irods.jargon.webdav.listing.ParallelTreeWalk;
+import org.irods.jargon.webdav.listing.PropFindRequest;
+import org.irods.jargon.webdav.resource.IrodsFileSystemResourceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers depth 1 PROPFIND requests on collections by writing the multistatus
+ * as listing pages arrive from iRODS, so memory use is bounded by the listing
+ * page size instead of growing with the collection. Milton would otherwise
+ * build a resource for every child before writing anything.
+ * <p/>
+ * Only requests this filter can answer in full are streamed, those with a
+ * prop list made up of the properties {@link MultistatusWriter} supports.
+ * Anything else (other depths, allprop, propname, other properties, data
+ * objects, missing paths) is passed on to Milton with the request body
+ * intact.
+ * <p/>
+ * When enabled, depth infinity requests (or PROPFIND without a depth header)
+ * on collections are answered the same way with a {@link ParallelTreeWalk},
+ * listing subcollections in parallel within the configured entry and time
+ * budgets. A walk cut short by a budget ends with a 507 response for the
+ * request URI.
+ * <p/>
+ * Runs after the auth filter, as it needs the {@link IrodsRequestContext}.
+ *
+ */
+public class StreamingPropFindFilter implements Filter {
+
+	/**
+	 * Larger bodies are not inspected and go to Milton
+	 */
+	private static final int MAX_BODY_BYTES = 64 * 1024;
+
+	private static final int WRITE_BUFFER_CHARS = 16 * 1024;
+
+	private static final int SC_MULTI_STATUS = 207;
+
+	private static final String DEPTH_INFINITY = "infinity";
+
+	private WebDavConfig webDavConfig;
+	private IrodsFileSystemResourceFactory resourceFactory;
+	private CollectionListingService collectionListingService;
+	private ExecutorService treeWalkExecutor;
+
+	private static final Logger log = LoggerFactory.getLogger(StreamingPropFindFilter.class);
+
+	/**
+	 *
+	 */
+	public StreamingPropFindFilter() {
+	}
+
+	/**
+	 * Wired into the spring config as the init method, sets up the shared
+	 * tree walk threads if depth infinity walks are enabled
+	 */
+	public void initialize() {
+		log.info("initialize()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+
+		if (webDavConfig.isPropFindInfinityEnabled() && webDavConfig.getPropFindInfinityThreads() > 0) {
+			log.info("depth infinity propfind walks use {} shared threads", webDavConfig.getPropFindInfinityThreads());
+			treeWalkExecutor = Executors.newFixedThreadPool(webDavConfig.getPropFindInfinityThreads(),
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(final Runnable runnable) {
+							Thread thread = new Thread(runnable, "propfind-walk-" + count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException {
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest,
+	 * javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+			throws IOException, ServletException {
+
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		IrodsRequestContext requestContext = IrodsRequestContext.current();
+		if (!"PROPFIND".equals(httpRequest.getMethod()) || requestContext == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		String depth = trim(httpRequest.getHeader("Depth"));
+		boolean infinite = depth == null || DEPTH_INFINITY.equalsIgnoreCase(depth);
+		if (!(infinite ? webDavConfig.isPropFindInfinityEnabled()
+				: "1".equals(depth) && webDavConfig.isStreamingPropFindEnabled())) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		InputStream in = httpRequest.getInputStream();
+		byte[] body = readUpTo(in, MAX_BODY_BYTES + 1);
+		HttpServletRequest replayingRequest = new ReplayingRequest(httpRequest, body, in);
+		if (body.length > MAX_BODY_BYTES) {
+			log.debug("propfind body too large to inspect, passing on");
+			chain.doFilter(replayingRequest, response);
+			return;
+		}
+
+		PropFindRequest propFindRequest = PropFindRequest.parse(body);
+		if (!MultistatusWriter.supports(propFindRequest)) {
+			log.debug("propfind asks for properties not streamed, passing on");
+			chain.doFilter(replayingRequest, response);
+			return;
+		}
+
+		String absolutePath = resourceFactory.resolvePath(requestPath(httpRequest), requestContext)
+				.getAbsolutePath();
+		ObjStat objStat;
+		try {
+			objStat = resourceFactory.retrieveObjectStat(absolutePath, requestContext);
+		} catch (FileNotFoundException e) {
+			chain.doFilter(replayingRequest, response);
+			return;
+		} catch (JargonException e) {
+			log.error("unable to stat propfind target", e);
+			throw new WebDavRuntimeException("cannot get objStat", e);
+		}
+
+		if (!objStat.isSomeTypeOfCollection()) {
+			chain.doFilter(replayingRequest, response);
+			return;
+		}
+
+		streamListing(httpRequest, (HttpServletResponse) response, requestContext, absolutePath, objStat,
+				propFindRequest, infinite);
+	}
+
+	private void streamListing(final HttpServletRequest request, final HttpServletResponse response,
+			final IrodsRequestContext requestContext, final String absolutePath, final ObjStat objStat,
+			final PropFindRequest propFindRequest, final boolean infinite) throws IOException {
+		log.info("streaming propfind of:{} infinite:{}", absolutePath, infinite);
+
+		String requestUri = request.getRequestURI();
+		final String parentHref = requestUri.endsWith("/") ? requestUri : requestUri + '/';
+
+		response.setStatus(SC_MULTI_STATUS);
+		response.setContentType("application/xml; charset=utf-8");
+		Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), "UTF-8"),
+				WRITE_BUFFER_CHARS);
+		final MultistatusWriter multistatusWriter = new MultistatusWriter(writer, propFindRequest);
+
+		multistatusWriter.start();
+		multistatusWriter.writeResponse(parentHref, true,
+				MiscIRODSUtils.getLastPathComponentForGiveAbsolutePath(absolutePath), 0L,
+				timeOf(objStat.getCreatedAt()), timeOf(objStat.getModifiedAt()),
+				MultistatusWriter.COLLECTION_CONTENT_TYPE);
+
+		if (infinite) {
+			walkTree(requestContext, absolutePath, parentHref, multistatusWriter);
+			return;
+		}
+
+		try {
+			collectionListingService.listChildren(requestContext, absolutePath, new ListingPageHandler() {
+				@Override
+				public void onPage(final List<ListingEntry> entries) {
+					try {
+						for (ListingEntry entry : entries) {
+							multistatusWriter.writeEntry(parentHref, entry);
+						}
+						multistatusWriter.flush();
+					} catch (IOException e) {
+						throw new WebDavRuntimeException("error writing multistatus", e);
+					}
+				}
+			});
+		} catch (JargonException e) {
+			log.error("error listing collection for propfind", e);
+			throw new WebDavRuntimeException("unable to list children", e);
+		} catch (WebDavRuntimeException e) {
+			if (e.getCause() instanceof IOException) {
+				log.info("client stopped reading propfind response:{}", e.getCause().getMessage());
+				return;
+			}
+			throw e;
+		}
+
+		multistatusWriter.finish();
+		multistatusWriter.flush();
+	}
+
+	private void walkTree(final IrodsRequestContext requestContext, final String absolutePath,
+			final String rootHref, final MultistatusWriter multistatusWriter) throws IOException {
+		ParallelTreeWalk treeWalk = new ParallelTreeWalk(collectionListingService, requestContext,
+				multistatusWriter, treeWalkExecutor, webDavConfig.getPropFindInfinityParallelism(),
+				webDavConfig.getPropFindInfinityMaxEntries(), webDavConfig.getPropFindInfinityMaxSeconds() * 1000L);
+		boolean truncated;
+		try {
+			truncated = treeWalk.walk(absolutePath, rootHref);
+		} catch (JargonException e) {
+			log.error("error walking collection for propfind", e);
+			throw new WebDavRuntimeException("unable to walk collection", e);
+		} catch (IOException e) {
+			log.info("client stopped reading propfind response:{}", e.getMessage());
+			return;
+		}
+
+		if (truncated) {
+			multistatusWriter.writeStatusResponse(rootHref, ParallelTreeWalk.TRUNCATED_STATUS);
+		}
+		multistatusWriter.finish();
+		multistatusWriter.flush();
+	}
+
+	private static long timeOf(final Date date) {
+		return date == null ? 0L : date.getTime();
+	}
+
+	/**
+	 * @return <code>String</code> with the decoded request path, without the
+	 *         context path
+	 */
+	private static String requestPath(final HttpServletRequest request) throws UnsupportedEncodingException {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		// URLDecoder is for form data, keep a literal plus as it is
+		return URLDecoder.decode(path.replace("+", "%2B"), "UTF-8");
+	}
+
+	private static String trim(final String value) {
+		return value == null ? null : value.trim();
+	}
+
+	private static byte[] readUpTo(final InputStream in, final int limit) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while (bytes.size() < limit) {
+			read = in.read(buffer, 0, Math.min(buffer.length, limit - bytes.size()));
+			if (read == -1) {
+				break;
+			}
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Request whose body reads the bytes already consumed, then whatever is
+	 * left of the stream they were read from
+	 */
+	private static class ReplayingRequest extends HttpServletRequestWrapper {
+
+		private final ServletInputStream inputStream;
+
+		ReplayingRequest(final HttpServletRequest request, final byte[] consumed, final InputStream rest) {
+			super(request);
+			final InputStream in = new SequenceInputStream(new ByteArrayInputStream(consumed), rest);
+			inputStream = new ServletInputStream() {
+				@Override
+				public int read() throws IOException {
+					return in.read();
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) throws IOException {
+					return in.read(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws UnsupportedEncodingException {
+			String encoding = getCharacterEncoding() == null ? "UTF-8" : getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(inputStream, encoding));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+		if (treeWalkExecutor != null) {
+			log.info("shutting down tree walk threads");
+			treeWalkExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+	/**
+	 * @return the resourceFactory
+	 */
+	public IrodsFileSystemResourceFactory getResourceFactory() {
+		return resourceFactory;
+	}
+
+	/**
+	 * @param resourceFactory
+	 *            the resourceFactory to set
+	 */
+	public void setResourceFactory(final IrodsFileSystemResourceFactory resourceFactory) {
+		this.resourceFactory = resourceFactory;
+	}
+
+	/**
+	 * @return the collectionListingService
+	 */
+	public CollectionListingService getCollectionListingService() {
+		return collectionListingService;
+	}
+
+	/**
+	 * @param collectionListingService
+	 *            the collectionListingService to set
+	 */
+	public void setCollectionListingService(final CollectionListingService collectionListingService) {
+		this.collectionListingService = collectionListingService;
+	}
+
+}
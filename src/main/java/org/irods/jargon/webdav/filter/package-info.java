@@ -0,0 +1,5 @@
+/**
+ * Servlet filters for request execution and serving
+ *
+ */
+package org.irods.jargon.webdav.filter;
@@ -0,0 +1,597 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.utils.GlobMatcher;
+import org.irods.jargon.webdav.utils.JmxSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists the children of a collection with as few GenQuery round trips as
+ * possible. Collections and data objects cannot be selected by one GenQuery
+ * (one is keyed on the parent name, the other on the collection name), so a
+ * listing is one query for each, fetched in large pages that continue the
+ * open query rather than re-running it from an offset. Only the columns a
+ * PROPFIND needs are selected.
+ * <p/>
+ * With keyset pagination configured each page is instead its own query for
+ * the names after the last one seen, closed once read. Pages cost the same
+ * however deep into the listing they are, and no catalog statement is held
+ * open between pages.
+ * <p/>
+ * Listings are held per user in a {@link ListingCache} when it is configured,
+ * and served again while the collection's modify time is unchanged, which
+ * costs one objStat instead of the listing queries.
+ * <p/>
+ * With a prefetch depth configured, the queries run on a shared prefetch
+ * thread that fetches ahead while the request thread converts and writes the
+ * pages it has, see {@link PagePrefetcher}. The prefetch thread uses its own
+ * iRODS connection, from the pool when pooling is on. When all prefetch
+ * threads are busy the request thread lists on its own.
+ * <p/>
+ * Names configured as always absent are left out of listings, as they are
+ * reported missing when looked up.
+ * <p/>
+ * Page counts and timing are kept in {@link ListingMetrics}, published over
+ * JMX when the service is initialized.
+ *
+ */
+public class CollectionListingService {
+
+	/**
+	 * Type the metrics are registered under with {@link JmxSupport}
+	 */
+	public static final String METRICS_MBEAN_TYPE = "ListingMetrics";
+
+	private WebDavConfig webDavConfig;
+	private final ListingMetrics listingMetrics = new ListingMetrics();
+	private boolean metricsRegistered = false;
+	private volatile ListingCache listingCache;
+	private volatile GlobMatcher alwaysAbsentMatcher;
+	private ThreadPoolExecutor prefetchExecutor;
+
+	private static final Logger log = LoggerFactory.getLogger(CollectionListingService.class);
+
+	/**
+	 *
+	 */
+	public CollectionListingService() {
+	}
+
+	/**
+	 * Wired into the spring config as the init method, publishes the metrics
+	 */
+	public void init() {
+		log.info("init()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+		JmxSupport.register(METRICS_MBEAN_TYPE, listingMetrics);
+		metricsRegistered = true;
+
+		if (webDavConfig.getListingPrefetchDepth() > 0 && webDavConfig.getListingPrefetchThreads() > 0) {
+			log.info("prefetching {} listing pages on {} shared threads", webDavConfig.getListingPrefetchDepth(),
+					webDavConfig.getListingPrefetchThreads());
+			prefetchExecutor = new ThreadPoolExecutor(webDavConfig.getListingPrefetchThreads(),
+					webDavConfig.getListingPrefetchThreads(), 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(final Runnable runnable) {
+							Thread thread = new Thread(runnable, "listing-prefetch-" + count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			prefetchExecutor.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/**
+	 * Wired into the spring config as the destroy method
+	 */
+	public void destroy() {
+		if (metricsRegistered) {
+			JmxSupport.unregister(METRICS_MBEAN_TYPE);
+			metricsRegistered = false;
+		}
+
+		if (prefetchExecutor != null) {
+			log.info("shutting down listing prefetch threads");
+			prefetchExecutor.shutdownNow();
+			prefetchExecutor = null;
+		}
+	}
+
+	/**
+	 * List all children of a collection
+	 *
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @param parentPath
+	 *            <code>String</code> with the absolute collection path
+	 * @return <code>List</code> of {@link ListingEntry}, collections first
+	 * @throws JargonException
+	 */
+	public List<ListingEntry> listChildren(final IrodsRequestContext requestContext, final String parentPath)
+			throws JargonException {
+		final List<ListingEntry> entries = new ArrayList<ListingEntry>();
+		listChildren(requestContext, parentPath, new ListingPageHandler() {
+			@Override
+			public void onPage(final List<ListingEntry> page) {
+				entries.addAll(page);
+			}
+		});
+		return entries;
+	}
+
+	/**
+	 * List the children of a collection, handing each page to the handler as
+	 * it arrives
+	 *
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @param parentPath
+	 *            <code>String</code> with the absolute collection path
+	 * @param handler
+	 *            {@link ListingPageHandler} receiving the pages, collections
+	 *            first
+	 * @throws JargonException
+	 */
+	public void listChildren(final IrodsRequestContext requestContext, final String parentPath,
+			final ListingPageHandler handler) throws JargonException {
+		if (requestContext == null) {
+			throw new IllegalArgumentException("null requestContext");
+		}
+
+		if (parentPath == null || parentPath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty parentPath");
+		}
+
+		if (handler == null) {
+			throw new IllegalArgumentException("null handler");
+		}
+
+		log.info("listChildren() of:{}", parentPath);
+		ListingCache cache = getListingCache();
+		if (!cache.isEnabled()) {
+			runListing(requestContext, parentPath, handler);
+			return;
+		}
+
+		long collectionModifiedAt;
+		try {
+			collectionModifiedAt = retrieveModifiedAt(requestContext, parentPath);
+		} catch (FileNotFoundException e) {
+			log.info("collection to list not found:{}", parentPath);
+			cache.invalidate(parentPath);
+			runListing(requestContext, parentPath, handler);
+			return;
+		}
+
+		List<ListingEntry> cached = cache.get(requestContext.getIrodsAccount(), parentPath, collectionModifiedAt);
+		if (cached != null) {
+			log.debug("listing from cache");
+			listingMetrics.recordCacheHit();
+			if (!cached.isEmpty()) {
+				handler.onPage(cached);
+			}
+			return;
+		}
+
+		CollectingPageHandler collectingHandler = new CollectingPageHandler(handler,
+				cache.getMaxChildrenPerListing());
+		runListing(requestContext, parentPath, collectingHandler);
+		if (collectingHandler.entries != null) {
+			cache.put(requestContext.getIrodsAccount(), parentPath, collectionModifiedAt, collectingHandler.entries);
+		}
+	}
+
+	/**
+	 * Drop cached listings of a changed path and its parent
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidate(final String path) {
+		getListingCache().invalidate(path);
+	}
+
+	/**
+	 * Drop cached listings of a changed collection, everything under it, and
+	 * its parent
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidateTree(final String path) {
+		getListingCache().invalidateTree(path);
+	}
+
+	private void runListing(final IrodsRequestContext requestContext, final String parentPath,
+			final ListingPageHandler handler) throws JargonException {
+		long start = System.currentTimeMillis();
+		IRODSGenQueryExecutor executor = requestContext.getIrodsGenQueryExecutor();
+		if (prefetchExecutor == null || !runPrefetched(requestContext, executor, parentPath, handler)) {
+			runQueries(executor, parentPath, handler);
+		}
+		listingMetrics.recordListing(System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Run the listing queries on a prefetch thread, passing the pages to the
+	 * handler on this thread as they arrive
+	 *
+	 * @return <code>boolean</code> that is <code>false</code> if no prefetch
+	 *         thread was free and nothing was listed
+	 */
+	private boolean runPrefetched(final IrodsRequestContext requestContext, final IRODSGenQueryExecutor executor,
+			final String parentPath, final ListingPageHandler handler) throws JargonException {
+		final PagePrefetcher prefetcher = new PagePrefetcher(webDavConfig.getListingPrefetchDepth());
+		try {
+			prefetchExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					Throwable failure = null;
+					try {
+						runQueries(executor, parentPath, prefetcher.getProducerHandler());
+					} catch (PagePrefetcher.ListingCancelledException e) {
+						log.debug("prefetch of listing cancelled:{}", parentPath);
+					} catch (Throwable e) {
+						failure = e;
+					} finally {
+						requestContext.getIrodsAccessObjectFactory()
+								.closeSessionAndEatExceptions(requestContext.getIrodsAccount());
+						prefetcher.finish(failure);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.debug("no prefetch thread free, listing on request thread");
+			return false;
+		}
+
+		prefetcher.drainTo(handler);
+		return true;
+	}
+
+	private void runQueries(final IRODSGenQueryExecutor executor, final String parentPath,
+			final ListingPageHandler handler) throws JargonException {
+		try {
+			if (webDavConfig.isListingKeysetPaginationEnabled()) {
+				runKeysetQuery(executor, parentPath, true, handler);
+				runKeysetQuery(executor, parentPath, false, handler);
+			} else {
+				runQuery(executor, buildCollectionQuery(parentPath, null), parentPath, true, handler);
+				runQuery(executor, buildDataObjectQuery(parentPath, null), parentPath, false, handler);
+			}
+		} catch (GenQueryBuilderException e) {
+			log.error("error building listing query", e);
+			throw new WebDavRuntimeException("error building listing query", e);
+		} catch (JargonQueryException e) {
+			log.error("error in listing query", e);
+			throw new WebDavRuntimeException("error in listing query", e);
+		}
+	}
+
+	/**
+	 * Get the current modify time of a collection with an uncached objStat
+	 */
+	private long retrieveModifiedAt(final IrodsRequestContext requestContext, final String path)
+			throws JargonException {
+		ObjStat objStat = requestContext.getCollectionAndDataObjectListAndSearchAO().retrieveObjectStatForPath(path);
+		return objStat.getModifiedAt() == null ? 0L : objStat.getModifiedAt().getTime();
+	}
+
+	/**
+	 * Run one query, continuing it page by page on the same connection
+	 */
+	private void runQuery(final IRODSGenQueryExecutor executor, final IRODSGenQueryFromBuilder query,
+			final String parentPath, final boolean collections, final ListingPageHandler handler)
+			throws JargonException, JargonQueryException {
+
+		long pageStart = System.currentTimeMillis();
+		IRODSQueryResultSet resultSet = executor.executeIRODSQuery(query, 0);
+		String lastName = null;
+		try {
+			while (true) {
+				List<IRODSQueryResultRow> rows = resultSet.getResults();
+				listingMetrics.recordPage(System.currentTimeMillis() - pageStart, rows.size());
+				lastName = handleRows(rows, parentPath, collections, lastName, handler);
+
+				if (!resultSet.isHasMoreRecords()) {
+					break;
+				}
+
+				pageStart = System.currentTimeMillis();
+				resultSet = executor.getMoreResults(resultSet);
+			}
+		} finally {
+			executor.closeResults(resultSet);
+		}
+	}
+
+	/**
+	 * Run a query per page, each one for the rows after the last key seen.
+	 * The key is the first column, the absolute path for collections and the
+	 * name for data objects, which is also the sort order. A short or empty
+	 * page is the last one, so it ends the listing without another query
+	 */
+	private void runKeysetQuery(final IRODSGenQueryExecutor executor, final String parentPath,
+			final boolean collections, final ListingPageHandler handler)
+			throws JargonException, JargonQueryException, GenQueryBuilderException {
+
+		String afterKey = null;
+		String lastName = null;
+		while (true) {
+			long pageStart = System.currentTimeMillis();
+			IRODSGenQueryFromBuilder query = collections ? buildCollectionQuery(parentPath, afterKey)
+					: buildDataObjectQuery(parentPath, afterKey);
+			IRODSQueryResultSet resultSet = executor.executeIRODSQuery(query, 0);
+			List<IRODSQueryResultRow> rows;
+			try {
+				rows = resultSet.getResults();
+			} finally {
+				executor.closeResults(resultSet);
+			}
+			listingMetrics.recordPage(System.currentTimeMillis() - pageStart, rows.size());
+			lastName = handleRows(rows, parentPath, collections, lastName, handler);
+
+			if (!resultSet.isHasMoreRecords() || rows.isEmpty() || rows.size() < getPageSize()) {
+				break;
+			}
+			afterKey = rows.get(rows.size() - 1).getColumn(0);
+		}
+	}
+
+	/**
+	 * Convert a page of rows and pass it on
+	 *
+	 * @return <code>String</code> with the name of the last entry, to drop
+	 *         its repeats at the start of the next page
+	 */
+	private String handleRows(final List<IRODSQueryResultRow> rows, final String parentPath,
+			final boolean collections, final String previousName, final ListingPageHandler handler)
+			throws JargonException {
+		String lastName = previousName;
+		GlobMatcher alwaysAbsent = getAlwaysAbsentMatcher();
+		List<ListingEntry> page = new ArrayList<ListingEntry>(rows.size());
+		for (IRODSQueryResultRow row : rows) {
+			ListingEntry entry = collections ? collectionEntry(parentPath, row) : dataObjectEntry(parentPath, row);
+			/*
+			 * data objects come back once per distinct replica, rows are in
+			 * name order so duplicates are adjacent
+			 */
+			if (entry == null || entry.getName().equals(lastName)) {
+				continue;
+			}
+			lastName = entry.getName();
+			if (alwaysAbsent.matches(lastName)) {
+				continue;
+			}
+			page.add(entry);
+		}
+
+		if (!page.isEmpty()) {
+			handler.onPage(page);
+		}
+		return lastName;
+	}
+
+	/**
+	 * @param afterPath
+	 *            <code>String</code> with the absolute path to list after, or
+	 *            <code>null</code> to list from the start
+	 */
+	private IRODSGenQueryFromBuilder buildCollectionQuery(final String parentPath, final String afterPath)
+			throws GenQueryBuilderException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_OWNER_NAME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_OWNER_ZONE)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_CREATE_TIME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_PARENT_NAME, QueryConditionOperators.EQUAL,
+						parentPath)
+				.addOrderByGenQueryField(RodsGenQueryEnum.COL_COLL_NAME, OrderByType.ASC);
+		if (afterPath != null) {
+			builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+					QueryConditionOperators.GREATER_THAN, afterPath);
+		}
+		return builder.exportIRODSQueryFromBuilder(getPageSize());
+	}
+
+	/**
+	 * @param afterName
+	 *            <code>String</code> with the data object name to list after,
+	 *            or <code>null</code> to list from the start
+	 */
+	private IRODSGenQueryFromBuilder buildDataObjectQuery(final String parentPath, final String afterName)
+			throws GenQueryBuilderException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_NAME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_ZONE)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_CREATE_TIME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_MODIFY_TIME)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME, QueryConditionOperators.EQUAL,
+						parentPath)
+				.addOrderByGenQueryField(RodsGenQueryEnum.COL_DATA_NAME, OrderByType.ASC);
+		if (afterName != null) {
+			builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+					QueryConditionOperators.GREATER_THAN, afterName);
+		}
+		return builder.exportIRODSQueryFromBuilder(getPageSize());
+	}
+
+	/**
+	 * @return <code>null</code> for the row of the collection itself, which
+	 *         lists as its own child at the root
+	 */
+	static ListingEntry collectionEntry(final String parentPath, final IRODSQueryResultRow row)
+			throws JargonException {
+		String absolutePath = row.getColumn(0);
+		if (absolutePath.equals(parentPath)) {
+			return null;
+		}
+		String name = absolutePath.substring(absolutePath.lastIndexOf('/') + 1);
+		return new ListingEntry(parentPath, name, true, 0L, parseTime(row.getColumn(3)),
+				parseTime(row.getColumn(4)), row.getColumn(1), row.getColumn(2));
+	}
+
+	static ListingEntry dataObjectEntry(final String parentPath, final IRODSQueryResultRow row)
+			throws JargonException {
+		return new ListingEntry(parentPath, row.getColumn(0), false, parseLong(row.getColumn(1)),
+				parseTime(row.getColumn(4)), parseTime(row.getColumn(5)), row.getColumn(2), row.getColumn(3));
+	}
+
+	/**
+	 * iCAT times are seconds since the epoch, zero padded
+	 */
+	static long parseTime(final String value) {
+		return parseLong(value) * 1000L;
+	}
+
+	private static long parseLong(final String value) {
+		if (value == null || value.isEmpty()) {
+			return 0L;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			log.warn("unparseable number in listing:{}", value);
+			return 0L;
+		}
+	}
+
+	/**
+	 * Get the listing cache, creating it from the config on first use
+	 *
+	 * @return {@link ListingCache}
+	 */
+	public ListingCache getListingCache() {
+		ListingCache cache = listingCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = listingCache;
+				if (cache == null) {
+					if (webDavConfig == null) {
+						throw new WebDavRuntimeException("no webDavConfig is present");
+					}
+					log.info("creating listing cache with ttl of {} seconds",
+							webDavConfig.getListingCacheTimeToLiveInSeconds());
+					cache = ListingCache.instance(webDavConfig);
+					listingCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Set the listing cache, so that it can be shared with the other
+	 * application contexts
+	 *
+	 * @param listingCache
+	 *            {@link ListingCache}
+	 */
+	public void setListingCache(final ListingCache listingCache) {
+		this.listingCache = listingCache;
+	}
+
+	/**
+	 * @return {@link GlobMatcher} for names that are left out of listings
+	 */
+	private GlobMatcher getAlwaysAbsentMatcher() {
+		GlobMatcher matcher = alwaysAbsentMatcher;
+		if (matcher == null) {
+			matcher = new GlobMatcher(webDavConfig.getAlwaysAbsentNames());
+			alwaysAbsentMatcher = matcher;
+		}
+		return matcher;
+	}
+
+	private int getPageSize() {
+		return webDavConfig.getListingPageSize();
+	}
+
+	/**
+	 * @return {@link ListingMetrics} for this service
+	 */
+	public ListingMetrics getListingMetrics() {
+		return listingMetrics;
+	}
+
+	/**
+	 * Passes pages on, keeping a copy of the entries until there are more than
+	 * can be cached
+	 */
+	private static final class CollectingPageHandler implements ListingPageHandler {
+
+		private final ListingPageHandler delegate;
+		private final int maxEntries;
+		private List<ListingEntry> entries = new ArrayList<ListingEntry>();
+
+		CollectingPageHandler(final ListingPageHandler delegate, final int maxEntries) {
+			this.delegate = delegate;
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		public void onPage(final List<ListingEntry> page) throws JargonException {
+			if (entries != null) {
+				if (entries.size() + page.size() > maxEntries) {
+					entries = null;
+				} else {
+					entries.addAll(page);
+				}
+			}
+			delegate.onPage(page);
+		}
+	}
+
+	/**
+	 * @return the webDavConfig
+	 */
+	public WebDavConfig getWebDavConfig() {
+		return webDavConfig;
+	}
+
+	/**
+	 * @param webDavConfig
+	 *            the webDavConfig to set
+	 */
+	public void setWebDavConfig(final WebDavConfig webDavConfig) {
+		this.webDavConfig = webDavConfig;
+	}
+
+}
@@ -0,0 +1,274 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.irods.jargon.webdav.utils.ExpiringCache.KeyFilter;
+
+/**
+ * Cache of collection listings, held per user as what a user sees in a
+ * collection depends on their permissions. Each listing is held with the
+ * modify time the collection had when it was listed, and is only served while
+ * the collection still has that modify time, so a held listing costs one
+ * objStat to revalidate instead of the full listing queries.
+ * <p/>
+ * iRODS does not advance a collection's modify time for every change to its
+ * contents, so listings also expire after their time to live. Changes made
+ * through this server invalidate the changed path and its parent for every
+ * user at once.
+ * <p/>
+ * Listings with more than the configured number of children are not held, so
+ * that memory use stays bounded.
+ * <p/>
+ * Listings are keyed by path, each holding the listing of every user, so that
+ * invalidating a path and its parent removes two keys rather than scanning
+ * the cache. Only invalidating a tree scans for the paths under it.
+ *
+ */
+public class ListingCache {
+
+	/**
+	 * The cache shared by every application context of the web application,
+	 * the root context the filters run in and the context of the Milton
+	 * filter each build their own listing service
+	 */
+	private static ListingCache sharedCache;
+
+	private final ExpiringCache<String, UserListings> listings;
+	private final long timeToLiveMillis;
+	private final int maxChildrenPerListing;
+
+	/**
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with how long a listing is held, zero or
+	 *            less disables the cache
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of collections
+	 *            held
+	 * @param maxChildrenPerListing
+	 *            <code>int</code> with the most children a listing may have to
+	 *            be held
+	 */
+	public ListingCache(final long timeToLiveMillis, final int maxEntries, final int maxChildrenPerListing) {
+		listings = new ExpiringCache<String, UserListings>(timeToLiveMillis, maxEntries);
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxChildrenPerListing = maxChildrenPerListing;
+	}
+
+	/**
+	 * Build a cache with the time to live and sizes in the config
+	 *
+	 * @param webDavConfig
+	 *            {@link WebDavConfig}
+	 * @return {@link ListingCache}
+	 */
+	public static ListingCache instance(final WebDavConfig webDavConfig) {
+		if (webDavConfig == null) {
+			throw new IllegalArgumentException("null webDavConfig");
+		}
+		return new ListingCache(webDavConfig.getListingCacheTimeToLiveInSeconds() * 1000L,
+				webDavConfig.getListingCacheMaxEntries(), webDavConfig.getListingCacheMaxChildren());
+	}
+
+	/**
+	 * Get the cache shared by the application contexts, built from the config
+	 * on first use. The streaming PROPFIND filter lists through the service of
+	 * the root context while writes go through the resources of the Milton
+	 * context, so both have to hold their listings in the one cache for the
+	 * writes to invalidate what the filter serves.
+	 *
+	 * @param webDavConfig
+	 *            {@link WebDavConfig} the cache is built from on first use
+	 * @return {@link ListingCache}
+	 */
+	public static synchronized ListingCache shared(final WebDavConfig webDavConfig) {
+		if (sharedCache == null) {
+			sharedCache = instance(webDavConfig);
+		}
+		return sharedCache;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if listings will
+	 *         be held
+	 */
+	public boolean isEnabled() {
+		return listings.isEnabled() && maxChildrenPerListing > 0;
+	}
+
+	/**
+	 * Get a held listing, if it was taken at the given collection modify time
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the listing is for
+	 * @param path
+	 *            <code>String</code> with the absolute collection path
+	 * @param collectionModifiedAt
+	 *            <code>long</code> with the current modify time of the
+	 *            collection in epoch millis
+	 * @return unmodifiable <code>List</code> of {@link ListingEntry}, or
+	 *         <code>null</code> if none is held or the held one is stale
+	 */
+	public List<ListingEntry> get(final IRODSAccount irodsAccount, final String path,
+			final long collectionModifiedAt) {
+		UserListings userListings = listings.get(path);
+		if (userListings == null) {
+			return null;
+		}
+
+		String userKey = buildUserKey(irodsAccount);
+		CachedListing listing = userListings.get(userKey);
+		if (listing == null) {
+			return null;
+		}
+
+		if (listing.collectionModifiedAt != collectionModifiedAt) {
+			userListings.remove(userKey, listing);
+			return null;
+		}
+		return listing.entries;
+	}
+
+	/**
+	 * Hold a listing, unless it has too many children
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the listing is for
+	 * @param path
+	 *            <code>String</code> with the absolute collection path
+	 * @param collectionModifiedAt
+	 *            <code>long</code> with the modify time of the collection,
+	 *            taken before it was listed
+	 * @param entries
+	 *            <code>List</code> of {@link ListingEntry}
+	 * @return unmodifiable <code>List</code> of the entries
+	 */
+	public List<ListingEntry> put(final IRODSAccount irodsAccount, final String path,
+			final long collectionModifiedAt, final List<ListingEntry> entries) {
+		List<ListingEntry> held = Collections.unmodifiableList(entries);
+		if (isEnabled() && entries.size() <= maxChildrenPerListing) {
+			UserListings userListings = listings.putIfAbsent(path, new UserListings());
+			userListings.put(buildUserKey(irodsAccount), new CachedListing(collectionModifiedAt, held,
+					System.currentTimeMillis() + timeToLiveMillis));
+			/*
+			 * put again so the path is held as long as its newest listing
+			 */
+			listings.put(path, userListings);
+		}
+		return held;
+	}
+
+	/**
+	 * @return <code>int</code> with the most children a listing may have to
+	 *         be held
+	 */
+	public int getMaxChildrenPerListing() {
+		return maxChildrenPerListing;
+	}
+
+	/**
+	 * Drop the listings of a changed path and its parent, for all users
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidate(final String path) {
+		invalidate(path, false);
+	}
+
+	/**
+	 * Drop the listings of a changed collection, everything under it, and its
+	 * parent, for all users
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidateTree(final String path) {
+		invalidate(path, true);
+	}
+
+	/**
+	 * Drop all listings
+	 */
+	public void clear() {
+		listings.clear();
+	}
+
+	private void invalidate(final String path, final boolean includeChildren) {
+		if (!isEnabled() || path == null) {
+			return;
+		}
+
+		listings.remove(path);
+		listings.remove(parentOf(path));
+
+		if (includeChildren) {
+			final String childPrefix = path.endsWith("/") ? path : path + "/";
+			listings.removeMatching(new KeyFilter<String>() {
+				@Override
+				public boolean accept(final String key) {
+					return key.startsWith(childPrefix);
+				}
+			});
+		}
+	}
+
+	private static String parentOf(final String path) {
+		int last = path.lastIndexOf('/');
+		if (last <= 0) {
+			return "/";
+		}
+		return path.substring(0, last);
+	}
+
+	private static String buildUserKey(final IRODSAccount irodsAccount) {
+		return irodsAccount.getUserName() + '#' + irodsAccount.getZone();
+	}
+
+	/**
+	 * The listing each user was given of one collection, with its own expiry
+	 */
+	private static final class UserListings {
+		private final ConcurrentHashMap<String, CachedListing> byUser = new ConcurrentHashMap<String, CachedListing>();
+
+		CachedListing get(final String userKey) {
+			CachedListing listing = byUser.get(userKey);
+			if (listing == null) {
+				return null;
+			}
+			if (listing.expiresAt <= System.currentTimeMillis()) {
+				byUser.remove(userKey, listing);
+				return null;
+			}
+			return listing;
+		}
+
+		void put(final String userKey, final CachedListing listing) {
+			byUser.put(userKey, listing);
+		}
+
+		void remove(final String userKey, final CachedListing listing) {
+			byUser.remove(userKey, listing);
+		}
+	}
+
+	private static final class CachedListing {
+		private final long collectionModifiedAt;
+		private final List<ListingEntry> entries;
+		private final long expiresAt;
+
+		CachedListing(final long collectionModifiedAt, final List<ListingEntry> entries, final long expiresAt) {
+			this.collectionModifiedAt = collectionModifiedAt;
+			this.entries = entries;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.Date;
+
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+
+/**
+ * Compact, immutable entry in a collection listing, holding only what a
+ * PROPFIND needs. Entries from one listing share the parent path string, and
+ * times are held as epoch milliseconds.
+ * <p/>
+ * Resources hold one as the snapshot their properties are answered from, built
+ * from a listing row or an objStat.
+ *
+ */
+public final class ListingEntry {
+
+	private final String parentPath;
+	private final String name;
+	private final boolean collection;
+	private final long dataSize;
+	private final long createdAt;
+	private final long modifiedAt;
+	private final String ownerName;
+	private final String ownerZone;
+
+	/**
+	 * @param parentPath
+	 *            <code>String</code> with the absolute path of the parent
+	 *            collection
+	 * @param name
+	 *            <code>String</code> with the last path component
+	 * @param collection
+	 *            <code>boolean</code> that is <code>true</code> for a
+	 *            collection
+	 * @param dataSize
+	 *            <code>long</code> with the size, zero for collections
+	 * @param createdAt
+	 *            <code>long</code> with the create time in epoch millis
+	 * @param modifiedAt
+	 *            <code>long</code> with the modify time in epoch millis
+	 * @param ownerName
+	 *            <code>String</code> with the owner
+	 * @param ownerZone
+	 *            <code>String</code> with the owner's zone
+	 */
+	public ListingEntry(final String parentPath, final String name, final boolean collection, final long dataSize,
+			final long createdAt, final long modifiedAt, final String ownerName, final String ownerZone) {
+		if (parentPath == null || parentPath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty parentPath");
+		}
+
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("null or empty name");
+		}
+
+		this.parentPath = parentPath;
+		this.name = name;
+		this.collection = collection;
+		this.dataSize = dataSize;
+		this.createdAt = createdAt;
+		this.modifiedAt = modifiedAt;
+		this.ownerName = ownerName;
+		this.ownerZone = ownerZone;
+	}
+
+	/**
+	 * Unchecked, for the root collection
+	 */
+	private ListingEntry(final String parentPath, final String name, final boolean collection, final long dataSize,
+			final long createdAt, final long modifiedAt, final String ownerName, final String ownerZone,
+			final boolean root) {
+		this.parentPath = parentPath;
+		this.name = name;
+		this.collection = collection;
+		this.dataSize = dataSize;
+		this.createdAt = createdAt;
+		this.modifiedAt = modifiedAt;
+		this.ownerName = ownerName;
+		this.ownerZone = ownerZone;
+	}
+
+	/**
+	 * Build an entry for an absolute path, the root collection has an empty
+	 * name
+	 *
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute iRODS path
+	 * @param collection
+	 *            <code>boolean</code> that is <code>true</code> for a
+	 *            collection
+	 * @param dataSize
+	 *            <code>long</code> with the size, zero for collections
+	 * @param createdAt
+	 *            <code>long</code> with the create time in epoch millis
+	 * @param modifiedAt
+	 *            <code>long</code> with the modify time in epoch millis
+	 * @param ownerName
+	 *            <code>String</code> with the owner
+	 * @param ownerZone
+	 *            <code>String</code> with the owner's zone
+	 * @return {@link ListingEntry}
+	 */
+	public static ListingEntry forPath(final String absolutePath, final boolean collection, final long dataSize,
+			final long createdAt, final long modifiedAt, final String ownerName, final String ownerZone) {
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolutePath");
+		}
+
+		String path = absolutePath;
+		if (path.length() > 1 && path.endsWith("/")) {
+			path = path.substring(0, path.length() - 1);
+		}
+
+		int last = path.lastIndexOf('/');
+		String parentPath = last <= 0 ? "/" : path.substring(0, last);
+		String name = path.substring(last + 1);
+		if (name.isEmpty()) {
+			return new ListingEntry("/", "", collection, dataSize, createdAt, modifiedAt, ownerName, ownerZone,
+					true);
+		}
+		return new ListingEntry(parentPath, name, collection, dataSize, createdAt, modifiedAt, ownerName,
+				ownerZone);
+	}
+
+	/**
+	 * Build an entry from an objStat
+	 *
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute iRODS path that was
+	 *            stat'd
+	 * @param objStat
+	 *            {@link ObjStat} for the path
+	 * @return {@link ListingEntry}
+	 */
+	public static ListingEntry fromObjStat(final String absolutePath, final ObjStat objStat) {
+		if (objStat == null) {
+			throw new IllegalArgumentException("null objStat");
+		}
+
+		boolean collection = objStat.isSomeTypeOfCollection();
+		return forPath(absolutePath, collection, collection ? 0L : objStat.getObjSize(),
+				millisOf(objStat.getCreatedAt()), millisOf(objStat.getModifiedAt()), objStat.getOwnerName(),
+				objStat.getOwnerZone());
+	}
+
+	/**
+	 * Build an entry from a Jargon listing entry
+	 *
+	 * @param entry
+	 *            {@link CollectionAndDataObjectListingEntry}
+	 * @return {@link ListingEntry}
+	 */
+	public static ListingEntry fromCollectionAndDataObjectListingEntry(
+			final CollectionAndDataObjectListingEntry entry) {
+		if (entry == null) {
+			throw new IllegalArgumentException("null entry");
+		}
+
+		boolean collection = entry.getObjectType() == ObjectType.COLLECTION;
+		return forPath(entry.getFormattedAbsolutePath(), collection, collection ? 0L : entry.getDataSize(),
+				millisOf(entry.getCreatedAt()), millisOf(entry.getModifiedAt()), entry.getOwnerName(),
+				entry.getOwnerZone());
+	}
+
+	private static long millisOf(final Date date) {
+		return date == null ? 0L : date.getTime();
+	}
+
+	/**
+	 * @return <code>String</code> with the absolute path of the entry
+	 */
+	public String getAbsolutePath() {
+		if (parentPath.endsWith("/")) {
+			return parentPath + name;
+		}
+		return parentPath + '/' + name;
+	}
+
+	/**
+	 * @return the parentPath
+	 */
+	public String getParentPath() {
+		return parentPath;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> for a collection
+	 */
+	public boolean isCollection() {
+		return collection;
+	}
+
+	/**
+	 * @return the dataSize
+	 */
+	public long getDataSize() {
+		return dataSize;
+	}
+
+	/**
+	 * @return the createdAt in epoch millis
+	 */
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * @return the modifiedAt in epoch millis
+	 */
+	public long getModifiedAt() {
+		return modifiedAt;
+	}
+
+	/**
+	 * @return the ownerName
+	 */
+	public String getOwnerName() {
+		return ownerName;
+	}
+
+	/**
+	 * @return the ownerZone
+	 */
+	public String getOwnerZone() {
+		return ownerZone;
+	}
+
+	/**
+	 * @return {@link CollectionAndDataObjectListingEntry} with the same values,
+	 *         for code that works with Jargon listing entries
+	 */
+	public CollectionAndDataObjectListingEntry toCollectionAndDataObjectListingEntry() {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setParentPath(parentPath);
+		if (collection) {
+			entry.setObjectType(ObjectType.COLLECTION);
+			entry.setPathOrName(getAbsolutePath());
+		} else {
+			entry.setObjectType(ObjectType.DATA_OBJECT);
+			entry.setPathOrName(name);
+		}
+		entry.setDataSize(dataSize);
+		entry.setCreatedAt(new Date(createdAt));
+		entry.setModifiedAt(new Date(modifiedAt));
+		entry.setOwnerName(ownerName);
+		entry.setOwnerZone(ownerZone);
+		return entry;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("ListingEntry [parentPath=").append(parentPath).append(", name=").append(name)
+				.append(", collection=").append(collection).append(", dataSize=").append(dataSize)
+				.append(", modifiedAt=").append(modifiedAt).append("]");
+		return builder.toString();
+	}
+
+}
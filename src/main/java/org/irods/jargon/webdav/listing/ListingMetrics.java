@@ -0,0 +1,112 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts listings and the query pages behind them, with their timing
+ *
+ */
+public class ListingMetrics implements ListingMetricsMBean {
+
+	private final AtomicLong listingCount = new AtomicLong();
+	private final AtomicLong totalListingMillis = new AtomicLong();
+	private final AtomicLong pageCount = new AtomicLong();
+	private final AtomicLong entryCount = new AtomicLong();
+	private final AtomicLong totalPageMillis = new AtomicLong();
+	private final AtomicLong maxPageMillis = new AtomicLong();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+
+	/**
+	 * Record a fetched page
+	 *
+	 * @param millis
+	 *            <code>long</code> with the time the page took
+	 * @param entries
+	 *            <code>int</code> with the number of rows in the page
+	 */
+	public void recordPage(final long millis, final int entries) {
+		pageCount.incrementAndGet();
+		entryCount.addAndGet(entries);
+		totalPageMillis.addAndGet(millis);
+
+		long max = maxPageMillis.get();
+		while (millis > max && !maxPageMillis.compareAndSet(max, millis)) {
+			max = maxPageMillis.get();
+		}
+	}
+
+	/**
+	 * Record a completed listing
+	 *
+	 * @param millis
+	 *            <code>long</code> with the time the listing took
+	 */
+	public void recordListing(final long millis) {
+		listingCount.incrementAndGet();
+		totalListingMillis.addAndGet(millis);
+	}
+
+	/**
+	 * Record a listing served from the cache
+	 */
+	public void recordCacheHit() {
+		cacheHitCount.incrementAndGet();
+	}
+
+	@Override
+	public long getListingCount() {
+		return listingCount.get();
+	}
+
+	@Override
+	public long getPageCount() {
+		return pageCount.get();
+	}
+
+	@Override
+	public long getEntryCount() {
+		return entryCount.get();
+	}
+
+	@Override
+	public long getTotalPageMillis() {
+		return totalPageMillis.get();
+	}
+
+	@Override
+	public long getAveragePageMillis() {
+		long count = pageCount.get();
+		return count == 0 ? 0 : totalPageMillis.get() / count;
+	}
+
+	@Override
+	public long getMaxPageMillis() {
+		return maxPageMillis.get();
+	}
+
+	@Override
+	public long getAverageListingMillis() {
+		long count = listingCount.get();
+		return count == 0 ? 0 : totalListingMillis.get() / count;
+	}
+
+	@Override
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	@Override
+	public void reset() {
+		listingCount.set(0);
+		totalListingMillis.set(0);
+		pageCount.set(0);
+		entryCount.set(0);
+		totalPageMillis.set(0);
+		maxPageMillis.set(0);
+		cacheHitCount.set(0);
+	}
+
+}
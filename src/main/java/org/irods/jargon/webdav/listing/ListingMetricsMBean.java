@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+/**
+ * JMX view of collection listing queries
+ *
+ */
+public interface ListingMetricsMBean {
+
+	/**
+	 * @return <code>long</code> with the number of listings run
+	 */
+	long getListingCount();
+
+	/**
+	 * @return <code>long</code> with the number of query pages fetched
+	 */
+	long getPageCount();
+
+	/**
+	 * @return <code>long</code> with the number of entries listed
+	 */
+	long getEntryCount();
+
+	/**
+	 * @return <code>long</code> with the total time spent fetching pages
+	 */
+	long getTotalPageMillis();
+
+	/**
+	 * @return <code>long</code> with the mean time to fetch a page
+	 */
+	long getAveragePageMillis();
+
+	/**
+	 * @return <code>long</code> with the longest time to fetch a page
+	 */
+	long getMaxPageMillis();
+
+	/**
+	 * @return <code>long</code> with the mean time for a whole listing
+	 */
+	long getAverageListingMillis();
+
+	/**
+	 * @return <code>long</code> with the number of listings served from the
+	 *         listing cache after revalidation
+	 */
+	long getCacheHitCount();
+
+	/**
+	 * Zero the counters
+	 */
+	void reset();
+
+}
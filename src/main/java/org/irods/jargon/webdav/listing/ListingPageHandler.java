@@ -0,0 +1,25 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * Receives the entries of a listing a page at a time, as they arrive from
+ * iRODS
+ *
+ */
+public interface ListingPageHandler {
+
+	/**
+	 * @param entries
+	 *            <code>List</code> of {@link ListingEntry} in the page,
+	 *            collections before data objects, each in name order
+	 * @throws JargonException
+	 */
+	void onPage(List<ListingEntry> entries) throws JargonException;
+
+}
@@ -0,0 +1,319 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+import javax.xml.namespace.QName;
+
+import io.milton.common.ContentTypeUtils;
+
+/**
+ * Writes a PROPFIND multistatus one <code>response</code> at a time, so a
+ * listing can be sent as it is read rather than held in memory. Only prop
+ * lists of the live properties a listing entry carries are supported, see
+ * {@link #supports(PropFindRequest)}. Allprop is left to Milton, which also
+ * reports etags and lock properties.
+ * <p/>
+ * Not thread safe, one writer serves one request.
+ *
+ */
+public class MultistatusWriter {
+
+	/**
+	 * Local names of the DAV: properties that can be written from a listing
+	 * entry
+	 */
+	public static final List<String> SUPPORTED_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+			"resourcetype", "displayname", "getcontentlength", "getcontenttype", "getlastmodified", "creationdate"));
+
+	private static final Set<String> SUPPORTED = new HashSet<String>(SUPPORTED_PROPERTIES);
+
+	/**
+	 * Content type collections report
+	 */
+	public static final String COLLECTION_CONTENT_TYPE = "text/html";
+
+	private static final String HEX = "0123456789ABCDEF";
+
+	private static final String CONTENT_LENGTH = "getcontentlength";
+
+	private final Writer writer;
+	private final List<String> properties;
+	private final SimpleDateFormat lastModifiedFormat;
+	private final SimpleDateFormat creationDateFormat;
+
+	/**
+	 * @param writer
+	 *            {@link Writer} the multistatus is written to, buffering is up
+	 *            to the caller
+	 * @param propFindRequest
+	 *            {@link PropFindRequest} that {@link #supports(PropFindRequest)}
+	 */
+	public MultistatusWriter(final Writer writer, final PropFindRequest propFindRequest) {
+		if (writer == null) {
+			throw new IllegalArgumentException("null writer");
+		}
+
+		if (!supports(propFindRequest)) {
+			throw new IllegalArgumentException("unsupported propfind request");
+		}
+
+		this.writer = writer;
+		String[] names = new String[propFindRequest.getProperties().size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = propFindRequest.getProperties().get(i).getLocalPart();
+		}
+		properties = Arrays.asList(names);
+
+		lastModifiedFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+		lastModifiedFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+		creationDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+		creationDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+	}
+
+	/**
+	 * Check whether every property a request asks for can be written from a
+	 * listing entry. Allprop is not supported, as it takes in properties a
+	 * listing entry does not carry, such as <code>getetag</code> and
+	 * <code>lockdiscovery</code>
+	 *
+	 * @param propFindRequest
+	 *            {@link PropFindRequest}, may be <code>null</code>
+	 * @return <code>boolean</code> that is <code>true</code> if this writer can
+	 *         answer the request
+	 */
+	public static boolean supports(final PropFindRequest propFindRequest) {
+		if (propFindRequest == null || propFindRequest.isAllProp()) {
+			return false;
+		}
+
+		if (propFindRequest.getProperties().isEmpty()) {
+			return false;
+		}
+
+		for (QName name : propFindRequest.getProperties()) {
+			if (!PropFindRequest.DAV_NAMESPACE.equals(name.getNamespaceURI())
+					|| !SUPPORTED.contains(name.getLocalPart())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Write the document prolog and open the multistatus element
+	 *
+	 * @throws IOException
+	 */
+	public void start() throws IOException {
+		writer.write("<?xml version=\"1.0\" encoding=\"utf-8\" ?>\n<d:multistatus xmlns:d=\"DAV:\">\n");
+	}
+
+	/**
+	 * Write one <code>response</code>. Collections have no content length, so
+	 * a requested <code>getcontentlength</code> is left out of their found
+	 * properties and reported not found
+	 *
+	 * @param href
+	 *            <code>String</code> with the already encoded href
+	 * @param collection
+	 *            <code>boolean</code> that is <code>true</code> for a
+	 *            collection
+	 * @param name
+	 *            <code>String</code> with the display name
+	 * @param dataSize
+	 *            <code>long</code> with the content length
+	 * @param createdAt
+	 *            <code>long</code> with the create time in epoch millis
+	 * @param modifiedAt
+	 *            <code>long</code> with the modify time in epoch millis
+	 * @param contentType
+	 *            <code>String</code> with the content type, may be
+	 *            <code>null</code>
+	 * @throws IOException
+	 */
+	public void writeResponse(final String href, final boolean collection, final String name, final long dataSize,
+			final long createdAt, final long modifiedAt, final String contentType) throws IOException {
+		writer.write("<d:response><d:href>");
+		writeEscaped(href);
+		writer.write("</d:href><d:propstat><d:prop>");
+		for (String property : properties) {
+			if ("resourcetype".equals(property)) {
+				writer.write(collection ? "<d:resourcetype><d:collection/></d:resourcetype>" : "<d:resourcetype/>");
+			} else if ("displayname".equals(property)) {
+				writeElement(property, name);
+			} else if (CONTENT_LENGTH.equals(property)) {
+				if (!collection) {
+					writeElement(property, String.valueOf(dataSize));
+				}
+			} else if ("getcontenttype".equals(property)) {
+				writeElement(property, contentType);
+			} else if ("getlastmodified".equals(property)) {
+				writeElement(property, lastModifiedFormat.format(new Date(modifiedAt)));
+			} else if ("creationdate".equals(property)) {
+				writeElement(property, creationDateFormat.format(new Date(createdAt)));
+			}
+		}
+		writer.write("</d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>");
+		if (collection && properties.contains(CONTENT_LENGTH)) {
+			writer.write("<d:propstat><d:prop><d:getcontentlength/></d:prop>"
+					+ "<d:status>HTTP/1.1 404 Not Found</d:status></d:propstat>");
+		}
+		writer.write("</d:response>\n");
+	}
+
+	/**
+	 * Write a listing entry as a <code>response</code>
+	 *
+	 * @param parentHref
+	 *            <code>String</code> with the encoded href of the listed
+	 *            collection, ending in a slash
+	 * @param entry
+	 *            {@link ListingEntry} to write
+	 * @throws IOException
+	 */
+	public void writeEntry(final String parentHref, final ListingEntry entry) throws IOException {
+		writeResponse(hrefOf(parentHref, entry), entry.isCollection(), entry.getName(), entry.getDataSize(),
+				entry.getCreatedAt(), entry.getModifiedAt(), contentTypeOf(entry));
+	}
+
+	/**
+	 * Write a <code>response</code> carrying only a status, e.g. for a
+	 * collection that could not be listed
+	 *
+	 * @param href
+	 *            <code>String</code> with the already encoded href
+	 * @param status
+	 *            <code>String</code> with the status line, e.g.
+	 *            <code>HTTP/1.1 507 Insufficient Storage</code>
+	 * @throws IOException
+	 */
+	public void writeStatusResponse(final String href, final String status) throws IOException {
+		writer.write("<d:response><d:href>");
+		writeEscaped(href);
+		writer.write("</d:href><d:status>");
+		writeEscaped(status);
+		writer.write("</d:status></d:response>\n");
+	}
+
+	/**
+	 * Send what has been written so far
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * @param parentHref
+	 *            <code>String</code> with the encoded href of the listed
+	 *            collection, ending in a slash
+	 * @param entry
+	 *            {@link ListingEntry}
+	 * @return <code>String</code> with the encoded href of the entry,
+	 *         collections end in a slash
+	 */
+	public static String hrefOf(final String parentHref, final ListingEntry entry) {
+		String href = parentHref + encodePathSegment(entry.getName());
+		if (entry.isCollection()) {
+			return href + '/';
+		}
+		return href;
+	}
+
+	/**
+	 * Content type as the resources report it, html for collections, by
+	 * extension for data objects
+	 */
+	private static String contentTypeOf(final ListingEntry entry) {
+		if (entry.isCollection()) {
+			return COLLECTION_CONTENT_TYPE;
+		}
+		return ContentTypeUtils.findAcceptableContentType(ContentTypeUtils.findContentTypes(entry.getName()), null);
+	}
+
+	/**
+	 * Close the multistatus element
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		writer.write("</d:multistatus>\n");
+	}
+
+	private void writeElement(final String localName, final String value) throws IOException {
+		if (value == null) {
+			writer.write("<d:" + localName + "/>");
+			return;
+		}
+		writer.write("<d:" + localName + ">");
+		writeEscaped(value);
+		writer.write("</d:" + localName + ">");
+	}
+
+	private void writeEscaped(final String value) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '<':
+				writer.write("&lt;");
+				break;
+			case '>':
+				writer.write("&gt;");
+				break;
+			case '&':
+				writer.write("&amp;");
+				break;
+			case '"':
+				writer.write("&quot;");
+				break;
+			default:
+				writer.write(c);
+			}
+		}
+	}
+
+	/**
+	 * Percent encode a path segment for use in an href, leaving RFC 3986
+	 * unreserved characters as they are
+	 *
+	 * @param segment
+	 *            <code>String</code> with the unencoded segment
+	 * @return <code>String</code> with the encoded segment
+	 */
+	public static String encodePathSegment(final String segment) {
+		byte[] bytes;
+		try {
+			bytes = segment.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("no UTF-8", e);
+		}
+
+		StringBuilder encoded = new StringBuilder(bytes.length + 16);
+		for (byte b : bytes) {
+			int c = b & 0xff;
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+					|| c == '_' || c == '~') {
+				encoded.append((char) c);
+			} else {
+				encoded.append('%').append(HEX.charAt(c >> 4)).append(HEX.charAt(c & 0xf));
+			}
+		}
+		return encoded.toString();
+	}
+
+}
@@ -0,0 +1,170 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+
+/**
+ * Hands listing pages from a thread running the listing queries to the thread
+ * rendering them, so the next page is fetched while the current one is
+ * converted and written. At most the prefetch depth of pages wait to be
+ * rendered, after which the fetching thread waits too.
+ * <p/>
+ * The fetching thread passes pages to {@link #getProducerHandler()} and calls
+ * {@link #finish(Throwable)} when done, the rendering thread calls
+ * {@link #drainTo(ListingPageHandler)}. If rendering fails the fetching thread
+ * is stopped at its next page.
+ *
+ */
+class PagePrefetcher {
+
+	private static final long POLL_MILLIS = 50;
+
+	private final BlockingQueue<Item> pages;
+	private volatile boolean cancelled = false;
+	private volatile boolean finished = false;
+	private volatile Throwable failure;
+
+	private final ListingPageHandler producerHandler = new ListingPageHandler() {
+		@Override
+		public void onPage(final List<ListingEntry> page) {
+			offer(new Item(page));
+		}
+	};
+
+	/**
+	 * @param depth
+	 *            <code>int</code> with the most pages fetched ahead of the one
+	 *            being rendered
+	 */
+	PagePrefetcher(final int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("depth must be at least 1");
+		}
+		pages = new ArrayBlockingQueue<Item>(depth);
+	}
+
+	/**
+	 * @return {@link ListingPageHandler} the fetching thread passes pages to
+	 */
+	ListingPageHandler getProducerHandler() {
+		return producerHandler;
+	}
+
+	/**
+	 * Mark the end of the listing, called once by the fetching thread
+	 *
+	 * @param failure
+	 *            <code>Throwable</code> that ended the listing, or
+	 *            <code>null</code> if it completed
+	 */
+	void finish(final Throwable failure) {
+		this.failure = failure;
+		finished = true;
+		/*
+		 * wakes the rendering thread at once, if the queue is full it notices
+		 * the end once it has drained the queue
+		 */
+		pages.offer(Item.END);
+	}
+
+	/**
+	 * Pass pages to the handler as they arrive until the listing ends
+	 *
+	 * @param handler
+	 *            {@link ListingPageHandler} rendering the pages
+	 * @throws JargonException
+	 *             if the listing failed with one, or the handler threw one
+	 */
+	void drainTo(final ListingPageHandler handler) throws JargonException {
+		boolean completed = false;
+		try {
+			while (true) {
+				Item item;
+				try {
+					item = pages.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new WebDavRuntimeException("interrupted waiting for listing page");
+				}
+
+				if (item != null && item != Item.END) {
+					handler.onPage(item.page);
+					continue;
+				}
+
+				if (item == Item.END || (finished && pages.isEmpty())) {
+					completed = true;
+					if (failure != null) {
+						rethrow(failure);
+					}
+					return;
+				}
+			}
+		} finally {
+			if (!completed) {
+				cancelled = true;
+				pages.clear();
+			}
+		}
+	}
+
+	private void offer(final Item item) {
+		try {
+			while (!pages.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (cancelled) {
+					throw new ListingCancelledException();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ListingCancelledException();
+		}
+
+		if (cancelled) {
+			throw new ListingCancelledException();
+		}
+	}
+
+	private static void rethrow(final Throwable failure) throws JargonException {
+		if (failure instanceof JargonException) {
+			throw (JargonException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw new WebDavRuntimeException("error fetching listing", failure);
+	}
+
+	/**
+	 * Ends the fetching thread's listing once rendering has stopped
+	 */
+	static final class ListingCancelledException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		ListingCancelledException() {
+			super("listing cancelled", null, false, false);
+		}
+	}
+
+	private static final class Item {
+		private static final Item END = new Item(null);
+
+		private final List<ListingEntry> page;
+
+		Item(final List<ListingEntry> page) {
+			this.page = page;
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Walks a collection tree for a depth infinity PROPFIND, writing each entry to
+ * a {@link MultistatusWriter} as it is listed. Subcollections are queued and
+ * listed by the request thread together with helpers run on a shared executor,
+ * so at most the configured number of collections are listed at once.
+ * <p/>
+ * The walk stops taking new work once the entry budget or the time budget is
+ * spent, and reports that it was truncated. A collection that cannot be listed
+ * is answered with a 500 response and the walk goes on, a failure writing to
+ * the client ends the walk.
+ * <p/>
+ * Helpers list with the request's access objects on their own threads, so
+ * each uses its own iRODS connection (from the pool when pooling is on), and
+ * closes it when it is done.
+ *
+ */
+public class ParallelTreeWalk {
+
+	/**
+	 * Status reported for the request URI when the walk was cut short
+	 */
+	public static final String TRUNCATED_STATUS = "HTTP/1.1 507 Insufficient Storage";
+
+	private static final String FAILED_STATUS = "HTTP/1.1 500 Internal Server Error";
+
+	private static final long POLL_MILLIS = 50;
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelTreeWalk.class);
+
+	private final CollectionListingService collectionListingService;
+	private final IrodsRequestContext requestContext;
+	private final MultistatusWriter multistatusWriter;
+	private final Executor executor;
+	private final int parallelism;
+	private final long maxEntries;
+	private final long maxMillis;
+
+	private final BlockingQueue<Node> queue = new LinkedBlockingQueue<Node>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private long entryCount = 0;
+	private long deadline;
+	private volatile boolean stopped = false;
+	private volatile boolean truncated = false;
+	private volatile IOException writeFailure;
+
+	/**
+	 * @param collectionListingService
+	 *            {@link CollectionListingService} to list with
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} of the request
+	 * @param multistatusWriter
+	 *            {@link MultistatusWriter} the entries are written to, with the
+	 *            multistatus already started
+	 * @param executor
+	 *            {@link Executor} the helpers run on
+	 * @param parallelism
+	 *            <code>int</code> with the most collections listed at once,
+	 *            including the request thread
+	 * @param maxEntries
+	 *            <code>long</code> with the most entries written, zero or less
+	 *            for no limit
+	 * @param maxMillis
+	 *            <code>long</code> with the longest the walk may run, zero or
+	 *            less for no limit
+	 */
+	public ParallelTreeWalk(final CollectionListingService collectionListingService,
+			final IrodsRequestContext requestContext, final MultistatusWriter multistatusWriter,
+			final Executor executor, final int parallelism, final long maxEntries, final long maxMillis) {
+		if (collectionListingService == null) {
+			throw new IllegalArgumentException("null collectionListingService");
+		}
+
+		if (requestContext == null) {
+			throw new IllegalArgumentException("null requestContext");
+		}
+
+		if (multistatusWriter == null) {
+			throw new IllegalArgumentException("null multistatusWriter");
+		}
+
+		this.collectionListingService = collectionListingService;
+		this.requestContext = requestContext;
+		this.multistatusWriter = multistatusWriter;
+		this.executor = executor;
+		this.parallelism = executor == null ? 1 : Math.max(1, parallelism);
+		this.maxEntries = maxEntries;
+		this.maxMillis = maxMillis;
+	}
+
+	/**
+	 * Walk the tree under a collection, the collection itself is not written
+	 *
+	 * @param rootPath
+	 *            <code>String</code> with the absolute collection path
+	 * @param rootHref
+	 *            <code>String</code> with the encoded href of the collection,
+	 *            ending in a slash
+	 * @return <code>boolean</code> that is <code>true</code> if a budget ran
+	 *         out before the whole tree was written
+	 * @throws IOException
+	 *             if writing to the client failed
+	 * @throws JargonException
+	 */
+	public boolean walk(final String rootPath, final String rootHref) throws IOException, JargonException {
+		log.info("walk() of:{}", rootPath);
+		deadline = maxMillis > 0 ? System.currentTimeMillis() + maxMillis : Long.MAX_VALUE;
+
+		/*
+		 * set up the lazily created access objects before helpers share them
+		 */
+		requestContext.getIrodsGenQueryExecutor();
+		requestContext.getCollectionAndDataObjectListAndSearchAO();
+
+		enqueue(rootPath, rootHref);
+		int helpers = parallelism - 1;
+		final CountDownLatch helpersDone = new CountDownLatch(helpers);
+		for (int i = 0; i < helpers; i++) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							work();
+						} finally {
+							requestContext.getIrodsAccessObjectFactory()
+									.closeSessionAndEatExceptions(requestContext.getIrodsAccount());
+							helpersDone.countDown();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				log.warn("tree walk helper rejected, walking with fewer");
+				helpersDone.countDown();
+			}
+		}
+
+		work();
+		try {
+			helpersDone.await();
+		} catch (InterruptedException e) {
+			stopped = true;
+			Thread.currentThread().interrupt();
+		}
+
+		if (writeFailure != null) {
+			throw writeFailure;
+		}
+		log.info("walk wrote {} entries, truncated:{}", entryCount, truncated);
+		return truncated;
+	}
+
+	private void work() {
+		while (!stopped) {
+			Node node;
+			try {
+				node = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				stopped = true;
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (node == null) {
+				if (pending.get() == 0) {
+					return;
+				}
+				continue;
+			}
+
+			try {
+				listNode(node);
+			} catch (StopWalkException e) {
+				log.debug("walk stopped");
+			} catch (JargonException e) {
+				log.error("unable to list collection in tree walk:{}", node.path, e);
+				writeFailedNode(node);
+			} catch (WebDavRuntimeException e) {
+				if (e.getCause() instanceof IOException) {
+					writeFailure = (IOException) e.getCause();
+					stopped = true;
+				} else {
+					log.error("unable to list collection in tree walk:{}", node.path, e);
+					writeFailedNode(node);
+				}
+			} finally {
+				pending.decrementAndGet();
+			}
+		}
+	}
+
+	private void listNode(final Node node) throws JargonException {
+		synchronized (multistatusWriter) {
+			if (isOverBudget()) {
+				return;
+			}
+		}
+
+		collectionListingService.listChildren(requestContext, node.path, new ListingPageHandler() {
+			@Override
+			public void onPage(final List<ListingEntry> entries) {
+				synchronized (multistatusWriter) {
+					try {
+						for (ListingEntry entry : entries) {
+							if (stopped || isOverBudget()) {
+								throw new StopWalkException();
+							}
+							multistatusWriter.writeEntry(node.href, entry);
+							entryCount++;
+							if (entry.isCollection()) {
+								enqueue(entry.getAbsolutePath(), MultistatusWriter.hrefOf(node.href, entry));
+							}
+						}
+						multistatusWriter.flush();
+					} catch (IOException e) {
+						throw new WebDavRuntimeException("error writing multistatus", e);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Check the budgets, holding the writer lock. Marks the walk truncated and
+	 * stopped when one is spent
+	 */
+	private boolean isOverBudget() {
+		if ((maxEntries > 0 && entryCount >= maxEntries) || System.currentTimeMillis() > deadline) {
+			if (!truncated) {
+				log.warn("tree walk budget spent after {} entries", entryCount);
+			}
+			truncated = true;
+			stopped = true;
+			return true;
+		}
+		return false;
+	}
+
+	private void writeFailedNode(final Node node) {
+		synchronized (multistatusWriter) {
+			try {
+				multistatusWriter.writeStatusResponse(node.href, FAILED_STATUS);
+			} catch (IOException e) {
+				writeFailure = e;
+				stopped = true;
+			}
+		}
+	}
+
+	private void enqueue(final String path, final String href) {
+		pending.incrementAndGet();
+		queue.add(new Node(path, href));
+	}
+
+	/**
+	 * @return <code>long</code> with the number of entries written
+	 */
+	public long getEntryCount() {
+		synchronized (multistatusWriter) {
+			return entryCount;
+		}
+	}
+
+	private static final class Node {
+		private final String path;
+		private final String href;
+
+		Node(final String path, final String href) {
+			this.path = path;
+			this.href = href;
+		}
+	}
+
+	/**
+	 * Ends a listing early once the walk has stopped
+	 */
+	private static final class StopWalkException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		StopWalkException() {
+			super(null, null, false, false);
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.listing;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * What a PROPFIND body asks for, either all properties or a named list. An
+ * empty body is an allprop request (RFC 4918 9.1).
+ *
+ */
+public final class PropFindRequest {
+
+	/**
+	 * The WebDAV namespace
+	 */
+	public static final String DAV_NAMESPACE = "DAV:";
+
+	private static final Logger log = LoggerFactory.getLogger(PropFindRequest.class);
+
+	private final boolean allProp;
+	private final List<QName> properties;
+
+	private PropFindRequest(final boolean allProp, final List<QName> properties) {
+		this.allProp = allProp;
+		this.properties = Collections.unmodifiableList(properties);
+	}
+
+	/**
+	 * Parse a PROPFIND body
+	 *
+	 * @param body
+	 *            <code>byte[]</code> with the request body, may be empty
+	 * @return {@link PropFindRequest}, or <code>null</code> for a propname
+	 *         request or a body that is not a well formed propfind
+	 */
+	public static PropFindRequest parse(final byte[] body) {
+		if (body == null || isBlank(body)) {
+			return new PropFindRequest(true, new ArrayList<QName>());
+		}
+
+		Document document;
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setExpandEntityReferences(false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			builder.setErrorHandler(new DefaultHandler());
+			document = builder.parse(new ByteArrayInputStream(body));
+		} catch (ParserConfigurationException e) {
+			log.warn("unable to configure parser for propfind body", e);
+			return null;
+		} catch (SAXException e) {
+			log.info("unparseable propfind body:{}", e.getMessage());
+			return null;
+		} catch (IOException e) {
+			log.info("unreadable propfind body:{}", e.getMessage());
+			return null;
+		}
+
+		Element root = document.getDocumentElement();
+		if (!isDav(root, "propfind")) {
+			return null;
+		}
+
+		for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			if (isDav(child, "allprop")) {
+				return new PropFindRequest(true, new ArrayList<QName>());
+			}
+			if (isDav(child, "prop")) {
+				return new PropFindRequest(false, namesOf(child));
+			}
+			if (isDav(child, "propname")) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static List<QName> namesOf(final Node prop) {
+		List<QName> names = new ArrayList<QName>();
+		for (Node child = prop.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				String namespace = child.getNamespaceURI() == null ? "" : child.getNamespaceURI();
+				names.add(new QName(namespace, child.getLocalName()));
+			}
+		}
+		return names;
+	}
+
+	private static boolean isDav(final Node node, final String localName) {
+		return DAV_NAMESPACE.equals(node.getNamespaceURI()) && localName.equals(node.getLocalName());
+	}
+
+	private static boolean isBlank(final byte[] body) {
+		for (byte b : body) {
+			if (!Character.isWhitespace((char) b)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> for an allprop
+	 *         request
+	 */
+	public boolean isAllProp() {
+		return allProp;
+	}
+
+	/**
+	 * @return <code>List</code> of the requested property names, empty for
+	 *         allprop
+	 */
+	public List<QName> getProperties() {
+		return properties;
+	}
+
+}
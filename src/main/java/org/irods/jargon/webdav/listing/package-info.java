@@ -0,0 +1,5 @@
+/**
+ * Collection listing for PROPFIND and browsing, built on GenQuery
+ *
+ */
+package org.irods.jargon.webdav.listing;
@@ -9,17 +9,17 @@ import java.util.List;
 import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
-import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.pub.domain.UserFilePermission;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
-import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
-import org.irods.jargon.webdav.authfilter.IrodsAuthService;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
 import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.ListingEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +53,21 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	private String ssoPrefix = null;
 	private IRODSFile irodsFile = null;
 
+	/**
+	 * Snapshot of the metadata the properties of this resource are answered
+	 * from, so that rendering them does no iRODS calls. Taken from the listing
+	 * row or objStat the resource was resolved from, or with one objStat on
+	 * first use if the resource was built without one
+	 */
+	private ListingEntry listingEntry;
+
+	/**
+	 * Context of the request this resource was resolved in, may be
+	 * <code>null</code> if the resource was built without one, in which case
+	 * the context bound to the current thread is used
+	 */
+	private final IrodsRequestContext requestContext;
+
 	private static final Logger log = LoggerFactory.getLogger(BaseResource.class);
 
 	/**
@@ -61,7 +76,7 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	 * @return {@link IRODSAccount}
 	 */
 	protected IRODSAccount retrieveIrodsAccount() {
-		return IrodsAuthService.retrieveCurrentIrodsAccount();
+		return getRequestContext().getIrodsAccount();
 	}
 
 	/**
@@ -71,7 +86,7 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	 */
 	protected IRODSFileFactory instanceIrodsFileFactory() {
 		try {
-			return irodsAccessObjectFactory.getIRODSFileFactory(retrieveIrodsAccount());
+			return getRequestContext().getIrodsFileFactory();
 		} catch (JargonException e) {
 			log.error("jargon error retrieving irodsFileFactory", e);
 			throw new WebDavRuntimeException("unable to get irodsFileFactory", e);
@@ -79,7 +94,25 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	}
 
 	/**
-	 * Default constructor
+	 * Get the context of the request this resource serves
+	 *
+	 * @return {@link IrodsRequestContext}
+	 */
+	protected IrodsRequestContext getRequestContext() {
+		if (requestContext != null) {
+			return requestContext;
+		}
+
+		IrodsRequestContext context = IrodsRequestContext.current();
+		if (context == null) {
+			throw new WebDavRuntimeException("no request context available");
+		}
+		return context;
+	}
+
+	/**
+	 * Default constructor, uses the request context bound to the current
+	 * thread
 	 *
 	 * @param irodsAccessObjectFactory
 	 * @param webDavConfig
@@ -87,6 +120,25 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	public BaseResource(final IrodsFileSystemResourceFactory factory,
 			final IRODSAccessObjectFactory irodsAccessObjectFactory, final WebDavConfig webDavConfig,
 			final IrodsFileContentService contentService) {
+		this(factory, irodsAccessObjectFactory, webDavConfig, contentService, IrodsRequestContext.current());
+	}
+
+	/**
+	 * Constructor with the context of the request the resource is resolved
+	 * in
+	 *
+	 * @param factory
+	 * @param irodsAccessObjectFactory
+	 * @param webDavConfig
+	 * @param contentService
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request, may be
+	 *            <code>null</code> to use the context bound to the thread at
+	 *            each call
+	 */
+	public BaseResource(final IrodsFileSystemResourceFactory factory,
+			final IRODSAccessObjectFactory irodsAccessObjectFactory, final WebDavConfig webDavConfig,
+			final IrodsFileContentService contentService, final IrodsRequestContext requestContext) {
 		super();
 
 		if (irodsAccessObjectFactory == null) {
@@ -109,6 +161,7 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 		this.webDavConfig = webDavConfig;
 		this.factory = factory;
 		this.contentService = contentService;
+		this.requestContext = requestContext;
 	}
 
 	/**
@@ -234,7 +287,36 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 	}
 
 	/**
-	 * Accomplish a copy with the given file
+	 * Drop any cached stat or listing for a path this resource changed, and
+	 * for its parent
+	 *
+	 * @param absolutePath
+	 *            <code>String</code> with the iRODS path
+	 */
+	protected void invalidateCached(final String absolutePath) {
+		if (factory != null) {
+			factory.getObjStatCache().invalidate(absolutePath);
+			factory.getCollectionListingService().invalidate(absolutePath);
+		}
+	}
+
+	/**
+	 * Drop any cached stat or listing for a collection this resource changed,
+	 * everything under it, and its parent
+	 *
+	 * @param absolutePath
+	 *            <code>String</code> with the iRODS path
+	 */
+	protected void invalidateCachedTree(final String absolutePath) {
+		if (factory != null) {
+			factory.getObjStatCache().invalidateTree(absolutePath);
+			factory.getCollectionListingService().invalidateTree(absolutePath);
+		}
+	}
+
+	/**
+	 * Accomplish a copy with the given file, dropping any cached stat or
+	 * listing of the destination afterwards
 	 *
 	 * @param dest
 	 */
@@ -299,6 +381,41 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 		this.irodsFile = irodsFile;
 	}
 
+	/**
+	 * Get the metadata snapshot of this resource, taking it with one objStat
+	 * (from the objStat cache when held) if the resource was built without
+	 * one
+	 *
+	 * @return {@link ListingEntry}
+	 */
+	protected ListingEntry getListingEntry() {
+		if (listingEntry == null) {
+			String absolutePath = getIrodsFile().getAbsolutePath();
+			log.info("no metadata snapshot, taking one for:{}", absolutePath);
+			try {
+				listingEntry = ListingEntry.fromObjStat(absolutePath,
+						getFactory().retrieveObjectStat(absolutePath, getRequestContext()));
+			} catch (FileNotFoundException e) {
+				log.info("no object at:{}, using an empty snapshot", absolutePath);
+				listingEntry = ListingEntry.forPath(absolutePath, this instanceof CollectionResource, 0L, 0L, 0L,
+						retrieveIrodsAccount().getUserName(), retrieveIrodsAccount().getZone());
+			} catch (JargonException e) {
+				log.error("error getting objStat for:{}", absolutePath, e);
+				throw new WebDavRuntimeException("error getting objStat", e);
+			}
+		}
+		return listingEntry;
+	}
+
+	/**
+	 * @param listingEntry
+	 *            {@link ListingEntry} with the metadata snapshot, may be
+	 *            <code>null</code> to take a new one on next use
+	 */
+	protected void setListingEntry(final ListingEntry listingEntry) {
+		this.listingEntry = listingEntry;
+	}
+
 	protected Map<Principal, List<Priviledge>> irodsPermissionsToDavPermissions(
 			List<UserFilePermission> userFilePermissions) throws JargonException {
 		Priviledge priviledge;
@@ -341,25 +458,8 @@ public abstract class BaseResource implements Resource, MoveableResource, Copyab
 		return priv;
 	}
 
-	protected String retriveOwnerAndGetPrincipal(
-			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry) {
-		String ownerName;
-		if (collectionAndDataObjectListingEntry != null) {
-			ownerName = collectionAndDataObjectListingEntry.getOwnerName();
-		} else {
-			log.info("using objStat to find owner, note that this is an extra irods call");
-			ObjStat objStat;
-			try {
-				objStat = this.getIrodsAccessObjectFactory()
-						.getCollectionAndDataObjectListAndSearchAO(this.retrieveIrodsAccount())
-						.retrieveObjectStatForPath(this.getIrodsFile().getAbsolutePath());
-			} catch (JargonException e) {
-				log.error("error getting objStat for:{}", this.getIrodsFile());
-				throw new WebDavRuntimeException("error getting objStat", e);
-			}
-			ownerName = objStat.getOwnerName();
-		}
-
+	protected String retriveOwnerAndGetPrincipal() {
+		String ownerName = getListingEntry().getOwnerName();
 		try {
 			return IrodsPrincipalId.cloneAccountForUser(this.retrieveIrodsAccount(), ownerName, "").toURI(false)
 					.toASCIIString();
@@ -25,6 +25,8 @@ import java.io.InputStream;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
+import org.irods.jargon.webdav.listing.ListingEntry;
 
 /**
  * Abstraction for storing and retrieving
@@ -36,6 +38,75 @@ public interface FileContentService {
 			IRODSAccount irodsAccount) throws FileNotFoundException,
 			IOException;
 
+	/**
+	 * Store the content, using the length of the body when the client sent
+	 * one to choose how to write it
+	 *
+	 * @param file
+	 *            {@link IRODSFile} to write
+	 * @param in
+	 *            <code>InputStream</code> with the body
+	 * @param length
+	 *            <code>Long</code> with the length of the body, or
+	 *            <code>null</code> if not known
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to write as
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *             if the body could not be read or the content not stored
+	 */
+	void setFileContent(IRODSFile file, InputStream in, Long length,
+			IRODSAccount irodsAccount) throws FileNotFoundException,
+			IOException;
+
 	InputStream getFileContent(IRODSFile file, IRODSAccount irodsAccount)
 			throws FileNotFoundException;
+
+	/**
+	 * Open the content for reading at any offset, for ranged reads
+	 *
+	 * @param file
+	 *            {@link IRODSFile} to read
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to read as
+	 * @return {@link IRODSRandomAccessFile} opened for reading, to be closed
+	 *         by the caller
+	 * @throws FileNotFoundException
+	 */
+	IRODSRandomAccessFile getRandomAccessFileContent(IRODSFile file,
+			IRODSAccount irodsAccount) throws FileNotFoundException;
+
+	/**
+	 * Open the content for reading, checking it against metadata the caller
+	 * already holds rather than asking iRODS again
+	 *
+	 * @param file
+	 *            {@link IRODSFile} to read
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to read as
+	 * @param listingEntry
+	 *            {@link ListingEntry} with the known metadata of the file
+	 * @return <code>InputStream</code> with the content
+	 * @throws FileNotFoundException
+	 */
+	InputStream getFileContent(IRODSFile file, IRODSAccount irodsAccount,
+			ListingEntry listingEntry) throws FileNotFoundException;
+
+	/**
+	 * Open the content for reading at any offset, checking it against
+	 * metadata the caller already holds rather than asking iRODS again
+	 *
+	 * @param file
+	 *            {@link IRODSFile} to read
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to read as
+	 * @param listingEntry
+	 *            {@link ListingEntry} with the known metadata of the file
+	 * @return {@link IRODSRandomAccessFile} opened for reading, to be closed
+	 *         by the caller
+	 * @throws FileNotFoundException
+	 */
+	IRODSRandomAccessFile getRandomAccessFileContent(IRODSFile file,
+			IRODSAccount irodsAccount, ListingEntry listingEntry)
+			throws FileNotFoundException;
 }
@@ -11,13 +11,16 @@ import java.util.Map;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.CollectionAO;
-import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
 import org.irods.jargon.core.pub.DataTransferOperations;
 import org.irods.jargon.core.pub.domain.UserFilePermission;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.listing.ListingPageHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,28 +80,10 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 
 	private final IrodsFileContentService contentService;
 	private final String host;
-	/**
-	 * This field may be <code>null</code> and is only available when the milton
-	 * config is set to cache file demographics. In this case, the entry will be
-	 * used to provide file data such as length without necessitating a new
-	 * query
-	 */
-	final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry;
 
 	public IrodsDirectoryResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile dir,
 			final IrodsFileContentService contentService) {
-		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService);
-		this.contentService = contentService;
-		/*
-		 * mcc optimization if (!dir.exists()) { throw new
-		 * IllegalArgumentException("Directory does not exist: " +
-		 * dir.getAbsolutePath()); } if (!dir.isDirectory()) { throw new
-		 * IllegalArgumentException("Is not a directory: " +
-		 * dir.getAbsolutePath()); }
-		 */
-		setIrodsFile(dir);
-		this.host = host;
-		collectionAndDataObjectListingEntry = null;
+		this(host, factory, dir, (ListingEntry) null, contentService, IrodsRequestContext.current());
 	}
 
 	/**
@@ -116,7 +101,50 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 	public IrodsDirectoryResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile dir,
 			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry,
 			final IrodsFileContentService contentService) {
-		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService);
+		this(host, factory, dir, collectionAndDataObjectListingEntry, contentService, IrodsRequestContext.current());
+	}
+
+	/**
+	 * Constructor with cached listing values and the context of the request
+	 * the resource is resolved in
+	 *
+	 * @param host
+	 * @param factory
+	 * @param dir
+	 * @param collectionAndDataObjectListingEntry
+	 *            may be <code>null</code>
+	 * @param contentService
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 */
+	public IrodsDirectoryResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile dir,
+			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry,
+			final IrodsFileContentService contentService, final IrodsRequestContext requestContext) {
+		this(host, factory, dir,
+				collectionAndDataObjectListingEntry == null ? null
+						: ListingEntry.fromCollectionAndDataObjectListingEntry(collectionAndDataObjectListingEntry),
+				contentService, requestContext);
+	}
+
+	/**
+	 * Constructor with the metadata snapshot the properties are answered from
+	 * and the context of the request the resource is resolved in
+	 *
+	 * @param host
+	 * @param factory
+	 * @param dir
+	 * @param listingEntry
+	 *            {@link ListingEntry} with the snapshot, may be
+	 *            <code>null</code> to take one with an objStat on first use
+	 * @param contentService
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 */
+	public IrodsDirectoryResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile dir,
+			final ListingEntry listingEntry, final IrodsFileContentService contentService,
+			final IrodsRequestContext requestContext) {
+		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService,
+				requestContext);
 		this.contentService = contentService;
 		/*
 		 * mcc - optimization if (!dir.exists()) { throw new
@@ -127,7 +155,7 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		 */
 		setIrodsFile(dir);
 		this.host = host;
-		this.collectionAndDataObjectListingEntry = collectionAndDataObjectListingEntry;
+		setListingEntry(listingEntry);
 	}
 
 	@Override
@@ -146,11 +174,18 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 			throw new WebDavRuntimeException("unable to create file", e);
 		}
 		boolean ok = fnew.mkdir();
+		invalidateCached(fnew.getAbsolutePath());
 		if (!ok) {
 			log.error("error creating collection:{}", fnew);
 			throw new WebDavRuntimeException("error creating directory");
 		}
-		return new IrodsDirectoryResource(host, getFactory(), fnew, contentService);
+
+		BaseResource created = getFactory().resolveFile(host, fnew, getRequestContext());
+		if (!(created instanceof IrodsDirectoryResource)) {
+			log.error("created collection not found:{}", fnew);
+			throw new WebDavRuntimeException("created collection not found");
+		}
+		return (IrodsDirectoryResource) created;
 	}
 
 	@Override
@@ -161,6 +196,11 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		}
 
 		log.info("name:{}", name);
+		if (getFactory().isAlwaysAbsent(name)) {
+			log.info("name is configured as always absent");
+			return null;
+		}
+
 		IRODSFile fchild;
 		try {
 			fchild = instanceIrodsFileFactory().instanceIRODSFile(getIrodsFile().getAbsolutePath(), name);
@@ -168,7 +208,7 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 			log.error("unable to create IRODSFile", e);
 			throw new WebDavRuntimeException("unable to create file", e);
 		}
-		return getFactory().resolveFile(host, fchild);
+		return getFactory().resolveFile(host, fchild, getRequestContext());
 
 	}
 
@@ -191,72 +231,43 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 	private List<? extends Resource> getChildrenUtilizingCaching() {
 		log.info("getChildrenUtilizingCaching()");
 		try {
-			CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO = getIrodsAccessObjectFactory()
-					.getCollectionAndDataObjectListAndSearchAO(retrieveIrodsAccount());
-
-			log.info("getting collections");
-			List<CollectionAndDataObjectListingEntry> entries = null;
-			List<BaseResource> resources = new ArrayList<BaseResource>();
-			boolean more = true;
-			int count = 0;
-			while (more) {
-				log.info("querying child collections starting at:{}", count);
-				log.info("under parent:{}", getIrodsFile().getAbsolutePath());
-				entries = collectionAndDataObjectListAndSearchAO
-						.listCollectionsUnderPath(getIrodsFile().getAbsolutePath(), count);
-
-				if (entries.isEmpty()) {
-					break;
-				}
-
-				for (CollectionAndDataObjectListingEntry entry : entries) {
-					IRODSFile childFile = instanceIrodsFileFactory()
-							.instanceIRODSFile(entry.getFormattedAbsolutePath());
-					BaseResource fileResource = new IrodsDirectoryResource(host, getFactory(), childFile, entry,
-							contentService);
-					resources.add(fileResource);
-					if (entry.isLastResult()) {
-						more = false;
-					}
-					count = entry.getCount();
-				}
-
-			}
-			more = true;
-			count = 0;
-			while (more) {
-				log.info("querying child files starting at:{}", count);
-				log.info("under parent:{}", getIrodsFile().getAbsolutePath());
-				entries = collectionAndDataObjectListAndSearchAO
-						.listDataObjectsUnderPath(getIrodsFile().getAbsolutePath(), count);
-
-				if (entries.isEmpty()) {
-					break;
-				}
-
-				for (CollectionAndDataObjectListingEntry entry : entries) {
-					IRODSFile childFile = instanceIrodsFileFactory()
-							.instanceIRODSFile(entry.getFormattedAbsolutePath());
-					IrodsFileResource fileResource = new IrodsFileResource(host, getFactory(), childFile, entry,
-							contentService);
-					resources.add(fileResource);
-					if (entry.isLastResult()) {
-						more = false;
-					}
-					count = entry.getCount();
-				}
-
-			}
+			log.info("listing children of:{}", getIrodsFile().getAbsolutePath());
+			final List<BaseResource> resources = new ArrayList<BaseResource>();
+			final IRODSFileFactory irodsFileFactory = instanceIrodsFileFactory();
+			/*
+			 * pages are converted as they arrive, while the next one may be
+			 * prefetched
+			 */
+			getFactory().getCollectionListingService().listChildren(getRequestContext(),
+					getIrodsFile().getAbsolutePath(), new ListingPageHandler() {
+						@Override
+						public void onPage(final List<ListingEntry> page) throws JargonException {
+							for (ListingEntry listingEntry : page) {
+								resources.add(toResource(irodsFileFactory, listingEntry));
+							}
+						}
+					});
 			log.info("...done");
 			return resources;
 
 		} catch (JargonException e) {
-			log.error("error getting irods access object", e);
-			throw new WebDavRuntimeException("unable to get irods access object", e);
+			log.error("error listing children", e);
+			throw new WebDavRuntimeException("unable to list children", e);
 		}
 
 	}
 
+	private BaseResource toResource(final IRODSFileFactory irodsFileFactory, final ListingEntry listingEntry)
+			throws JargonException {
+		IRODSFile childFile = irodsFileFactory.instanceIRODSFile(listingEntry.getAbsolutePath());
+		if (listingEntry.isCollection()) {
+			return new IrodsDirectoryResource(host, getFactory(), childFile, listingEntry, contentService,
+					getRequestContext());
+		}
+		return new IrodsFileResource(host, getFactory(), childFile, listingEntry, contentService,
+				getRequestContext());
+	}
+
 	/**
 	 * Method to get children that will not cache file information, may be more
 	 * timely,but necessitates multiple individual queries
@@ -269,7 +280,10 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		File[] files = getIrodsFile().listFiles();
 		if (files != null) {
 			for (File fchild : files) {
-				BaseResource res = getFactory().resolveFile(host, (IRODSFile) fchild);
+				if (getFactory().isAlwaysAbsent(fchild.getName())) {
+					continue;
+				}
+				BaseResource res = getFactory().resolveFile(host, (IRODSFile) fchild, getRequestContext());
 				log.info("added as child:{}", res);
 				if (res != null) {
 					list.add(res);
@@ -293,8 +307,12 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 			log.error("unable to create IRODSFile", e);
 			throw new WebDavRuntimeException("unable to create new file", e);
 		}
-		contentService.setFileContent(dest, in, retrieveIrodsAccount());
-		return getFactory().resolveFile(host, dest);
+		try {
+			contentService.setFileContent(dest, in, length, retrieveIrodsAccount());
+		} finally {
+			invalidateCached(dest.getAbsolutePath());
+		}
+		return getFactory().resolveFile(host, dest, getRequestContext());
 
 	}
 
@@ -408,54 +426,17 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 
 	@Override
 	public Date getModifiedDate() {
-
-		if (collectionAndDataObjectListingEntry != null) {
-			return collectionAndDataObjectListingEntry.getModifiedAt();
-		} else {
-
-			IRODSFile file;
-			try {
-				file = instanceIrodsFileFactory().instanceIRODSFile(getIrodsFile().getAbsolutePath());
-				return new Date(file.lastModified());
-			} catch (JargonException e) {
-				log.error("unable to create IRODSFile", e);
-				throw new WebDavRuntimeException("unable to create file", e);
-			}
-		}
+		return new Date(getListingEntry().getModifiedAt());
 	}
 
 	@Override
 	public String getName() {
-		if (collectionAndDataObjectListingEntry != null) {
-			return MiscIRODSUtils.getLastPathComponentForGiveAbsolutePath(
-					collectionAndDataObjectListingEntry.getFormattedAbsolutePath());
-		} else {
-			IRODSFile file;
-			try {
-				file = instanceIrodsFileFactory().instanceIRODSFile(getIrodsFile().getAbsolutePath());
-				return file.getName();
-			} catch (JargonException e) {
-				log.error("unable to create IRODSFile", e);
-				throw new WebDavRuntimeException("unable to create file", e);
-			}
-		}
+		return MiscIRODSUtils.getLastPathComponentForGiveAbsolutePath(getIrodsFile().getAbsolutePath());
 	}
 
 	@Override
 	public String getUniqueId() {
-		if (collectionAndDataObjectListingEntry != null) {
-			return collectionAndDataObjectListingEntry.getFormattedAbsolutePath();
-		} else {
-
-			IRODSFile file;
-			try {
-				file = instanceIrodsFileFactory().instanceIRODSFile(getIrodsFile().getAbsolutePath());
-				return file.toString();
-			} catch (JargonException e) {
-				log.error("unable to create IRODSFile", e);
-				throw new WebDavRuntimeException("unable to create file", e);
-			}
-		}
+		return getIrodsFile().getAbsolutePath();
 	}
 
 	@Override
@@ -478,16 +459,13 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		// destinationPath;
 
 		// IRODSFile file;
-		// IRODSFile destFile;
+		IRODSFile destFile = fileFromCollectionResource(destinationPath, newName);
 		try {
 
-			IRODSFile destFile = fileFromCollectionResource(destinationPath, newName);
-
 			log.info("dest file:{}", destFile);
 			// file.renameTo(destFile);
 
-			DataTransferOperations dto = getIrodsAccessObjectFactory()
-					.getDataTransferOperations(retrieveIrodsAccount());
+			DataTransferOperations dto = getRequestContext().getDataTransferOperations();
 
 			log.info("doing a move from source:{}", getIrodsFile());
 			dto.move(getIrodsFile(), destFile);
@@ -497,6 +475,9 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		} catch (JargonException e) {
 			log.error("error in move operation", e);
 			throw new WebDavRuntimeException("unable to move directory", e);
+		} finally {
+			invalidateCachedTree(getIrodsFile().getAbsolutePath());
+			invalidateCachedTree(destFile.getAbsolutePath());
 		}
 
 	}
@@ -514,6 +495,8 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		} catch (JargonException e) {
 			log.error("error in move operation", e);
 			throw new WebDavRuntimeException("unable to move directory", e);
+		} finally {
+			invalidateCachedTree(getIrodsFile().getAbsolutePath());
 		}
 
 	}
@@ -531,8 +514,7 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		try {
 			file = instanceIrodsFileFactory().instanceIRODSFile(getIrodsFile().getAbsolutePath());
 
-			DataTransferOperations dto = getIrodsAccessObjectFactory()
-					.getDataTransferOperations(retrieveIrodsAccount());
+			DataTransferOperations dto = getRequestContext().getDataTransferOperations();
 
 			log.info("doing a copy from source:{}", getIrodsFile());
 			dto.copy(file, destFile, null, null);
@@ -541,6 +523,8 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 		} catch (JargonException e) {
 			log.error("error in move operation", e);
 			throw new WebDavRuntimeException("unable to move directory", e);
+		} finally {
+			invalidateCachedTree(destFile.getAbsolutePath());
 		}
 
 	}
@@ -589,7 +573,14 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 			log.error("error in create file operation", e);
 			throw new WebDavRuntimeException("unable to create file", e);
 		}
-		IrodsFileResource newRes = new IrodsFileResource(host, getFactory(), file, contentService);
+		/*
+		 * a lock-null resource, nothing is stored yet
+		 */
+		long now = System.currentTimeMillis();
+		ListingEntry snapshot = ListingEntry.forPath(file.getAbsolutePath(), false, 0L, now, now,
+				retrieveIrodsAccount().getUserName(), retrieveIrodsAccount().getZone());
+		IrodsFileResource newRes = new IrodsFileResource(host, getFactory(), file, snapshot, contentService,
+				getRequestContext());
 		LockResult res = newRes.lock(lockTimeout, lockInfo);
 		return res.getLockToken();
 	}
@@ -598,7 +589,7 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 	public Map<Principal, List<Priviledge>> getAccessControlList() {
 		log.info("getAccessControlList()");
 		try {
-			CollectionAO collectionAO = this.getIrodsAccessObjectFactory().getCollectionAO(retrieveIrodsAccount());
+			CollectionAO collectionAO = getRequestContext().getCollectionAO();
 			List<UserFilePermission> userFilePermissions = collectionAO
 					.listPermissionsForCollection(this.getIrodsFile().getAbsolutePath());
 
@@ -620,14 +611,14 @@ public class IrodsDirectoryResource extends BaseResource implements CollectionRe
 	@Override
 	public String getPrincipalURL() {
 		log.info("getPrincipalUrl()");
-		return retriveOwnerAndGetPrincipal(collectionAndDataObjectListingEntry);
+		return retriveOwnerAndGetPrincipal();
 
 	}
 
 	@Override
 	public List<Priviledge> getPriviledges(Auth auth) {
 		try {
-			CollectionAO collectionAO = this.getIrodsAccessObjectFactory().getCollectionAO(retrieveIrodsAccount());
+			CollectionAO collectionAO = getRequestContext().getCollectionAO();
 			UserFilePermission userFilePermissions = collectionAO.getPermissionForUserName(
 					this.getIrodsFile().getAbsolutePath(), this.retrieveIrodsAccount().getUserName());
 			List<Priviledge> priviledges = new ArrayList<Priviledge>();
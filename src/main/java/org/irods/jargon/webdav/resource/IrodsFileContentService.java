@@ -19,24 +19,37 @@
 
 package org.irods.jargon.webdav.resource;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.codec.binary.Hex;
+import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
-import org.irods.jargon.core.pub.Stream2StreamAO;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
 import org.irods.jargon.core.pub.io.IRODSFileInputStream;
 import org.irods.jargon.core.pub.io.IRODSFileOutputStream;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
 import org.irods.jargon.core.pub.io.PackingIrodsInputStream;
 import org.irods.jargon.core.pub.io.PackingIrodsOutputStream;
 import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.FileSizeExceedsMaximumException;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.utils.BufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,14 +60,92 @@ public class IrodsFileContentService implements FileContentService {
 
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
 	private WebDavConfig webDavConfig;
+	private ThreadPoolExecutor downloadExecutor;
+	private ThreadPoolExecutor uploadExecutor;
+	private volatile BufferPool bufferPool;
 
 	private static final Logger log = LoggerFactory
 			.getLogger(IrodsFileContentService.class);
 
+	/**
+	 * Wired into the spring config as the init method, starts the threads
+	 * shared by parallel downloads and uploads if they are enabled
+	 */
+	public void init() {
+		log.info("init()");
+		if (webDavConfig == null) {
+			throw new IllegalStateException("null webDavConfig");
+		}
+
+		if (webDavConfig.getParallelDownloadThresholdInMb() > 0
+				&& webDavConfig.getParallelDownloadThreads() > 0) {
+			log.info(
+					"downloading data objects of at least {} MB on {} shared threads",
+					webDavConfig.getParallelDownloadThresholdInMb(),
+					webDavConfig.getParallelDownloadThreads());
+			downloadExecutor = newTransferExecutor(
+					webDavConfig.getParallelDownloadThreads(),
+					"download-parallel-");
+		}
+
+		if (webDavConfig.getParallelUploadThresholdInMb() > 0
+				&& webDavConfig.getParallelUploadThreads() > 0) {
+			log.info(
+					"uploading data objects of at least {} MB on {} shared threads",
+					webDavConfig.getParallelUploadThresholdInMb(),
+					webDavConfig.getParallelUploadThreads());
+			uploadExecutor = newTransferExecutor(
+					webDavConfig.getParallelUploadThreads(), "upload-parallel-");
+		}
+	}
+
+	private static ThreadPoolExecutor newTransferExecutor(final int threads,
+			final String namePrefix) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+				60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						Thread thread = new Thread(runnable, namePrefix
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Wired into the spring config as the destroy method
+	 */
+	public void destroy() {
+		if (downloadExecutor != null) {
+			log.info("shutting down parallel download threads");
+			downloadExecutor.shutdownNow();
+			downloadExecutor = null;
+		}
+
+		if (uploadExecutor != null) {
+			log.info("shutting down parallel upload threads");
+			uploadExecutor.shutdownNow();
+			uploadExecutor = null;
+		}
+	}
+
 	@Override
 	public void setFileContent(final IRODSFile dest, final InputStream in,
 			final IRODSAccount irodsAccount) throws FileNotFoundException,
 			IOException {
+		setFileContent(dest, in, null, irodsAccount);
+	}
+
+	@Override
+	public void setFileContent(final IRODSFile dest, final InputStream in,
+			final Long length, final IRODSAccount irodsAccount)
+			throws FileNotFoundException, IOException {
 
 		log.info("setFileContent()");
 
@@ -70,34 +161,238 @@ public class IrodsFileContentService implements FileContentService {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
 
+		if (isParallelUpload(length)
+				&& uploadInParallel(dest, in, length, irodsAccount)) {
+			return;
+		}
+
 		log.info("doing transfer");
+		OutputStream outputStream = null;
 		try {
-			Stream2StreamAO stream2Stream = irodsAccessObjectFactory
-					.getStream2StreamAO(irodsAccount);
-
+			IRODSFileOutputStream irodsOutputStream = irodsAccessObjectFactory
+					.getIRODSFileFactory(irodsAccount)
+					.instanceIRODSFileOutputStream(dest);
+			outputStream = irodsOutputStream;
 			if (webDavConfig.isUsePackingStreams()) {
 				log.info("use packing stream for transfer");
-				IRODSFileOutputStream outputStream = getIrodsAccessObjectFactory()
-						.getIRODSFileFactory(irodsAccount)
-						.instanceIRODSFileOutputStream(dest);
-				PackingIrodsOutputStream ipos = new PackingIrodsOutputStream(
-						outputStream);
-				stream2Stream.streamToStreamCopyUsingStandardIO(in, ipos);
+				outputStream = new PackingIrodsOutputStream(irodsOutputStream);
 			} else {
 				log.info("use normal stream for transfer");
-				stream2Stream.transferStreamToFileUsingIOStreams(in,
-						(File) dest, dest.length(), irodsAccessObjectFactory
-						.getJargonProperties()
-						.getInputToOutputCopyBufferByteSize());
-
 			}
+			getBufferPool().copy(in, outputStream,
+					length == null ? -1 : length);
 		} catch (JargonException e) {
 			log.error("error in setting file content", e);
 			throw new WebDavRuntimeException("exception streaming to file", e);
+		} finally {
+			if (outputStream != null) {
+				outputStream.close();
+			}
+		}
+
+		if (webDavConfig.isComputeChecksum()) {
+			computeChecksum(dest, irodsAccount);
 		}
 
 	}
 
+	private boolean isParallelUpload(final Long length) {
+		if (uploadExecutor == null || length == null) {
+			return false;
+		}
+		long threshold = webDavConfig.getParallelUploadThresholdInMb() * 1024L * 1024L;
+		return length >= threshold
+				&& length > webDavConfig.getParallelUploadChunkSizeInMb() * 1024L * 1024L;
+	}
+
+	/**
+	 * Write a request body in chunks on the shared upload threads, each thread
+	 * writes through its own connection for the account. Once all chunks are
+	 * written the size, and the checksum if configured, of the stored data
+	 * object are checked against what was received. A data object that fails
+	 * is removed rather than left with gaps
+	 *
+	 * @return <code>boolean</code> that is <code>false</code> if no upload
+	 *         thread was free and nothing was read
+	 */
+	private boolean uploadInParallel(final IRODSFile dest,
+			final InputStream in, final Long length,
+			final IRODSAccount irodsAccount) throws IOException {
+		int chunkSize = Math.max(1,
+				webDavConfig.getParallelUploadChunkSizeInMb()) * 1024 * 1024;
+		int window = (int) Math.max(2,
+				webDavConfig.getParallelUploadBufferInMb() * 1024L * 1024L
+						/ chunkSize);
+		final String absolutePath = dest.getAbsolutePath();
+
+		/*
+		 * the threads write at offsets without truncating, so drop any old
+		 * content first
+		 */
+		try {
+			irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)
+					.instanceIRODSFileOutputStream(dest).close();
+		} catch (JargonException e) {
+			log.error("error truncating file for parallel upload", e);
+			throw new WebDavRuntimeException("exception streaming to file", e);
+		}
+
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(
+				chunkSize, window, webDavConfig.getParallelUploadStreams(),
+				uploadExecutor, new ParallelUploadOutputStream.ChunkSink() {
+
+					@Override
+					public ParallelUploadOutputStream.RangeWriter openWriter()
+							throws IOException {
+						final IRODSRandomAccessFile randomAccessFile;
+						try {
+							randomAccessFile = irodsAccessObjectFactory
+									.getIRODSFileFactory(irodsAccount)
+									.instanceIRODSRandomAccessFile(
+											absolutePath, OpenFlags.WRITE);
+						} catch (JargonException e) {
+							throw new IOException(
+									"error opening file for parallel upload",
+									e);
+						}
+						return new ParallelUploadOutputStream.RangeWriter() {
+							private long position = 0;
+
+							@Override
+							public void write(final long at,
+									final byte[] buffer, final int offset,
+									final int count) throws IOException {
+								if (at != position) {
+									randomAccessFile.seek(at);
+								}
+								randomAccessFile.write(buffer, offset, count);
+								position = at + count;
+							}
+
+							@Override
+							public void close() throws IOException {
+								randomAccessFile.close();
+							}
+						};
+					}
+
+					@Override
+					public void releaseThread() {
+						irodsAccessObjectFactory
+								.closeSessionAndEatExceptions(irodsAccount);
+					}
+				}, getBufferPool());
+
+		if (out == null) {
+			log.info("no parallel upload threads free, using one stream");
+			return false;
+		}
+
+		log.info("parallel upload of:{}", dest);
+		MessageDigest digest = newUploadDigest();
+		InputStream body = digest == null ? in : new DigestInputStream(in,
+				digest);
+		try {
+			getBufferPool().copy(body, out, length);
+			out.close();
+			verifyUpload(dest, irodsAccount, out.getBytesWritten(), length,
+					digest);
+		} catch (IOException e) {
+			out.abort();
+			log.error("parallel upload failed, removing:{}", dest);
+			dest.delete();
+			throw e;
+		}
+
+		if (digest == null && webDavConfig.isComputeChecksum()) {
+			computeChecksum(dest, irodsAccount);
+		}
+		return true;
+	}
+
+	private MessageDigest newUploadDigest() {
+		String algorithm = webDavConfig.getParallelUploadChecksumAlgorithm();
+		if (algorithm == null || algorithm.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return MessageDigest.getInstance(algorithm.trim());
+		} catch (NoSuchAlgorithmException e) {
+			log.error("unknown upload checksum algorithm:{}", algorithm);
+			throw new WebDavRuntimeException(
+					"unknown upload checksum algorithm", e);
+		}
+	}
+
+	/**
+	 * Check the stored data object against the received body
+	 *
+	 * @throws IOException
+	 *             if the size or checksum differ
+	 */
+	private void verifyUpload(final IRODSFile dest,
+			final IRODSAccount irodsAccount, final long received,
+			final Long length, final MessageDigest digest) throws IOException {
+		if (length != null && received != length) {
+			throw new IOException("received " + received + " of " + length
+					+ " bytes");
+		}
+
+		long stored = retrieveListingEntry(dest, irodsAccount).getDataSize();
+		if (stored != received) {
+			throw new IOException("stored " + stored + " of " + received
+					+ " bytes");
+		}
+
+		if (digest == null) {
+			return;
+		}
+
+		String expected = Hex.encodeHexString(digest.digest());
+		ChecksumValue checksumValue = computeChecksum(dest, irodsAccount);
+
+		String algorithm = digest.getAlgorithm().replace("-", "");
+		if (!algorithm.equalsIgnoreCase(checksumValue.getChecksumEncoding()
+				.name())) {
+			log.warn(
+					"iRODS checksum of {} is {}, not {}, only the size was checked",
+					dest, checksumValue.getChecksumEncoding(),
+					digest.getAlgorithm());
+			return;
+		}
+
+		if (!expected.equalsIgnoreCase(checksumValue.getHexChecksumValue())) {
+			throw new IOException("checksum " + checksumValue
+					+ " of stored data object differs from received "
+					+ expected);
+		}
+		log.info("verified {} bytes, checksum:{}", received, expected);
+	}
+
+	/**
+	 * Have iRODS compute and register the checksum of a stored upload. The
+	 * Jargon stream transfer did this when
+	 * <code>computeChecksumAfterTransfer</code> was set, uploads copied
+	 * through the buffer pool have to ask for it
+	 *
+	 * @return {@link ChecksumValue} of the data object
+	 * @throws IOException
+	 *             if iRODS could not compute the checksum
+	 */
+	private ChecksumValue computeChecksum(final IRODSFile dest,
+			final IRODSAccount irodsAccount) throws IOException {
+		try {
+			ChecksumValue checksumValue = irodsAccessObjectFactory
+					.getDataObjectChecksumUtilitiesAO(irodsAccount)
+					.computeChecksumOnDataObject(dest);
+			log.info("checksum of upload:{}", checksumValue);
+			return checksumValue;
+		} catch (JargonException e) {
+			log.error("error computing checksum of upload", e);
+			throw new IOException("error computing checksum of upload", e);
+		}
+	}
+
 	@Override
 	public InputStream getFileContent(final IRODSFile file,
 			final IRODSAccount irodsAccount) throws FileNotFoundException {
@@ -112,21 +407,39 @@ public class IrodsFileContentService implements FileContentService {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
 
-		if (!file.exists()) {
-			log.error("did not find file at:{}", file);
-			throw new FileNotFoundException("file not found");
+		return getFileContent(file, irodsAccount,
+				retrieveListingEntry(file, irodsAccount));
+	}
+
+	@Override
+	public InputStream getFileContent(final IRODSFile file,
+			final IRODSAccount irodsAccount, final ListingEntry listingEntry)
+			throws FileNotFoundException {
+
+		log.info("getFileContent() with known metadata");
+
+		if (file == null) {
+			throw new IllegalArgumentException("null file");
 		}
 
-		long maxLengthComputed = getWebDavConfig().getMaxDownloadInGb() * 1024 * 1024 * 1024;
-		log.info("maxLength:{}", maxLengthComputed);
-		log.info("fileLength:{}", file.length());
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
 
-		if (file.length() > maxLengthComputed) {
-			log.error("file length of:{} greater than configured max",
-					file.length());
-			log.error("configured max (computed) is:{}", maxLengthComputed);
-			throw new FileSizeExceedsMaximumException(
-					"File is too large to download");
+		if (listingEntry == null) {
+			throw new IllegalArgumentException("null listingEntry");
+		}
+
+		checkDownloadable(file, listingEntry);
+
+		if (isParallelDownload(listingEntry)) {
+			InputStream parallel = startParallelDownload(file, irodsAccount,
+					listingEntry.getDataSize());
+			if (parallel != null) {
+				log.info("parallel download of:{}", file);
+				return parallel;
+			}
+			log.info("no parallel download threads free, using one stream");
 		}
 
 		try {
@@ -144,6 +457,9 @@ public class IrodsFileContentService implements FileContentService {
 				return inputStream;
 			}
 
+		} catch (org.irods.jargon.core.exception.FileNotFoundException e) {
+			log.error("did not find file at:{}", file);
+			throw new FileNotFoundException("file not found");
 		} catch (JargonException e) {
 			log.error("error in setting file content", e);
 			throw new WebDavRuntimeException("exception streaming to file", e);
@@ -151,6 +467,180 @@ public class IrodsFileContentService implements FileContentService {
 
 	}
 
+	@Override
+	public IRODSRandomAccessFile getRandomAccessFileContent(
+			final IRODSFile file, final IRODSAccount irodsAccount)
+			throws FileNotFoundException {
+
+		log.info("getRandomAccessFileContent()");
+
+		if (file == null) {
+			throw new IllegalArgumentException("null file");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		return getRandomAccessFileContent(file, irodsAccount,
+				retrieveListingEntry(file, irodsAccount));
+	}
+
+	@Override
+	public IRODSRandomAccessFile getRandomAccessFileContent(
+			final IRODSFile file, final IRODSAccount irodsAccount,
+			final ListingEntry listingEntry) throws FileNotFoundException {
+
+		log.info("getRandomAccessFileContent() with known metadata");
+
+		if (file == null) {
+			throw new IllegalArgumentException("null file");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (listingEntry == null) {
+			throw new IllegalArgumentException("null listingEntry");
+		}
+
+		checkDownloadable(file, listingEntry);
+
+		try {
+			return irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)
+					.instanceIRODSRandomAccessFile(file.getAbsolutePath(),
+							OpenFlags.READ);
+		} catch (org.irods.jargon.core.exception.FileNotFoundException e) {
+			log.error("did not find file at:{}", file);
+			throw new FileNotFoundException("file not found");
+		} catch (JargonException e) {
+			log.error("error opening file for random access", e);
+			throw new WebDavRuntimeException(
+					"exception opening file for random access", e);
+		}
+	}
+
+	private boolean isParallelDownload(final ListingEntry listingEntry) {
+		if (downloadExecutor == null) {
+			return false;
+		}
+		long threshold = webDavConfig.getParallelDownloadThresholdInMb() * 1024L * 1024L;
+		return listingEntry.getDataSize() >= threshold
+				&& listingEntry.getDataSize() > webDavConfig
+						.getParallelDownloadChunkSizeInMb() * 1024L * 1024L;
+	}
+
+	/**
+	 * Start reading a data object in chunks on the shared download threads,
+	 * each thread reads through its own connection for the account
+	 *
+	 * @return {@link InputStream} with the content, or <code>null</code> if no
+	 *         download thread was free
+	 */
+	private InputStream startParallelDownload(final IRODSFile file,
+			final IRODSAccount irodsAccount, final long length) {
+		int chunkSize = Math.max(1,
+				webDavConfig.getParallelDownloadChunkSizeInMb()) * 1024 * 1024;
+		int window = (int) Math.max(2,
+				webDavConfig.getParallelDownloadBufferInMb() * 1024L * 1024L
+						/ chunkSize);
+		final String absolutePath = file.getAbsolutePath();
+
+		return ParallelDownloadInputStream.start(length, chunkSize,
+				window, webDavConfig.getParallelDownloadStreams(),
+				downloadExecutor,
+				new ParallelDownloadInputStream.ChunkSource() {
+
+					@Override
+					public ParallelDownloadInputStream.RangeReader openReader()
+							throws IOException {
+						final IRODSRandomAccessFile randomAccessFile;
+						try {
+							randomAccessFile = irodsAccessObjectFactory
+									.getIRODSFileFactory(irodsAccount)
+									.instanceIRODSRandomAccessFile(
+											absolutePath, OpenFlags.READ);
+						} catch (JargonException e) {
+							throw new IOException(
+									"error opening file for parallel download",
+									e);
+						}
+						return new ParallelDownloadInputStream.RangeReader() {
+							private long position = 0;
+
+							@Override
+							public int read(final long at,
+									final byte[] buffer, final int offset,
+									final int count) throws IOException {
+								if (at != position) {
+									randomAccessFile.seek(at);
+								}
+								int read = randomAccessFile.read(buffer,
+										offset, count);
+								position = read < 0 ? -1 : at + read;
+								return read;
+							}
+
+							@Override
+							public void close() throws IOException {
+								randomAccessFile.close();
+							}
+						};
+					}
+
+					@Override
+					public void releaseThread() {
+						irodsAccessObjectFactory
+								.closeSessionAndEatExceptions(irodsAccount);
+					}
+				}, getBufferPool());
+	}
+
+	/**
+	 * Get the metadata of a file with one objStat
+	 */
+	private ListingEntry retrieveListingEntry(final IRODSFile file,
+			final IRODSAccount irodsAccount) throws FileNotFoundException {
+		try {
+			return ListingEntry.fromObjStat(file.getAbsolutePath(),
+					irodsAccessObjectFactory
+							.getCollectionAndDataObjectListAndSearchAO(
+									irodsAccount).retrieveObjectStatForPath(
+									file.getAbsolutePath()));
+		} catch (org.irods.jargon.core.exception.FileNotFoundException e) {
+			log.error("did not find file at:{}", file);
+			throw new FileNotFoundException("file not found");
+		} catch (JargonException e) {
+			log.error("error getting objStat for file", e);
+			throw new WebDavRuntimeException("exception getting objStat", e);
+		}
+	}
+
+	/**
+	 * Check that known metadata is for a data object that is not over the
+	 * configured download size
+	 */
+	private void checkDownloadable(final IRODSFile file,
+			final ListingEntry listingEntry) throws FileNotFoundException {
+		if (listingEntry.isCollection()) {
+			log.error("not a data object:{}", file);
+			throw new FileNotFoundException("not a data object");
+		}
+
+		long maxLengthComputed = getWebDavConfig().getMaxDownloadInGb() * 1024 * 1024 * 1024;
+		log.info("maxLength:{}", maxLengthComputed);
+		log.info("fileLength:{}", listingEntry.getDataSize());
+
+		if (listingEntry.getDataSize() > maxLengthComputed) {
+			log.error("file length of:{} greater than configured max",
+					listingEntry.getDataSize());
+			log.error("configured max (computed) is:{}", maxLengthComputed);
+			throw new FileSizeExceedsMaximumException(
+					"File is too large to download");
+		}
+	}
+
 	public IRODSAccessObjectFactory getIrodsAccessObjectFactory() {
 		return irodsAccessObjectFactory;
 	}
@@ -160,6 +650,25 @@ public class IrodsFileContentService implements FileContentService {
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
 	}
 
+	/**
+	 * @return the bufferPool shared by transfers, built from the config on
+	 *         first use
+	 */
+	public BufferPool getBufferPool() {
+		BufferPool pool = bufferPool;
+		if (pool == null) {
+			synchronized (this) {
+				pool = bufferPool;
+				if (pool == null) {
+					pool = new BufferPool(
+							webDavConfig.getBufferPoolMaxInMb() * 1024L * 1024L);
+					bufferPool = pool;
+				}
+			}
+		}
+		return pool;
+	}
+
 	/**
 	 * @return the webDavConfig
 	 */
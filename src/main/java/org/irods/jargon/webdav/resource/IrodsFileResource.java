@@ -1,5 +1,6 @@
 package org.irods.jargon.webdav.resource;
 
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,9 +16,13 @@ import org.irods.jargon.core.pub.DataObjectAO;
 import org.irods.jargon.core.pub.DataTransferOperations;
 import org.irods.jargon.core.pub.domain.UserFilePermission;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
 import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.utils.BufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +46,6 @@ import org.slf4j.LoggerFactory;
  */
 
 import io.milton.common.ContentTypeUtils;
-import io.milton.common.RangeUtils;
-import io.milton.common.ReadingException;
-import io.milton.common.WritingException;
 import io.milton.http.Auth;
 import io.milton.http.LockInfo;
 import io.milton.http.LockResult;
@@ -71,12 +73,9 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	private static final Logger log = LoggerFactory.getLogger(IrodsFileResource.class);
 
 	/**
-	 * This field may be <code>null</code> and is only available when the milton
-	 * config is set to cache file demographics. In this case, the entry will be
-	 * used to provide file data such as length without necessitating a new
-	 * query
+	 * Handle ranges of this request are read from, opened on the first range
 	 */
-	private final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry;
+	private IRODSRandomAccessFile rangeFile;
 
 	/**
 	 *
@@ -87,14 +86,7 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	 */
 	public IrodsFileResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile file,
 			final IrodsFileContentService contentService) {
-		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService);
-
-		if (file == null) {
-			throw new IllegalArgumentException("null file");
-		}
-
-		setIrodsFile(file);
-		collectionAndDataObjectListingEntry = null;
+		this(host, factory, file, (ListingEntry) null, contentService, IrodsRequestContext.current());
 	}
 
 	/**
@@ -110,27 +102,64 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	public IrodsFileResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile file,
 			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry,
 			final IrodsFileContentService contentService) {
+		this(host, factory, file, collectionAndDataObjectListingEntry, contentService, IrodsRequestContext.current());
+	}
 
-		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService);
+	/**
+	 * Constructor with cached listing values and the context of the request
+	 * the resource is resolved in
+	 *
+	 * @param host
+	 * @param factory
+	 * @param file
+	 * @param collectionAndDataObjectListingEntry
+	 *            may be <code>null</code>
+	 * @param contentService
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 */
+	public IrodsFileResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile file,
+			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry,
+			final IrodsFileContentService contentService, final IrodsRequestContext requestContext) {
+		this(host, factory, file,
+				collectionAndDataObjectListingEntry == null ? null
+						: ListingEntry.fromCollectionAndDataObjectListingEntry(collectionAndDataObjectListingEntry),
+				contentService, requestContext);
+	}
+
+	/**
+	 * Constructor with the metadata snapshot the properties are answered from
+	 * and the context of the request the resource is resolved in
+	 *
+	 * @param host
+	 * @param factory
+	 * @param file
+	 * @param listingEntry
+	 *            {@link ListingEntry} with the snapshot, may be
+	 *            <code>null</code> to take one with an objStat on first use
+	 * @param contentService
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 */
+	public IrodsFileResource(final String host, final IrodsFileSystemResourceFactory factory, final IRODSFile file,
+			final ListingEntry listingEntry, final IrodsFileContentService contentService,
+			final IrodsRequestContext requestContext) {
+
+		super(factory, factory.getIrodsAccessObjectFactory(), factory.getWebDavConfig(), contentService,
+				requestContext);
 
 		if (file == null) {
 			throw new IllegalArgumentException("null file");
 		}
 
 		setIrodsFile(file);
-		this.collectionAndDataObjectListingEntry = collectionAndDataObjectListingEntry;
+		setListingEntry(listingEntry);
 	}
 
 	@Override
 	public Long getContentLength() {
 		log.info("getContentLength()");
-
-		if (collectionAndDataObjectListingEntry != null) {
-			log.debug("cached length");
-			return collectionAndDataObjectListingEntry.getDataSize();
-		} else {
-			return getIrodsFile().length();
-		}
+		return getListingEntry().getDataSize();
 	}
 
 	@Override
@@ -149,30 +178,95 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	public void sendContent(final OutputStream out, final Range range, final Map<String, String> params,
 			final String contentType) throws IOException, NotFoundException {
 		log.info("sendContent()");
+		if (range != null) {
+			log.debug("sendContent: ranged content: " + getIrodsFile().getAbsolutePath());
+			sendRange(out, range);
+			return;
+		}
+
 		InputStream in = null;
 		try {
 			log.debug("getting input stream...");
-			in = getContentService().getFileContent(getIrodsFile(), retrieveIrodsAccount());
+			in = getContentService().getFileContent(getIrodsFile(), retrieveIrodsAccount(),
+					getListingEntry());
 			log.debug("got input stream...");
-			if (range != null) {
-				log.debug("sendContent: ranged content: " + getIrodsFile().getAbsolutePath());
-				RangeUtils.writeRange(in, range, out);
-			} else {
-				log.debug("sendContent: send whole file " + getIrodsFile().getAbsolutePath());
-				IOUtils.copy(in, out);
-			}
+			log.debug("sendContent: send whole file " + getIrodsFile().getAbsolutePath());
+			getContentService().getBufferPool().copy(in, out, getListingEntry().getDataSize());
 			out.flush();
 		} catch (FileNotFoundException e) {
 			throw new NotFoundException("Couldnt locate content");
-		} catch (ReadingException e) {
-			throw new IOException(e);
-		} catch (WritingException e) {
-			throw new IOException(e);
 		} finally {
 			IOUtils.closeQuietly(in);
 		}
 	}
 
+	/**
+	 * Send one range by seeking to its start, so only the bytes of the range
+	 * are read from iRODS. The handle is opened on the first range and kept
+	 * for the others of a multi-range request, it is closed when the request
+	 * ends
+	 */
+	private void sendRange(final OutputStream out, final Range range) throws IOException, NotFoundException {
+		long length = getContentLength();
+		long start;
+		long end;
+		if (range.getStart() == null) {
+			/*
+			 * suffix range, the last bytes of the content
+			 */
+			start = Math.max(0L, length - range.getFinish());
+			end = length - 1;
+		} else {
+			start = range.getStart();
+			end = range.getFinish() == null ? length - 1 : Math.min(range.getFinish(), length - 1);
+		}
+
+		if (start > end) {
+			log.info("range {} is past the end of content of length:{}", range, length);
+			return;
+		}
+
+		IRODSRandomAccessFile randomAccessFile = openRangeFile();
+		randomAccessFile.seek(start);
+		long remaining = end - start + 1;
+		BufferPool bufferPool = getContentService().getBufferPool();
+		byte[] buffer = bufferPool.acquire(BufferPool.copyBufferSize(remaining));
+		try {
+			while (remaining > 0) {
+				int read = randomAccessFile.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					log.warn("content ended {} bytes short of range", remaining);
+					break;
+				}
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		} finally {
+			bufferPool.release(buffer);
+		}
+		out.flush();
+	}
+
+	private IRODSRandomAccessFile openRangeFile() throws NotFoundException {
+		if (rangeFile == null) {
+			final IRODSRandomAccessFile opened;
+			try {
+				opened = getContentService().getRandomAccessFileContent(getIrodsFile(), retrieveIrodsAccount(),
+						getListingEntry());
+			} catch (FileNotFoundException e) {
+				throw new NotFoundException("Couldnt locate content");
+			}
+			getRequestContext().registerCloseable(new Closeable() {
+				@Override
+				public void close() throws IOException {
+					opened.close();
+				}
+			});
+			rangeFile = opened;
+		}
+		return rangeFile;
+	}
+
 	/**
 	 * @{@inheritDoc
 	 */
@@ -189,9 +283,12 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 		log.info("replaceContent()");
 
 		try {
-			getContentService().setFileContent(getIrodsFile(), in, retrieveIrodsAccount());
+			getContentService().setFileContent(getIrodsFile(), in, length, retrieveIrodsAccount());
 		} catch (IOException ex) {
 			throw new BadRequestException("Couldnt write to: " + getIrodsFile().getAbsolutePath(), ex);
+		} finally {
+			invalidateCached(getIrodsFile().getAbsolutePath());
+			setListingEntry(null);
 		}
 	}
 
@@ -220,13 +317,10 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 		log.info("destinationPath:{}", destinationPath);
 		log.info("newName:{}", newName);
 
-		IRODSFile destFile;
+		IRODSFile destFile = fileFromCollectionResource(destinationPath, newName);
 		try {
 
-			destFile = fileFromCollectionResource(destinationPath, newName);
-
-			DataTransferOperations dto = getIrodsAccessObjectFactory()
-					.getDataTransferOperations(retrieveIrodsAccount());
+			DataTransferOperations dto = getRequestContext().getDataTransferOperations();
 
 			log.info("doing a move from source:{}", getIrodsFile());
 			dto.move(getIrodsFile(), destFile);
@@ -235,6 +329,9 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 		} catch (JargonException e) {
 			log.error("error in move operation", e);
 			throw new WebDavRuntimeException("unable to move directory", e);
+		} finally {
+			invalidateCached(getIrodsFile().getAbsolutePath());
+			invalidateCached(destFile.getAbsolutePath());
 		}
 	}
 
@@ -242,7 +339,11 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	public void delete() throws NotAuthorizedException, ConflictException, BadRequestException {
 
 		log.info("delete()");
-		getIrodsFile().delete();
+		try {
+			getIrodsFile().delete();
+		} finally {
+			invalidateCached(getIrodsFile().getAbsolutePath());
+		}
 		log.info("deleted");
 
 	}
@@ -253,8 +354,7 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 		log.info("dest:{}", dest);
 
 		try {
-			DataTransferOperations dto = getIrodsAccessObjectFactory()
-					.getDataTransferOperations(retrieveIrodsAccount());
+			DataTransferOperations dto = getRequestContext().getDataTransferOperations();
 
 			log.info("doing a copy from source:{}", getIrodsFile());
 			dto.copy(getIrodsFile(), dest, null, null);
@@ -263,6 +363,8 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 		} catch (JargonException e) {
 			log.error("error in move operation", e);
 			throw new WebDavRuntimeException("unable to move directory", e);
+		} finally {
+			invalidateCached(dest.getAbsolutePath());
 		}
 
 	}
@@ -270,13 +372,7 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	@Override
 	public Date getModifiedDate() {
 		log.info("getModifiedDate()");
-
-		if (collectionAndDataObjectListingEntry != null) {
-			log.debug("cached modified date");
-			return collectionAndDataObjectListingEntry.getModifiedAt();
-		} else {
-			return new Date(getIrodsFile().lastModified());
-		}
+		return new Date(getListingEntry().getModifiedAt());
 	}
 
 	@Override
@@ -325,7 +421,7 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	public Map<Principal, List<Priviledge>> getAccessControlList() {
 		log.info("getAccessControlList()");
 		try {
-			DataObjectAO dataObjectAO = this.getIrodsAccessObjectFactory().getDataObjectAO(retrieveIrodsAccount());
+			DataObjectAO dataObjectAO = getRequestContext().getDataObjectAO();
 			List<UserFilePermission> userFilePermissions = dataObjectAO
 					.listPermissionsForDataObject(this.getIrodsFile().getAbsolutePath());
 
@@ -347,13 +443,13 @@ public class IrodsFileResource extends BaseResource implements CopyableResource,
 	@Override
 	public String getPrincipalURL() {
 		log.info("getPrincipalUrl()");
-		return retriveOwnerAndGetPrincipal(collectionAndDataObjectListingEntry);
+		return retriveOwnerAndGetPrincipal();
 	}
 
 	@Override
 	public List<Priviledge> getPriviledges(Auth arg0) {
 		try {
-			DataObjectAO dataObjectAO = this.getIrodsAccessObjectFactory().getDataObjectAO(retrieveIrodsAccount());
+			DataObjectAO dataObjectAO = getRequestContext().getDataObjectAO();
 			UserFilePermission userFilePermissions = dataObjectAO.
 
 					getPermissionForDataObjectForUserName(this.getIrodsFile().getAbsolutePath(),
@@ -8,15 +8,17 @@ import org.irods.jargon.core.pub.IRODSFileSystem;
 import org.irods.jargon.core.pub.IRODSFileSystemSingletonWrapper;
 import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.pub.io.IRODSFile;
-import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
-import org.irods.jargon.webdav.authfilter.IrodsAuthService;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
 import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.CollectionListingService;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.irods.jargon.webdav.utils.GlobMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.milton.common.Path;
 import io.milton.http.LockManager;
 import io.milton.http.ResourceFactory;
 import io.milton.http.fs.FsResource;
@@ -45,6 +47,27 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 	private IRODSFileSystem irodsFileSystem;
 	private WebDavConfig webDavConfig;
 
+	/**
+	 * Stats of resolved paths by user, lazily built from the config
+	 */
+	private volatile ObjStatCache objStatCache;
+
+	/**
+	 * Names never looked up in iRODS, lazily built from the config
+	 */
+	private volatile GlobMatcher alwaysAbsentMatcher;
+
+	private volatile CollectionListingService collectionListingService;
+
+	private static final long USER_BASE_PATH_TTL_MILLIS = 60 * 60 * 1000L;
+	private static final int USER_BASE_PATH_MAX_ENTRIES = 10000;
+
+	/**
+	 * Home collection paths by user, for the user home starting location
+	 */
+	private final ExpiringCache<String, String> userBasePaths = new ExpiringCache<String, String>(
+			USER_BASE_PATH_TTL_MILLIS, USER_BASE_PATH_MAX_ENTRIES);
+
 	/**
 	 * Creates and (optionally) initialises the factory. This looks for a
 	 * properties file FileSystemResourceFactory.properties in the classpath If
@@ -105,32 +128,43 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 	public Resource getResource(final String host, String url) {
 		log.debug("getResource: host: " + host + " - url:" + url);
 		url = stripContext(url);
-		IRODSFile requested = resolvePath(url);
-		BaseResource resolvedResource = resolveFile(host, requested);
+		IrodsRequestContext requestContext = requireRequestContext();
+		IRODSFile requested = resolvePath(url, requestContext);
+		if (isAlwaysAbsent(requested.getName())) {
+			log.info("name is configured as always absent: {}", url);
+			return null;
+		}
+		BaseResource resolvedResource = resolveFile(host, requested, requestContext);
 		log.info("resolved as resource:{}", resolvedResource);
 		return resolvedResource;
 	}
 
 	public BaseResource resolveFile(final String host, final IRODSFile file) {
+		return resolveFile(host, file, requireRequestContext());
+	}
+
+	/**
+	 * Build the resource for a file in the given request
+	 *
+	 * @param host
+	 * @param file
+	 *            {@link IRODSFile} to resolve
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @return {@link BaseResource} or <code>null</code> if the file does not
+	 *         exist
+	 */
+	public BaseResource resolveFile(final String host, final IRODSFile file,
+			final IrodsRequestContext requestContext) {
 		log.info("resolveFile()");
 		log.info("host:{}", host);
 		log.info("file:{}", file);
 		BaseResource r;
-		ObjStat objStat;
-		CollectionAndDataObjectListingEntry entry;
+		ListingEntry entry;
+
 		try {
-			CollectionAndDataObjectListAndSearchAO cao = this.getIrodsAccessObjectFactory()
-					.getCollectionAndDataObjectListAndSearchAO(IrodsAuthService.retrieveCurrentIrodsAccount());
-			objStat = cao.retrieveObjectStatForPath(file.getAbsolutePath());
-			entry = new CollectionAndDataObjectListingEntry();
-			entry.setCreatedAt(objStat.getCreatedAt());
-			entry.setDataSize(objStat.getObjSize());
-			entry.setModifiedAt(objStat.getModifiedAt());
-			entry.setObjectType(objStat.getObjectType());
-			entry.setOwnerName(objStat.getOwnerName());
-			entry.setOwnerZone(objStat.getOwnerZone());
-			entry.setParentPath(file.getParent());
-			entry.setPathOrName(file.getAbsolutePath());
+			entry = ListingEntry.fromObjStat(file.getAbsolutePath(),
+					retrieveObjectStat(file.getAbsolutePath(), requestContext));
 		} catch (FileNotFoundException fnf) {
 			log.info("file not found, will return shell iRODS file: {}", file.getAbsolutePath());
 			return null;
@@ -140,12 +174,12 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 
 		}
 
-		if (objStat.isSomeTypeOfCollection()) {
+		if (entry.isCollection()) {
 			log.info("file is a dir");
-			r = new IrodsDirectoryResource(host, this, file, entry, irodsFileContentService);
+			r = new IrodsDirectoryResource(host, this, file, entry, irodsFileContentService, requestContext);
 		} else {
 			log.info("file is a data object");
-			r = new IrodsFileResource(host, this, file, entry, irodsFileContentService);
+			r = new IrodsFileResource(host, this, file, entry, irodsFileContentService, requestContext);
 		}
 		if (r != null) {
 			r.setSsoPrefix(ssoPrefix);
@@ -153,6 +187,107 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 		return r;
 	}
 
+	/**
+	 * Get the stat for a path, from the cache when held
+	 *
+	 * @param absolutePath
+	 *            <code>String</code> with the iRODS path
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @return {@link ObjStat} for the path
+	 * @throws FileNotFoundException
+	 *             if the path does not exist, or was recently found not to
+	 * @throws JargonException
+	 */
+	public ObjStat retrieveObjectStat(final String absolutePath, final IrodsRequestContext requestContext)
+			throws FileNotFoundException, JargonException {
+		ObjStatCache cache = getObjStatCache();
+		ObjStat objStat = cache.get(requestContext.getIrodsAccount(), absolutePath);
+		if (objStat != null) {
+			log.debug("objStat from cache");
+			return objStat;
+		}
+
+		if (cache.isKnownAbsent(requestContext.getIrodsAccount(), absolutePath)) {
+			log.debug("known absent from cache");
+			throw new FileNotFoundException("path recently found not to exist");
+		}
+
+		CollectionAndDataObjectListAndSearchAO cao = requestContext.getCollectionAndDataObjectListAndSearchAO();
+		try {
+			objStat = cao.retrieveObjectStatForPath(absolutePath);
+		} catch (FileNotFoundException fnf) {
+			cache.putAbsent(requestContext.getIrodsAccount(), absolutePath);
+			throw fnf;
+		}
+		cache.put(requestContext.getIrodsAccount(), absolutePath, objStat);
+		return objStat;
+	}
+
+	/**
+	 * Get the cache of path stats, creating it from the config on first use.
+	 * Resources invalidate it when they change a path.
+	 *
+	 * @return {@link ObjStatCache}
+	 */
+	public ObjStatCache getObjStatCache() {
+		ObjStatCache cache = objStatCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = objStatCache;
+				if (cache == null) {
+					if (webDavConfig == null) {
+						throw new WebDavRuntimeException("no webDavConfig is present");
+					}
+					log.info("creating objStat cache with ttl of {} seconds",
+							webDavConfig.getObjStatCacheTimeToLiveInSeconds());
+					cache = ObjStatCache.instance(webDavConfig);
+					objStatCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Set the cache of path stats, so that it can be shared with the other
+	 * application contexts
+	 *
+	 * @param objStatCache
+	 *            {@link ObjStatCache}
+	 */
+	public void setObjStatCache(final ObjStatCache objStatCache) {
+		this.objStatCache = objStatCache;
+	}
+
+	/**
+	 * Check a name against the configured always absent names, such names are
+	 * reported missing on lookup without asking iRODS
+	 *
+	 * @param name
+	 *            <code>String</code> with the last path component
+	 * @return <code>boolean</code> that is <code>true</code> if the name is
+	 *         always absent
+	 */
+	boolean isAlwaysAbsent(final String name) {
+		return getAlwaysAbsentMatcher().matches(name);
+	}
+
+	/**
+	 * @return {@link GlobMatcher} for names that are never looked up
+	 */
+	private GlobMatcher getAlwaysAbsentMatcher() {
+		GlobMatcher matcher = alwaysAbsentMatcher;
+		if (matcher == null) {
+			if (webDavConfig == null) {
+				throw new WebDavRuntimeException("no webDavConfig is present");
+			}
+			matcher = new GlobMatcher(webDavConfig.getAlwaysAbsentNames());
+			alwaysAbsentMatcher = matcher;
+		}
+		return matcher;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -195,6 +330,18 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 	 * @return
 	 */
 	protected String getBasePathBasedOnConfig() {
+		return getBasePathBasedOnConfig(requireRequestContext());
+	}
+
+	/**
+	 * Find the right base path to use for the given request based on the
+	 * provided configuration
+	 *
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @return <code>String</code> with the base path
+	 */
+	protected String getBasePathBasedOnConfig(final IrodsRequestContext requestContext) {
 		log.info("getBasePathBasedOnConfig()");
 		if (webDavConfig == null) {
 			throw new WebDavRuntimeException("no webDavConfig is present");
@@ -205,8 +352,7 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 		case ROOT:
 			return "/";
 		case USER_HOME:
-			return MiscIRODSUtils
-					.buildIRODSUserHomeForAccountUsingDefaultScheme(IrodsAuthService.retrieveCurrentIrodsAccount());
+			return getUserHome(requestContext);
 		case PROVIDED:
 			return webDavConfig.getProvidedDefaultStartingLocation();
 
@@ -218,6 +364,20 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 	}
 
 	public IRODSFile resolvePath(final String pathToResolve) {
+		return resolvePath(pathToResolve, requireRequestContext());
+	}
+
+	/**
+	 * Resolve a path in the given request to an iRODS file
+	 *
+	 * @param pathToResolve
+	 *            <code>String</code> with the path, with any context path
+	 *            removed
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @return {@link IRODSFile}
+	 */
+	public IRODSFile resolvePath(final String pathToResolve, final IrodsRequestContext requestContext) {
 		log.info("resolvePath()");
 
 		if (pathToResolve == null) {
@@ -227,37 +387,9 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 		log.info("url:{}", pathToResolve);
 
 		try {
-			IRODSFile f = getIrodsAccessObjectFactory()
-					.getIRODSFileFactory(IrodsAuthService.retrieveCurrentIrodsAccount())
-					.instanceIRODSFile(getBasePathBasedOnConfig());
-
-			/*
-			 * the path will have any existing prefix trimmed off when requested
-			 * by the client, as the root was set elsewhere, and all paths are
-			 * expected to be under that prefix.
-			 *
-			 * So if my webDavConfig is set to base on user home, the
-			 * pathToResolve may be /zone/home/user/subdir/blah, and I want to
-			 * Just access /subdir/blah
-			 */
-			Path path;
-			String prefix = getBasePathBasedOnConfig();
-			if (pathToResolve.equals(prefix)) {
-				// path is same as prefix, so leave f unchanged
-			} else {
-				if (pathToResolve.startsWith(prefix)) {
-
-					path = Path.path(MiscIRODSUtils.subtractPrefixFromGivenPath(f.getAbsolutePath(), pathToResolve));
-				} else {
-					path = Path.path(pathToResolve);
-				}
-
-				for (String s : path.getParts()) {
-					f = getIrodsAccessObjectFactory()
-							.getIRODSFileFactory(IrodsAuthService.retrieveCurrentIrodsAccount())
-							.instanceIRODSFile(f.getAbsolutePath(), s);
-				}
-			}
+			String absolutePath = IrodsPathResolver.resolveAbsolutePath(getBasePathBasedOnConfig(requestContext),
+					pathToResolve);
+			IRODSFile f = requestContext.getIrodsFileFactory().instanceIRODSFile(absolutePath);
 			log.info("resolved as:{}", f);
 			return f;
 		} catch (JargonException e) {
@@ -266,6 +398,38 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 		}
 	}
 
+	/**
+	 * Get the home collection of the request user, computed once per user
+	 *
+	 * @param requestContext
+	 *            {@link IrodsRequestContext} for the request
+	 * @return <code>String</code> with the home collection path
+	 */
+	private String getUserHome(final IrodsRequestContext requestContext) {
+		String key = requestContext.getIrodsAccount().getUserName() + '#'
+				+ requestContext.getIrodsAccount().getZone();
+		String home = userBasePaths.get(key);
+		if (home == null) {
+			home = MiscIRODSUtils.buildIRODSUserHomeForAccountUsingDefaultScheme(requestContext.getIrodsAccount());
+			userBasePaths.put(key, home);
+		}
+		return home;
+	}
+
+	/**
+	 * Get the context established by the auth filter for the current request
+	 *
+	 * @return {@link IrodsRequestContext}
+	 */
+	private IrodsRequestContext requireRequestContext() {
+		IrodsRequestContext requestContext = IrodsRequestContext.current();
+		if (requestContext == null) {
+			log.error("no request context, request was not authenticated");
+			throw new WebDavRuntimeException("no request context available");
+		}
+		return requestContext;
+	}
+
 	public String getRealm(final String host) {
 		String s = securityManager.getRealm(host);
 		if (s == null) {
@@ -417,6 +581,33 @@ public final class IrodsFileSystemResourceFactory implements ResourceFactory {
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
 	}
 
+	/**
+	 * @return the collectionListingService, one without published metrics is
+	 *         built from the config if none was set
+	 */
+	public CollectionListingService getCollectionListingService() {
+		CollectionListingService service = collectionListingService;
+		if (service == null) {
+			synchronized (this) {
+				service = collectionListingService;
+				if (service == null) {
+					service = new CollectionListingService();
+					service.setWebDavConfig(webDavConfig);
+					collectionListingService = service;
+				}
+			}
+		}
+		return service;
+	}
+
+	/**
+	 * @param collectionListingService
+	 *            the collectionListingService to set
+	 */
+	public void setCollectionListingService(final CollectionListingService collectionListingService) {
+		this.collectionListingService = collectionListingService;
+	}
+
 	/**
 	 * @return the webDavConfig
 	 */
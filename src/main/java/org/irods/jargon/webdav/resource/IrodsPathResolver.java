@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.resource;
+
+/**
+ * Turns a request path into an absolute iRODS path under a base path with
+ * plain string work, so that resolving a URL costs one pass over its
+ * characters and one <code>IRODSFile</code> at the end, rather than a file
+ * object per path segment.
+ * <p/>
+ * Empty and <code>.</code> segments are dropped, <code>..</code> steps back
+ * up but never above the base path.
+ *
+ */
+public final class IrodsPathResolver {
+
+	private IrodsPathResolver() {
+	}
+
+	/**
+	 * Resolve a request path against a base path. A request path that already
+	 * starts with the base path is taken as absolute, anything else as
+	 * relative to the base.
+	 *
+	 * @param basePath
+	 *            <code>String</code> with the absolute iRODS base path
+	 * @param pathToResolve
+	 *            <code>String</code> with the request path, with any context
+	 *            path removed
+	 * @return <code>String</code> with the normalised absolute iRODS path
+	 */
+	public static String resolveAbsolutePath(final String basePath, final String pathToResolve) {
+		if (basePath == null || basePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty basePath");
+		}
+
+		if (pathToResolve == null) {
+			throw new IllegalArgumentException("null pathToResolve");
+		}
+
+		String base = trimTrailingSlashes(basePath);
+		int start = 0;
+		if (isUnder(pathToResolve, base)) {
+			start = base.length();
+		}
+
+		StringBuilder resolved = new StringBuilder(base.length() + pathToResolve.length() - start + 1);
+		resolved.append(base);
+		int baseLength = resolved.length();
+
+		int length = pathToResolve.length();
+		int segmentStart = start;
+		for (int i = start; i <= length; i++) {
+			if (i < length && pathToResolve.charAt(i) != '/') {
+				continue;
+			}
+			appendSegment(resolved, baseLength, pathToResolve, segmentStart, i);
+			segmentStart = i + 1;
+		}
+
+		if (resolved.length() == 0) {
+			return "/";
+		}
+		return resolved.toString();
+	}
+
+	private static void appendSegment(final StringBuilder resolved, final int baseLength, final String path,
+			final int from, final int to) {
+		int segmentLength = to - from;
+		if (segmentLength == 0 || (segmentLength == 1 && path.charAt(from) == '.')) {
+			return;
+		}
+
+		if (segmentLength == 2 && path.charAt(from) == '.' && path.charAt(from + 1) == '.') {
+			if (resolved.length() > baseLength) {
+				resolved.setLength(resolved.lastIndexOf("/"));
+			}
+			return;
+		}
+
+		resolved.append('/').append(path, from, to);
+	}
+
+	private static boolean isUnder(final String path, final String base) {
+		if (base.isEmpty()) {
+			return false;
+		}
+		return path.startsWith(base) && (path.length() == base.length() || path.charAt(base.length()) == '/');
+	}
+
+	/**
+	 * The root collection is kept as an empty base, so that joining segments
+	 * never doubles the separator
+	 */
+	private static String trimTrailingSlashes(final String path) {
+		int end = path.length();
+		while (end > 0 && path.charAt(end - 1) == '/') {
+			end--;
+		}
+		return path.substring(0, end);
+	}
+
+}
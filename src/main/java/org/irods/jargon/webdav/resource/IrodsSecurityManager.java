@@ -6,6 +6,7 @@ package org.irods.jargon.webdav.resource;
 import org.irods.jargon.core.connection.auth.AuthResponse;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.webdav.authfilter.IrodsAuthService;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
 import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.WebDavRuntimeException;
 import org.slf4j.Logger;
@@ -22,10 +23,10 @@ import io.milton.resource.Resource;
  * Security manager implementation for iRODS
  *
  * <p/>
- * This class provides a method that will extract user and password info from
- * these thread locals, and provision a threadLocal that contains the
- * authResponse data from iRODS, allowing resource servers to derive the valid
- * iRODS account for each operation
+ * This class provides a method that will extract user and password info and
+ * find the authResponse data from iRODS that the auth filter established for
+ * the request, allowing resource servers to derive the valid iRODS account for
+ * each operation
  *
  * @author Mike Conway - DICE
  *
@@ -37,8 +38,6 @@ public class IrodsSecurityManager implements SecurityManager {
 	private IrodsAuthService irodsAuthService;
 	private static final Logger log = LoggerFactory.getLogger(IrodsSecurityManager.class);
 
-	private static final ThreadLocal<AuthResponse> authResponseCache = new ThreadLocal<AuthResponse>();
-
 	/**
 	 *
 	 */
@@ -66,16 +65,12 @@ public class IrodsSecurityManager implements SecurityManager {
 	@Override
 	public Object authenticate(final String userName, final String password) {
 		log.info("authenticate()");
-		// clearThreadlocals();
 
 		AuthResponse authResponse = irodsAuthService.getCached(userName, password);
 
 		if (authResponse == null) {
 			throw new WebDavRuntimeException("no cached authentication!");
 		}
-		// log.info("storing authResponse in threadlocal as
-		// authResponseCache");
-		// authResponseCache.set(authResponse);
 		return authResponse;
 	}
 
@@ -157,8 +152,15 @@ public class IrodsSecurityManager implements SecurityManager {
 		this.irodsAuthService = irodsAuthService;
 	}
 
+	/**
+	 * Clear the request context bound to the current thread
+	 *
+	 * @deprecated the request context is held by {@link IrodsRequestContext},
+	 *             use {@link IrodsRequestContext#clear()}
+	 */
+	@Deprecated
 	public static void clearThreadlocals() {
-		authResponseCache.remove();
+		IrodsRequestContext.clear();
 	}
 
 }
@@ -0,0 +1,289 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.resource;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.utils.ExpiringCache;
+import org.irods.jargon.webdav.utils.ExpiringCache.KeyFilter;
+
+/**
+ * Short lived cache of <code>ObjStat</code> results, so that the repeated
+ * resolution of the same paths by a client (a file manager opening a folder
+ * resolves each path several times in a second) does not go back to iRODS
+ * each time.
+ * <p/>
+ * Entries are held per user, as what a path resolves to depends on the user's
+ * permissions. Changes made through this server invalidate the changed path
+ * and its parent for every user, so clients read their own writes, changes
+ * made by other means are seen once entries expire.
+ * <p/>
+ * Paths found not to exist are held too, with their own time to live, as
+ * clients constantly probe for metadata files (<code>.DS_Store</code>,
+ * <code>._*</code>, <code>desktop.ini</code>) that are never there. Creating
+ * something at a path invalidates it like any other change.
+ * <p/>
+ * Entries are keyed by path, each holding what every user resolved the path
+ * to, so that invalidating a path and its parent removes two keys rather than
+ * scanning the cache. Only invalidating a tree scans for the paths under it.
+ *
+ */
+public class ObjStatCache {
+
+	/**
+	 * The cache shared by every application context of the web application,
+	 * the root context the filters run in and the context of the Milton
+	 * filter each build their own resource factory
+	 */
+	private static ObjStatCache sharedCache;
+
+	private final ExpiringCache<String, UserEntries<ObjStat>> entries;
+	private final ExpiringCache<String, UserEntries<Boolean>> absentEntries;
+	private final long timeToLiveMillis;
+	private final long absentTimeToLiveMillis;
+
+	/**
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with how long an entry is held, zero or
+	 *            less disables the cache
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of paths held
+	 */
+	public ObjStatCache(final long timeToLiveMillis, final int maxEntries) {
+		this(timeToLiveMillis, maxEntries, 0, 0);
+	}
+
+	/**
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with how long an entry is held, zero or
+	 *            less disables the cache
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of paths held
+	 * @param absentTimeToLiveMillis
+	 *            <code>long</code> with how long a path found not to exist is
+	 *            held, zero or less disables holding absent paths
+	 * @param maxAbsentEntries
+	 *            <code>int</code> with the maximum number of absent paths held
+	 */
+	public ObjStatCache(final long timeToLiveMillis, final int maxEntries, final long absentTimeToLiveMillis,
+			final int maxAbsentEntries) {
+		entries = new ExpiringCache<String, UserEntries<ObjStat>>(timeToLiveMillis, maxEntries);
+		absentEntries = new ExpiringCache<String, UserEntries<Boolean>>(absentTimeToLiveMillis, maxAbsentEntries);
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.absentTimeToLiveMillis = absentTimeToLiveMillis;
+	}
+
+	/**
+	 * Build a cache with the times to live and sizes in the config
+	 *
+	 * @param webDavConfig
+	 *            {@link WebDavConfig}
+	 * @return {@link ObjStatCache}
+	 */
+	public static ObjStatCache instance(final WebDavConfig webDavConfig) {
+		if (webDavConfig == null) {
+			throw new IllegalArgumentException("null webDavConfig");
+		}
+		return new ObjStatCache(webDavConfig.getObjStatCacheTimeToLiveInSeconds() * 1000L,
+				webDavConfig.getObjStatCacheMaxEntries(),
+				webDavConfig.getAbsentPathCacheTimeToLiveInSeconds() * 1000L,
+				webDavConfig.getAbsentPathCacheMaxEntries());
+	}
+
+	/**
+	 * Get the cache shared by the application contexts, built from the config
+	 * on first use. Each context has its own resource factory, so without
+	 * sharing, a change made through one would leave the other serving stale
+	 * stats.
+	 *
+	 * @param webDavConfig
+	 *            {@link WebDavConfig} the cache is built from on first use
+	 * @return {@link ObjStatCache}
+	 */
+	public static synchronized ObjStatCache shared(final WebDavConfig webDavConfig) {
+		if (sharedCache == null) {
+			sharedCache = instance(webDavConfig);
+		}
+		return sharedCache;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if entries will
+	 *         be held
+	 */
+	public boolean isEnabled() {
+		return entries.isEnabled() || absentEntries.isEnabled();
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the path is resolved for
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 * @return {@link ObjStat} held for the path, or <code>null</code>
+	 */
+	public ObjStat get(final IRODSAccount irodsAccount, final String path) {
+		return get(entries, irodsAccount, path);
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the path was resolved for
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 * @param objStat
+	 *            {@link ObjStat} for the path
+	 */
+	public void put(final IRODSAccount irodsAccount, final String path, final ObjStat objStat) {
+		put(entries, timeToLiveMillis, irodsAccount, path, objStat);
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the path is resolved for
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 * @return <code>boolean</code> that is <code>true</code> if the path was
+	 *         recently found not to exist
+	 */
+	public boolean isKnownAbsent(final IRODSAccount irodsAccount, final String path) {
+		return get(absentEntries, irodsAccount, path) != null;
+	}
+
+	/**
+	 * Note that a path was found not to exist
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the path was resolved for
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void putAbsent(final IRODSAccount irodsAccount, final String path) {
+		put(absentEntries, absentTimeToLiveMillis, irodsAccount, path, Boolean.TRUE);
+	}
+
+	/**
+	 * Drop the entries for a changed path and its parent, for all users
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidate(final String path) {
+		invalidate(path, false);
+	}
+
+	/**
+	 * Drop the entries for a changed collection, everything under it, and its
+	 * parent, for all users
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute iRODS path
+	 */
+	public void invalidateTree(final String path) {
+		invalidate(path, true);
+	}
+
+	/**
+	 * Drop all entries
+	 */
+	public void clear() {
+		entries.clear();
+		absentEntries.clear();
+	}
+
+	private void invalidate(final String path, final boolean includeChildren) {
+		if (!isEnabled() || path == null) {
+			return;
+		}
+
+		String parent = parentOf(path);
+		entries.remove(path);
+		entries.remove(parent);
+		absentEntries.remove(path);
+		absentEntries.remove(parent);
+
+		if (includeChildren) {
+			final String childPrefix = path.endsWith("/") ? path : path + "/";
+			KeyFilter<String> filter = new KeyFilter<String>() {
+				@Override
+				public boolean accept(final String key) {
+					return key.startsWith(childPrefix);
+				}
+			};
+			entries.removeMatching(filter);
+			absentEntries.removeMatching(filter);
+		}
+	}
+
+	private static <V> V get(final ExpiringCache<String, UserEntries<V>> cache, final IRODSAccount irodsAccount,
+			final String path) {
+		UserEntries<V> userEntries = cache.get(path);
+		if (userEntries == null) {
+			return null;
+		}
+		return userEntries.get(buildUserKey(irodsAccount));
+	}
+
+	private static <V> void put(final ExpiringCache<String, UserEntries<V>> cache, final long timeToLiveMillis,
+			final IRODSAccount irodsAccount, final String path, final V value) {
+		if (!cache.isEnabled()) {
+			return;
+		}
+		UserEntries<V> userEntries = cache.putIfAbsent(path, new UserEntries<V>());
+		userEntries.put(buildUserKey(irodsAccount), value, System.currentTimeMillis() + timeToLiveMillis);
+		/*
+		 * put again so the path is held as long as its newest entry
+		 */
+		cache.put(path, userEntries);
+	}
+
+	static String parentOf(final String path) {
+		int last = path.lastIndexOf('/');
+		if (last <= 0) {
+			return "/";
+		}
+		return path.substring(0, last);
+	}
+
+	private static String buildUserKey(final IRODSAccount irodsAccount) {
+		return irodsAccount.getUserName() + '#' + irodsAccount.getZone();
+	}
+
+	/**
+	 * What each user resolved one path to, with its own expiry
+	 */
+	private static final class UserEntries<V> {
+		private final ConcurrentHashMap<String, UserEntry<V>> byUser = new ConcurrentHashMap<String, UserEntry<V>>();
+
+		V get(final String userKey) {
+			UserEntry<V> entry = byUser.get(userKey);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expiresAt <= System.currentTimeMillis()) {
+				byUser.remove(userKey, entry);
+				return null;
+			}
+			return entry.value;
+		}
+
+		void put(final String userKey, final V value, final long expiresAt) {
+			byUser.put(userKey, new UserEntry<V>(value, expiresAt));
+		}
+	}
+
+	private static final class UserEntry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		UserEntry(final V value, final long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,364 @@
+package org.irods.jargon.webdav.resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.irods.jargon.webdav.utils.BufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads a data object as disjoint chunks on several threads at once and hands
+ * them back in order as one stream. Each thread opens its own reader, and so
+ * its own iRODS connection, and claims the next unread chunk until none are
+ * left.
+ * <p/>
+ * At most the window of chunks is held at once, counting the one being read
+ * from the stream, so threads wait for the reader of the stream once they are
+ * that far ahead. Closing the stream stops the threads at their next chunk.
+ * Chunk buffers come from a {@link BufferPool} and go back to it once read.
+ *
+ */
+class ParallelDownloadInputStream extends InputStream {
+
+	/**
+	 * Opens readers of the content, called on each download thread
+	 */
+	interface ChunkSource {
+
+		/**
+		 * @return {@link RangeReader} for the calling thread
+		 * @throws IOException
+		 */
+		RangeReader openReader() throws IOException;
+
+		/**
+		 * Release anything held by the calling thread once its reader is
+		 * closed
+		 */
+		void releaseThread();
+	}
+
+	/**
+	 * Reads bytes at a position of the content
+	 */
+	interface RangeReader extends Closeable {
+
+		/**
+		 * @return <code>int</code> with the bytes read, or -1 at the end of the
+		 *         content
+		 * @throws IOException
+		 */
+		int read(long position, byte[] buffer, int offset, int length) throws IOException;
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelDownloadInputStream.class);
+
+	private final long length;
+	private final int chunkSize;
+	private final long chunkCount;
+	private final int window;
+	private final ChunkSource source;
+	private final BufferPool bufferPool;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final Map<Long, byte[]> ready = new HashMap<Long, byte[]>();
+	private long nextToClaim = 0;
+	private long nextToRead = 0;
+	private int activeThreads = 0;
+	private boolean closed = false;
+	private Throwable failure;
+
+	private byte[] current;
+	private int currentLength = 0;
+	private int currentPosition = 0;
+
+	/**
+	 * Start a download, or return <code>null</code> if no thread was free for it
+	 *
+	 * @param length
+	 *            <code>long</code> with the length of the content
+	 * @param chunkSize
+	 *            <code>int</code> with the bytes each thread reads at a time
+	 * @param window
+	 *            <code>int</code> with the most chunks held at once, at least 2
+	 * @param streams
+	 *            <code>int</code> with the most threads reading this download
+	 * @param executor
+	 *            {@link Executor} the threads run on, if it refuses some fewer
+	 *            threads are used
+	 * @param source
+	 *            {@link ChunkSource} opening a reader on each thread
+	 * @param bufferPool
+	 *            {@link BufferPool} the chunk buffers come from
+	 * @return {@link ParallelDownloadInputStream} or <code>null</code>
+	 */
+	static ParallelDownloadInputStream start(final long length, final int chunkSize, final int window,
+			final int streams, final Executor executor, final ChunkSource source, final BufferPool bufferPool) {
+		ParallelDownloadInputStream stream = new ParallelDownloadInputStream(length, chunkSize, window, source,
+				bufferPool);
+		int wanted = (int) Math.min(streams, stream.chunkCount);
+		int started = 0;
+		for (int i = 0; i < wanted; i++) {
+			if (!stream.startThread(executor)) {
+				break;
+			}
+			started++;
+		}
+
+		if (started == 0) {
+			log.debug("no download thread free");
+			return null;
+		}
+
+		log.debug("downloading {} chunks on {} threads", stream.chunkCount, started);
+		return stream;
+	}
+
+	private ParallelDownloadInputStream(final long length, final int chunkSize, final int window,
+			final ChunkSource source, final BufferPool bufferPool) {
+		if (length < 0) {
+			throw new IllegalArgumentException("negative length");
+		}
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1");
+		}
+		if (window < 2) {
+			throw new IllegalArgumentException("window must be at least 2");
+		}
+		if (source == null) {
+			throw new IllegalArgumentException("null source");
+		}
+		if (bufferPool == null) {
+			throw new IllegalArgumentException("null bufferPool");
+		}
+		this.length = length;
+		this.chunkSize = chunkSize;
+		this.chunkCount = (length + chunkSize - 1) / chunkSize;
+		this.window = window;
+		this.source = source;
+		this.bufferPool = bufferPool;
+	}
+
+	private boolean startThread(final Executor executor) {
+		lock.lock();
+		try {
+			activeThreads++;
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					download();
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			lock.lock();
+			try {
+				activeThreads--;
+			} finally {
+				lock.unlock();
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Run on each download thread, reads chunks until there are none left or
+	 * the download is stopped
+	 */
+	private void download() {
+		RangeReader reader = null;
+		try {
+			reader = source.openReader();
+			long chunk;
+			while ((chunk = claim()) >= 0) {
+				int chunkLength = chunkLength(chunk);
+				byte[] data = bufferPool.acquire(chunkLength);
+				try {
+					readFully(reader, chunk * chunkSize, data, chunkLength);
+				} catch (IOException e) {
+					bufferPool.release(data);
+					throw e;
+				}
+				lock.lock();
+				try {
+					if (closed) {
+						bufferPool.release(data);
+					} else {
+						ready.put(chunk, data);
+					}
+					changed.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		} catch (Throwable e) {
+			log.error("error reading chunk of download", e);
+			lock.lock();
+			try {
+				if (failure == null) {
+					failure = e;
+				}
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			try {
+				if (reader != null) {
+					reader.close();
+				}
+			} catch (Throwable e) {
+				log.warn("error closing download reader", e);
+			} finally {
+				source.releaseThread();
+				lock.lock();
+				try {
+					activeThreads--;
+					changed.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the next chunk for this thread to read,
+	 *         or -1 if it should stop
+	 */
+	private long claim() throws InterruptedException {
+		lock.lock();
+		try {
+			while (!closed && failure == null && nextToClaim < chunkCount && nextToClaim - nextToRead >= window - 1) {
+				changed.await();
+			}
+			if (closed || failure != null || nextToClaim >= chunkCount) {
+				return -1;
+			}
+			return nextToClaim++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private int chunkLength(final long chunk) {
+		return (int) Math.min(chunkSize, length - chunk * chunkSize);
+	}
+
+	private void readFully(final RangeReader reader, final long position, final byte[] data, final int count)
+			throws IOException {
+		int offset = 0;
+		while (offset < count) {
+			int read = reader.read(position + offset, data, offset, count - offset);
+			if (read < 0) {
+				throw new IOException("content ended at " + (position + offset) + " of " + length);
+			}
+			offset += read;
+		}
+	}
+
+	/**
+	 * Wait for the next chunk in order
+	 *
+	 * @return <code>boolean</code> that is <code>false</code> at the end of
+	 *         the content
+	 */
+	private boolean nextChunk() throws IOException {
+		lock.lock();
+		try {
+			bufferPool.release(current);
+			current = null;
+			if (nextToRead >= chunkCount) {
+				return false;
+			}
+
+			byte[] data;
+			while ((data = ready.remove(nextToRead)) == null) {
+				if (closed) {
+					throw new IOException("stream closed");
+				}
+				if (failure != null) {
+					throw new IOException("error downloading content", failure);
+				}
+				if (activeThreads == 0) {
+					throw new IOException("download threads stopped before chunk " + nextToRead);
+				}
+				try {
+					changed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("interrupted waiting for download chunk");
+				}
+			}
+
+			currentLength = chunkLength(nextToRead);
+			nextToRead++;
+			changed.signalAll();
+			current = data;
+			currentPosition = 0;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		int read = read(single, 0, 1);
+		return read < 0 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int count) throws IOException {
+		if (count == 0) {
+			return 0;
+		}
+		if (current == null || currentPosition == currentLength) {
+			if (!nextChunk()) {
+				return -1;
+			}
+		}
+		int read = Math.min(count, currentLength - currentPosition);
+		System.arraycopy(current, currentPosition, buffer, offset, read);
+		currentPosition += read;
+		return read;
+	}
+
+	@Override
+	public int available() {
+		return current == null ? 0 : currentLength - currentPosition;
+	}
+
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			for (byte[] data : ready.values()) {
+				bufferPool.release(data);
+			}
+			ready.clear();
+			bufferPool.release(current);
+			current = null;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
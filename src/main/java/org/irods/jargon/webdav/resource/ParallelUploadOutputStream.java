@@ -0,0 +1,329 @@
+package org.irods.jargon.webdav.resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.webdav.utils.BufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cuts what is written to it into chunks and writes them at their offsets on
+ * several threads at once. Each thread opens its own writer, and so its own
+ * iRODS connection, and takes the next filled chunk until the stream is
+ * closed.
+ * <p/>
+ * At most the window of chunks is held at once, counting the one being
+ * filled, so the writing thread waits, and stops reading the request body,
+ * once the threads fall that far behind. {@link #close()} waits for every
+ * chunk to be written and throws if any failed, {@link #abort()} stops the
+ * threads without finishing. Chunk buffers come from a {@link BufferPool} and
+ * go back to it once written.
+ *
+ */
+class ParallelUploadOutputStream extends OutputStream {
+
+	/**
+	 * Opens writers of the content, called on each upload thread
+	 */
+	interface ChunkSink {
+
+		/**
+		 * @return {@link RangeWriter} for the calling thread
+		 * @throws IOException
+		 */
+		RangeWriter openWriter() throws IOException;
+
+		/**
+		 * Release anything held by the calling thread once its writer is
+		 * closed
+		 */
+		void releaseThread();
+	}
+
+	/**
+	 * Writes bytes at a position of the content
+	 */
+	interface RangeWriter extends Closeable {
+
+		void write(long position, byte[] buffer, int offset, int length) throws IOException;
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelUploadOutputStream.class);
+
+	private static final long POLL_MILLIS = 50;
+	private static final Chunk END = new Chunk(-1, null, 0);
+
+	private final int chunkSize;
+	private final ChunkSink sink;
+	private final BufferPool bufferPool;
+	private final Semaphore permits;
+	private final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<Chunk>();
+	private final Semaphore finishedThreads = new Semaphore(0);
+	private int threads = 0;
+	private volatile boolean aborted = false;
+	private volatile Throwable failure;
+
+	private byte[] current;
+	private int currentLength = 0;
+	private long written = 0;
+	private boolean closed = false;
+
+	/**
+	 * Start an upload, or return <code>null</code> if no thread was free for it
+	 *
+	 * @param chunkSize
+	 *            <code>int</code> with the bytes each thread writes at a time
+	 * @param window
+	 *            <code>int</code> with the most chunks held at once, at least 2
+	 * @param streams
+	 *            <code>int</code> with the most threads writing this upload
+	 * @param executor
+	 *            {@link Executor} the threads run on, if it refuses some fewer
+	 *            threads are used
+	 * @param sink
+	 *            {@link ChunkSink} opening a writer on each thread
+	 * @param bufferPool
+	 *            {@link BufferPool} the chunk buffers come from
+	 * @return {@link ParallelUploadOutputStream} or <code>null</code>
+	 */
+	static ParallelUploadOutputStream start(final int chunkSize, final int window, final int streams,
+			final Executor executor, final ChunkSink sink, final BufferPool bufferPool) {
+		ParallelUploadOutputStream stream = new ParallelUploadOutputStream(chunkSize, window, sink, bufferPool);
+		for (int i = 0; i < streams; i++) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						stream.upload();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				break;
+			}
+			stream.threads++;
+		}
+
+		if (stream.threads == 0) {
+			log.debug("no upload thread free");
+			return null;
+		}
+
+		log.debug("uploading on {} threads", stream.threads);
+		return stream;
+	}
+
+	private ParallelUploadOutputStream(final int chunkSize, final int window, final ChunkSink sink,
+			final BufferPool bufferPool) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1");
+		}
+		if (window < 2) {
+			throw new IllegalArgumentException("window must be at least 2");
+		}
+		if (sink == null) {
+			throw new IllegalArgumentException("null sink");
+		}
+		if (bufferPool == null) {
+			throw new IllegalArgumentException("null bufferPool");
+		}
+		this.chunkSize = chunkSize;
+		this.sink = sink;
+		this.bufferPool = bufferPool;
+		this.permits = new Semaphore(window);
+	}
+
+	/**
+	 * Run on each upload thread, writes chunks until the end or the upload is
+	 * stopped
+	 */
+	private void upload() {
+		RangeWriter writer = null;
+		try {
+			writer = sink.openWriter();
+			while (!aborted && failure == null) {
+				Chunk chunk = chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (chunk == null) {
+					continue;
+				}
+				if (chunk == END) {
+					break;
+				}
+				try {
+					writer.write(chunk.position, chunk.data, 0, chunk.length);
+				} finally {
+					bufferPool.release(chunk.data);
+					permits.release();
+				}
+			}
+		} catch (Throwable e) {
+			log.error("error writing chunk of upload", e);
+			if (failure == null) {
+				failure = e;
+			}
+		} finally {
+			try {
+				if (writer != null) {
+					writer.close();
+				}
+			} catch (Throwable e) {
+				log.error("error closing upload writer", e);
+				if (failure == null) {
+					failure = e;
+				}
+			} finally {
+				sink.releaseThread();
+				finishedThreads.release();
+			}
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes written to the stream
+	 */
+	long getBytesWritten() {
+		return written;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+		if (closed) {
+			throw new IOException("stream closed");
+		}
+		int done = 0;
+		while (done < length) {
+			if (current == null) {
+				acquire();
+				current = bufferPool.acquire(chunkSize);
+				currentLength = 0;
+			}
+			int copied = Math.min(length - done, chunkSize - currentLength);
+			System.arraycopy(buffer, offset + done, current, currentLength, copied);
+			currentLength += copied;
+			done += copied;
+			if (currentLength == chunkSize) {
+				dispatch();
+			}
+		}
+	}
+
+	/**
+	 * Wait for room for another chunk, this is what holds back reading the
+	 * request body
+	 */
+	private void acquire() throws IOException {
+		try {
+			while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted waiting for upload chunk");
+		}
+		checkFailure();
+	}
+
+	private void dispatch() {
+		chunks.add(new Chunk(written, current, currentLength));
+		written += currentLength;
+		current = null;
+		currentLength = 0;
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw new IOException("error uploading content", failure);
+		}
+		if (finishedThreads.availablePermits() == threads) {
+			throw new IOException("upload threads stopped");
+		}
+	}
+
+	/**
+	 * Write the last chunk and wait for all chunks to be written
+	 *
+	 * @throws IOException
+	 *             if any chunk could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (current != null && currentLength > 0) {
+			dispatch();
+		} else if (current != null) {
+			bufferPool.release(current);
+			current = null;
+			permits.release();
+		}
+		for (int i = 0; i < threads; i++) {
+			chunks.add(END);
+		}
+		awaitThreads();
+		if (failure != null) {
+			throw new IOException("error uploading content", failure);
+		}
+	}
+
+	/**
+	 * Stop the threads without writing what is left and wait for them to
+	 * release their connections
+	 */
+	void abort() {
+		if (closed && aborted) {
+			return;
+		}
+		closed = true;
+		aborted = true;
+		bufferPool.release(current);
+		current = null;
+		try {
+			awaitThreads();
+		} catch (IOException e) {
+			log.warn("interrupted waiting for upload threads to stop");
+		}
+	}
+
+	private void awaitThreads() throws IOException {
+		try {
+			finishedThreads.acquire(threads);
+			finishedThreads.release(threads);
+			Chunk chunk;
+			while ((chunk = chunks.poll()) != null) {
+				bufferPool.release(chunk.data);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			aborted = true;
+			throw new InterruptedIOException("interrupted waiting for upload threads");
+		}
+	}
+
+	private static final class Chunk {
+		private final long position;
+		private final byte[] data;
+		private final int length;
+
+		Chunk(final long position, final byte[] data, final int length) {
+			this.position = position;
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.tls;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Socket factory that hands out sockets from a delegate and records each
+ * completed handshake in {@link TlsMetrics}. The handshake time is measured
+ * from socket creation, which for iRODS is immediately followed by the
+ * handshake as the TLS layer goes over an already connected socket.
+ * <p/>
+ * A handshake is taken as resumed when the session it ends up with was
+ * created before the socket was.
+ *
+ */
+public class InstrumentedSSLSocketFactory extends SSLSocketFactory {
+
+	private final SSLSocketFactory delegate;
+	private final TlsMetrics tlsMetrics;
+
+	/**
+	 * @param delegate
+	 *            {@link SSLSocketFactory} making the sockets
+	 * @param tlsMetrics
+	 *            {@link TlsMetrics} to record handshakes in
+	 */
+	public InstrumentedSSLSocketFactory(final SSLSocketFactory delegate, final TlsMetrics tlsMetrics) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("null delegate");
+		}
+
+		if (tlsMetrics == null) {
+			throw new IllegalArgumentException("null tlsMetrics");
+		}
+
+		this.delegate = delegate;
+		this.tlsMetrics = tlsMetrics;
+	}
+
+	@Override
+	public String[] getDefaultCipherSuites() {
+		return delegate.getDefaultCipherSuites();
+	}
+
+	@Override
+	public String[] getSupportedCipherSuites() {
+		return delegate.getSupportedCipherSuites();
+	}
+
+	@Override
+	public Socket createSocket() throws IOException {
+		return instrument(delegate.createSocket());
+	}
+
+	@Override
+	public Socket createSocket(final Socket socket, final String host, final int port, final boolean autoClose)
+			throws IOException {
+		return instrument(delegate.createSocket(socket, host, port, autoClose));
+	}
+
+	@Override
+	public Socket createSocket(final String host, final int port) throws IOException {
+		return instrument(delegate.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort)
+			throws IOException {
+		return instrument(delegate.createSocket(host, port, localHost, localPort));
+	}
+
+	@Override
+	public Socket createSocket(final InetAddress host, final int port) throws IOException {
+		return instrument(delegate.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress,
+			final int localPort) throws IOException {
+		return instrument(delegate.createSocket(address, port, localAddress, localPort));
+	}
+
+	private Socket instrument(final Socket socket) {
+		if (!(socket instanceof SSLSocket)) {
+			return socket;
+		}
+
+		final long start = System.currentTimeMillis();
+		((SSLSocket) socket).addHandshakeCompletedListener(new HandshakeCompletedListener() {
+			@Override
+			public void handshakeCompleted(final HandshakeCompletedEvent event) {
+				boolean resumed = event.getSession().getCreationTime() < start;
+				tlsMetrics.recordHandshake(System.currentTimeMillis() - start, resumed);
+			}
+		});
+		return socket;
+	}
+
+}
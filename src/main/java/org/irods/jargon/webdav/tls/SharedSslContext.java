@@ -0,0 +1,243 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.tls;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
+import org.irods.jargon.webdav.utils.JmxSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the single <code>SSLContext</code> used for connections to iRODS.
+ * Sharing one context means one client session cache, so connections after the
+ * first resume a cached session with an abbreviated handshake instead of a
+ * full one. Sockets from the context are instrumented to record handshakes in
+ * {@link TlsMetrics}.
+ * <p/>
+ * Jargon takes its socket factory from the JVM default context and has no
+ * setting for its own, so {@link #installAsDefault(String, int, int)} makes
+ * this context the default for the whole JVM. That reaches every TLS client in
+ * the JVM, not only iRODS connections: other webapps in the container and
+ * HTTPS clients get default trust and no client key managers from this
+ * context. The context is installed once per JVM, however many spring
+ * contexts start a {@link org.irods.jargon.webdav.config.StartupConfigurator},
+ * and the previous default is put back when the last one is released.
+ *
+ */
+public class SharedSslContext {
+
+	/**
+	 * Type the handshake metrics are registered under over JMX
+	 */
+	public static final String METRICS_MBEAN_TYPE = "TlsMetrics";
+
+	private static final Object installLock = new Object();
+	private static SharedSslContext installed;
+	private static SSLContext previousDefault;
+	private static int installedUsers = 0;
+
+	private final SSLContext sslContext;
+	private final TlsMetrics tlsMetrics;
+
+	private static final Logger log = LoggerFactory.getLogger(SharedSslContext.class);
+
+	/**
+	 * @param protocol
+	 *            <code>String</code> with the <code>SSLContext</code> protocol,
+	 *            e.g. TLS
+	 * @param sessionCacheSize
+	 *            <code>int</code> with the most client sessions to cache, zero
+	 *            for no limit
+	 * @param sessionTimeoutInSeconds
+	 *            <code>int</code> with how long a cached session may be resumed
+	 * @param tlsMetrics
+	 *            {@link TlsMetrics} to record handshakes in
+	 */
+	public SharedSslContext(final String protocol, final int sessionCacheSize, final int sessionTimeoutInSeconds,
+			final TlsMetrics tlsMetrics) {
+		if (protocol == null || protocol.isEmpty()) {
+			throw new IllegalArgumentException("null or empty protocol");
+		}
+
+		if (tlsMetrics == null) {
+			throw new IllegalArgumentException("null tlsMetrics");
+		}
+
+		this.tlsMetrics = tlsMetrics;
+
+		SSLContext baseContext;
+		try {
+			baseContext = SSLContext.getInstance(protocol);
+			baseContext.init(null, null, null);
+		} catch (GeneralSecurityException e) {
+			log.error("unable to create SSLContext for protocol:{}", protocol, e);
+			throw new ConfigurationRuntimeException("unable to create SSLContext", e);
+		}
+
+		SSLSessionContext clientSessionContext = baseContext.getClientSessionContext();
+		clientSessionContext.setSessionCacheSize(sessionCacheSize);
+		clientSessionContext.setSessionTimeout(sessionTimeoutInSeconds);
+		tlsMetrics.setSessionContext(clientSessionContext);
+
+		sslContext = new InstrumentedSSLContext(new InstrumentedSSLContextSpi(baseContext, tlsMetrics), baseContext);
+		log.info("shared SSLContext protocol:{} session cache size:{} session timeout:{}s", protocol,
+				sessionCacheSize, sessionTimeoutInSeconds);
+	}
+
+	/**
+	 * Get the shared context installed as the JVM default, so sockets Jargon
+	 * creates use it. The first call builds and installs it and publishes its
+	 * metrics over JMX, later calls get the same context whatever settings
+	 * they pass. Each call is matched by a call to {@link #releaseDefault()}
+	 *
+	 * @param protocol
+	 *            <code>String</code> with the <code>SSLContext</code> protocol,
+	 *            e.g. TLS
+	 * @param sessionCacheSize
+	 *            <code>int</code> with the most client sessions to cache, zero
+	 *            for no limit
+	 * @param sessionTimeoutInSeconds
+	 *            <code>int</code> with how long a cached session may be resumed
+	 * @return {@link SharedSslContext} that is the JVM default
+	 */
+	public static SharedSslContext installAsDefault(final String protocol, final int sessionCacheSize,
+			final int sessionTimeoutInSeconds) {
+		synchronized (installLock) {
+			if (installed == null) {
+				SharedSslContext shared = new SharedSslContext(protocol, sessionCacheSize, sessionTimeoutInSeconds,
+						new TlsMetrics());
+				try {
+					previousDefault = SSLContext.getDefault();
+				} catch (GeneralSecurityException e) {
+					log.warn("unable to get the current default SSLContext, it will not be restored", e);
+					previousDefault = null;
+				}
+				SSLContext.setDefault(shared.sslContext);
+				log.info("shared SSLContext installed as JVM default");
+				if (!(SSLSocketFactory.getDefault() instanceof InstrumentedSSLSocketFactory)) {
+					log.warn("the JVM default SSL socket factory is fixed by the ssl.SocketFactory.provider security"
+							+ " property, iRODS connections will not use the shared SSLContext");
+				}
+				JmxSupport.register(METRICS_MBEAN_TYPE, shared.tlsMetrics);
+				installed = shared;
+			} else {
+				log.info("shared SSLContext already installed as JVM default, using it");
+			}
+			installedUsers++;
+			return installed;
+		}
+	}
+
+	/**
+	 * Release a context got from {@link #installAsDefault(String, int, int)},
+	 * the last release puts back the previous JVM default and unregisters the
+	 * metrics
+	 */
+	public static void releaseDefault() {
+		synchronized (installLock) {
+			if (installedUsers == 0) {
+				return;
+			}
+			installedUsers--;
+			if (installedUsers > 0) {
+				return;
+			}
+			if (previousDefault != null) {
+				SSLContext.setDefault(previousDefault);
+				log.info("previous SSLContext restored as JVM default");
+			}
+			JmxSupport.unregister(METRICS_MBEAN_TYPE);
+			installed = null;
+			previousDefault = null;
+		}
+	}
+
+	/**
+	 * @return {@link SSLContext} that is shared
+	 */
+	public SSLContext getSslContext() {
+		return sslContext;
+	}
+
+	/**
+	 * @return {@link TlsMetrics} handshakes are recorded in
+	 */
+	public TlsMetrics getTlsMetrics() {
+		return tlsMetrics;
+	}
+
+	/**
+	 * <code>SSLContext</code> only has a protected constructor taking the spi
+	 */
+	private static class InstrumentedSSLContext extends SSLContext {
+		InstrumentedSSLContext(final SSLContextSpi spi, final SSLContext baseContext) {
+			super(spi, baseContext.getProvider(), baseContext.getProtocol());
+		}
+	}
+
+	/**
+	 * Delegates to an initialized context, instrumenting its socket factory
+	 */
+	private static class InstrumentedSSLContextSpi extends SSLContextSpi {
+
+		private final SSLContext baseContext;
+		private final SSLSocketFactory socketFactory;
+
+		InstrumentedSSLContextSpi(final SSLContext baseContext, final TlsMetrics tlsMetrics) {
+			this.baseContext = baseContext;
+			socketFactory = new InstrumentedSSLSocketFactory(baseContext.getSocketFactory(), tlsMetrics);
+		}
+
+		@Override
+		protected void engineInit(final KeyManager[] km, final TrustManager[] tm, final SecureRandom sr)
+				throws KeyManagementException {
+			throw new KeyManagementException("shared SSLContext is already initialized");
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return socketFactory;
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return baseContext.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return baseContext.createSSLEngine();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(final String host, final int port) {
+			return baseContext.createSSLEngine(host, port);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return baseContext.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return baseContext.getClientSessionContext();
+		}
+
+	}
+
+}
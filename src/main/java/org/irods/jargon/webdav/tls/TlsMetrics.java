@@ -0,0 +1,105 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.tls;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * Counts TLS handshakes and the time spent in them, split into full and
+ * resumed handshakes so the effect of the session cache can be seen
+ *
+ */
+public class TlsMetrics implements TlsMetricsMBean {
+
+	private final AtomicLong handshakeCount = new AtomicLong();
+	private final AtomicLong resumedHandshakeCount = new AtomicLong();
+	private final AtomicLong totalHandshakeMillis = new AtomicLong();
+	private final AtomicLong maxHandshakeMillis = new AtomicLong();
+	private volatile SSLSessionContext sessionContext;
+
+	/**
+	 * Record a completed handshake
+	 *
+	 * @param millis
+	 *            <code>long</code> with the time the handshake took
+	 * @param resumed
+	 *            <code>boolean</code> that is <code>true</code> if a cached
+	 *            session was resumed
+	 */
+	public void recordHandshake(final long millis, final boolean resumed) {
+		handshakeCount.incrementAndGet();
+		if (resumed) {
+			resumedHandshakeCount.incrementAndGet();
+		}
+		totalHandshakeMillis.addAndGet(millis);
+
+		long max = maxHandshakeMillis.get();
+		while (millis > max && !maxHandshakeMillis.compareAndSet(max, millis)) {
+			max = maxHandshakeMillis.get();
+		}
+	}
+
+	/**
+	 * @param sessionContext
+	 *            {@link SSLSessionContext} whose size is reported, may be
+	 *            <code>null</code>
+	 */
+	public void setSessionContext(final SSLSessionContext sessionContext) {
+		this.sessionContext = sessionContext;
+	}
+
+	@Override
+	public long getHandshakeCount() {
+		return handshakeCount.get();
+	}
+
+	@Override
+	public long getResumedHandshakeCount() {
+		return resumedHandshakeCount.get();
+	}
+
+	@Override
+	public long getFullHandshakeCount() {
+		return handshakeCount.get() - resumedHandshakeCount.get();
+	}
+
+	@Override
+	public long getTotalHandshakeMillis() {
+		return totalHandshakeMillis.get();
+	}
+
+	@Override
+	public long getAverageHandshakeMillis() {
+		long count = handshakeCount.get();
+		return count == 0 ? 0 : totalHandshakeMillis.get() / count;
+	}
+
+	@Override
+	public long getMaxHandshakeMillis() {
+		return maxHandshakeMillis.get();
+	}
+
+	@Override
+	public int getCachedSessionCount() {
+		SSLSessionContext context = sessionContext;
+		if (context == null) {
+			return 0;
+		}
+		Enumeration<byte[]> ids = context.getIds();
+		return Collections.list(ids).size();
+	}
+
+	@Override
+	public void reset() {
+		handshakeCount.set(0);
+		resumedHandshakeCount.set(0);
+		totalHandshakeMillis.set(0);
+		maxHandshakeMillis.set(0);
+	}
+
+}
@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.tls;
+
+/**
+ * JMX view of the TLS handshakes made to iRODS
+ *
+ */
+public interface TlsMetricsMBean {
+
+	/**
+	 * @return <code>long</code> with the number of completed handshakes
+	 */
+	long getHandshakeCount();
+
+	/**
+	 * @return <code>long</code> with the number of handshakes that resumed a
+	 *         cached session
+	 */
+	long getResumedHandshakeCount();
+
+	/**
+	 * @return <code>long</code> with the number of full handshakes
+	 */
+	long getFullHandshakeCount();
+
+	/**
+	 * @return <code>long</code> with the total time spent in handshakes
+	 */
+	long getTotalHandshakeMillis();
+
+	/**
+	 * @return <code>long</code> with the mean handshake time
+	 */
+	long getAverageHandshakeMillis();
+
+	/**
+	 * @return <code>long</code> with the longest handshake time
+	 */
+	long getMaxHandshakeMillis();
+
+	/**
+	 * @return <code>int</code> with the number of sessions held in the client
+	 *         session cache
+	 */
+	int getCachedSessionCount();
+
+	/**
+	 * Zero the counters
+	 */
+	void reset();
+
+}
@@ -0,0 +1,6 @@
+/**
+ * TLS support for connections to iRODS, shared session cache and handshake
+ * metrics
+ *
+ */
+package org.irods.jargon.webdav.tls;
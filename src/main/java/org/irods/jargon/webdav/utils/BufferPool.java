@@ -0,0 +1,201 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares byte buffers between transfers so the copy loops of downloads and
+ * uploads do not allocate. Buffers come in power of two size classes from
+ * {@link #MIN_CLASS_SIZE} to {@link #MAX_CLASS_SIZE}, a request is served from
+ * the smallest class that fits, so a buffer may be longer than asked for.
+ * Larger requests are allocated and never kept.
+ * <p/>
+ * Released buffers are kept until the pool holds the configured bytes, past
+ * that they are left to the garbage collector. A pool of zero bytes keeps
+ * nothing and allocates on every request.
+ *
+ */
+public class BufferPool {
+
+	/**
+	 * Smallest buffer handed out
+	 */
+	public static final int MIN_CLASS_SIZE = 4 * 1024;
+
+	/**
+	 * Largest buffer kept in the pool
+	 */
+	public static final int MAX_CLASS_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * Smallest buffer {@link #copyBufferSize(long)} chooses
+	 */
+	public static final int MIN_COPY_BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Largest buffer {@link #copyBufferSize(long)} chooses, also used when the
+	 * transfer length is not known
+	 */
+	public static final int MAX_COPY_BUFFER_SIZE = 1024 * 1024;
+
+	private static final int MIN_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+	private static final int CLASS_COUNT = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) - MIN_CLASS_SHIFT + 1;
+	private static final int MAX_KEPT_PER_CLASS = 1024;
+
+	private final long maxRetainedBytes;
+	private final ArrayBlockingQueue<byte[]>[] classes;
+	private final AtomicLong retainedBytes = new AtomicLong();
+	private final AtomicLong allocations = new AtomicLong();
+
+	/**
+	 * @param maxRetainedBytes
+	 *            <code>long</code> with the most bytes kept in released
+	 *            buffers, zero or less to keep none
+	 */
+	@SuppressWarnings("unchecked")
+	public BufferPool(final long maxRetainedBytes) {
+		this.maxRetainedBytes = Math.max(0, maxRetainedBytes);
+		classes = new ArrayBlockingQueue[CLASS_COUNT];
+		if (this.maxRetainedBytes > 0) {
+			for (int i = 0; i < CLASS_COUNT; i++) {
+				long fits = this.maxRetainedBytes / classSize(i);
+				if (fits > 0) {
+					classes[i] = new ArrayBlockingQueue<byte[]>((int) Math.min(MAX_KEPT_PER_CLASS, fits));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Buffer size for copying a transfer, the transfer length rounded up to a
+	 * size class between {@link #MIN_COPY_BUFFER_SIZE} and
+	 * {@link #MAX_COPY_BUFFER_SIZE}
+	 *
+	 * @param transferLength
+	 *            <code>long</code> with the bytes to copy, less than zero if
+	 *            not known
+	 * @return <code>int</code> with the buffer size
+	 */
+	public static int copyBufferSize(final long transferLength) {
+		if (transferLength < 0 || transferLength >= MAX_COPY_BUFFER_SIZE) {
+			return MAX_COPY_BUFFER_SIZE;
+		}
+		if (transferLength <= MIN_COPY_BUFFER_SIZE) {
+			return MIN_COPY_BUFFER_SIZE;
+		}
+		return classSize(classIndex((int) transferLength));
+	}
+
+	/**
+	 * Get a buffer of at least the given size, to be given back with
+	 * {@link #release(byte[])}
+	 *
+	 * @param minimumSize
+	 *            <code>int</code> with the fewest bytes needed
+	 * @return <code>byte[]</code> that may be longer than asked for
+	 */
+	public byte[] acquire(final int minimumSize) {
+		if (minimumSize > MAX_CLASS_SIZE) {
+			allocations.incrementAndGet();
+			return new byte[minimumSize];
+		}
+
+		int index = classIndex(minimumSize);
+		ArrayBlockingQueue<byte[]> kept = classes[index];
+		if (kept != null) {
+			byte[] buffer = kept.poll();
+			if (buffer != null) {
+				retainedBytes.addAndGet(-buffer.length);
+				return buffer;
+			}
+		}
+
+		allocations.incrementAndGet();
+		return new byte[classSize(index)];
+	}
+
+	/**
+	 * Give back a buffer from {@link #acquire(int)}, it must not be used
+	 * afterwards
+	 *
+	 * @param buffer
+	 *            <code>byte[]</code> to keep, <code>null</code> is ignored
+	 */
+	public void release(final byte[] buffer) {
+		if (buffer == null || buffer.length < MIN_CLASS_SIZE || buffer.length > MAX_CLASS_SIZE
+				|| Integer.bitCount(buffer.length) != 1) {
+			return;
+		}
+
+		ArrayBlockingQueue<byte[]> kept = classes[classIndex(buffer.length)];
+		if (kept == null) {
+			return;
+		}
+
+		if (retainedBytes.addAndGet(buffer.length) > maxRetainedBytes || !kept.offer(buffer)) {
+			retainedBytes.addAndGet(-buffer.length);
+		}
+	}
+
+	/**
+	 * Copy a stream through a pooled buffer sized for the transfer, neither
+	 * stream is closed
+	 *
+	 * @param in
+	 *            <code>InputStream</code> to read to its end
+	 * @param out
+	 *            <code>OutputStream</code> to write to
+	 * @param transferLength
+	 *            <code>long</code> with the expected bytes, less than zero if
+	 *            not known, used to size the buffer
+	 * @return <code>long</code> with the bytes copied
+	 * @throws IOException
+	 */
+	public long copy(final InputStream in, final OutputStream out, final long transferLength) throws IOException {
+		byte[] buffer = acquire(copyBufferSize(transferLength));
+		try {
+			long copied = 0;
+			int read;
+			while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+				out.write(buffer, 0, read);
+				copied += read;
+			}
+			return copied;
+		} finally {
+			release(buffer);
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes held in released buffers
+	 */
+	public long getRetainedBytes() {
+		return retainedBytes.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the buffers allocated because none was
+	 *         free
+	 */
+	public long getAllocations() {
+		return allocations.get();
+	}
+
+	private static int classIndex(final int size) {
+		if (size <= MIN_CLASS_SIZE) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CLASS_SHIFT;
+	}
+
+	private static int classSize(final int index) {
+		return 1 << (index + MIN_CLASS_SHIFT);
+	}
+
+}
@@ -0,0 +1,286 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide, thread safe cache with a time to live for each entry and an
+ * upper bound on the number of entries. Expired entries are dropped when they
+ * are read, and the cache is trimmed (expired entries first, then those closest
+ * to expiry) when a put would exceed the maximum size.
+ * <p/>
+ * A time to live or maximum size of zero or less produces a disabled cache
+ * that never holds a value, so callers do not need to special-case the
+ * 'caching off' configuration.
+ *
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ */
+public class ExpiringCache<K, V> {
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<K, Entry<V>>();
+	private final long timeToLiveMillis;
+	private final int maxEntries;
+
+	/**
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the default time to live for an entry
+	 *            in milliseconds, zero or less disables the cache
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of entries, zero or
+	 *            less disables the cache
+	 */
+	public ExpiringCache(final long timeToLiveMillis, final int maxEntries) {
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if this cache will
+	 *         hold values
+	 */
+	public boolean isEnabled() {
+		return timeToLiveMillis > 0 && maxEntries > 0;
+	}
+
+	/**
+	 * Get a value from the cache
+	 *
+	 * @param key
+	 * @return value or <code>null</code> if not present or expired
+	 */
+	public V get(final K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+
+		if (entry.isExpired(System.currentTimeMillis())) {
+			entries.remove(key, entry);
+			return null;
+		}
+
+		return entry.value;
+	}
+
+	/**
+	 * Get how much longer the value for a key will be held
+	 *
+	 * @param key
+	 * @return <code>long</code> with the milliseconds left, zero if not present
+	 *         or expired
+	 */
+	public long getTimeToLive(final K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			return 0;
+		}
+		return Math.max(0, entry.expiresAt - System.currentTimeMillis());
+	}
+
+	/**
+	 * Put a value in the cache with the default time to live
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(final K key, final V value) {
+		put(key, value, timeToLiveMillis);
+	}
+
+	/**
+	 * Put a value in the cache with a specific time to live, which is capped at
+	 * the default time to live of the cache
+	 *
+	 * @param key
+	 * @param value
+	 * @param entryTimeToLiveMillis
+	 *            <code>long</code> with the time to live of this entry
+	 */
+	public void put(final K key, final V value, final long entryTimeToLiveMillis) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		if (value == null) {
+			throw new IllegalArgumentException("null value");
+		}
+
+		if (!isEnabled() || entryTimeToLiveMillis <= 0) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		entries.put(key, new Entry<V>(value, now + Math.min(entryTimeToLiveMillis, timeToLiveMillis)));
+		if (entries.size() > maxEntries) {
+			trim(now);
+		}
+	}
+
+	/**
+	 * Put a value in the cache unless a live value is already present for the
+	 * key
+	 *
+	 * @param key
+	 * @param value
+	 * @return the value now held in the cache for the key, which is the given
+	 *         value if none was present. If the cache is disabled the given
+	 *         value is returned without being cached
+	 */
+	public V putIfAbsent(final K key, final V value) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		if (value == null) {
+			throw new IllegalArgumentException("null value");
+		}
+
+		if (!isEnabled()) {
+			return value;
+		}
+
+		long now = System.currentTimeMillis();
+		Entry<V> newEntry = new Entry<V>(value, now + timeToLiveMillis);
+		while (true) {
+			Entry<V> existing = entries.putIfAbsent(key, newEntry);
+			if (existing == null) {
+				if (entries.size() > maxEntries) {
+					trim(now);
+				}
+				return value;
+			}
+			if (!existing.isExpired(now)) {
+				return existing.value;
+			}
+			if (entries.replace(key, existing, newEntry)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Remove a value from the cache
+	 *
+	 * @param key
+	 */
+	public void remove(final K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+		entries.remove(key);
+	}
+
+	/**
+	 * Remove every entry whose key is accepted by the given filter
+	 *
+	 * @param filter
+	 *            {@link KeyFilter} that selects keys to remove
+	 */
+	public void removeMatching(final KeyFilter<K> filter) {
+		if (filter == null) {
+			throw new IllegalArgumentException("null filter");
+		}
+
+		Iterator<K> keys = entries.keySet().iterator();
+		while (keys.hasNext()) {
+			if (filter.accept(keys.next())) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Clear all entries
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of entries, including any
+	 *         expired entries not yet purged
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Drop expired entries, and if still over the maximum size evict the
+	 * entries closest to expiry until the cache is back to 90% of capacity, so
+	 * that a full cache does not trim on every put
+	 */
+	private synchronized void trim(final long now) {
+		if (entries.size() <= maxEntries) {
+			return;
+		}
+
+		List<Map.Entry<K, Entry<V>>> live = new ArrayList<Map.Entry<K, Entry<V>>>(entries.size());
+		for (Map.Entry<K, Entry<V>> mapEntry : entries.entrySet()) {
+			if (mapEntry.getValue().isExpired(now)) {
+				entries.remove(mapEntry.getKey(), mapEntry.getValue());
+			} else {
+				live.add(mapEntry);
+			}
+		}
+
+		int target = Math.max(1, maxEntries - (maxEntries / 10));
+		if (live.size() <= target) {
+			return;
+		}
+
+		Collections.sort(live, new Comparator<Map.Entry<K, Entry<V>>>() {
+			@Override
+			public int compare(final Map.Entry<K, Entry<V>> o1, final Map.Entry<K, Entry<V>> o2) {
+				return Long.compare(o1.getValue().expiresAt, o2.getValue().expiresAt);
+			}
+		});
+
+		int toEvict = live.size() - target;
+		for (int i = 0; i < toEvict; i++) {
+			entries.remove(live.get(i).getKey(), live.get(i).getValue());
+		}
+	}
+
+	/**
+	 * Selects keys for bulk removal
+	 *
+	 * @param <K>
+	 */
+	public interface KeyFilter<K> {
+		boolean accept(K key);
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+		private final long expiresAt;
+
+		Entry(final V value, final long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(final long now) {
+			return now >= expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches names against a comma separated list of glob patterns, where
+ * <code>*</code> matches any run of characters and <code>?</code> any single
+ * character. Matching is case insensitive, as the clients probing for these
+ * names do not agree on case.
+ *
+ */
+public class GlobMatcher {
+
+	private final Pattern pattern;
+
+	/**
+	 * @param globs
+	 *            <code>String</code> with comma separated glob patterns, blank
+	 *            or <code>null</code> for a matcher that matches nothing
+	 */
+	public GlobMatcher(final String globs) {
+		StringBuilder regex = new StringBuilder();
+		if (globs != null) {
+			for (String glob : globs.split(",")) {
+				String trimmed = glob.trim();
+				if (trimmed.isEmpty()) {
+					continue;
+				}
+				if (regex.length() > 0) {
+					regex.append('|');
+				}
+				regex.append(globToRegex(trimmed));
+			}
+		}
+		pattern = regex.length() == 0 ? null
+				: Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if any patterns
+	 *         were given
+	 */
+	public boolean isEmpty() {
+		return pattern == null;
+	}
+
+	/**
+	 * @param name
+	 *            <code>String</code> to match, e.g. the last path component
+	 * @return <code>boolean</code> that is <code>true</code> if a pattern
+	 *         matches the whole name
+	 */
+	public boolean matches(final String name) {
+		if (pattern == null || name == null) {
+			return false;
+		}
+		return pattern.matcher(name).matches();
+	}
+
+	private static String globToRegex(final String glob) {
+		StringBuilder regex = new StringBuilder("(?:");
+		StringBuilder literal = new StringBuilder();
+		for (char c : glob.toCharArray()) {
+			if (c == '*' || c == '?') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(c == '*' ? ".*" : ".");
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		return regex.append(')').toString();
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of callers doing blocking iRODS work at once. Callers past
+ * the bound wait for a slot, which with virtual threads costs memory rather
+ * than a platform thread, while the load on iRODS (and the number of
+ * connections in use) stays capped.
+ * <p/>
+ * A limit of zero or less produces an open gate that never blocks.
+ *
+ */
+public class IrodsAccessGate {
+
+	private final Semaphore permits;
+	private final int limit;
+
+	/**
+	 * @param limit
+	 *            <code>int</code> with the maximum number of concurrent
+	 *            callers, zero or less for no limit
+	 */
+	public IrodsAccessGate(final int limit) {
+		this.limit = limit;
+		permits = limit > 0 ? new Semaphore(limit, true) : null;
+	}
+
+	/**
+	 * Wait for a slot
+	 *
+	 * @param timeoutMillis
+	 *            <code>long</code> with the longest time to wait
+	 * @return <code>boolean</code> that is <code>true</code> if a slot was
+	 *         obtained, in which case {@link #release()} must be called
+	 * @throws InterruptedException
+	 */
+	public boolean acquire(final long timeoutMillis) throws InterruptedException {
+		if (permits == null) {
+			return true;
+		}
+		return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Give back a slot obtained with {@link #acquire(long)}
+	 */
+	public void release() {
+		if (permits != null) {
+			permits.release();
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the configured limit, zero or less if
+	 *         unbounded
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of callers currently holding a
+	 *         slot
+	 */
+	public int getActive() {
+		return permits == null ? 0 : limit - permits.availablePermits();
+	}
+
+	/**
+	 * @return <code>int</code> with an estimate of the number of callers
+	 *         waiting for a slot
+	 */
+	public int getWaiting() {
+		return permits == null ? 0 : permits.getQueueLength();
+	}
+
+}
@@ -0,0 +1,77 @@
+/**
+ *
+ */
+package org.irods.jargon.webdav.utils;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers metrics beans with the platform MBean server. Failures are logged
+ * and otherwise ignored, metrics are never worth failing startup for.
+ *
+ */
+public class JmxSupport {
+
+	/**
+	 * Domain the webdav MBeans are registered under
+	 */
+	public static final String DOMAIN = "org.irods.jargon.webdav";
+
+	private static final Logger log = LoggerFactory.getLogger(JmxSupport.class);
+
+	private JmxSupport() {
+	}
+
+	/**
+	 * Register an MBean, replacing any registered under the same name (as
+	 * happens on redeploy)
+	 *
+	 * @param type
+	 *            <code>String</code> with the type part of the object name
+	 * @param mbean
+	 *            <code>Object</code> that is a standard MBean
+	 */
+	public static void register(final String type, final Object mbean) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = buildName(type);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(mbean, name);
+			log.info("registered MBean:{}", name);
+		} catch (JMException e) {
+			log.warn("unable to register MBean of type:{}", type, e);
+		}
+	}
+
+	/**
+	 * Unregister an MBean registered with {@link #register(String, Object)}
+	 *
+	 * @param type
+	 *            <code>String</code> with the type part of the object name
+	 */
+	public static void unregister(final String type) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = buildName(type);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			log.warn("unable to unregister MBean of type:{}", type, e);
+		}
+	}
+
+	private static ObjectName buildName(final String type) throws JMException {
+		return new ObjectName(DOMAIN + ":type=" + type);
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.irods.jargon.webdav.authfilter;
+
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AuthFailureThrottleTest {
+
+	private static AuthFailureThrottle throttle(final int ttlSeconds, final int windowSeconds, final int perUser,
+			final int perAddress) {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setAuthFailureCacheTimeToLiveInSeconds(ttlSeconds);
+		webDavConfig.setAuthFailureCacheMaxEntries(100);
+		webDavConfig.setAuthFailureWindowInSeconds(windowSeconds);
+		webDavConfig.setMaxAuthFailuresPerUser(perUser);
+		webDavConfig.setMaxAuthFailuresPerAddress(perAddress);
+		AuthFailureThrottle throttle = new AuthFailureThrottle();
+		throttle.setWebDavConfig(webDavConfig);
+		throttle.init();
+		return throttle;
+	}
+
+	@Test
+	public void testKnownBadCredentialExpires() throws Exception {
+		AuthFailureThrottle throttle = throttle(1, 60, 0, 0);
+		throttle.recordFailure("test1:hash", "test1", "10.0.0.1");
+		Assert.assertTrue("failed credentials should be known", throttle.isKnownBadCredential("test1:hash"));
+		Assert.assertFalse("other credentials should not be", throttle.isKnownBadCredential("test1:other"));
+		Thread.sleep(1100);
+		Assert.assertFalse("failed credentials should expire", throttle.isKnownBadCredential("test1:hash"));
+	}
+
+	@Test
+	public void testNegativeCacheOff() throws Exception {
+		AuthFailureThrottle throttle = throttle(0, 60, 0, 0);
+		throttle.recordFailure("test1:hash", "test1", "10.0.0.1");
+		Assert.assertFalse(throttle.isKnownBadCredential("test1:hash"));
+	}
+
+	@Test
+	public void testUserLimitKeptPerAddress() throws Exception {
+		AuthFailureThrottle throttle = throttle(60, 60, 3, 0);
+		for (int i = 0; i < 2; i++) {
+			throttle.recordFailure("test1:" + i, "test1", "10.0.0.1");
+		}
+		Assert.assertFalse("under the limit", throttle.isUserThrottled("test1", "10.0.0.1"));
+		throttle.recordFailure("test1:2", "test1", "10.0.0.1");
+		Assert.assertTrue("at the limit", throttle.isUserThrottled("test1", "10.0.0.1"));
+		Assert.assertFalse("failures from another address should not lock the user out",
+				throttle.isUserThrottled("test1", "10.0.0.2"));
+		Assert.assertFalse("other users not throttled", throttle.isUserThrottled("test2", "10.0.0.1"));
+		Assert.assertFalse("no address limit set", throttle.isAddressThrottled("10.0.0.1"));
+	}
+
+	@Test
+	public void testAddressLimit() throws Exception {
+		AuthFailureThrottle throttle = throttle(60, 60, 0, 3);
+		throttle.recordFailure("test1:hash", "test1", "10.0.0.1");
+		throttle.recordFailure("test2:hash", "test2", "10.0.0.1");
+		Assert.assertFalse("under the limit", throttle.isAddressThrottled("10.0.0.1"));
+		throttle.recordFailure("test3:hash", "test3", "10.0.0.1");
+		Assert.assertTrue("at the limit", throttle.isAddressThrottled("10.0.0.1"));
+		Assert.assertFalse("other addresses not throttled", throttle.isAddressThrottled("10.0.0.2"));
+		Assert.assertFalse("no user limit set", throttle.isUserThrottled("test1", "10.0.0.1"));
+	}
+
+	@Test
+	public void testCountsEndWithWindow() throws Exception {
+		AuthFailureThrottle throttle = throttle(60, 1, 1, 1);
+		throttle.recordFailure("test1:hash", "test1", "10.0.0.1");
+		Assert.assertTrue(throttle.isUserThrottled("test1", "10.0.0.1"));
+		Assert.assertTrue(throttle.isAddressThrottled("10.0.0.1"));
+		Assert.assertEquals("should retry after the window", 1, throttle.getRetryAfterSeconds());
+		Thread.sleep(1100);
+		Assert.assertFalse("user count should end with the window", throttle.isUserThrottled("test1", "10.0.0.1"));
+		Assert.assertFalse("address count should end with the window", throttle.isAddressThrottled("10.0.0.1"));
+	}
+
+	@Test
+	public void testSuccessResetsUserCount() throws Exception {
+		AuthFailureThrottle throttle = throttle(60, 60, 2, 10);
+		throttle.recordFailure("test1:a", "test1", "10.0.0.1");
+		throttle.recordFailure("test1:b", "test1", "10.0.0.1");
+		throttle.recordFailure("test1:c", "test1", "10.0.0.2");
+		Assert.assertTrue(throttle.isUserThrottled("test1", "10.0.0.1"));
+		throttle.recordSuccess("test1", "10.0.0.1");
+		Assert.assertFalse("success should reset the count", throttle.isUserThrottled("test1", "10.0.0.1"));
+		throttle.recordFailure("test1:d", "test1", "10.0.0.1");
+		Assert.assertFalse("count should start again", throttle.isUserThrottled("test1", "10.0.0.1"));
+		throttle.recordFailure("test1:e", "test1", "10.0.0.2");
+		Assert.assertTrue("success from one address leaves another's count",
+				throttle.isUserThrottled("test1", "10.0.0.2"));
+	}
+
+}
@@ -0,0 +1,178 @@
+package org.irods.jargon.webdav.authfilter;
+
+import org.irods.jargon.core.connection.AuthScheme;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class IrodsAuthServiceTest {
+
+	@After
+	public void tearDown() {
+		IrodsRequestContext.clear();
+	}
+
+	private static WebDavConfig proxyConfig() {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setHost("irods.example.org");
+		webDavConfig.setPort(1247);
+		webDavConfig.setZone("zone1");
+		webDavConfig.setDefaultStorageResource("demoResc");
+		webDavConfig.setUseProxyUser(true);
+		webDavConfig.setProxyUser("proxyadmin");
+		webDavConfig.setProxyPassword("proxysecret");
+		return webDavConfig;
+	}
+
+	private static IrodsAuthService authService(final WebDavConfig webDavConfig,
+			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		IrodsAuthService authService = new IrodsAuthService();
+		authService.setWebDavConfig(webDavConfig);
+		authService.setIrodsAccessObjectFactory(irodsAccessObjectFactory);
+		return authService;
+	}
+
+	private static WebDavConfig pamConfig() {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setHost("irods.example.org");
+		webDavConfig.setPort(1247);
+		webDavConfig.setZone("zone1");
+		webDavConfig.setAuthScheme(AuthScheme.PAM.toString());
+		webDavConfig.setPamPasswordLifetimeInSeconds(2);
+		webDavConfig.setPamPasswordRenewalMarginInSeconds(1);
+		return webDavConfig;
+	}
+
+	/**
+	 * @return {@link IRODSAccessObjectFactory} answering a PAM login of test1
+	 *         with a temporary password
+	 */
+	private static IRODSAccessObjectFactory pamLogin(final IrodsAuthService authService) throws Exception {
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		IRODSAccount pamAccount = authService.getIrodsAccountFromAuthValues("test1", "secret");
+		IRODSAccount temporaryAccount = IRODSAccount.instance("irods.example.org", 1247, "test1", "temporary", "",
+				"zone1", "", AuthScheme.STANDARD);
+		AuthResponse pamResponse = new AuthResponse();
+		pamResponse.setAuthenticatingIRODSAccount(pamAccount);
+		pamResponse.setAuthenticatedIRODSAccount(temporaryAccount);
+		pamResponse.setSuccessful(true);
+		Mockito.when(irodsAccessObjectFactory.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(pamAccount))
+				.thenReturn(pamResponse);
+		authService.setIrodsAccessObjectFactory(irodsAccessObjectFactory);
+		return irodsAccessObjectFactory;
+	}
+
+	@Test
+	public void testCachedPamLoginRebuiltFromHeldPassword() throws Exception {
+		IrodsAuthService authService = authService(pamConfig(), null);
+		IRODSAccessObjectFactory irodsAccessObjectFactory = pamLogin(authService);
+
+		AuthResponse first = authService.authenticate("test1", "secret");
+		Assert.assertEquals("should use the temporary password", "temporary",
+				first.getAuthenticatingIRODSAccount().getPassword());
+		Assert.assertEquals(AuthScheme.STANDARD, first.getAuthenticatingIRODSAccount().getAuthenticationScheme());
+
+		AuthResponse second = authService.authenticate("test1", "secret");
+		Assert.assertNotSame("cached login should be rebuilt, not held", first, second);
+		Assert.assertEquals("temporary", second.getAuthenticatingIRODSAccount().getPassword());
+		Assert.assertEquals("test1", second.getAuthenticatingIRODSAccount().getUserName());
+		Assert.assertEquals("rebuilt login should be found by getCached", "temporary",
+				authService.getCached("test1", "secret").getAuthenticatingIRODSAccount().getPassword());
+		Mockito.verify(irodsAccessObjectFactory, Mockito.times(1))
+				.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(Mockito.any(IRODSAccount.class));
+	}
+
+	@Test
+	public void testSessionHeldNoLongerThanPamPassword() throws Exception {
+		IrodsAuthService authService = authService(pamConfig(), null);
+		pamLogin(authService);
+		AuthResponse response = authService.authenticate("test1", "secret");
+		SessionToken sessionToken = new SessionToken("token1", "test1", System.currentTimeMillis() + 3600000L, "k1",
+				"token1-value");
+		authService.registerSessionToken(sessionToken, authService.buildCredentialKey("test1", "secret"), response);
+
+		AuthResponse restored = authService.authenticateWithSessionToken(sessionToken);
+		Assert.assertNotNull("session should be usable", restored);
+		Assert.assertEquals("temporary", restored.getAuthenticatingIRODSAccount().getPassword());
+
+		Thread.sleep(1100);
+		Assert.assertNull("session should end with the PAM password",
+				authService.authenticateWithSessionToken(sessionToken));
+	}
+
+	@Test
+	public void testProxyAccountConnectsAsProxyForClientUser() throws Exception {
+		IrodsAuthService authService = authService(proxyConfig(), null);
+		AuthResponse response = authService.buildProxyAuthResponse("test1");
+		Assert.assertTrue(response.isSuccessful());
+
+		IRODSAccount account = response.getAuthenticatingIRODSAccount();
+		Assert.assertSame("operations should use the proxy account", account, response.getAuthenticatedIRODSAccount());
+		Assert.assertEquals("client user should be set", "test1", account.getUserName());
+		Assert.assertEquals("client zone should be the configured zone", "zone1", account.getZone());
+		Assert.assertEquals("should connect as the proxy user", "proxyadmin", account.getProxyName());
+		Assert.assertEquals("proxy zone should default to the configured zone", "zone1", account.getProxyZone());
+		Assert.assertEquals("should carry the proxy password", "proxysecret", account.getPassword());
+		Assert.assertEquals("irods.example.org", account.getHost());
+		Assert.assertEquals(1247, account.getPort());
+		Assert.assertEquals("demoResc", account.getDefaultStorageResource());
+	}
+
+	@Test
+	public void testProxyZoneUsedWhenConfigured() throws Exception {
+		WebDavConfig webDavConfig = proxyConfig();
+		webDavConfig.setProxyZone("adminZone");
+		IRODSAccount account = authService(webDavConfig, null).buildProxyAuthResponse("test1")
+				.getAuthenticatingIRODSAccount();
+		Assert.assertEquals("adminZone", account.getProxyZone());
+		Assert.assertEquals("client zone should not change", "zone1", account.getZone());
+	}
+
+	/**
+	 * The client user is fixed when an iRODS connection starts, so pooled
+	 * connections are keyed per client user even in proxy mode, and a user's
+	 * later requests must land on the same key
+	 */
+	@Test
+	public void testProxyAccountsKeyedPerClientUser() throws Exception {
+		IrodsAuthService authService = authService(proxyConfig(), null);
+		IRODSAccount first = authService.buildProxyAuthResponse("test1").getAuthenticatingIRODSAccount();
+		IRODSAccount again = authService.buildProxyAuthResponse("test1").getAuthenticatingIRODSAccount();
+		IRODSAccount other = authService.buildProxyAuthResponse("test2").getAuthenticatingIRODSAccount();
+		Assert.assertEquals("same user should reuse pooled connections", first, again);
+		Assert.assertEquals(first.hashCode(), again.hashCode());
+		Assert.assertFalse("users should not share a connection", first.equals(other));
+	}
+
+	@Test
+	public void testAuthenticateHandsBackProxyAccount() throws Exception {
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		IrodsAuthService authService = authService(proxyConfig(), irodsAccessObjectFactory);
+		IRODSAccount userAccount = authService.getIrodsAccountFromAuthValues("test1", "secret");
+		AuthResponse userResponse = new AuthResponse();
+		userResponse.setAuthenticatingIRODSAccount(userAccount);
+		userResponse.setAuthenticatedIRODSAccount(userAccount);
+		userResponse.setSuccessful(true);
+		Mockito.when(irodsAccessObjectFactory.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(userAccount))
+				.thenReturn(userResponse);
+
+		AuthResponse response = authService.authenticate("test1", "secret");
+		IRODSAccount account = IrodsAuthService.retrieveIrodsAccountFromAuthResponse(response);
+		Assert.assertEquals("proxyadmin", account.getProxyName());
+		Assert.assertEquals("test1", account.getUserName());
+		Assert.assertEquals("request context should use the proxy account", account,
+				IrodsAuthService.retrieveCurrentIrodsAccount());
+		Mockito.verify(irodsAccessObjectFactory).closeSessionAndEatExceptions(userAccount);
+
+		Assert.assertSame("second login should come from the cache", response,
+				authService.authenticate("test1", "secret"));
+		Mockito.verify(irodsAccessObjectFactory, Mockito.times(1))
+				.authenticateIRODSAccountUtilizingCachedConnectionIfPresent(userAccount);
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.irods.jargon.webdav.authfilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PamPasswordCacheTest {
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		PamPasswordCache cache = new PamPasswordCache(60000, 10);
+		cache.put("test1:hash", "test1", "secret", "temporary");
+		Assert.assertEquals("did not get held password", "temporary", cache.get("test1:hash", "test1", "secret"));
+	}
+
+	@Test
+	public void testWrongPasswordCannotDecrypt() throws Exception {
+		PamPasswordCache cache = new PamPasswordCache(60000, 10);
+		cache.put("test1:hash", "test1", "secret", "temporary");
+		Assert.assertNull("should not decrypt with other password", cache.get("test1:hash", "test1", "guess"));
+		Assert.assertNull("entry should be dropped", cache.get("test1:hash", "test1", "secret"));
+	}
+
+	@Test
+	public void testOtherCredentialKeyMisses() throws Exception {
+		PamPasswordCache cache = new PamPasswordCache(60000, 10);
+		cache.put("test1:hash", "test1", "secret", "temporary");
+		Assert.assertNull("should not find password", cache.get("test1:other", "test1", "secret"));
+	}
+
+	@Test
+	public void testExpires() throws Exception {
+		PamPasswordCache cache = new PamPasswordCache(50, 10);
+		cache.put("test1:hash", "test1", "secret", "temporary");
+		Thread.sleep(100);
+		Assert.assertNull("password should have expired", cache.get("test1:hash", "test1", "secret"));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		PamPasswordCache cache = new PamPasswordCache(0, 10);
+		Assert.assertFalse("should be disabled", cache.isEnabled());
+		cache.put("test1:hash", "test1", "secret", "temporary");
+		Assert.assertNull("should not hold password", cache.get("test1:hash", "test1", "secret"));
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.irods.jargon.webdav.authfilter;
+
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SessionTokenServiceTest {
+
+	private SessionTokenService buildService(final String keys, final String revocations) {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setUseSessionTokens(true);
+		webDavConfig.setSessionTokenKeys(keys);
+		webDavConfig.setSessionTokenRevocations(revocations);
+		SessionTokenService service = new SessionTokenService();
+		service.setWebDavConfig(webDavConfig);
+		service.init();
+		return service;
+	}
+
+	@Test
+	public void testIssueAndVerify() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken issued = service.issueToken("user:hash", "test1");
+		SessionToken verified = service.verifyToken(issued.getValue());
+		Assert.assertNotNull("did not verify token", verified);
+		Assert.assertEquals("wrong user", "test1", verified.getUserName());
+		Assert.assertEquals("wrong token id", issued.getTokenId(), verified.getTokenId());
+		Assert.assertEquals("wrong key id", "k1", verified.getKeyId());
+	}
+
+	@Test
+	public void testIssueReusesTokenForSameCredentials() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken first = service.issueToken("user:hash", "test1");
+		SessionToken second = service.issueToken("user:hash", "test1");
+		Assert.assertEquals("should reuse token", first.getTokenId(), second.getTokenId());
+	}
+
+	@Test
+	public void testGeneratedKeyWhenNoneConfigured() throws Exception {
+		SessionTokenService service = buildService("", "");
+		SessionToken issued = service.issueToken("user:hash", "test1");
+		Assert.assertNotNull("did not verify token", service.verifyToken(issued.getValue()));
+	}
+
+	@Test
+	public void testTamperedPayloadRejected() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken issued = service.issueToken("user:hash", "test1");
+		SessionToken other = service.issueToken("other:hash", "test2");
+		String forged = other.getValue().substring(0, other.getValue().indexOf('.'))
+				+ issued.getValue().substring(issued.getValue().indexOf('.'));
+		Assert.assertNull("should reject forged token", service.verifyToken(forged));
+	}
+
+	@Test
+	public void testMalformedRejected() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		Assert.assertNull("should reject malformed token", service.verifyToken("not-a-token"));
+		Assert.assertNull("should reject malformed token", service.verifyToken("abc.def"));
+	}
+
+	@Test
+	public void testExpiredRejected() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken issued = service.issueToken("test1", System.currentTimeMillis() - 1000);
+		Assert.assertNull("should reject expired token", service.verifyToken(issued.getValue()));
+	}
+
+	@Test
+	public void testKeyRotation() throws Exception {
+		SessionTokenService oldService = buildService("k1:secret-one", "");
+		SessionToken issued = oldService.issueToken("user:hash", "test1");
+
+		SessionTokenService rotated = buildService("k2:secret-two,k1:secret-one", "");
+		Assert.assertNotNull("old key should still verify", rotated.verifyToken(issued.getValue()));
+		Assert.assertEquals("new tokens should use first key", "k2",
+				rotated.issueToken("user:hash", "test1").getKeyId());
+
+		SessionTokenService retired = buildService("k2:secret-two", "");
+		Assert.assertNull("retired key should not verify", retired.verifyToken(issued.getValue()));
+	}
+
+	@Test
+	public void testWrongSecretRejected() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken issued = service.issueToken("user:hash", "test1");
+		SessionTokenService other = buildService("k1:another-secret", "");
+		Assert.assertNull("should reject token signed with other secret", other.verifyToken(issued.getValue()));
+	}
+
+	@Test
+	public void testRevokedByUser() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "test1");
+		SessionToken issued = service.issueToken("test1", System.currentTimeMillis() + 60000);
+		Assert.assertNull("should reject revoked user", service.verifyToken(issued.getValue()));
+	}
+
+	@Test
+	public void testRevokedById() throws Exception {
+		SessionTokenService service = buildService("k1:secret-one", "");
+		SessionToken issued = service.issueToken("user:hash", "test1");
+		service.revoke(issued.getTokenId());
+		Assert.assertNull("should reject revoked token", service.verifyToken(issued.getValue()));
+		Assert.assertFalse("should issue a new token after revocation",
+				issued.getTokenId().equals(service.issueToken("user:hash", "test1").getTokenId()));
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.irods.jargon.webdav.config;
+
+import org.irods.jargon.core.connection.IRODSProtocolManager;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
+import org.irods.jargon.core.connection.JargonProperties;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.pool.conncache.CachedIrodsProtocolManager;
+import org.irods.jargon.webdav.exception.ConfigurationRuntimeException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class StartupConfiguratorTest {
+
+	private static IRODSSession mockSession(final IRODSProtocolManager protocolManager) {
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		Mockito.when(irodsSession.getJargonProperties()).thenReturn(new SettableJargonProperties());
+		Mockito.when(irodsSession.getIrodsProtocolManager()).thenReturn(protocolManager);
+		return irodsSession;
+	}
+
+	private static StartupConfigurator configurator(final IRODSSession irodsSession,
+			final boolean useConnectionPool) {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setUseConnectionPool(useConnectionPool);
+		StartupConfigurator configurator = new StartupConfigurator();
+		configurator.setWebDavConfig(webDavConfig);
+		configurator.setIrodsSession(irodsSession);
+		return configurator;
+	}
+
+	@Test
+	public void testPooledProtocolManagerInstalledWhenPoolingEnabled() throws Exception {
+		IRODSSession irodsSession = mockSession(IRODSSimpleProtocolManager.instance());
+		StartupConfigurator configurator = configurator(irodsSession, true);
+		configurator.init();
+		try {
+			ArgumentCaptor<IRODSProtocolManager> installed = ArgumentCaptor.forClass(IRODSProtocolManager.class);
+			Mockito.verify(irodsSession).setIrodsProtocolManager(installed.capture());
+			Assert.assertTrue("should install the pooled protocol manager",
+					installed.getValue() instanceof CachedIrodsProtocolManager);
+			Mockito.verify(irodsSession).setJargonProperties(Mockito.any(JargonProperties.class));
+			Assert.assertTrue("should be ready without warm-up", configurator.isReady());
+		} finally {
+			configurator.destroy();
+		}
+	}
+
+	@Test
+	public void testProtocolManagerLeftAloneWhenPoolingDisabled() throws Exception {
+		IRODSSession irodsSession = mockSession(IRODSSimpleProtocolManager.instance());
+		StartupConfigurator configurator = configurator(irodsSession, false);
+		configurator.init();
+		Mockito.verify(irodsSession, Mockito.never()).setIrodsProtocolManager(
+				Mockito.any(IRODSProtocolManager.class));
+		Mockito.verify(irodsSession).setJargonProperties(Mockito.any(JargonProperties.class));
+		Assert.assertTrue("should be ready without warm-up", configurator.isReady());
+		configurator.destroy();
+	}
+
+	@Test(expected = ConfigurationRuntimeException.class)
+	public void testPoolingRequiresSimpleProtocolManager() throws Exception {
+		IRODSSession irodsSession = mockSession(Mockito.mock(IRODSProtocolManager.class));
+		configurator(irodsSession, true).init();
+	}
+
+}
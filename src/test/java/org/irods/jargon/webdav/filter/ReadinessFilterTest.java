@@ -0,0 +1,90 @@
+package org.irods.jargon.webdav.filter;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.irods.jargon.webdav.config.StartupConfigurator;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ReadinessFilterTest {
+
+	private static ReadinessFilter filter(final StartupConfigurator startupConfigurator, final String readinessPath) {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setReadinessPath(readinessPath);
+		ReadinessFilter filter = new ReadinessFilter();
+		filter.setWebDavConfig(webDavConfig);
+		filter.setStartupConfigurator(startupConfigurator);
+		return filter;
+	}
+
+	private static HttpServletRequest request(final String uri) {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		Mockito.when(request.getContextPath()).thenReturn("/webdav");
+		Mockito.when(request.getRequestURI()).thenReturn(uri);
+		return request;
+	}
+
+	private static HttpServletResponse response(final StringWriter body) throws Exception {
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(response.getWriter()).thenReturn(new PrintWriter(body, true));
+		return response;
+	}
+
+	@Test
+	public void testProbeUnavailableUntilReadyThenOk() throws Exception {
+		StartupConfigurator startupConfigurator = Mockito.mock(StartupConfigurator.class);
+		Mockito.when(startupConfigurator.isReady()).thenReturn(false);
+		ReadinessFilter filter = filter(startupConfigurator, "/_ready");
+		FilterChain chain = Mockito.mock(FilterChain.class);
+
+		StringWriter body = new StringWriter();
+		HttpServletResponse response = response(body);
+		filter.doFilter(request("/webdav/_ready"), response, chain);
+		Mockito.verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		Assert.assertEquals("starting", body.toString());
+
+		Mockito.when(startupConfigurator.isReady()).thenReturn(true);
+		body = new StringWriter();
+		response = response(body);
+		filter.doFilter(request("/webdav/_ready"), response, chain);
+		Mockito.verify(response).setStatus(HttpServletResponse.SC_OK);
+		Assert.assertEquals("ready", body.toString());
+
+		Mockito.verifyZeroInteractions(chain);
+	}
+
+	@Test
+	public void testOtherRequestsPassThrough() throws Exception {
+		StartupConfigurator startupConfigurator = Mockito.mock(StartupConfigurator.class);
+		Mockito.when(startupConfigurator.isReady()).thenReturn(true);
+		ReadinessFilter filter = filter(startupConfigurator, "/_ready");
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		HttpServletRequest request = request("/webdav/home/test1/file.txt");
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+		filter.doFilter(request, response, chain);
+		Mockito.verify(chain).doFilter(request, response);
+		Mockito.verifyZeroInteractions(response);
+	}
+
+	@Test
+	public void testNoProbeWithoutPath() throws Exception {
+		StartupConfigurator startupConfigurator = Mockito.mock(StartupConfigurator.class);
+		ReadinessFilter filter = filter(startupConfigurator, "");
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		HttpServletRequest request = request("/webdav/_ready");
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+		filter.doFilter(request, response, chain);
+		Mockito.verify(chain).doFilter(request, response);
+		Mockito.verifyZeroInteractions(startupConfigurator);
+	}
+
+}
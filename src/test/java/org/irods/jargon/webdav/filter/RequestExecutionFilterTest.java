@@ -0,0 +1,144 @@
+package org.irods.jargon.webdav.filter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.utils.IrodsAccessGate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RequestExecutionFilterTest {
+
+	private RequestExecutionFilter filter;
+
+	@After
+	public void tearDown() {
+		if (filter != null) {
+			filter.destroy();
+		}
+	}
+
+	private static RequestExecutionFilter filter(final IrodsAccessGate irodsAccessGate,
+			final ExecutorService executorService) {
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setIrodsGateWaitInSeconds(0);
+		RequestExecutionFilter filter = new RequestExecutionFilter();
+		filter.setWebDavConfig(webDavConfig);
+		filter.setIrodsAccessGate(irodsAccessGate);
+		filter.setExecutorService(executorService);
+		filter.initialize();
+		return filter;
+	}
+
+	/**
+	 * Records the thread the rest of the chain ran on
+	 */
+	private static class RecordingChain implements FilterChain {
+		private final CountDownLatch ran = new CountDownLatch(1);
+		private volatile Thread thread;
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response) {
+			thread = Thread.currentThread();
+			ran.countDown();
+		}
+	}
+
+	@Test
+	public void testChainRunsOnExecutorInAsyncMode() throws Exception {
+		filter = filter(new IrodsAccessGate(1), Executors.newSingleThreadExecutor());
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+		Mockito.when(request.isAsyncSupported()).thenReturn(true);
+		Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+		Mockito.when(asyncContext.getRequest()).thenReturn(request);
+		Mockito.when(asyncContext.getResponse()).thenReturn(response);
+		final CountDownLatch completed = new CountDownLatch(1);
+		Mockito.doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation) {
+				completed.countDown();
+				return null;
+			}
+		}).when(asyncContext).complete();
+		RecordingChain chain = new RecordingChain();
+
+		filter.doFilter(request, response, chain);
+		Assert.assertTrue("chain should run", chain.ran.await(2, TimeUnit.SECONDS));
+		Assert.assertTrue("async request should be completed", completed.await(2, TimeUnit.SECONDS));
+		Assert.assertNotSame("chain should run off the container thread", Thread.currentThread(), chain.thread);
+		Mockito.verify(asyncContext).setTimeout(0);
+		Assert.assertEquals("gate slot should be released", 0, filter.getIrodsAccessGate().getActive());
+		Mockito.verify(response, Mockito.never()).sendError(Mockito.anyInt());
+	}
+
+	@Test
+	public void testUnavailableWhenNoGateSlot() throws Exception {
+		IrodsAccessGate irodsAccessGate = new IrodsAccessGate(1);
+		Assert.assertTrue(irodsAccessGate.acquire(0));
+		filter = filter(irodsAccessGate, null);
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		RecordingChain chain = new RecordingChain();
+
+		filter.doFilter(request, response, chain);
+		Assert.assertNull("chain should not run", chain.thread);
+		Mockito.verify(response).setHeader("Retry-After", "5");
+		Mockito.verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	}
+
+	@Test
+	public void testNoVirtualThreadsBeforeJava24() throws Exception {
+		Assert.assertNull("virtual threads would pin carriers", RequestExecutionFilter.createVirtualThreadExecutor(21));
+		Assert.assertNull(RequestExecutionFilter.createVirtualThreadExecutor(8));
+	}
+
+	@Test
+	public void testChainRunsOnContainerThreadWithoutExecutor() throws Exception {
+		filter = filter(new IrodsAccessGate(1), null);
+		Assert.assertNull(filter.getExecutorService());
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(request.isAsyncSupported()).thenReturn(true);
+		RecordingChain chain = new RecordingChain();
+
+		filter.doFilter(request, response, chain);
+		Assert.assertSame("chain should run on the calling thread", Thread.currentThread(), chain.thread);
+		Mockito.verify(request, Mockito.never()).startAsync(Mockito.any(ServletRequest.class),
+				Mockito.any(ServletResponse.class));
+		Assert.assertEquals("gate slot should be released", 0, filter.getIrodsAccessGate().getActive());
+	}
+
+	@Test
+	public void testChainRunsOnContainerThreadWhenAsyncUnsupported() throws Exception {
+		filter = filter(new IrodsAccessGate(0), Executors.newSingleThreadExecutor());
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(request.isAsyncSupported()).thenReturn(false);
+		RecordingChain chain = new RecordingChain();
+
+		filter.doFilter(request, response, chain);
+		Assert.assertSame("chain should run on the calling thread", Thread.currentThread(), chain.thread);
+	}
+
+	@Test
+	public void testJavaFeatureVersion() throws Exception {
+		Assert.assertTrue("should parse the running version", RequestExecutionFilter.javaFeatureVersion() >= 8);
+	}
+
+}
@@ -0,0 +1,376 @@
+package org.irods.jargon.webdav.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.GenQueryBuilderCondition;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.DefaultStartingLocationEnum;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.listing.CollectionListingService;
+import org.irods.jargon.webdav.listing.ListingCache;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.irods.jargon.webdav.resource.IrodsDirectoryResource;
+import org.irods.jargon.webdav.resource.IrodsFileResource;
+import org.irods.jargon.webdav.resource.IrodsFileSystemResourceFactory;
+import org.irods.jargon.webdav.resource.ObjStatCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.milton.http.fs.NullSecurityManager;
+
+/**
+ * Runs PROPFIND requests through {@link StreamingPropFindFilter} with mocked
+ * access objects standing in for iRODS, so no iRODS is needed.
+ * <p/>
+ * The filter is built the way the root application context builds it, with
+ * its own resource factory and listing service, while writes go through the
+ * resources of a second factory as they would in the context of the Milton
+ * filter.
+ *
+ */
+public class StreamingPropFindFilterTest {
+
+	private static final String CONTEXT_PATH = "/irods-webdav";
+	private static final String PROP_BODY = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+			+ "<D:propfind xmlns:D=\"DAV:\"><D:prop><D:displayname/><D:getcontentlength/></D:prop></D:propfind>";
+	private static final String ALLPROP_BODY = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+			+ "<D:propfind xmlns:D=\"DAV:\"><D:allprop/></D:propfind>";
+
+	private IRODSAccount irodsAccount;
+	private IRODSFileFactory irodsFileFactory;
+	private DataTransferOperations dataTransferOperations;
+	private CollectionAndDataObjectListAndSearchAO listAndSearchAO;
+	private IrodsRequestContext requestContext;
+	private WebDavConfig webDavConfig;
+	private String home;
+	private String dir;
+	private Catalog catalog;
+
+	/**
+	 * Factory of the context the Milton filter loads, what writes go through
+	 */
+	private IrodsFileSystemResourceFactory miltonFactory;
+
+	private StreamingPropFindFilter filter;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		home = MiscIRODSUtils.buildIRODSUserHomeForAccountUsingDefaultScheme(irodsAccount);
+		dir = home + "/dir";
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		dataTransferOperations = Mockito.mock(DataTransferOperations.class);
+		listAndSearchAO = Mockito.mock(CollectionAndDataObjectListAndSearchAO.class);
+		IRODSGenQueryExecutor executor = Mockito.mock(IRODSGenQueryExecutor.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+		Mockito.when(irodsAccessObjectFactory.getDataTransferOperations(irodsAccount))
+				.thenReturn(dataTransferOperations);
+		Mockito.when(irodsAccessObjectFactory.getCollectionAndDataObjectListAndSearchAO(irodsAccount))
+				.thenReturn(listAndSearchAO);
+		Mockito.when(irodsAccessObjectFactory.getIRODSGenQueryExecutor(irodsAccount)).thenReturn(executor);
+		AuthResponse authResponse = new AuthResponse();
+		authResponse.setAuthenticatingIRODSAccount(irodsAccount);
+		requestContext = new IrodsRequestContext(irodsAccessObjectFactory, authResponse, null);
+
+		// the collection keeps its modify time, as iRODS does for many changes
+		ObjStat collectionStat = new ObjStat();
+		collectionStat.setObjectType(ObjectType.COLLECTION);
+		collectionStat.setAbsolutePath(dir);
+		collectionStat.setCreatedAt(new Date(1000L));
+		collectionStat.setModifiedAt(new Date(1000L));
+		Mockito.when(listAndSearchAO.retrieveObjectStatForPath(dir)).thenReturn(collectionStat);
+		file(home, "dir", true);
+
+		catalog = new Catalog();
+		catalog.add("a.txt");
+		Mockito.when(executor.executeIRODSQuery(Mockito.any(AbstractIRODSGenQuery.class), Mockito.eq(0)))
+				.thenAnswer(catalog);
+
+		webDavConfig = new WebDavConfig();
+		webDavConfig.setDefaultStartingLocationEnum(DefaultStartingLocationEnum.USER_HOME);
+		webDavConfig.setStreamingPropFindEnabled(true);
+
+		// as wired in milton-beans.xml, each context gets the shared caches
+		ObjStatCache objStatCache = ObjStatCache.instance(webDavConfig);
+		ListingCache listingCache = ListingCache.instance(webDavConfig);
+		miltonFactory = factory(objStatCache, listingCache);
+		IrodsFileSystemResourceFactory rootFactory = factory(objStatCache, listingCache);
+		filter = new StreamingPropFindFilter();
+		filter.setWebDavConfig(webDavConfig);
+		filter.setResourceFactory(rootFactory);
+		filter.setCollectionListingService(rootFactory.getCollectionListingService());
+		filter.initialize();
+
+		IrodsRequestContext.bind(requestContext);
+	}
+
+	@After
+	public void tearDown() {
+		IrodsRequestContext.clear();
+		filter.destroy();
+	}
+
+	private IrodsFileSystemResourceFactory factory(final ObjStatCache objStatCache,
+			final ListingCache listingCache) {
+		CollectionListingService collectionListingService = new CollectionListingService();
+		collectionListingService.setWebDavConfig(webDavConfig);
+		collectionListingService.setListingCache(listingCache);
+		IrodsFileSystemResourceFactory factory = new IrodsFileSystemResourceFactory(new NullSecurityManager());
+		factory.setWebDavConfig(webDavConfig);
+		factory.setObjStatCache(objStatCache);
+		factory.setCollectionListingService(collectionListingService);
+		return factory;
+	}
+
+	private IRODSFile file(final String parentPath, final String name, final boolean collection)
+			throws JargonException {
+		String absolutePath = parentPath + "/" + name;
+		IRODSFile file = Mockito.mock(IRODSFile.class);
+		Mockito.when(file.getAbsolutePath()).thenReturn(absolutePath);
+		Mockito.when(file.getName()).thenReturn(name);
+		Mockito.when(file.getParent()).thenReturn(parentPath);
+		Mockito.when(file.isDirectory()).thenReturn(collection);
+		Mockito.when(file.isFile()).thenReturn(!collection);
+		Mockito.when(irodsFileFactory.instanceIRODSFile(absolutePath)).thenReturn(file);
+		Mockito.when(irodsFileFactory.instanceIRODSFile(parentPath, name)).thenReturn(file);
+		return file;
+	}
+
+	private static MockHttpServletRequest request(final String method, final String uri, final String depth,
+			final byte[] body) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setContextPath(CONTEXT_PATH);
+		if (depth != null) {
+			request.addHeader("Depth", depth);
+		}
+		request.setContent(body);
+		return request;
+	}
+
+	private MockHttpServletResponse propFind(final String body, final FilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request("PROPFIND", CONTEXT_PATH + "/dir", "1", body.getBytes("UTF-8")), response, chain);
+		return response;
+	}
+
+	private static String content(final MockHttpServletResponse response) throws Exception {
+		return new String(response.getContentAsByteArray(), "UTF-8");
+	}
+
+	@Test
+	public void testListingSeesCopyMadeThroughOtherContext() throws Exception {
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		String before = content(propFind(PROP_BODY, chain));
+		Assert.assertTrue(before.contains("<d:displayname>a.txt</d:displayname>"));
+		Assert.assertFalse(before.contains("b.txt"));
+
+		final IRODSFile source = file(dir, "a.txt", false);
+		final IRODSFile dest = file(dir, "b.txt", false);
+		Mockito.doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation) {
+				catalog.add("b.txt");
+				return null;
+			}
+		}).when(dataTransferOperations).copy(source, dest, null, null);
+		IrodsFileResource resource = new IrodsFileResource("host", miltonFactory, source,
+				ListingEntry.forPath(source.getAbsolutePath(), false, 10L, 0L, 0L, "test1", "zone"), null,
+				requestContext);
+		IrodsDirectoryResource destination = new IrodsDirectoryResource("host", miltonFactory,
+				irodsFileFactory.instanceIRODSFile(dir), ListingEntry.forPath(dir, true, 0L, 0L, 0L, "test1", "zone"),
+				null, requestContext);
+		resource.copyTo(destination, "b.txt");
+
+		String after = content(propFind(PROP_BODY, chain));
+		Assert.assertTrue("listing should show the copy", after.contains("<d:displayname>b.txt</d:displayname>"));
+		Assert.assertTrue(after.contains("<d:displayname>a.txt</d:displayname>"));
+		Assert.assertEquals("each listing should run the queries", 2, catalog.listings);
+		Mockito.verify(chain, Mockito.never()).doFilter(Mockito.any(ServletRequest.class),
+				Mockito.any(ServletResponse.class));
+	}
+
+	@Test
+	public void testSharedCachesBuiltOnce() throws Exception {
+		Assert.assertSame(ObjStatCache.shared(webDavConfig), ObjStatCache.shared(new WebDavConfig()));
+		Assert.assertSame(ListingCache.shared(webDavConfig), ListingCache.shared(new WebDavConfig()));
+	}
+
+	@Test
+	public void testPropListOnCollectionStreamed() throws Exception {
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		MockHttpServletResponse response = propFind(PROP_BODY, chain);
+
+		Mockito.verify(chain, Mockito.never()).doFilter(Mockito.any(ServletRequest.class),
+				Mockito.any(ServletResponse.class));
+		Assert.assertEquals(207, response.getStatus());
+		Assert.assertTrue(response.getContentType().startsWith("application/xml"));
+		String xml = content(response);
+		Assert.assertTrue(xml.contains("<d:href>/irods-webdav/dir/</d:href>"));
+		Assert.assertTrue(xml.contains("<d:href>/irods-webdav/dir/a.txt</d:href>"));
+		Assert.assertTrue(xml.contains("<d:getcontentlength>10</d:getcontentlength>"));
+		Assert.assertFalse("collection should have no length", xml.contains("<d:getcontentlength>0"));
+		Assert.assertTrue(xml.trim().endsWith("</d:multistatus>"));
+	}
+
+	@Test
+	public void testOtherMethodsPassedOn() throws Exception {
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		MockHttpServletRequest request = request("GET", CONTEXT_PATH + "/dir", null, new byte[0]);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, chain);
+		Mockito.verify(chain).doFilter(request, response);
+		Assert.assertEquals("nothing should be listed", 0, catalog.listings);
+	}
+
+	@Test
+	public void testDepthZeroPassedOn() throws Exception {
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		MockHttpServletRequest request = request("PROPFIND", CONTEXT_PATH + "/dir", "0",
+				PROP_BODY.getBytes("UTF-8"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, chain);
+		Mockito.verify(chain).doFilter(request, response);
+		Assert.assertEquals(0, catalog.listings);
+	}
+
+	@Test
+	public void testAllPropPassedOnWithBodyReplayed() throws Exception {
+		ReadingChain chain = new ReadingChain();
+		MockHttpServletResponse response = propFind(ALLPROP_BODY, chain);
+
+		Assert.assertArrayEquals("milton should read the whole body", ALLPROP_BODY.getBytes("UTF-8"), chain.body);
+		Assert.assertEquals("allprop should not be streamed", 0, catalog.listings);
+		Assert.assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void testLargeBodyPassedOnWithBodyReplayed() throws Exception {
+		StringBuilder padding = new StringBuilder();
+		while (padding.length() <= 64 * 1024) {
+			padding.append("<!-- padding -->");
+		}
+		byte[] body = PROP_BODY.replace("<D:prop>", padding + "<D:prop>").getBytes("UTF-8");
+		ReadingChain chain = new ReadingChain();
+		filter.doFilter(request("PROPFIND", CONTEXT_PATH + "/dir", "1", body), new MockHttpServletResponse(),
+				chain);
+
+		Assert.assertArrayEquals("milton should read what was inspected and the rest", body, chain.body);
+		Assert.assertEquals(0, catalog.listings);
+	}
+
+	@Test
+	public void testPathResolvedWithoutContextPathAndDecoded() throws Exception {
+		String path = home + "/my dir+x";
+		file(home, "my dir+x", true);
+		Mockito.when(listAndSearchAO.retrieveObjectStatForPath(path)).thenThrow(
+				new FileNotFoundException("not found"));
+		ReadingChain chain = new ReadingChain();
+
+		filter.doFilter(request("PROPFIND", CONTEXT_PATH + "/my%20dir+x", "1", PROP_BODY.getBytes("UTF-8")),
+				new MockHttpServletResponse(), chain);
+		Mockito.verify(irodsFileFactory).instanceIRODSFile(path);
+		Assert.assertArrayEquals("missing path should go to milton", PROP_BODY.getBytes("UTF-8"), chain.body);
+	}
+
+	/**
+	 * Reads the body of the request it is passed, as Milton would
+	 */
+	private static final class ReadingChain implements FilterChain {
+		private byte[] body;
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response) {
+			try {
+				InputStream in = ((HttpServletRequest) request).getInputStream();
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1024];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					bytes.write(buffer, 0, read);
+				}
+				body = bytes.toByteArray();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Answers listing queries with a row per data object name, collection
+	 * queries get an empty page
+	 */
+	private static final class Catalog implements Answer<IRODSQueryResultSet> {
+		private final List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		private int listings = 0;
+
+		void add(final String name) throws JargonException {
+			IRODSQueryResultRow row = Mockito.mock(IRODSQueryResultRow.class);
+			Mockito.when(row.getColumn(0)).thenReturn(name);
+			Mockito.when(row.getColumn(1)).thenReturn("10");
+			Mockito.when(row.getColumn(2)).thenReturn("test1");
+			Mockito.when(row.getColumn(3)).thenReturn("zone");
+			Mockito.when(row.getColumn(4)).thenReturn("01500000000");
+			Mockito.when(row.getColumn(5)).thenReturn("01500000000");
+			rows.add(row);
+		}
+
+		@Override
+		public IRODSQueryResultSet answer(final InvocationOnMock invocation) throws Throwable {
+			IRODSGenQueryFromBuilder query = (IRODSGenQueryFromBuilder) invocation.getArguments()[0];
+			boolean dataObjects = true;
+			for (GenQueryBuilderCondition condition : query.getIrodsGenQueryBuilderData().getConditions()) {
+				if (condition.getSelectFieldColumnName().equals(RodsGenQueryEnum.COL_COLL_PARENT_NAME.getName())) {
+					dataObjects = false;
+				}
+			}
+
+			IRODSQueryResultSet resultSet = Mockito.mock(IRODSQueryResultSet.class);
+			List<IRODSQueryResultRow> page = new ArrayList<IRODSQueryResultRow>();
+			if (dataObjects) {
+				listings++;
+				page.addAll(rows);
+			}
+			Mockito.when(resultSet.getResults()).thenReturn(page);
+			Mockito.when(resultSet.isHasMoreRecords()).thenReturn(false);
+			return resultSet;
+		}
+	}
+
+}
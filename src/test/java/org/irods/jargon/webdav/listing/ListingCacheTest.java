@@ -0,0 +1,107 @@
+package org.irods.jargon.webdav.listing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ListingCacheTest {
+
+	private IRODSAccount account(final String userName) throws Exception {
+		return IRODSAccount.instance("host", 1247, userName, "password", "", "zone", "");
+	}
+
+	private List<ListingEntry> listing(final String parentPath, final int size) {
+		List<ListingEntry> entries = new ArrayList<ListingEntry>();
+		for (int i = 0; i < size; i++) {
+			entries.add(new ListingEntry(parentPath, "file" + i, false, i, 0L, 0L, "test1", "zone"));
+		}
+		return entries;
+	}
+
+	@Test
+	public void testHeldPerUserWhileUnmodified() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 100);
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 3));
+		Assert.assertEquals(3, cache.get(account("test1"), "/zone/home/shared", 1000L).size());
+		Assert.assertNull("should not share between users", cache.get(account("test2"), "/zone/home/shared", 1000L));
+	}
+
+	@Test
+	public void testStaleWhenModifyTimeChanges() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 100);
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 3));
+		Assert.assertNull("should be stale", cache.get(account("test1"), "/zone/home/shared", 2000L));
+		Assert.assertNull("stale listing should be dropped", cache.get(account("test1"), "/zone/home/shared", 1000L));
+	}
+
+	@Test
+	public void testLargeListingNotHeld() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 2);
+		List<ListingEntry> held = cache.put(account("test1"), "/zone/home/big", 1000L, listing("/zone/home/big", 3));
+		Assert.assertEquals("should still hand back the listing", 3, held.size());
+		Assert.assertNull(cache.get(account("test1"), "/zone/home/big", 1000L));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 100);
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 1));
+		cache.put(account("test2"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 1));
+		cache.put(account("test1"), "/zone/home/shared/dir", 1000L, listing("/zone/home/shared/dir", 1));
+		cache.put(account("test1"), "/zone/home/shared/dir/sub", 1000L, listing("/zone/home/shared/dir/sub", 1));
+		cache.put(account("test1"), "/zone/home/other", 1000L, listing("/zone/home/other", 1));
+
+		cache.invalidate("/zone/home/shared/newfile");
+		Assert.assertNull("should drop parent", cache.get(account("test1"), "/zone/home/shared", 1000L));
+		Assert.assertNull("should drop for all users", cache.get(account("test2"), "/zone/home/shared", 1000L));
+		Assert.assertNotNull(cache.get(account("test1"), "/zone/home/shared/dir", 1000L));
+
+		cache.invalidateTree("/zone/home/shared/dir");
+		Assert.assertNull(cache.get(account("test1"), "/zone/home/shared/dir", 1000L));
+		Assert.assertNull("should drop children", cache.get(account("test1"), "/zone/home/shared/dir/sub", 1000L));
+		Assert.assertNotNull("should keep unrelated", cache.get(account("test1"), "/zone/home/other", 1000L));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		ListingCache cache = new ListingCache(0, 100, 100);
+		Assert.assertFalse(cache.isEnabled());
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 1));
+		Assert.assertNull(cache.get(account("test1"), "/zone/home/shared", 1000L));
+	}
+
+	@Test
+	public void testInvalidateKeepsChildren() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 100);
+		cache.put(account("test1"), "/zone/home/test1/dir/sub", 1000L, listing("/zone/home/test1/dir/sub", 1));
+		cache.invalidate("/zone/home/test1/dir");
+		Assert.assertNotNull("only a tree invalidation drops children",
+				cache.get(account("test1"), "/zone/home/test1/dir/sub", 1000L));
+	}
+
+	@Test
+	public void testListingsExpirePerUser() throws Exception {
+		ListingCache cache = new ListingCache(200, 100, 100);
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 1));
+		Thread.sleep(120);
+		cache.put(account("test2"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 2));
+		Thread.sleep(120);
+		Assert.assertNull("first user's listing should expire", cache.get(account("test1"), "/zone/home/shared", 1000L));
+		Assert.assertEquals("later listing should be held for its own time", 2,
+				cache.get(account("test2"), "/zone/home/shared", 1000L).size());
+	}
+
+	@Test
+	public void testStaleListingDroppedForThatUserOnly() throws Exception {
+		ListingCache cache = new ListingCache(60000, 100, 100);
+		cache.put(account("test1"), "/zone/home/shared", 1000L, listing("/zone/home/shared", 1));
+		cache.put(account("test2"), "/zone/home/shared", 2000L, listing("/zone/home/shared", 1));
+		Assert.assertNull(cache.get(account("test1"), "/zone/home/shared", 2000L));
+		Assert.assertNotNull("other user's listing should be kept",
+				cache.get(account("test2"), "/zone/home/shared", 2000L));
+	}
+
+}
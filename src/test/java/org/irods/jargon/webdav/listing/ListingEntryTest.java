@@ -0,0 +1,70 @@
+package org.irods.jargon.webdav.listing;
+
+import java.util.Date;
+
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ListingEntryTest {
+
+	@Test
+	public void testAbsolutePath() throws Exception {
+		ListingEntry entry = new ListingEntry("/zone/home/test1", "file.txt", false, 10L, 0L, 0L, "test1", "zone");
+		Assert.assertEquals("/zone/home/test1/file.txt", entry.getAbsolutePath());
+	}
+
+	@Test
+	public void testAbsolutePathUnderRoot() throws Exception {
+		ListingEntry entry = new ListingEntry("/", "zone", true, 0L, 0L, 0L, "rods", "zone");
+		Assert.assertEquals("/zone", entry.getAbsolutePath());
+	}
+
+	@Test
+	public void testParseTime() throws Exception {
+		Assert.assertEquals(1500000000000L, CollectionListingService.parseTime("01500000000"));
+		Assert.assertEquals(0L, CollectionListingService.parseTime(""));
+		Assert.assertEquals(0L, CollectionListingService.parseTime("notanumber"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyName() throws Exception {
+		new ListingEntry("/zone", "", false, 0L, 0L, 0L, "rods", "zone");
+	}
+
+	@Test
+	public void testForPath() throws Exception {
+		ListingEntry entry = ListingEntry.forPath("/zone/home/test1/dir/", true, 0L, 0L, 0L, "test1", "zone");
+		Assert.assertEquals("/zone/home/test1", entry.getParentPath());
+		Assert.assertEquals("dir", entry.getName());
+		Assert.assertEquals("/zone/home/test1/dir", entry.getAbsolutePath());
+	}
+
+	@Test
+	public void testForRootPath() throws Exception {
+		ListingEntry entry = ListingEntry.forPath("/", true, 0L, 0L, 0L, "rods", "zone");
+		Assert.assertEquals("", entry.getName());
+		Assert.assertEquals("/", entry.getAbsolutePath());
+	}
+
+	@Test
+	public void testFromCollectionAndDataObjectListingEntry() throws Exception {
+		CollectionAndDataObjectListingEntry jargonEntry = new CollectionAndDataObjectListingEntry();
+		jargonEntry.setObjectType(ObjectType.DATA_OBJECT);
+		jargonEntry.setParentPath("/zone/home/test1");
+		jargonEntry.setPathOrName("file.txt");
+		jargonEntry.setDataSize(42L);
+		jargonEntry.setModifiedAt(new Date(5000L));
+		jargonEntry.setOwnerName("test1");
+
+		ListingEntry entry = ListingEntry.fromCollectionAndDataObjectListingEntry(jargonEntry);
+		Assert.assertFalse(entry.isCollection());
+		Assert.assertEquals("/zone/home/test1/file.txt", entry.getAbsolutePath());
+		Assert.assertEquals(42L, entry.getDataSize());
+		Assert.assertEquals(5000L, entry.getModifiedAt());
+		Assert.assertEquals("no create time should be zero", 0L, entry.getCreatedAt());
+		Assert.assertEquals("test1", entry.getOwnerName());
+	}
+
+}
@@ -0,0 +1,212 @@
+package org.irods.jargon.webdav.listing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.GenQueryBuilderCondition;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Checks the keyset pagination of {@link CollectionListingService} against a
+ * mocked <code>IRODSGenQueryExecutor</code> that stands in for the catalog,
+ * answering each page query with the rows after its
+ * <code>GREATER_THAN</code> name and counting the rows it hands out. No iRODS
+ * is needed.
+ * <p/>
+ * The catalog holds thousands of rows rather than the million the request
+ * measured, as every row is a mock. What is asserted, each row read once and
+ * each page a fresh query after the last name, does not depend on the count.
+ *
+ */
+public class ListingPaginationTest {
+
+	private static final String PARENT = "/zone/home/test1/big";
+	private static final int PAGE_SIZE = 500;
+
+	private IRODSAccount irodsAccount;
+	private IRODSGenQueryExecutor executor;
+	private IrodsRequestContext requestContext;
+	private CollectionListingService service;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		executor = Mockito.mock(IRODSGenQueryExecutor.class);
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSGenQueryExecutor(irodsAccount)).thenReturn(executor);
+		AuthResponse authResponse = new AuthResponse();
+		authResponse.setAuthenticatingIRODSAccount(irodsAccount);
+		requestContext = new IrodsRequestContext(irodsAccessObjectFactory, authResponse, null);
+
+		WebDavConfig webDavConfig = new WebDavConfig();
+		webDavConfig.setListingKeysetPaginationEnabled(true);
+		webDavConfig.setListingPageSize(PAGE_SIZE);
+		webDavConfig.setListingCacheTimeToLiveInSeconds(0);
+		webDavConfig.setListingPrefetchDepth(0);
+		service = new CollectionListingService();
+		service.setWebDavConfig(webDavConfig);
+	}
+
+	private static String name(final int i) {
+		return String.format("object-%07d.dat", i);
+	}
+
+	private static List<String> names(final int count) {
+		List<String> names = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			names.add(name(i));
+		}
+		return names;
+	}
+
+	private List<String> listNames() throws Exception {
+		List<String> listed = new ArrayList<String>();
+		for (ListingEntry entry : service.listChildren(requestContext, PARENT)) {
+			listed.add(entry.getName());
+		}
+		return listed;
+	}
+
+	@Test
+	public void testKeysetPagesReadEachRowOnce() throws Exception {
+		int objectCount = 10 * PAGE_SIZE + PAGE_SIZE / 2;
+		Catalog catalog = new Catalog(names(objectCount));
+		catalog.install();
+
+		Assert.assertEquals("should list every object in order", names(objectCount), listNames());
+		Assert.assertEquals("should read each row once", objectCount, catalog.rowsRead);
+		Assert.assertEquals("should stop after the short page", 11, catalog.afterNames.size());
+		Assert.assertNull("first page should start at the beginning", catalog.afterNames.get(0));
+		for (int page = 1; page < catalog.afterNames.size(); page++) {
+			Assert.assertEquals("page should start after the last name of the one before",
+					name(page * PAGE_SIZE - 1), catalog.afterNames.get(page));
+		}
+		Mockito.verify(executor, Mockito.times(catalog.afterNames.size() + 1))
+				.closeResults(Mockito.any(IRODSQueryResultSet.class));
+	}
+
+	@Test
+	public void testStopsOnEmptyPage() throws Exception {
+		int objectCount = 2 * PAGE_SIZE;
+		Catalog catalog = new Catalog(names(objectCount));
+		catalog.install();
+
+		Assert.assertEquals(names(objectCount), listNames());
+		Assert.assertEquals("should stop after the empty page", 3, catalog.afterNames.size());
+		Assert.assertEquals(objectCount, catalog.rowsRead);
+	}
+
+	@Test
+	public void testReplicasSplitAcrossPagesListedOnce() throws Exception {
+		List<String> rows = new ArrayList<String>();
+		for (int i = 0; i < PAGE_SIZE - 1; i++) {
+			rows.add(name(i));
+		}
+		// the page ends on the first replica of the next object
+		rows.add(name(PAGE_SIZE - 1));
+		rows.add(name(PAGE_SIZE - 1));
+		rows.add(name(PAGE_SIZE));
+		rows.add(name(PAGE_SIZE));
+		rows.add(name(PAGE_SIZE + 1));
+		Catalog catalog = new Catalog(rows);
+		catalog.install();
+
+		Assert.assertEquals("should list each object once", names(PAGE_SIZE + 2), listNames());
+		Assert.assertEquals(2, catalog.afterNames.size());
+		Assert.assertEquals(name(PAGE_SIZE - 1), catalog.afterNames.get(1));
+		Assert.assertEquals("second replica should not be read again", rows.size() - 1, catalog.rowsRead);
+	}
+
+	/**
+	 * Answers listing queries from sorted data object rows, one row per
+	 * replica. More records are always reported, so the listing has to end on
+	 * the page it gets back. Collection queries get an empty page.
+	 */
+	private final class Catalog implements Answer<IRODSQueryResultSet> {
+		private final List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		private final List<String> rowNames;
+		private final List<String> afterNames = new ArrayList<String>();
+		private final Set<Integer> rowsSeen = new HashSet<Integer>();
+		private int rowsRead = 0;
+
+		Catalog(final List<String> rowNames) throws JargonException {
+			this.rowNames = rowNames;
+			for (String rowName : rowNames) {
+				IRODSQueryResultRow row = Mockito.mock(IRODSQueryResultRow.class);
+				Mockito.when(row.getColumn(0)).thenReturn(rowName);
+				Mockito.when(row.getColumn(1)).thenReturn("10");
+				Mockito.when(row.getColumn(2)).thenReturn("test1");
+				Mockito.when(row.getColumn(3)).thenReturn("zone");
+				Mockito.when(row.getColumn(4)).thenReturn("01500000000");
+				Mockito.when(row.getColumn(5)).thenReturn("01500000000");
+				rows.add(row);
+			}
+		}
+
+		void install() throws Exception {
+			Mockito.when(executor.executeIRODSQuery(Mockito.any(AbstractIRODSGenQuery.class), Mockito.eq(0)))
+					.thenAnswer(this);
+		}
+
+		@Override
+		public IRODSQueryResultSet answer(final InvocationOnMock invocation) throws Throwable {
+			IRODSGenQueryFromBuilder query = (IRODSGenQueryFromBuilder) invocation.getArguments()[0];
+			boolean dataObjects = true;
+			String afterName = null;
+			for (GenQueryBuilderCondition condition : query.getIrodsGenQueryBuilderData().getConditions()) {
+				String column = condition.getSelectFieldColumnName();
+				if (column.equals(RodsGenQueryEnum.COL_COLL_PARENT_NAME.getName())) {
+					dataObjects = false;
+				} else if (column.equals(RodsGenQueryEnum.COL_DATA_NAME.getName())) {
+					Assert.assertEquals("should page by name", QueryConditionOperators.GREATER_THAN,
+							condition.getOperator());
+					afterName = unquote(condition.getValue());
+				}
+			}
+
+			IRODSQueryResultSet resultSet = Mockito.mock(IRODSQueryResultSet.class);
+			List<IRODSQueryResultRow> page = new ArrayList<IRODSQueryResultRow>();
+			if (dataObjects) {
+				afterNames.add(afterName);
+				for (int i = 0; i < rows.size() && page.size() < PAGE_SIZE; i++) {
+					if (afterName == null || rowNames.get(i).compareTo(afterName) > 0) {
+						Assert.assertTrue("row " + i + " read twice", rowsSeen.add(i));
+						page.add(rows.get(i));
+					}
+				}
+				rowsRead += page.size();
+			}
+			Mockito.when(resultSet.getResults()).thenReturn(page);
+			Mockito.when(resultSet.isHasMoreRecords()).thenReturn(dataObjects);
+			return resultSet;
+		}
+
+		private String unquote(final String value) {
+			if (value.length() > 1 && value.startsWith("'") && value.endsWith("'")) {
+				return value.substring(1, value.length() - 1);
+			}
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package org.irods.jargon.webdav.listing;
+
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultistatusWriterTest {
+
+	@Test
+	public void testSupports() throws Exception {
+		Assert.assertFalse("allprop is left to milton",
+				MultistatusWriter.supports(PropFindRequest.parse(new byte[0])));
+		Assert.assertTrue(MultistatusWriter.supports(PropFindRequest
+				.parse("<propfind xmlns=\"DAV:\"><prop><resourcetype/><getlastmodified/></prop></propfind>"
+						.getBytes("UTF-8"))));
+		Assert.assertFalse("etag is not streamed", MultistatusWriter.supports(PropFindRequest
+				.parse("<propfind xmlns=\"DAV:\"><prop><resourcetype/><getetag/></prop></propfind>".getBytes("UTF-8"))));
+		Assert.assertFalse(MultistatusWriter.supports(PropFindRequest.parse(
+				"<propfind xmlns=\"DAV:\"><prop><x:displayname xmlns:x=\"urn:example\"/></prop></propfind>"
+						.getBytes("UTF-8"))));
+		Assert.assertFalse(MultistatusWriter.supports(null));
+	}
+
+	@Test
+	public void testWriteEntries() throws Exception {
+		StringWriter out = new StringWriter();
+		MultistatusWriter writer = new MultistatusWriter(out, PropFindRequest
+				.parse("<propfind xmlns=\"DAV:\"><prop><resourcetype/><getcontentlength/><getlastmodified/></prop></propfind>"
+						.getBytes("UTF-8")));
+		writer.start();
+		writer.writeEntry("/irods-webdav/home/", new ListingEntry("/zone/home", "a & b.txt", false, 42L, 0L, 0L,
+				"test1", "zone"));
+		writer.writeEntry("/irods-webdav/home/", new ListingEntry("/zone/home", "sub", true, 0L, 0L, 0L, "test1",
+				"zone"));
+		writer.finish();
+
+		String xml = out.toString();
+		Assert.assertTrue(xml.startsWith("<?xml"));
+		Assert.assertTrue(xml.contains("<d:href>/irods-webdav/home/a%20%26%20b.txt</d:href>"));
+		Assert.assertTrue(xml.contains("<d:getcontentlength>42</d:getcontentlength>"));
+		Assert.assertTrue(xml.contains("<d:getlastmodified>Thu, 01 Jan 1970 00:00:00 GMT</d:getlastmodified>"));
+		Assert.assertTrue(xml.contains("<d:href>/irods-webdav/home/sub/</d:href>"));
+		Assert.assertTrue(xml.contains("<d:resourcetype><d:collection/></d:resourcetype>"));
+		Assert.assertFalse("collections have no length", xml.contains("<d:getcontentlength>0</d:getcontentlength>"));
+		Assert.assertTrue(xml.contains("<d:propstat><d:prop><d:getcontentlength/></d:prop>"
+				+ "<d:status>HTTP/1.1 404 Not Found</d:status></d:propstat>"));
+		Assert.assertFalse("only requested properties", xml.contains("displayname"));
+		Assert.assertTrue(xml.trim().endsWith("</d:multistatus>"));
+	}
+
+	@Test
+	public void testEncodePathSegment() throws Exception {
+		Assert.assertEquals("plain-name_1.txt", MultistatusWriter.encodePathSegment("plain-name_1.txt"));
+		Assert.assertEquals("caf%C3%A9%3F%2F", MultistatusWriter.encodePathSegment("caf\u00e9?/"));
+	}
+
+}
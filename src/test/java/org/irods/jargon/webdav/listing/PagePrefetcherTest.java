@@ -0,0 +1,126 @@
+package org.irods.jargon.webdav.listing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PagePrefetcherTest {
+
+	private List<ListingEntry> page(final int number) {
+		return Collections.singletonList(new ListingEntry("/zone/home", "file" + number, false, number, 0L, 0L,
+				"test1", "zone"));
+	}
+
+	private Thread produce(final PagePrefetcher prefetcher, final int pages, final Throwable failure,
+			final AtomicBoolean cancelled) {
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < pages; i++) {
+						prefetcher.getProducerHandler().onPage(page(i));
+					}
+					prefetcher.finish(failure);
+				} catch (PagePrefetcher.ListingCancelledException e) {
+					cancelled.set(true);
+					prefetcher.finish(null);
+				} catch (JargonException e) {
+					prefetcher.finish(e);
+				}
+			}
+		});
+		producer.setDaemon(true);
+		producer.start();
+		return producer;
+	}
+
+	@Test
+	public void testPagesInOrder() throws Exception {
+		PagePrefetcher prefetcher = new PagePrefetcher(2);
+		produce(prefetcher, 20, null, new AtomicBoolean());
+		final List<String> names = new ArrayList<String>();
+		prefetcher.drainTo(new ListingPageHandler() {
+			@Override
+			public void onPage(final List<ListingEntry> page) {
+				names.add(page.get(0).getName());
+			}
+		});
+		Assert.assertEquals(20, names.size());
+		Assert.assertEquals("file0", names.get(0));
+		Assert.assertEquals("file19", names.get(19));
+	}
+
+	@Test
+	public void testFetchesAheadOnlyToDepth() throws Exception {
+		final PagePrefetcher prefetcher = new PagePrefetcher(2);
+		final CountDownLatch fetched = new CountDownLatch(3);
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < 5; i++) {
+						prefetcher.getProducerHandler().onPage(page(i));
+						fetched.countDown();
+					}
+					prefetcher.finish(null);
+				} catch (JargonException e) {
+					prefetcher.finish(e);
+				}
+			}
+		});
+		producer.setDaemon(true);
+		producer.start();
+		Assert.assertFalse("should wait once depth pages are waiting", fetched.await(300, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(1, fetched.getCount());
+
+		final List<ListingEntry> entries = new ArrayList<ListingEntry>();
+		prefetcher.drainTo(new ListingPageHandler() {
+			@Override
+			public void onPage(final List<ListingEntry> page) {
+				entries.addAll(page);
+			}
+		});
+		Assert.assertEquals(5, entries.size());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testListingFailurePassedOn() throws Exception {
+		PagePrefetcher prefetcher = new PagePrefetcher(2);
+		produce(prefetcher, 3, new FileNotFoundException("gone"), new AtomicBoolean());
+		prefetcher.drainTo(new ListingPageHandler() {
+			@Override
+			public void onPage(final List<ListingEntry> page) {
+			}
+		});
+	}
+
+	@Test
+	public void testRenderingFailureCancelsFetch() throws Exception {
+		PagePrefetcher prefetcher = new PagePrefetcher(1);
+		AtomicBoolean cancelled = new AtomicBoolean();
+		Thread producer = produce(prefetcher, 100, null, cancelled);
+		try {
+			prefetcher.drainTo(new ListingPageHandler() {
+				@Override
+				public void onPage(final List<ListingEntry> page) {
+					throw new IllegalStateException("client went away");
+				}
+			});
+			Assert.fail("should pass on the rendering failure");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		producer.join(2000);
+		Assert.assertFalse("fetch should have stopped", producer.isAlive());
+		Assert.assertTrue(cancelled.get());
+	}
+
+}
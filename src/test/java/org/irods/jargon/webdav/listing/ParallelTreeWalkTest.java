@@ -0,0 +1,127 @@
+package org.irods.jargon.webdav.listing;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ParallelTreeWalkTest {
+
+	private static ExecutorService executor;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Lists a tree of collections, each holding <code>fanOut</code>
+	 * subcollections and one data object, <code>depth</code> levels deep
+	 */
+	private static class TreeListingService extends CollectionListingService {
+		private final Map<String, List<ListingEntry>> tree = new HashMap<String, List<ListingEntry>>();
+
+		TreeListingService(final String root, final int fanOut, final int depth) {
+			build(root, fanOut, depth);
+		}
+
+		private void build(final String path, final int fanOut, final int depth) {
+			List<ListingEntry> children = new ArrayList<ListingEntry>();
+			if (depth > 0) {
+				for (int i = 0; i < fanOut; i++) {
+					ListingEntry child = new ListingEntry(path, "dir" + i, true, 0L, 0L, 0L, "test1", "zone");
+					children.add(child);
+					build(child.getAbsolutePath(), fanOut, depth - 1);
+				}
+			}
+			children.add(new ListingEntry(path, "file.txt", false, 1L, 0L, 0L, "test1", "zone"));
+			tree.put(path, children);
+		}
+
+		@Override
+		public void listChildren(final IrodsRequestContext requestContext, final String parentPath,
+				final ListingPageHandler handler) throws JargonException {
+			handler.onPage(tree.get(parentPath));
+		}
+	}
+
+	private IrodsRequestContext requestContext() throws Exception {
+		IrodsRequestContext requestContext = Mockito.mock(IrodsRequestContext.class);
+		Mockito.when(requestContext.getIrodsAccessObjectFactory())
+				.thenReturn(Mockito.mock(IRODSAccessObjectFactory.class));
+		Mockito.when(requestContext.getIrodsAccount())
+				.thenReturn(IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", ""));
+		return requestContext;
+	}
+
+	private static int count(final String text, final String of) {
+		int count = 0;
+		for (int i = text.indexOf(of); i != -1; i = text.indexOf(of, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+	private static PropFindRequest propFind() throws Exception {
+		return PropFindRequest.parse("<propfind xmlns=\"DAV:\"><prop><resourcetype/><displayname/></prop></propfind>"
+				.getBytes("UTF-8"));
+	}
+
+	@Test
+	public void testWalksWholeTree() throws Exception {
+		StringWriter out = new StringWriter();
+		MultistatusWriter writer = new MultistatusWriter(out, propFind());
+		ParallelTreeWalk walk = new ParallelTreeWalk(new TreeListingService("/zone/home/test1", 3, 3),
+				requestContext(), writer, executor, 4, 0, 0);
+		boolean truncated = walk.walk("/zone/home/test1", "/irods-webdav/");
+
+		Assert.assertFalse(truncated);
+		// 3 + 9 + 27 collections, each of those and the root holding a file
+		Assert.assertEquals(39 + 40, walk.getEntryCount());
+		Assert.assertEquals(79, count(out.toString(), "<d:response>"));
+		Assert.assertTrue(out.toString().contains("<d:href>/irods-webdav/dir2/dir0/dir1/file.txt</d:href>"));
+	}
+
+	@Test
+	public void testTruncatedAtEntryBudget() throws Exception {
+		StringWriter out = new StringWriter();
+		MultistatusWriter writer = new MultistatusWriter(out, propFind());
+		ParallelTreeWalk walk = new ParallelTreeWalk(new TreeListingService("/zone/home/test1", 3, 3),
+				requestContext(), writer, executor, 4, 10, 0);
+		boolean truncated = walk.walk("/zone/home/test1", "/irods-webdav/");
+
+		Assert.assertTrue(truncated);
+		Assert.assertEquals(10, walk.getEntryCount());
+		Assert.assertEquals(10, count(out.toString(), "<d:response>"));
+	}
+
+	@Test
+	public void testSerialWithoutExecutor() throws Exception {
+		StringWriter out = new StringWriter();
+		MultistatusWriter writer = new MultistatusWriter(out, propFind());
+		ParallelTreeWalk walk = new ParallelTreeWalk(new TreeListingService("/zone/home/test1", 2, 2),
+				requestContext(), writer, null, 4, 0, 0);
+		Assert.assertFalse(walk.walk("/zone/home/test1", "/irods-webdav/"));
+		// 2 + 4 collections and 7 files
+		Assert.assertEquals(13, walk.getEntryCount());
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.irods.jargon.webdav.listing;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PropFindRequestTest {
+
+	@Test
+	public void testEmptyBodyIsAllProp() throws Exception {
+		PropFindRequest request = PropFindRequest.parse(new byte[0]);
+		Assert.assertTrue(request.isAllProp());
+		Assert.assertTrue(PropFindRequest.parse(" \r\n".getBytes("UTF-8")).isAllProp());
+	}
+
+	@Test
+	public void testAllProp() throws Exception {
+		String body = "<?xml version=\"1.0\" encoding=\"utf-8\" ?><D:propfind xmlns:D=\"DAV:\"><D:allprop/></D:propfind>";
+		Assert.assertTrue(PropFindRequest.parse(body.getBytes("UTF-8")).isAllProp());
+	}
+
+	@Test
+	public void testProp() throws Exception {
+		String body = "<propfind xmlns=\"DAV:\"><prop><getcontentlength/><x:custom xmlns:x=\"urn:example\"/></prop></propfind>";
+		PropFindRequest request = PropFindRequest.parse(body.getBytes("UTF-8"));
+		Assert.assertFalse(request.isAllProp());
+		Assert.assertEquals(2, request.getProperties().size());
+		Assert.assertEquals(new QName("DAV:", "getcontentlength"), request.getProperties().get(0));
+		Assert.assertEquals(new QName("urn:example", "custom"), request.getProperties().get(1));
+	}
+
+	@Test
+	public void testPropNameAndJunk() throws Exception {
+		Assert.assertNull(PropFindRequest.parse("<propfind xmlns=\"DAV:\"><propname/></propfind>".getBytes("UTF-8")));
+		Assert.assertNull(PropFindRequest.parse("<propfind xmlns=\"DAV:\"><prop>".getBytes("UTF-8")));
+		Assert.assertNull(PropFindRequest.parse("<other xmlns=\"DAV:\"/>".getBytes("UTF-8")));
+	}
+
+	@Test
+	public void testDoctypeRejected() throws Exception {
+		String body = "<?xml version=\"1.0\"?><!DOCTYPE propfind [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+				+ "<propfind xmlns=\"DAV:\"><prop><displayname>&x;</displayname></prop></propfind>";
+		Assert.assertNull(PropFindRequest.parse(body.getBytes("UTF-8")));
+	}
+
+}
@@ -1,24 +1,32 @@
 package org.irods.jargon.webdav.resource;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.util.Properties;
 
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.DataObjectChecksumUtilitiesAO;
 import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.IRODSFileSystem;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.pub.io.IRODSFileInputStream;
+import org.irods.jargon.core.pub.io.IRODSFileOutputStream;
 import org.irods.jargon.testutils.IRODSTestSetupUtilities;
 import org.irods.jargon.testutils.TestingPropertiesHelper;
 import org.irods.jargon.testutils.filemanip.FileGenerator;
 import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
 import org.irods.jargon.webdav.config.WebDavConfig;
 import org.irods.jargon.webdav.exception.FileSizeExceedsMaximumException;
+import org.irods.jargon.webdav.listing.ListingEntry;
 import org.irods.jargon.webdav.unittest.TestCacheMx;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import io.milton.http.LockManager;
@@ -131,4 +139,89 @@ public class FileContentServiceTest {
 
 	}
 
+	@Test
+	public void testDownloadWithKnownMetadataMakesNoCatalogCalls() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		IRODSFile file = Mockito.mock(IRODSFile.class);
+		Mockito.when(file.getAbsolutePath()).thenReturn("/zone/home/test1/file.txt");
+		IRODSFileInputStream inputStream = Mockito.mock(IRODSFileInputStream.class);
+		IRODSFileFactory irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		Mockito.when(irodsFileFactory.instanceIRODSFileInputStream("/zone/home/test1/file.txt"))
+				.thenReturn(inputStream);
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+
+		IrodsFileContentService service = new IrodsFileContentService();
+		service.setIrodsAccessObjectFactory(irodsAccessObjectFactory);
+		service.setWebDavConfig(new WebDavConfig());
+
+		ListingEntry listingEntry = new ListingEntry("/zone/home/test1", "file.txt", false, 10L, 0L, 0L, "test1",
+				"zone");
+		InputStream actual = service.getFileContent(file, irodsAccount, listingEntry);
+		Assert.assertSame(inputStream, actual);
+		Mockito.verify(file, Mockito.never()).exists();
+		Mockito.verify(file, Mockito.never()).length();
+		Mockito.verify(irodsAccessObjectFactory, Mockito.never()).getCollectionAndDataObjectListAndSearchAO(
+				irodsAccount);
+	}
+
+	@Test(expected = FileSizeExceedsMaximumException.class)
+	public void testDownloadWithKnownMetadataGreaterThanMax() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		IRODSFile file = Mockito.mock(IRODSFile.class);
+		WebDavConfig config = new WebDavConfig();
+		config.setMaxDownloadInGb(1);
+
+		IrodsFileContentService service = new IrodsFileContentService();
+		service.setIrodsAccessObjectFactory(Mockito.mock(IRODSAccessObjectFactory.class));
+		service.setWebDavConfig(config);
+
+		ListingEntry listingEntry = new ListingEntry("/zone/home/test1", "big.dat", false,
+				2L * 1024 * 1024 * 1024, 0L, 0L, "test1", "zone");
+		service.getFileContent(file, irodsAccount, listingEntry);
+	}
+
+	@Test
+	public void testUploadComputesChecksumWhenConfigured() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		IRODSFile dest = Mockito.mock(IRODSFile.class);
+		IRODSFileOutputStream outputStream = Mockito.mock(IRODSFileOutputStream.class);
+		IRODSFileFactory irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		Mockito.when(irodsFileFactory.instanceIRODSFileOutputStream(dest)).thenReturn(outputStream);
+		DataObjectChecksumUtilitiesAO checksumUtilitiesAO = Mockito.mock(DataObjectChecksumUtilitiesAO.class);
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+		Mockito.when(irodsAccessObjectFactory.getDataObjectChecksumUtilitiesAO(irodsAccount))
+				.thenReturn(checksumUtilitiesAO);
+		WebDavConfig config = new WebDavConfig();
+		config.setComputeChecksum(true);
+
+		IrodsFileContentService service = new IrodsFileContentService();
+		service.setIrodsAccessObjectFactory(irodsAccessObjectFactory);
+		service.setWebDavConfig(config);
+
+		service.setFileContent(dest, new ByteArrayInputStream(new byte[] { 1, 2, 3 }), 3L, irodsAccount);
+		InOrder inOrder = Mockito.inOrder(outputStream, checksumUtilitiesAO);
+		inOrder.verify(outputStream).close();
+		inOrder.verify(checksumUtilitiesAO).computeChecksumOnDataObject(dest);
+	}
+
+	@Test
+	public void testUploadComputesNoChecksumByDefault() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		IRODSFile dest = Mockito.mock(IRODSFile.class);
+		IRODSFileFactory irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		Mockito.when(irodsFileFactory.instanceIRODSFileOutputStream(dest))
+				.thenReturn(Mockito.mock(IRODSFileOutputStream.class));
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+
+		IrodsFileContentService service = new IrodsFileContentService();
+		service.setIrodsAccessObjectFactory(irodsAccessObjectFactory);
+		service.setWebDavConfig(new WebDavConfig());
+
+		service.setFileContent(dest, new ByteArrayInputStream(new byte[] { 1, 2, 3 }), 3L, irodsAccount);
+		Mockito.verify(irodsAccessObjectFactory, Mockito.never()).getDataObjectChecksumUtilitiesAO(irodsAccount);
+	}
+
 }
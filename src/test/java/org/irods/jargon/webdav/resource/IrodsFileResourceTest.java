@@ -1,6 +1,9 @@
 package org.irods.jargon.webdav.resource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -25,6 +28,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import io.milton.http.LockManager;
+import io.milton.http.Range;
 import io.milton.principal.Principal;
 import io.milton.resource.AccessControlledResource.Priviledge;
 
@@ -388,6 +392,70 @@ public class IrodsFileResourceTest {
 
 	}
 
+	@Test
+	public void testSendContentRanges() throws Exception {
+		// generate a local scratch file
+		String testFileName = "testSendContentRanges.txt";
+		String absPath = scratchFileUtils.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator.generateFileOfFixedLengthGivenName(absPath, testFileName, 1000);
+
+		String targetIrodsFile = testingPropertiesHelper.buildIRODSCollectionAbsolutePathFromTestProperties(
+				testingProperties, IRODS_TEST_SUBDIR_PATH + '/' + testFileName);
+		File localFile = new File(localFileName);
+		byte[] expected = Files.readAllBytes(localFile.toPath());
+
+		// now put the file
+
+		IRODSAccount irodsAccount = testingPropertiesHelper.buildIRODSAccountFromTestProperties(testingProperties);
+		DataTransferOperations dto = irodsFileSystem.getIRODSAccessObjectFactory()
+				.getDataTransferOperations(irodsAccount);
+		IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(irodsAccount).instanceIRODSFile(targetIrodsFile);
+
+		dto.putOperation(localFile, destFile, null, null);
+
+		IrodsSecurityManager manager = new IrodsSecurityManager();
+		manager.setIrodsAccessObjectFactory(irodsFileSystem.getIRODSAccessObjectFactory());
+		WebDavConfig config = new WebDavConfig();
+		config.setAuthScheme("STANDARD");
+		config.setHost(irodsAccount.getHost());
+		config.setPort(irodsAccount.getPort());
+		config.setZone(irodsAccount.getZone());
+		config.setDefaultStartingLocationEnum(DefaultStartingLocationEnum.USER_HOME);
+		manager.setWebDavConfig(config);
+
+		IrodsAuthService authService = new IrodsAuthService();
+		authService.setIrodsAccessObjectFactory(irodsFileSystem.getIRODSAccessObjectFactory());
+		authService.setWebDavConfig(config);
+		manager.setIrodsAuthService(authService);
+
+		IrodsFileSystemResourceFactory factory = new IrodsFileSystemResourceFactory(manager);
+		factory.setWebDavConfig(config);
+
+		LockManager lockManager = Mockito.mock(LockManager.class);
+		factory.setLockManager(lockManager);
+		IrodsFileContentService service = new IrodsFileContentService();
+		service.setIrodsAccessObjectFactory(irodsFileSystem.getIRODSAccessObjectFactory());
+		service.setWebDavConfig(config);
+
+		authService.authenticate(irodsAccount.getUserName(), irodsAccount.getPassword());
+
+		IrodsFileResource resource = new IrodsFileResource("host", factory, destFile, service);
+
+		// two ranges of one request, read from the same handle
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.sendContent(out, new Range(100L, 199L), null, null);
+		Assert.assertArrayEquals("wrong middle range", Arrays.copyOfRange(expected, 100, 200), out.toByteArray());
+
+		out = new ByteArrayOutputStream();
+		resource.sendContent(out, new Range(null, 50L), null, null);
+		Assert.assertArrayEquals("wrong suffix range", Arrays.copyOfRange(expected, 950, 1000), out.toByteArray());
+
+		out = new ByteArrayOutputStream();
+		resource.sendContent(out, new Range(990L, null), null, null);
+		Assert.assertArrayEquals("wrong open range", Arrays.copyOfRange(expected, 990, 1000), out.toByteArray());
+
+	}
+
 	@Test
 	public void testCopyToCol() throws Exception {
 		// generate a local scratch file
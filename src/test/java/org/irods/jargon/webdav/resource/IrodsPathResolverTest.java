@@ -0,0 +1,47 @@
+package org.irods.jargon.webdav.resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IrodsPathResolverTest {
+
+	private static final String HOME = "/zone/home/test1";
+
+	@Test
+	public void testRelativeToBase() throws Exception {
+		Assert.assertEquals(HOME + "/a/b.txt", IrodsPathResolver.resolveAbsolutePath(HOME, "/a/b.txt"));
+		Assert.assertEquals(HOME + "/a/b", IrodsPathResolver.resolveAbsolutePath(HOME + "/", "a//b/"));
+	}
+
+	@Test
+	public void testBaseItself() throws Exception {
+		Assert.assertEquals(HOME, IrodsPathResolver.resolveAbsolutePath(HOME, HOME));
+		Assert.assertEquals(HOME, IrodsPathResolver.resolveAbsolutePath(HOME, "/"));
+		Assert.assertEquals(HOME, IrodsPathResolver.resolveAbsolutePath(HOME, ""));
+	}
+
+	@Test
+	public void testAlreadyUnderBase() throws Exception {
+		Assert.assertEquals(HOME + "/sub", IrodsPathResolver.resolveAbsolutePath(HOME, HOME + "/sub"));
+	}
+
+	@Test
+	public void testSiblingWithCommonPrefixIsRelative() throws Exception {
+		Assert.assertEquals(HOME + "/zone/home/test10",
+				IrodsPathResolver.resolveAbsolutePath(HOME, "/zone/home/test10"));
+	}
+
+	@Test
+	public void testRootBase() throws Exception {
+		Assert.assertEquals("/zone/home", IrodsPathResolver.resolveAbsolutePath("/", "/zone/home"));
+		Assert.assertEquals("/", IrodsPathResolver.resolveAbsolutePath("/", "/"));
+	}
+
+	@Test
+	public void testDotSegments() throws Exception {
+		Assert.assertEquals(HOME + "/b", IrodsPathResolver.resolveAbsolutePath(HOME, "/a/./../b"));
+		Assert.assertEquals("should not climb above base", HOME + "/b",
+				IrodsPathResolver.resolveAbsolutePath(HOME, "/../../b"));
+	}
+
+}
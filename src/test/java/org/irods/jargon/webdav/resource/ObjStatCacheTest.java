@@ -0,0 +1,95 @@
+package org.irods.jargon.webdav.resource;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ObjStatCacheTest {
+
+	private IRODSAccount account(final String userName) throws Exception {
+		return IRODSAccount.instance("host", 1247, userName, "password", "", "zone", "");
+	}
+
+	@Test
+	public void testHeldPerUser() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100);
+		ObjStat objStat = new ObjStat();
+		cache.put(account("test1"), "/zone/home/test1/a", objStat);
+		Assert.assertSame("should hold stat", objStat, cache.get(account("test1"), "/zone/home/test1/a"));
+		Assert.assertNull("should not share between users", cache.get(account("test2"), "/zone/home/test1/a"));
+	}
+
+	@Test
+	public void testInvalidateDropsPathAndParentForAllUsers() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100);
+		cache.put(account("test1"), "/zone/home/shared/a", new ObjStat());
+		cache.put(account("test2"), "/zone/home/shared/a", new ObjStat());
+		cache.put(account("test1"), "/zone/home/shared", new ObjStat());
+		cache.put(account("test1"), "/zone/home/shared/b", new ObjStat());
+		cache.invalidate("/zone/home/shared/a");
+		Assert.assertNull("should drop path", cache.get(account("test1"), "/zone/home/shared/a"));
+		Assert.assertNull("should drop path for other users", cache.get(account("test2"), "/zone/home/shared/a"));
+		Assert.assertNull("should drop parent", cache.get(account("test1"), "/zone/home/shared"));
+		Assert.assertNotNull("should keep sibling", cache.get(account("test1"), "/zone/home/shared/b"));
+	}
+
+	@Test
+	public void testInvalidateTreeDropsChildren() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100);
+		cache.put(account("test1"), "/zone/home/test1/dir/sub/file", new ObjStat());
+		cache.put(account("test1"), "/zone/home/test1/dir2", new ObjStat());
+		cache.invalidateTree("/zone/home/test1/dir");
+		Assert.assertNull("should drop child", cache.get(account("test1"), "/zone/home/test1/dir/sub/file"));
+		Assert.assertNotNull("should keep collection with common prefix",
+				cache.get(account("test1"), "/zone/home/test1/dir2"));
+	}
+
+	@Test
+	public void testAbsentInvalidatedOnCreate() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100, 60000, 100);
+		cache.putAbsent(account("test1"), "/zone/home/test1/.DS_Store");
+		Assert.assertTrue("should hold absent path", cache.isKnownAbsent(account("test1"), "/zone/home/test1/.DS_Store"));
+		Assert.assertFalse("should not share between users",
+				cache.isKnownAbsent(account("test2"), "/zone/home/test1/.DS_Store"));
+		cache.invalidate("/zone/home/test1/.DS_Store");
+		Assert.assertFalse("should drop absent path once created",
+				cache.isKnownAbsent(account("test1"), "/zone/home/test1/.DS_Store"));
+	}
+
+	@Test
+	public void testAbsentDisabledByDefault() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100);
+		cache.putAbsent(account("test1"), "/zone/home/test1/.DS_Store");
+		Assert.assertFalse("should not hold absent paths",
+				cache.isKnownAbsent(account("test1"), "/zone/home/test1/.DS_Store"));
+	}
+
+	@Test
+	public void testInvalidateKeepsChildren() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 100);
+		cache.put(account("test1"), "/zone/home/test1/dir/file", new ObjStat());
+		cache.invalidate("/zone/home/test1/dir");
+		Assert.assertNotNull("only a tree invalidation drops children",
+				cache.get(account("test1"), "/zone/home/test1/dir/file"));
+	}
+
+	@Test
+	public void testEntriesExpirePerUser() throws Exception {
+		ObjStatCache cache = new ObjStatCache(200, 100);
+		cache.put(account("test1"), "/zone/home/shared/a", new ObjStat());
+		Thread.sleep(120);
+		cache.put(account("test2"), "/zone/home/shared/a", new ObjStat());
+		Thread.sleep(120);
+		Assert.assertNull("first user's entry should expire", cache.get(account("test1"), "/zone/home/shared/a"));
+		Assert.assertNotNull("later entry should be held for its own time",
+				cache.get(account("test2"), "/zone/home/shared/a"));
+	}
+
+	@Test
+	public void testParentOf() throws Exception {
+		Assert.assertEquals("/zone/home", ObjStatCache.parentOf("/zone/home/test1"));
+		Assert.assertEquals("/", ObjStatCache.parentOf("/zone"));
+	}
+
+}
@@ -0,0 +1,225 @@
+package org.irods.jargon.webdav.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.irods.jargon.webdav.utils.BufferPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelDownloadInputStreamTest {
+
+	private ExecutorService executor;
+	private final BufferPool bufferPool = new BufferPool(1024 * 1024);
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Serves a byte array, counting readers released and the highest chunk
+	 * position read
+	 */
+	private static class ArraySource implements ParallelDownloadInputStream.ChunkSource {
+		private final byte[] content;
+		private final AtomicInteger released = new AtomicInteger();
+		private final AtomicLong furthestRead = new AtomicLong();
+		private volatile long failAt = -1;
+		private volatile boolean failOnClose = false;
+
+		ArraySource(final byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		public ParallelDownloadInputStream.RangeReader openReader() {
+			return new ParallelDownloadInputStream.RangeReader() {
+				@Override
+				public int read(final long position, final byte[] buffer, final int offset, final int length)
+						throws IOException {
+					if (failAt >= 0 && position >= failAt) {
+						throw new IOException("lost connection");
+					}
+					if (position >= content.length) {
+						return -1;
+					}
+					/*
+					 * short reads, as a network stream gives
+					 */
+					int read = (int) Math.min(Math.min(length, 1000), content.length - position);
+					System.arraycopy(content, (int) position, buffer, offset, read);
+					long end = position + read;
+					long seen;
+					while ((seen = furthestRead.get()) < end && !furthestRead.compareAndSet(seen, end)) {
+						// retry
+					}
+					return read;
+				}
+
+				@Override
+				public void close() {
+					if (failOnClose) {
+						throw new IllegalStateException("connection already gone");
+					}
+				}
+			};
+		}
+
+		@Override
+		public void releaseThread() {
+			released.incrementAndGet();
+		}
+	}
+
+	private static byte[] content(final int length) {
+		byte[] content = new byte[length];
+		new Random(length).nextBytes(content);
+		return content;
+	}
+
+	private static byte[] readAll(final ParallelDownloadInputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[777];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testContentInOrder() throws Exception {
+		byte[] content = content(100003);
+		ArraySource source = new ArraySource(content);
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 4096, 6, 4, executor,
+				source, bufferPool);
+		Assert.assertNotNull(in);
+		Assert.assertArrayEquals(content, readAll(in));
+	}
+
+	@Test
+	public void testSingleByteReads() throws Exception {
+		byte[] content = content(5000);
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 512, 2, 3, executor,
+				new ArraySource(content), bufferPool);
+		for (int i = 0; i < content.length; i++) {
+			Assert.assertEquals(content[i] & 0xff, in.read());
+		}
+		Assert.assertEquals(-1, in.read());
+		in.close();
+	}
+
+	@Test
+	public void testReadsAheadOnlyToWindow() throws Exception {
+		byte[] content = content(100000);
+		ArraySource source = new ArraySource(content);
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 1000, 4, 8, executor,
+				source, bufferPool);
+		Thread.sleep(300);
+		Assert.assertTrue("read past window", source.furthestRead.get() <= 3 * 1000);
+		Assert.assertArrayEquals(content, readAll(in));
+	}
+
+	@Test
+	public void testReadFailurePassedOn() throws Exception {
+		byte[] content = content(50000);
+		ArraySource source = new ArraySource(content);
+		source.failAt = 20000;
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 1000, 4, 4, executor,
+				source, bufferPool);
+		byte[] buffer = new byte[1000];
+		long total = 0;
+		try {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				total += read;
+			}
+			Assert.fail("should pass on the read failure");
+		} catch (IOException e) {
+			// expected
+		}
+		Assert.assertTrue(total <= 20000);
+	}
+
+	@Test
+	public void testCloseStopsThreads() throws Exception {
+		byte[] content = content(100000);
+		ArraySource source = new ArraySource(content);
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 1000, 2, 3, executor,
+				source, bufferPool);
+		Assert.assertTrue(in.read() >= 0);
+		in.close();
+		long waited = 0;
+		while (source.released.get() < 3 && waited < 2000) {
+			Thread.sleep(10);
+			waited += 10;
+		}
+		Assert.assertEquals(3, source.released.get());
+		Assert.assertTrue(source.furthestRead.get() < content.length);
+	}
+
+	@Test
+	public void testThreadReleasedWhenReaderCloseFails() throws Exception {
+		byte[] content = content(10000);
+		ArraySource source = new ArraySource(content);
+		source.failOnClose = true;
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 1000, 4, 3, executor,
+				source, bufferPool);
+		Assert.assertArrayEquals(content, readAll(in));
+		long waited = 0;
+		while (source.released.get() < 3 && waited < 2000) {
+			Thread.sleep(10);
+			waited += 10;
+		}
+		Assert.assertEquals("each thread should release its connection", 3, source.released.get());
+	}
+
+	@Test
+	public void testNullWhenNoThreadFree() {
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(10000, 1000, 4, 4,
+				new java.util.concurrent.Executor() {
+					@Override
+					public void execute(final Runnable command) {
+						throw new RejectedExecutionException("busy");
+					}
+				}, new ArraySource(content(10000)), bufferPool);
+		Assert.assertNull(in);
+	}
+
+	@Test
+	public void testFewerThreadsWhenSomeRefused() throws Exception {
+		byte[] content = content(30000);
+		final CountDownLatch accepted = new CountDownLatch(1);
+		ParallelDownloadInputStream in = ParallelDownloadInputStream.start(content.length, 1000, 4, 4,
+				new java.util.concurrent.Executor() {
+					@Override
+					public void execute(final Runnable command) {
+						if (accepted.getCount() == 0) {
+							throw new RejectedExecutionException("busy");
+						}
+						accepted.countDown();
+						executor.execute(command);
+					}
+				}, new ArraySource(content), bufferPool);
+		Assert.assertTrue(accepted.await(1, TimeUnit.SECONDS));
+		Assert.assertArrayEquals(content, readAll(in));
+	}
+
+}
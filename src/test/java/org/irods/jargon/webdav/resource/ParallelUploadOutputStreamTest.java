@@ -0,0 +1,218 @@
+package org.irods.jargon.webdav.resource;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.webdav.utils.BufferPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelUploadOutputStreamTest {
+
+	private ExecutorService executor;
+	private final BufferPool bufferPool = new BufferPool(1024 * 1024);
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Writes into a byte array, optionally holding every write until released
+	 */
+	private static class ArraySink implements ParallelUploadOutputStream.ChunkSink {
+		private final byte[] content;
+		private final AtomicInteger released = new AtomicInteger();
+		private final AtomicInteger writes = new AtomicInteger();
+		private volatile CountDownLatch hold = new CountDownLatch(0);
+		private volatile long failAt = -1;
+		private volatile boolean failOnClose = false;
+
+		ArraySink(final int length) {
+			content = new byte[length];
+		}
+
+		@Override
+		public ParallelUploadOutputStream.RangeWriter openWriter() {
+			return new ParallelUploadOutputStream.RangeWriter() {
+				@Override
+				public void write(final long position, final byte[] buffer, final int offset, final int length)
+						throws IOException {
+					try {
+						hold.await();
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					}
+					if (failAt >= 0 && position >= failAt) {
+						throw new IOException("lost connection");
+					}
+					synchronized (content) {
+						System.arraycopy(buffer, offset, content, (int) position, length);
+					}
+					writes.incrementAndGet();
+				}
+
+				@Override
+				public void close() {
+					if (failOnClose) {
+						throw new IllegalStateException("connection already gone");
+					}
+				}
+			};
+		}
+
+		@Override
+		public void releaseThread() {
+			released.incrementAndGet();
+		}
+	}
+
+	private static byte[] content(final int length) {
+		byte[] content = new byte[length];
+		new Random(length).nextBytes(content);
+		return content;
+	}
+
+	private static void writeAll(final ParallelUploadOutputStream out, final byte[] content) throws IOException {
+		int offset = 0;
+		while (offset < content.length) {
+			int count = Math.min(777, content.length - offset);
+			out.write(content, offset, count);
+			offset += count;
+		}
+	}
+
+	@Test
+	public void testContentAtOffsets() throws Exception {
+		byte[] content = content(100003);
+		ArraySink sink = new ArraySink(content.length);
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(4096, 6, 4, executor, sink, bufferPool);
+		Assert.assertNotNull(out);
+		writeAll(out, content);
+		out.close();
+		Assert.assertEquals(content.length, out.getBytesWritten());
+		Assert.assertArrayEquals(content, sink.content);
+		Assert.assertEquals(4, sink.released.get());
+	}
+
+	@Test
+	public void testWriterWaitsOnceWindowIsFull() throws Exception {
+		final byte[] content = content(20000);
+		final ArraySink sink = new ArraySink(content.length);
+		sink.hold = new CountDownLatch(1);
+		final ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 3, 2, executor, sink, bufferPool);
+		final AtomicInteger accepted = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(1);
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < content.length; i += 1000) {
+						out.write(content, i, 1000);
+						accepted.addAndGet(1000);
+					}
+					out.close();
+				} catch (IOException e) {
+					// checked below
+				}
+				done.countDown();
+			}
+		});
+		writer.setDaemon(true);
+		writer.start();
+
+		Assert.assertFalse("should wait while chunks are unwritten", done.await(300, TimeUnit.MILLISECONDS));
+		Assert.assertTrue("took more than the window", accepted.get() <= 3000);
+
+		sink.hold.countDown();
+		Assert.assertTrue(done.await(2, TimeUnit.SECONDS));
+		Assert.assertArrayEquals(content, sink.content);
+	}
+
+	@Test
+	public void testWriteFailurePassedOn() throws Exception {
+		byte[] content = content(50000);
+		ArraySink sink = new ArraySink(content.length);
+		sink.failAt = 20000;
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 4, 4, executor, sink, bufferPool);
+		try {
+			writeAll(out, content);
+			out.close();
+			Assert.fail("should pass on the write failure");
+		} catch (IOException e) {
+			// expected
+		}
+		out.abort();
+		Assert.assertEquals(4, sink.released.get());
+	}
+
+	@Test
+	public void testThreadReleasedWhenWriterCloseFails() throws Exception {
+		byte[] content = content(10000);
+		ArraySink sink = new ArraySink(content.length);
+		sink.failOnClose = true;
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 4, 3, executor, sink, bufferPool);
+		writeAll(out, content);
+		try {
+			out.close();
+			Assert.fail("should pass on the close failure");
+		} catch (IOException e) {
+			// expected
+		}
+		Assert.assertEquals("each thread should release its connection", 3, sink.released.get());
+	}
+
+	@Test
+	public void testAbortStopsThreads() throws Exception {
+		byte[] content = content(100000);
+		ArraySink sink = new ArraySink(content.length);
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 4, 3, executor, sink, bufferPool);
+		out.write(content, 0, 10000);
+		out.abort();
+		Assert.assertEquals(3, sink.released.get());
+		Assert.assertTrue(sink.writes.get() <= 10);
+		try {
+			out.write(content, 0, 1);
+			Assert.fail("should refuse writes once aborted");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testShortLastChunk() throws Exception {
+		byte[] content = content(2500);
+		ArraySink sink = new ArraySink(content.length);
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 2, 2, executor, sink, bufferPool);
+		writeAll(out, content);
+		out.close();
+		Assert.assertArrayEquals(content, sink.content);
+		Assert.assertEquals(3, sink.writes.get());
+	}
+
+	@Test
+	public void testNullWhenNoThreadFree() {
+		ParallelUploadOutputStream out = ParallelUploadOutputStream.start(1000, 4, 4, new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				throw new RejectedExecutionException("busy");
+			}
+		}, new ArraySink(10), bufferPool);
+		Assert.assertNull(out);
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.irods.jargon.webdav.resource;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.DefaultStartingLocationEnum;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import io.milton.http.fs.NullSecurityManager;
+
+/**
+ * Checks {@link IrodsFileSystemResourceFactory#resolvePath(String, IrodsRequestContext)}
+ * builds one <code>IRODSFile</code> per request path, where it used to build
+ * one per path segment. The file factory is mocked, so no iRODS is needed.
+ *
+ */
+public class PathResolutionTest {
+
+	private static final String URL = "/projects/genomics/2017/run-0042/samples/batch-7/reads/sample-19.fastq.gz";
+
+	private IRODSAccount irodsAccount;
+	private IRODSFileFactory irodsFileFactory;
+	private IrodsRequestContext requestContext;
+	private WebDavConfig webDavConfig;
+	private IrodsFileSystemResourceFactory factory;
+	private String home;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "", "zone", "");
+		home = MiscIRODSUtils.buildIRODSUserHomeForAccountUsingDefaultScheme(irodsAccount);
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+		AuthResponse authResponse = new AuthResponse();
+		authResponse.setAuthenticatingIRODSAccount(irodsAccount);
+		requestContext = new IrodsRequestContext(irodsAccessObjectFactory, authResponse, null);
+
+		webDavConfig = new WebDavConfig();
+		webDavConfig.setDefaultStartingLocationEnum(DefaultStartingLocationEnum.USER_HOME);
+		factory = new IrodsFileSystemResourceFactory(new NullSecurityManager());
+		factory.setWebDavConfig(webDavConfig);
+	}
+
+	@Test
+	public void testOneFilePerResolve() throws Exception {
+		IRODSFile file = Mockito.mock(IRODSFile.class);
+		Mockito.when(irodsFileFactory.instanceIRODSFile(home + URL)).thenReturn(file);
+
+		Assert.assertSame("should return the file for the resolved path", file,
+				factory.resolvePath(URL, requestContext));
+		Mockito.verify(irodsFileFactory, Mockito.times(1)).instanceIRODSFile(home + URL);
+		Mockito.verifyNoMoreInteractions(irodsFileFactory);
+	}
+
+	@Test
+	public void testRepeatedResolvesBuildNoSegmentFiles() throws Exception {
+		int resolves = 100;
+		for (int i = 0; i < resolves; i++) {
+			factory.resolvePath(URL, requestContext);
+		}
+		Mockito.verify(irodsFileFactory, Mockito.times(resolves)).instanceIRODSFile(home + URL);
+		Mockito.verify(irodsFileFactory, Mockito.never()).instanceIRODSFile(Mockito.anyString(),
+				Mockito.anyString());
+		Mockito.verifyNoMoreInteractions(irodsFileFactory);
+	}
+
+	@Test
+	public void testDotSegmentsResolvedBeforeFileBuilt() throws Exception {
+		factory.resolvePath("/a/./b/../c//d", requestContext);
+		Mockito.verify(irodsFileFactory, Mockito.times(1)).instanceIRODSFile(home + "/a/c/d");
+		Mockito.verifyNoMoreInteractions(irodsFileFactory);
+	}
+
+	@Test
+	public void testPathUnderHomeTakenAsAbsolute() throws Exception {
+		factory.resolvePath(home + "/a", requestContext);
+		Mockito.verify(irodsFileFactory, Mockito.times(1)).instanceIRODSFile(home + "/a");
+		Mockito.verifyNoMoreInteractions(irodsFileFactory);
+	}
+
+	@Test
+	public void testRootWhenConfiguredAsRoot() throws Exception {
+		webDavConfig.setDefaultStartingLocationEnum(DefaultStartingLocationEnum.ROOT);
+		factory.resolvePath("/", requestContext);
+		Mockito.verify(irodsFileFactory, Mockito.times(1)).instanceIRODSFile("/");
+		Mockito.verifyNoMoreInteractions(irodsFileFactory);
+	}
+
+}
@@ -0,0 +1,152 @@
+package org.irods.jargon.webdav.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.auth.AuthResponse;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.webdav.authfilter.IrodsRequestContext;
+import org.irods.jargon.webdav.config.WebDavConfig;
+import org.irods.jargon.webdav.exception.WebDavRuntimeException;
+import org.irods.jargon.webdav.listing.ListingCache;
+import org.irods.jargon.webdav.listing.ListingEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import io.milton.http.fs.NullSecurityManager;
+
+/**
+ * Checks resources drop the cached stats and listings of what they change. The
+ * access objects are mocked, so no iRODS is needed.
+ *
+ */
+public class ResourceCacheInvalidationTest {
+
+	private static final String PARENT = "/zone/home/test1/dir";
+	private static final String DEST_PARENT = "/zone/home/test1/dest";
+
+	private IRODSAccount irodsAccount;
+	private IRODSFileFactory irodsFileFactory;
+	private DataTransferOperations dataTransferOperations;
+	private IrodsRequestContext requestContext;
+	private IrodsFileSystemResourceFactory factory;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "test1", "password", "/zone/home/test1", "zone", "");
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		irodsFileFactory = Mockito.mock(IRODSFileFactory.class);
+		dataTransferOperations = Mockito.mock(DataTransferOperations.class);
+		Mockito.when(irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)).thenReturn(irodsFileFactory);
+		Mockito.when(irodsAccessObjectFactory.getDataTransferOperations(irodsAccount))
+				.thenReturn(dataTransferOperations);
+		AuthResponse authResponse = new AuthResponse();
+		authResponse.setAuthenticatingIRODSAccount(irodsAccount);
+		requestContext = new IrodsRequestContext(irodsAccessObjectFactory, authResponse, null);
+
+		factory = new IrodsFileSystemResourceFactory(new NullSecurityManager());
+		factory.setWebDavConfig(new WebDavConfig());
+	}
+
+	private IRODSFile file(final String parentPath, final String name, final boolean collection)
+			throws JargonException {
+		String absolutePath = parentPath + "/" + name;
+		IRODSFile file = Mockito.mock(IRODSFile.class);
+		Mockito.when(file.getAbsolutePath()).thenReturn(absolutePath);
+		Mockito.when(file.getName()).thenReturn(name);
+		Mockito.when(file.getParent()).thenReturn(parentPath);
+		Mockito.when(file.isDirectory()).thenReturn(collection);
+		Mockito.when(file.isFile()).thenReturn(!collection);
+		Mockito.when(irodsFileFactory.instanceIRODSFile(absolutePath)).thenReturn(file);
+		Mockito.when(irodsFileFactory.instanceIRODSFile(parentPath, name)).thenReturn(file);
+		return file;
+	}
+
+	private IrodsDirectoryResource destinationResource() throws JargonException {
+		IRODSFile dest = file("/zone/home/test1", "dest", true);
+		return new IrodsDirectoryResource("host", factory, dest,
+				ListingEntry.forPath(DEST_PARENT, true, 0L, 0L, 0L, "test1", "zone"), null, requestContext);
+	}
+
+	/**
+	 * Hold a stat of the path and listings of it and its destination parent,
+	 * as a PROPFIND of both before the copy would
+	 */
+	private void holdCached(final String absolutePath) {
+		factory.getObjStatCache().put(irodsAccount, absolutePath, new ObjStat());
+		ListingCache listingCache = factory.getCollectionListingService().getListingCache();
+		listingCache.put(irodsAccount, DEST_PARENT, 1000L, new ArrayList<ListingEntry>());
+		listingCache.put(irodsAccount, absolutePath, 1000L, new ArrayList<ListingEntry>());
+	}
+
+	private void assertDropped(final String absolutePath) {
+		Assert.assertNull("should drop stat of copy", factory.getObjStatCache().get(irodsAccount, absolutePath));
+		ListingCache listingCache = factory.getCollectionListingService().getListingCache();
+		List<ListingEntry> parentListing = listingCache.get(irodsAccount, DEST_PARENT, 1000L);
+		Assert.assertNull("should drop listing of destination collection", parentListing);
+		Assert.assertNull("should drop listing of copy", listingCache.get(irodsAccount, absolutePath, 1000L));
+	}
+
+	@Test
+	public void testFileCopyInvalidatesDestination() throws Exception {
+		IRODSFile source = file(PARENT, "a.txt", false);
+		IrodsFileResource resource = new IrodsFileResource("host", factory, source,
+				ListingEntry.forPath(PARENT + "/a.txt", false, 10L, 0L, 0L, "test1", "zone"), null, requestContext);
+		IrodsDirectoryResource destination = destinationResource();
+		IRODSFile dest = file(DEST_PARENT, "b.txt", false);
+		holdCached(dest.getAbsolutePath());
+
+		resource.copyTo(destination, "b.txt");
+		Mockito.verify(dataTransferOperations).copy(source, dest, null, null);
+		assertDropped(dest.getAbsolutePath());
+	}
+
+	@Test
+	public void testCollectionCopyInvalidatesDestinationTree() throws Exception {
+		IRODSFile source = file(PARENT, "sub", true);
+		IrodsDirectoryResource resource = new IrodsDirectoryResource("host", factory, source,
+				ListingEntry.forPath(PARENT + "/sub", true, 0L, 0L, 0L, "test1", "zone"), null, requestContext);
+		IrodsDirectoryResource destination = destinationResource();
+		IRODSFile dest = file(DEST_PARENT, "sub2", true);
+		String child = dest.getAbsolutePath() + "/nested/c.txt";
+		holdCached(dest.getAbsolutePath());
+		factory.getObjStatCache().put(irodsAccount, child, new ObjStat());
+
+		resource.copyTo(destination, "sub2");
+		Mockito.verify(dataTransferOperations).copy(source, dest, null, null);
+		assertDropped(dest.getAbsolutePath());
+		Assert.assertNull("should drop stats under the copy", factory.getObjStatCache().get(irodsAccount, child));
+	}
+
+	@Test
+	public void testFailedCopyStillInvalidatesDestination() throws Exception {
+		IRODSFile source = file(PARENT, "a.txt", false);
+		IrodsFileResource resource = new IrodsFileResource("host", factory, source,
+				ListingEntry.forPath(PARENT + "/a.txt", false, 10L, 0L, 0L, "test1", "zone"), null, requestContext);
+		IrodsDirectoryResource destination = destinationResource();
+		IRODSFile dest = file(DEST_PARENT, "b.txt", false);
+		factory.getObjStatCache().putAbsent(irodsAccount, dest.getAbsolutePath());
+		holdCached(dest.getAbsolutePath());
+		Mockito.doThrow(new JargonException("copy failed")).when(dataTransferOperations).copy(source, dest, null,
+				null);
+
+		try {
+			resource.copyTo(destination, "b.txt");
+			Assert.fail("should have thrown");
+		} catch (WebDavRuntimeException e) {
+			// expected, the copy may have been partly done
+		}
+		assertDropped(dest.getAbsolutePath());
+		Assert.assertFalse("should drop absent entry of the copy",
+				factory.getObjStatCache().isKnownAbsent(irodsAccount, dest.getAbsolutePath()));
+	}
+
+}
@@ -0,0 +1,61 @@
+package org.irods.jargon.webdav.tls;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedSslContextTest {
+
+	@Test
+	public void testSocketFactoryInstrumented() throws Exception {
+		SharedSslContext shared = new SharedSslContext("TLS", 50, 600, new TlsMetrics());
+		Assert.assertTrue("socket factory should be instrumented",
+				shared.getSslContext().getSocketFactory() instanceof InstrumentedSSLSocketFactory);
+		Assert.assertEquals("wrong session cache size", 50,
+				shared.getSslContext().getClientSessionContext().getSessionCacheSize());
+		Assert.assertEquals("wrong session timeout", 600,
+				shared.getSslContext().getClientSessionContext().getSessionTimeout());
+	}
+
+	@Test
+	public void testInstalledOnceAndPreviousDefaultRestored() throws Exception {
+		SSLContext original = SSLContext.getDefault();
+		SharedSslContext first = SharedSslContext.installAsDefault("TLS", 50, 600);
+		try {
+			SharedSslContext second = SharedSslContext.installAsDefault("TLS", 10, 60);
+			Assert.assertSame("second install should get the installed context", first, second);
+			Assert.assertSame("should be the JVM default", first.getSslContext(), SSLContext.getDefault());
+			Assert.assertTrue("default socket factory should be the instrumented one",
+					SSLSocketFactory.getDefault() instanceof InstrumentedSSLSocketFactory);
+			Assert.assertEquals("first settings should stay", 50,
+					SSLContext.getDefault().getClientSessionContext().getSessionCacheSize());
+
+			SharedSslContext.releaseDefault();
+			Assert.assertSame("should stay installed while still in use", first.getSslContext(),
+					SSLContext.getDefault());
+		} finally {
+			SharedSslContext.releaseDefault();
+		}
+		Assert.assertSame("previous default should be restored", original, SSLContext.getDefault());
+		SharedSslContext.releaseDefault();
+		Assert.assertSame("extra release should change nothing", original, SSLContext.getDefault());
+	}
+
+	@Test
+	public void testMetricsRecordHandshakes() throws Exception {
+		TlsMetrics metrics = new TlsMetrics();
+		metrics.recordHandshake(40, false);
+		metrics.recordHandshake(10, true);
+		metrics.recordHandshake(4, true);
+		Assert.assertEquals("wrong handshake count", 3, metrics.getHandshakeCount());
+		Assert.assertEquals("wrong resumed count", 2, metrics.getResumedHandshakeCount());
+		Assert.assertEquals("wrong full count", 1, metrics.getFullHandshakeCount());
+		Assert.assertEquals("wrong max", 40, metrics.getMaxHandshakeMillis());
+		Assert.assertEquals("wrong average", 18, metrics.getAverageHandshakeMillis());
+		metrics.reset();
+		Assert.assertEquals("should reset", 0, metrics.getHandshakeCount());
+	}
+
+}
@@ -1,16 +1,54 @@
 package org.irods.jargon.webdav.unittest;
 
+import org.irods.jargon.webdav.authfilter.AuthFailureThrottleTest;
+import org.irods.jargon.webdav.authfilter.IrodsAuthServiceTest;
+import org.irods.jargon.webdav.authfilter.PamPasswordCacheTest;
+import org.irods.jargon.webdav.authfilter.SessionTokenServiceTest;
+import org.irods.jargon.webdav.config.StartupConfiguratorTest;
+import org.irods.jargon.webdav.filter.ReadinessFilterTest;
+import org.irods.jargon.webdav.filter.RequestExecutionFilterTest;
+import org.irods.jargon.webdav.filter.StreamingPropFindFilterTest;
+import org.irods.jargon.webdav.listing.ListingCacheTest;
+import org.irods.jargon.webdav.listing.ListingEntryTest;
+import org.irods.jargon.webdav.listing.ListingPaginationTest;
+import org.irods.jargon.webdav.listing.MultistatusWriterTest;
+import org.irods.jargon.webdav.listing.PagePrefetcherTest;
+import org.irods.jargon.webdav.listing.ParallelTreeWalkTest;
+import org.irods.jargon.webdav.listing.PropFindRequestTest;
 import org.irods.jargon.webdav.resource.FileContentServiceTest;
 import org.irods.jargon.webdav.resource.IrodsDirectoryResourceTest;
 import org.irods.jargon.webdav.resource.IrodsFileResourceTest;
 import org.irods.jargon.webdav.resource.IrodsFileSystemResourceFactoryTest;
+import org.irods.jargon.webdav.resource.IrodsPathResolverTest;
+import org.irods.jargon.webdav.resource.ObjStatCacheTest;
+import org.irods.jargon.webdav.resource.ParallelDownloadInputStreamTest;
+import org.irods.jargon.webdav.resource.ParallelUploadOutputStreamTest;
+import org.irods.jargon.webdav.resource.PathResolutionTest;
+import org.irods.jargon.webdav.resource.ResourceCacheInvalidationTest;
+import org.irods.jargon.webdav.tls.SharedSslContextTest;
+import org.irods.jargon.webdav.utils.BufferPoolAllocationTest;
+import org.irods.jargon.webdav.utils.BufferPoolTest;
+import org.irods.jargon.webdav.utils.ExpiringCacheTest;
+import org.irods.jargon.webdav.utils.GlobMatcherTest;
+import org.irods.jargon.webdav.utils.IrodsAccessGateTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({ IrodsFileResourceTest.class, IrodsDirectoryResourceTest.class,
-	IrodsFileSystemResourceFactoryTest.class, FileContentServiceTest.class })
+	IrodsFileSystemResourceFactoryTest.class, FileContentServiceTest.class, ExpiringCacheTest.class,
+	SessionTokenServiceTest.class, PamPasswordCacheTest.class, IrodsAccessGateTest.class,
+	SharedSslContextTest.class, ObjStatCacheTest.class,
+	GlobMatcherTest.class, IrodsPathResolverTest.class, ListingEntryTest.class,
+	PropFindRequestTest.class, MultistatusWriterTest.class, ListingCacheTest.class, ParallelTreeWalkTest.class,
+	PagePrefetcherTest.class, ParallelDownloadInputStreamTest.class,
+	ParallelUploadOutputStreamTest.class, BufferPoolTest.class,
+	StartupConfiguratorTest.class, IrodsAuthServiceTest.class,
+	AuthFailureThrottleTest.class, ReadinessFilterTest.class, PathResolutionTest.class,
+	ListingPaginationTest.class, BufferPoolAllocationTest.class,
+	RequestExecutionFilterTest.class, ResourceCacheInvalidationTest.class,
+	StreamingPropFindFilterTest.class })
 public class AllTests {
 
 }
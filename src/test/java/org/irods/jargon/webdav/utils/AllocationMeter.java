@@ -0,0 +1,86 @@
+package org.irods.jargon.webdav.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+import org.junit.Assume;
+
+/**
+ * Counts the bytes the test thread allocates running a task, for tests that
+ * check a code path allocates less, or nothing. Counting needs the HotSpot
+ * <code>com.sun.management.ThreadMXBean</code>, tests get the meter from
+ * {@link #assumeAvailable()} so they are skipped on JVMs without it.
+ *
+ */
+public class AllocationMeter {
+
+	private static final String THREAD_MX_BEAN_CLASS = "com.sun.management.ThreadMXBean";
+
+	private final com.sun.management.ThreadMXBean threadMXBean;
+
+	/**
+	 * Results of the task are kept so its work is not optimized away
+	 */
+	private Object sink;
+
+	private AllocationMeter(final com.sun.management.ThreadMXBean threadMXBean) {
+		this.threadMXBean = threadMXBean;
+	}
+
+	/**
+	 * Get a meter, skipping the calling test if this JVM cannot count
+	 * allocations per thread
+	 *
+	 * @return {@link AllocationMeter}
+	 */
+	public static AllocationMeter assumeAvailable() {
+		boolean available;
+		try {
+			available = Class.forName(THREAD_MX_BEAN_CLASS).isInstance(ManagementFactory.getThreadMXBean());
+		} catch (ClassNotFoundException e) {
+			available = false;
+		}
+		Assume.assumeTrue(available);
+
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+		threadMXBean.setThreadAllocatedMemoryEnabled(true);
+		return new AllocationMeter(threadMXBean);
+	}
+
+	/**
+	 * Run a task, first without counting so class loading and compilation are
+	 * left out, then counting
+	 *
+	 * @param task
+	 *            <code>Callable</code> to measure
+	 * @param warmUpRuns
+	 *            <code>int</code> with the runs before counting starts
+	 * @param runs
+	 *            <code>int</code> with the runs counted
+	 * @return <code>long</code> with the bytes allocated per counted run
+	 * @throws Exception
+	 */
+	public long bytesPerRun(final Callable<?> task, final int warmUpRuns, final int runs) throws Exception {
+		for (int i = 0; i < warmUpRuns; i++) {
+			sink = task.call();
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < runs; i++) {
+			sink = task.call();
+		}
+		long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+		return allocated / runs;
+	}
+
+	/**
+	 * @return <code>Object</code> with the result of the last run
+	 */
+	public Object getLastResult() {
+		return sink;
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.irods.jargon.webdav.utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks {@link BufferPool#copy} allocates nothing once warm, where a buffer
+ * allocated per transfer, as the upload copy did, costs one buffer per copy.
+ * The streams are stand-ins that allocate nothing, so what is counted is the
+ * copy loop and its buffer. No iRODS is needed.
+ *
+ */
+public class BufferPoolAllocationTest {
+
+	private static final int WARM_UP_COPIES = 3;
+	private static final int COPIES = 200;
+	private static final long[] TRANSFER_LENGTHS = { 64L * 1024, 4L * 1024 * 1024, 64L * 1024 * 1024 };
+
+	/**
+	 * Bytes per copy the pooled copy may show, what the measurement itself can
+	 * allocate
+	 */
+	private static final long ALLOWED_BYTES_PER_COPY = 16;
+
+	@Test
+	public void testPooledCopyAllocationFree() throws Exception {
+		AllocationMeter meter = AllocationMeter.assumeAvailable();
+		final BufferPool pool = new BufferPool(64L * 1024 * 1024);
+		final ZeroInputStream in = new ZeroInputStream();
+		final NullOutputStream out = new NullOutputStream();
+		Set<Integer> bufferSizes = new HashSet<Integer>();
+		for (final long length : TRANSFER_LENGTHS) {
+			bufferSizes.add(BufferPool.copyBufferSize(length));
+			long allocated = meter.bytesPerRun(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					in.reset(length);
+					pool.copy(in, out, length);
+					return null;
+				}
+			}, WARM_UP_COPIES, COPIES);
+			Assert.assertTrue("pooled copy of " + length + " bytes allocated " + allocated + " bytes per copy",
+					allocated <= ALLOWED_BYTES_PER_COPY);
+		}
+		Assert.assertEquals("each buffer size should be allocated once", bufferSizes.size(),
+				pool.getAllocations());
+	}
+
+	@Test
+	public void testPerTransferBufferAllocatedEachCopy() throws Exception {
+		AllocationMeter meter = AllocationMeter.assumeAvailable();
+		final ZeroInputStream in = new ZeroInputStream();
+		final NullOutputStream out = new NullOutputStream();
+		final long length = 4L * 1024 * 1024;
+		long allocated = meter.bytesPerRun(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				in.reset(length);
+				byte[] buffer = new byte[BufferPool.copyBufferSize(length)];
+				int read;
+				while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+					out.write(buffer, 0, read);
+				}
+				return null;
+			}
+		}, WARM_UP_COPIES, COPIES);
+		Assert.assertTrue("per transfer copy allocated " + allocated + " bytes per copy",
+				allocated >= BufferPool.copyBufferSize(length));
+	}
+
+	/**
+	 * Gives the requested length of bytes without touching the buffer
+	 */
+	private static final class ZeroInputStream extends InputStream {
+		private long remaining;
+
+		void reset(final long length) {
+			remaining = length;
+		}
+
+		@Override
+		public int read() {
+			if (remaining == 0) {
+				return -1;
+			}
+			remaining--;
+			return 0;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) {
+			if (remaining == 0) {
+				return -1;
+			}
+			int read = (int) Math.min(length, remaining);
+			remaining -= read;
+			return read;
+		}
+	}
+
+	private static final class NullOutputStream extends OutputStream {
+		private long written;
+
+		@Override
+		public void write(final int b) {
+			written++;
+		}
+
+		@Override
+		public void write(final byte[] buffer, final int offset, final int length) {
+			written += length;
+		}
+	}
+
+}
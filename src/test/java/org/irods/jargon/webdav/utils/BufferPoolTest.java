@@ -0,0 +1,84 @@
+package org.irods.jargon.webdav.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+	@Test
+	public void testServedFromSizeClass() {
+		BufferPool pool = new BufferPool(1024 * 1024);
+		Assert.assertEquals("smallest class", BufferPool.MIN_CLASS_SIZE, pool.acquire(1).length);
+		Assert.assertEquals("rounded up to class", 16 * 1024, pool.acquire(10000).length);
+		Assert.assertEquals("exact class", 64 * 1024, pool.acquire(64 * 1024).length);
+	}
+
+	@Test
+	public void testReleasedBufferReused() {
+		BufferPool pool = new BufferPool(1024 * 1024);
+		byte[] buffer = pool.acquire(20000);
+		pool.release(buffer);
+		Assert.assertEquals("released buffer should be kept", buffer.length, pool.getRetainedBytes());
+		Assert.assertSame("should reuse released buffer", buffer, pool.acquire(17000));
+		Assert.assertEquals(0, pool.getRetainedBytes());
+		Assert.assertEquals("only the first acquire allocates", 1, pool.getAllocations());
+	}
+
+	@Test
+	public void testRetainedBytesBounded() {
+		BufferPool pool = new BufferPool(64 * 1024);
+		for (int i = 0; i < 10; i++) {
+			pool.release(new byte[32 * 1024]);
+		}
+		Assert.assertEquals("should keep only up to the bound", 64 * 1024, pool.getRetainedBytes());
+	}
+
+	@Test
+	public void testZeroPoolKeepsNothing() {
+		BufferPool pool = new BufferPool(0);
+		byte[] buffer = pool.acquire(8192);
+		pool.release(buffer);
+		Assert.assertEquals(0, pool.getRetainedBytes());
+		Assert.assertNotSame(buffer, pool.acquire(8192));
+	}
+
+	@Test
+	public void testForeignAndOversizeBuffersNotKept() {
+		BufferPool pool = new BufferPool(64 * 1024 * 1024);
+		pool.release(new byte[10000]);
+		pool.release(new byte[100]);
+		byte[] oversize = pool.acquire(BufferPool.MAX_CLASS_SIZE + 1);
+		Assert.assertEquals(BufferPool.MAX_CLASS_SIZE + 1, oversize.length);
+		pool.release(oversize);
+		Assert.assertEquals(0, pool.getRetainedBytes());
+	}
+
+	@Test
+	public void testCopyBufferSizeFollowsTransferLength() {
+		Assert.assertEquals(BufferPool.MIN_COPY_BUFFER_SIZE, BufferPool.copyBufferSize(10));
+		Assert.assertEquals(128 * 1024, BufferPool.copyBufferSize(100 * 1024));
+		Assert.assertEquals(BufferPool.MAX_COPY_BUFFER_SIZE, BufferPool.copyBufferSize(10L * 1024 * 1024 * 1024));
+		Assert.assertEquals("unknown length", BufferPool.MAX_COPY_BUFFER_SIZE, BufferPool.copyBufferSize(-1));
+	}
+
+	@Test
+	public void testCopy() throws Exception {
+		BufferPool pool = new BufferPool(4 * 1024 * 1024);
+		byte[] content = new byte[300001];
+		new Random(1).nextBytes(content);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(content.length, pool.copy(new ByteArrayInputStream(content), out, content.length));
+		Assert.assertArrayEquals(content, out.toByteArray());
+		Assert.assertEquals("copy buffer should go back to the pool",
+				BufferPool.copyBufferSize(content.length), pool.getRetainedBytes());
+
+		out.reset();
+		pool.copy(new ByteArrayInputStream(content), out, content.length);
+		Assert.assertEquals("second copy should reuse the buffer", 1, pool.getAllocations());
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.irods.jargon.webdav.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(60000, 10);
+		cache.put("key", "value");
+		Assert.assertEquals("did not get cached value", "value", cache.get("key"));
+	}
+
+	@Test
+	public void testGetMissing() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(60000, 10);
+		Assert.assertNull("should not find value", cache.get("key"));
+	}
+
+	@Test
+	public void testExpires() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(50, 10);
+		cache.put("key", "value");
+		Thread.sleep(100);
+		Assert.assertNull("value should have expired", cache.get("key"));
+	}
+
+	@Test
+	public void testEntryTtlCappedAtCacheTtl() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(50, 10);
+		cache.put("key", "value", 60000);
+		Thread.sleep(100);
+		Assert.assertNull("value should have expired", cache.get("key"));
+	}
+
+	@Test
+	public void testDisabledWhenZeroTtl() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(0, 10);
+		cache.put("key", "value");
+		Assert.assertFalse("should be disabled", cache.isEnabled());
+		Assert.assertNull("disabled cache should not hold values", cache.get("key"));
+	}
+
+	@Test
+	public void testSizeBounded() throws Exception {
+		ExpiringCache<Integer, String> cache = new ExpiringCache<Integer, String>(60000, 100);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, "value" + i);
+		}
+		Assert.assertTrue("cache grew beyond max size", cache.size() <= 100);
+		Assert.assertEquals("most recent entry should be retained", "value999", cache.get(999));
+	}
+
+	@Test
+	public void testPutIfAbsent() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(60000, 10);
+		Assert.assertEquals("first put should win", "one", cache.putIfAbsent("key", "one"));
+		Assert.assertEquals("existing value should be returned", "one", cache.putIfAbsent("key", "two"));
+	}
+
+	@Test
+	public void testRemoveMatching() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(60000, 10);
+		cache.put("/a/b", "b");
+		cache.put("/a/c", "c");
+		cache.put("/d", "d");
+		cache.removeMatching(new ExpiringCache.KeyFilter<String>() {
+			@Override
+			public boolean accept(final String key) {
+				return key.startsWith("/a/");
+			}
+		});
+		Assert.assertNull("should be removed", cache.get("/a/b"));
+		Assert.assertNull("should be removed", cache.get("/a/c"));
+		Assert.assertEquals("should be retained", "d", cache.get("/d"));
+	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(60000, 10);
+		cache.put("key", "value", 5000);
+		long timeToLive = cache.getTimeToLive("key");
+		Assert.assertTrue("should report time left", timeToLive > 4000 && timeToLive <= 5000);
+		Assert.assertEquals("absent key has none", 0, cache.getTimeToLive("other"));
+	}
+
+}
@@ -0,0 +1,28 @@
+package org.irods.jargon.webdav.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlobMatcherTest {
+
+	@Test
+	public void testMatches() throws Exception {
+		GlobMatcher matcher = new GlobMatcher("._*, .DS_Store,desktop.ini,Thumbs.db,folder.?pg");
+		Assert.assertTrue(matcher.matches("._report.docx"));
+		Assert.assertTrue(matcher.matches(".DS_Store"));
+		Assert.assertTrue("should ignore case", matcher.matches("thumbs.db"));
+		Assert.assertTrue(matcher.matches("folder.jpg"));
+		Assert.assertFalse(matcher.matches("report.docx"));
+		Assert.assertFalse("dot should be literal", matcher.matches("desktopXini"));
+		Assert.assertFalse("should match the whole name", matcher.matches("my.DS_Store.bak"));
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		GlobMatcher matcher = new GlobMatcher(" , ");
+		Assert.assertTrue(matcher.isEmpty());
+		Assert.assertFalse(matcher.matches(".DS_Store"));
+		Assert.assertFalse(new GlobMatcher(null).matches("anything"));
+	}
+
+}
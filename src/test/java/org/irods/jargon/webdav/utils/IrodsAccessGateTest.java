@@ -0,0 +1,28 @@
+package org.irods.jargon.webdav.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IrodsAccessGateTest {
+
+	@Test
+	public void testOpenGateNeverBlocks() throws Exception {
+		IrodsAccessGate gate = new IrodsAccessGate(0);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue("open gate should admit", gate.acquire(0));
+		}
+		Assert.assertEquals("open gate tracks nothing", 0, gate.getActive());
+	}
+
+	@Test
+	public void testLimitEnforced() throws Exception {
+		IrodsAccessGate gate = new IrodsAccessGate(2);
+		Assert.assertTrue("first should be admitted", gate.acquire(0));
+		Assert.assertTrue("second should be admitted", gate.acquire(0));
+		Assert.assertFalse("third should time out", gate.acquire(10));
+		Assert.assertEquals("wrong active count", 2, gate.getActive());
+		gate.release();
+		Assert.assertTrue("slot should be free after release", gate.acquire(0));
+	}
+
+}